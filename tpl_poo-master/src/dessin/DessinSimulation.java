@@ -1,6 +1,7 @@
 package dessin;
 
 import java.awt.Color;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -97,7 +98,7 @@ public class DessinSimulation implements Dessinateur {
 
 		for (int lig = 0; lig < nbLignes; lig++) {
 			for (int col = 0; col < nbColonnes; col++) {
-				NatureTerrain natureTerrain = carte.getCase(lig, col).getNature();
+				NatureTerrain natureTerrain = carte.getNature(lig, col);
 				Representation representation = new RepresentationRectangle(colorMap.get(natureTerrain),
 						colorMap.get(natureTerrain), tailleCase);
 				gui.addGraphicalElement(representation.toGraphicalElement(col, lig, tailleCase));
@@ -110,7 +111,7 @@ public class DessinSimulation implements Dessinateur {
 	 * 
 	 * @param incendies incendies de la simulation
 	 */
-	private void drawIncendies(List<Incendie> incendies) {
+	private void drawIncendies(Collection<Incendie> incendies) {
 		for (Incendie incendie : incendies) {
 			gui.addGraphicalElement(incendie.getGraphicalElement(tailleCase));
 		}
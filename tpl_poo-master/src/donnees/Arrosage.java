@@ -0,0 +1,201 @@
+package donnees;
+
+import java.io.IOException;
+
+import donnees.evenements.ExtinctionIncendie;
+import donnees.robots.Robot;
+import donnees.simulation.Duplicable;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegardable;
+import donnees.simulation.Sauvegarde;
+import donnees.simulation.Simulateur;
+
+/**
+ * Arrosage continu d'un incendie par un robot : le robot déverse son
+ * intervention unitaire à intervalles réguliers, jusqu'à ce que l'incendie soit
+ * éteint ou que son réservoir soit vide.
+ *
+ * Seule la dernière intervention est planifiée dans le simulateur, sous la
+ * forme d'un {@link ExtinctionIncendie}. Les interventions précédentes ne sont
+ * appliquées à l'incendie et au réservoir que lorsqu'on les observe, c'est-à-dire
+ * quand on consulte l'intensité de l'incendie ou le réservoir du robot. Toute
+ * autre modification de l'intensité de l'incendie (expansion d'un incendie
+ * voisin, intervention d'un autre robot) entraîne le recalcul de la date de la
+ * dernière intervention.
+ */
+public class Arrosage implements Duplicable, Sauvegardable {
+	/**
+	 * Le simulateur, qui donne la date actuelle
+	 */
+	private final Simulateur simulateur;
+	/**
+	 * Le robot qui arrose
+	 */
+	private final Robot robot;
+	/**
+	 * L'incendie arrosé
+	 */
+	private final Incendie incendie;
+	/**
+	 * Date de la dernière intervention appliquée, ou du début de l'arrosage
+	 */
+	private long dateDerniere;
+	/**
+	 * Nombre d'interventions restantes, la dernière comprise
+	 */
+	private int nbRestantes;
+	/**
+	 * L'évènement de la dernière intervention, construit au premier calcul puis
+	 * déplacé à chaque replanification
+	 */
+	private ExtinctionIncendie evenement;
+
+	/**
+	 * Commence l'arrosage d'un incendie par un robot, à la date actuelle du
+	 * simulateur
+	 *
+	 * @param simulateur le simulateur
+	 * @param robot      le robot, situé sur l'incendie et dont le réservoir n'est
+	 *                   pas vide
+	 * @param incendie   l'incendie à arroser
+	 */
+	public Arrosage(Simulateur simulateur, Robot robot, Incendie incendie) {
+		this.simulateur = simulateur;
+		this.robot = robot;
+		this.incendie = incendie;
+		this.dateDerniere = simulateur.getDate();
+		this.nbRestantes = calculerNbRestantes();
+		incendie.setArrosage(this);
+	}
+
+	/**
+	 * Construit la copie d'un arrosage en cours dans une duplication, rattachée au
+	 * simulateur construit
+	 *
+	 * @param arrosage l'arrosage à copier
+	 * @param d        la duplication en cours
+	 */
+	private Arrosage(Arrosage arrosage, Duplication d) {
+		d.enregistrer(arrosage, this);
+		this.simulateur = d.getSimulateur();
+		this.dateDerniere = arrosage.dateDerniere;
+		this.nbRestantes = arrosage.nbRestantes;
+		this.robot = d.copie(arrosage.robot);
+		this.incendie = d.copie(arrosage.incendie);
+		this.evenement = d.copie(arrosage.evenement);
+	}
+
+	/**
+	 * Relit un arrosage en cours dans une reprise, rattaché au simulateur repris
+	 *
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private Arrosage(Reprise r) throws IOException {
+		r.enregistrer(this);
+		this.simulateur = r.getSimulateur();
+		this.dateDerniere = r.lireLong();
+		this.nbRestantes = r.lireInt();
+		this.robot = r.lireReference();
+		this.incendie = r.lireReference();
+		this.evenement = r.lireReference();
+	}
+
+	@Override
+	public Arrosage dupliquer(Duplication d) {
+		return new Arrosage(this, d);
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireLong(dateDerniere);
+		s.ecrireInt(nbRestantes);
+		s.ecrireReference(robot);
+		s.ecrireReference(incendie);
+		s.ecrireReference(evenement);
+	}
+
+	/**
+	 * @return le robot qui arrose
+	 */
+	public Robot getRobot() {
+		return robot;
+	}
+
+	/**
+	 * @return l'évènement correspondant à la dernière intervention de l'arrosage,
+	 *         toujours le même pour un arrosage donné
+	 */
+	public ExtinctionIncendie calculerEvenement() {
+		long date = dateDerniere + nbRestantes * (long) robot.getTempsIntervention();
+		if (evenement == null)
+			evenement = new ExtinctionIncendie(date, this, robot, incendie);
+		else
+			evenement.reporter(date);
+		return evenement;
+	}
+
+	/**
+	 * Applique à l'incendie et au réservoir du robot les interventions ayant eu
+	 * lieu strictement avant la date actuelle, sauf la dernière qui sera effectuée
+	 * par l'évènement planifié
+	 */
+	public void materialiser() {
+		long date = simulateur.getDate();
+		if (date <= dateDerniere)
+			return;
+		long periode = robot.getTempsIntervention();
+		int nb = (int) Math.min(nbRestantes - 1, (date - dateDerniere - 1) / periode);
+		if (nb <= 0)
+			return;
+
+		// On met a jour l'arrosage avant de toucher a l'incendie et au reservoir, qui
+		// pourraient nous redemander de nous materialiser
+		dateDerniere += nb * periode;
+		nbRestantes -= nb;
+		// Toutes les interventions avant la derniere deversent leur volume complet
+		int volume = nb * robot.getQuantiteIntervention();
+		incendie.arroser(volume);
+		robot.getReservoir().vider(volume);
+	}
+
+	/**
+	 * Prend en compte une modification de l'intensité de l'incendie extérieure à
+	 * l'arrosage, en replanifiant la dernière intervention si besoin
+	 */
+	public void replanifier() {
+		materialiser();
+		int nb = calculerNbRestantes();
+		if (nb == nbRestantes)
+			return;
+		nbRestantes = nb;
+		simulateur.planifierEvenementRobot(robot, calculerEvenement());
+	}
+
+	/**
+	 * Termine l'arrosage avant sa dernière intervention, qui est effectuée
+	 * normalement par l'évènement
+	 */
+	public void terminer() {
+		materialiser();
+		incendie.setArrosage(null);
+		robot.setArrosage(null);
+	}
+
+	/**
+	 * Méthode interne calculant le nombre d'interventions nécessaires pour éteindre
+	 * l'incendie ou vider le réservoir. Il y en a toujours au moins une, qui
+	 * constate l'extinction si l'incendie a été éteint par ailleurs.
+	 *
+	 * @return le nombre d'interventions restantes
+	 */
+	private int calculerNbRestantes() {
+		Reservoir reservoir = robot.getReservoir();
+		long volume = reservoir.getCapacite() == Reservoir.CAPACITE_INFINIE ? Long.MAX_VALUE
+				: reservoir.getVolumeActuel();
+		volume = Math.min(volume, incendie.getIntensite());
+		int quantite = robot.getQuantiteIntervention();
+		return (int) Math.max(1, (volume + quantite - 1) / quantite);
+	}
+}
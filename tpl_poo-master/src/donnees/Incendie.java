@@ -2,10 +2,17 @@ package donnees;
 
 import java.awt.Color;
 
-import java.util.List;
+import java.io.IOException;
 
 import dessin.RepresentationOval;
+import donnees.simulation.Duplicable;
+import donnees.simulation.Duplication;
+import donnees.simulation.EvenementPlanifie;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegardable;
+import donnees.simulation.Sauvegarde;
 import donnees.simulation.Simulateur;
+import donnees.terrain.Carte;
 import donnees.terrain.Case;
 import donnees.terrain.NatureTerrain;
 import gui.GraphicalElement;
@@ -13,7 +20,7 @@ import gui.GraphicalElement;
 /**
  * Classe représentant un incendie dans la simulation
  */
-public class Incendie implements Comparable<Incendie> {
+public class Incendie implements Comparable<Incendie>, Duplicable, Sauvegardable {
 	/**
 	 * Position de l'incendie
 	 */
@@ -22,10 +29,23 @@ public class Incendie implements Comparable<Incendie> {
 	 * Intensité actuelle de l'incendie, qui représente le nombre de litres qu'il faut lui appliquer pour l'éteindre
 	 */
 	private int intensite;
+	/**
+	 * Poignée sur la prochaine expansion prévue de l'incendie
+	 */
+	private EvenementPlanifie expansionPrevue;
+	/**
+	 * L'arrosage en cours de l'incendie par un robot, ou null
+	 */
+	private Arrosage arrosage;
 	/**
 	 * Intensité maximale d'un incendie
 	 */
-	private final static int MAX_INTENSITE = 300000;
+	public final static int MAX_INTENSITE = 300000;
+	/**
+	 * Vitesse de propagation d'un incendie d'intensité 10 en forêt, en mètres par
+	 * seconde
+	 */
+	private final static double VITESSE_PROPAGATION_BASE = 0.1;
 
 	/**
 	 * Construit un incendie à partir de ses paramètres
@@ -34,7 +54,7 @@ public class Incendie implements Comparable<Incendie> {
 	 * @throws IllegalArgumentException si la nature de la case à la position donnée ne permet pas un incendie
 	 */
 	public Incendie(Case position, int volumeEau) throws IllegalArgumentException {
-		if (position.getNature() == NatureTerrain.EAU || position.getNature() == NatureTerrain.ROCHE)
+		if (!peutBruler(position))
 			throw new IllegalArgumentException("Un incendie ne peut pas se déclarer sur de l'eau ou de la roche");
 		
 		this.position = position;
@@ -46,7 +66,56 @@ public class Incendie implements Comparable<Incendie> {
 	 * @param incendie l'incendie à copier
 	 */
 	public Incendie(Incendie incendie) {
-		this(incendie.position, incendie.intensite);
+		this(incendie.getPosition(), incendie.getIntensite());
+	}
+
+	/**
+	 * Constructeur permettant aux classes dérivées de ne donner que la position,
+	 * leur état étant conservé ailleurs
+	 * @param position position de l'incendie
+	 */
+	protected Incendie(Case position) {
+		this.position = position;
+	}
+
+	/**
+	 * Construit la copie d'un incendie dans une duplication, avec son intensité
+	 * telle quelle, sans matérialiser son arrosage en cours
+	 * @param incendie l'incendie à copier
+	 * @param d la duplication en cours
+	 */
+	protected Incendie(Incendie incendie, Duplication d) {
+		this(incendie.position);
+		d.enregistrer(incendie, this);
+		this.intensite = incendie.intensite;
+		this.expansionPrevue = d.copie(incendie.expansionPrevue);
+		this.arrosage = d.copie(incendie.arrosage);
+	}
+
+	/**
+	 * Relit un incendie dans une reprise, avec son intensité telle quelle
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	protected Incendie(Reprise r) throws IOException {
+		this(r.lireCase());
+		r.enregistrer(this);
+		this.intensite = r.lireInt();
+		this.expansionPrevue = r.lireReference();
+		this.arrosage = r.lireReference();
+	}
+
+	@Override
+	public Incendie dupliquer(Duplication d) {
+		return new Incendie(this, d);
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireCase(position);
+		s.ecrireInt(intensite);
+		s.ecrireReference(expansionPrevue);
+		s.ecrireReference(arrosage);
 	}
 
 	/**
@@ -65,18 +134,65 @@ public class Incendie implements Comparable<Incendie> {
 	}
 
 	/**
-	 * @return l'intensité courante de l'incendie
+	 * @return la poignée sur la prochaine expansion prévue de l'incendie, ou null
+	 *         si aucune expansion n'a été planifiée
+	 */
+	public EvenementPlanifie getExpansionPrevue() {
+		return expansionPrevue;
+	}
+
+	/**
+	 * Définit la prochaine expansion prévue de l'incendie
+	 * @param expansionPrevue la poignée sur l'évènement d'expansion
+	 */
+	public void setExpansionPrevue(EvenementPlanifie expansionPrevue) {
+		this.expansionPrevue = expansionPrevue;
+	}
+
+	/**
+	 * @return l'arrosage en cours de l'incendie, ou null si aucun robot ne
+	 *         l'arrose
+	 */
+	public Arrosage getArrosage() {
+		return arrosage;
+	}
+
+	/**
+	 * Définit l'arrosage en cours de l'incendie
+	 * @param arrosage l'arrosage, ou null s'il est terminé
+	 */
+	public void setArrosage(Arrosage arrosage) {
+		this.arrosage = arrosage;
+	}
+
+	/**
+	 * @return l'intensité courante de l'incendie, en tenant compte de l'arrosage
+	 *         en cours
 	 */
 	public int getIntensite() {
+		if (arrosage != null)
+			arrosage.materialiser();
 		return intensite;
 	}
 	
 	/**
-	 * Définit l'intensité courante de l'incendie
+	 * Définit l'intensité courante de l'incendie. Si l'incendie est en cours
+	 * d'arrosage, la fin de l'arrosage est recalculée
 	 * @param intensite nouvelle intensité
 	 */
 	public void setIntensite(int intensite) {
 		this.intensite = Math.min(MAX_INTENSITE, intensite);
+		if (arrosage != null)
+			arrosage.replanifier();
+	}
+
+	/**
+	 * Diminue l'intensité de l'incendie du volume d'eau déversé par son arrosage
+	 * en cours
+	 * @param volume le volume d'eau, en litres
+	 */
+	public void arroser(int volume) {
+		this.intensite = Math.max(0, intensite - volume);
 	}
 
 	/** 
@@ -86,7 +202,7 @@ public class Incendie implements Comparable<Incendie> {
 	 */
 	public GraphicalElement getGraphicalElement(int tailleCase) {
 		int maxIntensite = 100000, minTaille = 3, maxTaille = tailleCase;
-		int tailleIncendie = (int) (intensite /(double) maxIntensite * tailleCase);
+		int tailleIncendie = (int) (getIntensite() /(double) maxIntensite * tailleCase);
 			
 		// La taille de l'incendie depend de son intensite et on s'assure qu'elle est dans un intervalle donne
 		if (tailleIncendie > maxTaille)
@@ -95,7 +211,7 @@ public class Incendie implements Comparable<Incendie> {
 			tailleIncendie = minTaille;
 		
 		return (new RepresentationOval(Color.YELLOW, Color.RED, tailleIncendie))
-				.toGraphicalElement(position.getColonne(), position.getLigne(), tailleCase);
+				.toGraphicalElement(getPosition().getColonne(), getPosition().getLigne(), tailleCase);
 	}
 	
 	/**
@@ -105,23 +221,42 @@ public class Incendie implements Comparable<Incendie> {
 	 * @param simulateur le simulateur
 	 */
 	public void propager(Simulateur simulateur)
+	{
+		propager(simulateur, null);
+	}
+
+	/**
+	 * Propage l'incendie aux cases voisines comme {@link #propager(Simulateur)},
+	 * en partageant la recherche des incendies voisins avec les autres incendies
+	 * d'un lot d'expansions
+	 * @param simulateur le simulateur
+	 * @param voisinage la recherche partagée par le lot, ou null pour rechercher directement les incendies voisins
+	 */
+	public void propager(Simulateur simulateur, VoisinageLot voisinage)
 	{
 		// On propage 50% de l'intensite, partage entre les voisins
-		List<Case> voisins = position.getVoisines(simulateur.getDonneeSimulation().getCarte());
-		int intensitePropagee = intensite / (2 * voisins.size()); 
+		Carte carte = simulateur.getDonneeSimulation().getCarte();
+		int cellule = carte.getCellule(getPosition());
+		int intensitePropagee = getIntensite() / (2 * carte.getNbVoisines(cellule)); 
 		if (intensitePropagee <= 0)
 			return;
 		
-		for (Case voisine : voisins)
+		for (int d = 0; d < Carte.NB_DIRECTIONS; d++)
 		{
+			int indice = carte.getVoisine(cellule, d);
+			if (indice == Carte.HORS_CARTE)
+				continue;
+			Case voisine = carte.getCase(indice);
 			// Si les cases sont de l'eau ou de la roche l'incendie ne s'y propage pas
-			if (voisine.getNature() != NatureTerrain.EAU && voisine.getNature() != NatureTerrain.ROCHE)
+			if (peutBruler(voisine))
 			{
 				// On ajoute l'intensite a un incendie existant, ou alors on ajoute un incendie dans la simulation
-				Incendie incendieVoisin = simulateur.getDonneeSimulation().getSingleIncendie(voisine);
+				Incendie incendieVoisin = voisinage != null ? voisinage.getIncendie(indice, voisine)
+						: simulateur.getDonneeSimulation().getSingleIncendie(voisine);
 				if (incendieVoisin != null)
-					// L'intensite propagee est reduite si un incendie existe deja
-					incendieVoisin.setIntensite(incendieVoisin.getIntensite() + intensitePropagee / 4);
+					incendieVoisin.recevoirPropagation(intensitePropagee, voisine);
+				else if (voisinage != null)
+					voisinage.ajouterIncendie(simulateur, indice, new Incendie(voisine, intensitePropagee));
 				else
 					simulateur.ajouterIncendie(new Incendie(voisine, intensitePropagee));
 			}
@@ -129,14 +264,56 @@ public class Incendie implements Comparable<Incendie> {
 		} 
 	}
 	
+	/**
+	 * Ajoute à l'incendie l'intensité propagée par un incendie voisin. Celle-ci est
+	 * réduite puisque la case brûle déjà
+	 * @param intensitePropagee l'intensité propagée par le voisin
+	 */
+	public void recevoirPropagation(int intensitePropagee)
+	{
+		setIntensite(getIntensite() + intensitePropagee / 4);
+	}
+
+	/**
+	 * Ajoute à l'incendie l'intensité propagée par un incendie voisin sur une de
+	 * ses cases, comme {@link #recevoirPropagation(int)} pour un incendie d'une
+	 * seule case
+	 * @param intensitePropagee l'intensité propagée par le voisin
+	 * @param c la case de l'incendie qui reçoit la propagation
+	 */
+	public void recevoirPropagation(int intensitePropagee, Case c)
+	{
+		recevoirPropagation(intensitePropagee);
+	}
+
 	/**
 	 * Retourne le temps nécessaire à la propagation de cet incendie
 	 * @param tailleCase taille d'une case en mètres
 	 * @return le temps de la prochaine propagation
 	 */
 	public int getTempsPropagation(int tailleCase) {
+		return getTempsPropagation(getPosition().getNature(), getIntensite(), tailleCase);
+	}
+
+	/**
+	 * @param c une case
+	 * @return vrai si un incendie peut se déclarer ou se propager sur la case
+	 */
+	public static boolean peutBruler(Case c) {
+		return c.getNature() != NatureTerrain.EAU && c.getNature() != NatureTerrain.ROCHE;
+	}
+
+	/**
+	 * Retourne le temps nécessaire à la propagation d'un incendie d'intensité
+	 * donnée sur un terrain donné
+	 * @param nature la nature du terrain en feu
+	 * @param intensite l'intensité de l'incendie
+	 * @param tailleCase taille d'une case en mètres
+	 * @return le temps de la prochaine propagation
+	 */
+	public static int getTempsPropagation(NatureTerrain nature, int intensite, int tailleCase) {
 		double coeff = 0;
-		switch(position.getNature())
+		switch(nature)
 		{
 		case FORET:
 			coeff = 1;
@@ -150,16 +327,24 @@ public class Incendie implements Comparable<Incendie> {
 		default: //Impossible d'etre la normalement
 		return -1;
 		}
-		// En metre par secondes, pour une intensite de 10
-		double vitesseBase =  0.1;
 		// La vitesse de propgation evolue avec le log de son intensite
-		double vitessePropagation = coeff * vitesseBase * Math.log10(intensite);
+		double vitessePropagation = coeff * VITESSE_PROPAGATION_BASE * Math.log10(intensite);
 		return (int) (tailleCase / vitessePropagation);
 	}
+
+	/**
+	 * Retourne le plus petit temps de propagation possible, celui d'un incendie
+	 * d'intensité maximale en forêt
+	 * @param tailleCase taille d'une case en mètres
+	 * @return le temps de propagation minimal
+	 */
+	public static int getTempsPropagationMin(int tailleCase) {
+		return (int) (tailleCase / (VITESSE_PROPAGATION_BASE * Math.log10(MAX_INTENSITE)));
+	}
 	
 	@Override
 	public int compareTo(Incendie other) {
-		return intensite - other.intensite;
+		return getIntensite() - other.getIntensite();
 	}
 
 }
@@ -49,6 +49,24 @@ public class Reservoir {
 		return volume;
 	}	
 	
+	/**
+	 * Remet le réservoir dans l'état d'un autre réservoir de même capacité
+	 * @param reservoir le réservoir dont on reprend le volume
+	 */
+	public void recopier(Reservoir reservoir)
+	{
+		this.volumeActuel = reservoir.volumeActuel;
+	}
+
+	/**
+	 * Remet le réservoir à un volume donné, lors de la reprise d'une simulation
+	 * @param volumeActuel le volume du réservoir, en litres
+	 */
+	public void setVolumeActuel(int volumeActuel)
+	{
+		this.volumeActuel = volumeActuel;
+	}
+
 	/**
 	 * Remplit entièrement le réservoir
 	 */
@@ -0,0 +1,150 @@
+package donnees;
+
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.Simulateur;
+import donnees.terrain.Case;
+
+/**
+ * Recherche des incendies voisins partagée par les incendies d'un même lot
+ * d'expansions : l'incendie d'une case n'est recherché qu'une fois pour tout le
+ * lot, même si plusieurs incendies du lot se propagent sur cette case. Les
+ * incendies du lot sont connus d'avance sur leurs propres cases.
+ *
+ * Une case résolue le reste tant que le lot ne change pas l'incendie qui s'y
+ * trouve : les incendies propagés sur une case libre sont ajoutés par
+ * {@link #ajouterIncendie(Simulateur, int, Incendie)}, qui actualise la case,
+ * et tout doit être {@link #oublier() oublié} après une propagation qui ne
+ * passe pas par la recherche partagée. Une classe dérivée peut ajouter
+ * autrement ces incendies, pour étendre un lot à l'écart de la simulation.
+ */
+public class VoisinageLot {
+	/**
+	 * Les données de la simulation
+	 */
+	private final DonneeSimulation donnees;
+	/**
+	 * Les numéros des cases résolues, rangés par adressage ouvert
+	 */
+	private final int[] cellules;
+	/**
+	 * La génération de chaque place de la table : une place d'une génération
+	 * passée est libre
+	 */
+	private final int[] generations;
+	/**
+	 * L'incendie de chaque case résolue, ou null s'il n'y en a pas
+	 */
+	private final Incendie[] incendies;
+	/**
+	 * Le masque ramenant une place dans la table
+	 */
+	private final int masque;
+	/**
+	 * Le décalage donnant la place de départ d'une case à partir de son numéro
+	 * mélangé
+	 */
+	private final int decalage;
+	/**
+	 * La génération actuelle, changée pour oublier les cases résolues
+	 */
+	private int generation = 1;
+
+	/**
+	 * Prépare la recherche pour un lot d'incendies
+	 *
+	 * @param donnees     les données de la simulation
+	 * @param nbIncendies le nombre d'incendies du lot
+	 */
+	public VoisinageLot(DonneeSimulation donnees, int nbIncendies) {
+		this.donnees = donnees;
+		// Chaque incendie resout au plus sa case et ses quatre voisines, la table
+		// reste a moitie vide
+		int capacite = Integer.highestOneBit(Math.max(16, 10 * nbIncendies) - 1) << 1;
+		this.cellules = new int[capacite];
+		this.generations = new int[capacite];
+		this.incendies = new Incendie[capacite];
+		this.masque = capacite - 1;
+		this.decalage = Integer.numberOfLeadingZeros(capacite) + 1;
+	}
+
+	/**
+	 * Enregistre un incendie du lot sur sa propre case, qui n'aura pas à être
+	 * recherchée
+	 *
+	 * @param cellule  le numéro de la case de l'incendie
+	 * @param incendie l'incendie
+	 */
+	public void connaitre(int cellule, Incendie incendie) {
+		incendies[placer(cellule)] = incendie;
+	}
+
+	/**
+	 * Retourne l'incendie d'une case, recherché dans les données à la première
+	 * demande du lot seulement
+	 *
+	 * @param cellule le numéro de la case
+	 * @param c       la case
+	 * @return l'incendie de la case, ou null s'il n'y en a pas
+	 */
+	public Incendie getIncendie(int cellule, Case c) {
+		int i = depart(cellule);
+		while (generations[i] == generation) {
+			if (cellules[i] == cellule)
+				return incendies[i];
+			i = (i + 1) & masque;
+		}
+		cellules[i] = cellule;
+		generations[i] = generation;
+		return incendies[i] = donnees.getSingleIncendie(c);
+	}
+
+	/**
+	 * Ajoute à la simulation un incendie propagé sur une case du voisinage sans
+	 * incendie, puis recherche à nouveau l'incendie de la case : le nouvel
+	 * incendie a pu rejoindre une zone voisine
+	 *
+	 * @param simulateur le simulateur
+	 * @param cellule    le numéro de la case
+	 * @param incendie   le nouvel incendie
+	 */
+	public void ajouterIncendie(Simulateur simulateur, int cellule, Incendie incendie) {
+		simulateur.ajouterIncendie(incendie);
+		incendies[placer(cellule)] = donnees.getSingleIncendie(incendie.getPosition());
+	}
+
+	/**
+	 * Oublie toutes les cases résolues, après une propagation qui a pu modifier
+	 * les incendies de cases quelconques
+	 */
+	public void oublier() {
+		generation++;
+	}
+
+	/**
+	 * Méthode interne retournant la place d'une case dans la table, qui lui est
+	 * réservée si elle n'y était pas
+	 *
+	 * @param cellule le numéro de la case
+	 * @return sa place
+	 */
+	private int placer(int cellule) {
+		int i = depart(cellule);
+		while (generations[i] == generation && cellules[i] != cellule)
+			i = (i + 1) & masque;
+		cellules[i] = cellule;
+		generations[i] = generation;
+		return i;
+	}
+
+	/**
+	 * Méthode interne retournant la place de départ d'une case dans la table.
+	 * Les numéros des cases d'une même ligne se suivent, ils sont mélangés pour
+	 * ne pas former de longues suites de places occupées
+	 *
+	 * @param cellule le numéro de la case
+	 * @return sa place de départ
+	 */
+	private int depart(int cellule) {
+		return (cellule * 0x9E3779B9) >>> decalage;
+	}
+}
@@ -1,9 +1,16 @@
 package donnees.evenements;
 
+import java.io.IOException;
+
 import donnees.robots.Robot;
 import donnees.simulation.DonneeSimulation;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegarde;
 import donnees.simulation.Simulateur;
+import donnees.terrain.Case;
 import donnees.terrain.Direction;
+import donnees.terrain.NatureTerrain;
 
 /**
  * Évènement représentant le déplacement d'un robot pompier
@@ -31,6 +38,29 @@ public class DeplacementRobot extends Evenement {
 		this.robot = r;
 		this.direction = dir;
 	}
+
+	/**
+	 * Construit la copie de l'évènement dans une duplication
+	 * @param deplacement l'évènement à copier
+	 * @param d la duplication en cours
+	 */
+	private DeplacementRobot(DeplacementRobot deplacement, Duplication d) {
+		super(deplacement.getDate());
+		d.enregistrer(deplacement, this);
+		this.robot = d.copie(deplacement.robot);
+		this.direction = deplacement.direction;
+	}
+
+	/**
+	 * Relit l'évènement dans une reprise
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private DeplacementRobot(Reprise r) throws IOException {
+		super(r);
+		this.robot = r.lireReference();
+		this.direction = Direction.values()[r.lireOctet()];
+	}
 	
 	/**
 	 * Permet de créer un évènement de déplacement en calculant le temps nécessaire à sa réalisation
@@ -41,10 +71,50 @@ public class DeplacementRobot extends Evenement {
 	 * @return Un évènement de type {@link DeplacementRobot} correctement construit
 	 */
 	public static DeplacementRobot calculer(long dateActuelle, DonneeSimulation donnee, Robot r, Direction dir)
+	{
+		return new DeplacementRobot(dateActuelle + calculerDuree(donnee, r, r.getPosition()), r, dir);
+	}
+
+	/**
+	 * Calcule le temps nécessaire à un robot pour quitter une case vers sa voisine
+	 * @param donnee données de la simulation
+	 * @param r robot concerné par le déplacement
+	 * @param depart case que quitte le robot
+	 * @return la durée du déplacement, en secondes
+	 */
+	public static long calculerDuree(DonneeSimulation donnee, Robot r, Case depart)
 	{
 		//TODO: que faire si ça tombe pas juste ??
-		long temps = (long) Math.round(donnee.getCarte().getTailleCase() / r.getVitesse(r.getPosition().getNature()));
-		return new DeplacementRobot(dateActuelle + temps, r, dir);
+		return Math.round(donnee.getCarte().getTailleCase() / r.getVitesse(depart.getNature()));
+	}
+
+	/**
+	 * Calcule le plus petit temps nécessaire à un robot pour passer d'une case à sa
+	 * voisine, sur le terrain où il est le plus rapide
+	 * @param tailleCase taille d'une case en mètres
+	 * @param r robot concerné
+	 * @return la durée minimale d'un déplacement, en secondes, ou Long.MAX_VALUE si
+	 *         le robot ne peut se déplacer nulle part
+	 */
+	public static long calculerDureeMin(int tailleCase, Robot r)
+	{
+		long dureeMin = Long.MAX_VALUE;
+		for (NatureTerrain nature : NatureTerrain.values())
+			if (r.getVitesse(nature) != 0)
+				dureeMin = Math.min(dureeMin, Math.round(tailleCase / r.getVitesse(nature)));
+		return dureeMin;
+	}
+
+	@Override
+	public DeplacementRobot dupliquer(Duplication d) {
+		return new DeplacementRobot(this, d);
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		super.sauvegarder(s);
+		s.ecrireReference(robot);
+		s.ecrireOctet(direction.ordinal());
 	}
 
 	@Override
@@ -1,5 +1,14 @@
 package donnees.evenements;
 
+import java.io.IOException;
+import java.util.List;
+
+import donnees.Incendie;
+import donnees.simulation.Duplicable;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegardable;
+import donnees.simulation.Sauvegarde;
 import donnees.simulation.Simulateur;
 
 /**
@@ -7,7 +16,7 @@ import donnees.simulation.Simulateur;
  * de base du simulateur, qui représente un changement d'état du simulateur
  * Chaque évènement possède une date d'écheance
  */
-public abstract class Evenement {
+public abstract class Evenement implements Duplicable, Sauvegardable {
 
 	/**
 	 * Date à laquelle l'évènement sera effectif
@@ -21,6 +30,18 @@ public abstract class Evenement {
 		this.date = date;
 	}
 
+	/**
+	 * Relit un évènement dans une reprise, utilisé par les classes dérivées qui
+	 * lisent ensuite leurs propres champs. L'évènement y est enregistré
+	 * 
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	protected Evenement(Reprise r) throws IOException {
+		this.date = r.lireLong();
+		r.enregistrer(this);
+	}
+
 	/**
 	 * Permet d'accéder à la date de l'évènement
 	 * 
@@ -30,6 +51,40 @@ public abstract class Evenement {
 		return date;
 	}
 
+	/**
+	 * Modifie la date de l'évènement, pour le réutiliser une fois exécuté au lieu
+	 * d'en construire un nouveau. L'évènement ne doit pas être en attente dans une
+	 * file à ce moment-là, sauf dans un créneau qu'on s'apprête à replanifier
+	 * 
+	 * @param date nouvelle date de l'évènement, en secondes
+	 */
+	protected void setDate(long date) {
+		this.date = date;
+	}
+
+	/**
+	 * Donne les incendies dont l'évènement exécute l'expansion, si son exécution
+	 * se résume, après {@link #commencerExpansions(Simulateur)}, à étendre dans
+	 * l'ordre chacun de ces incendies encore allumé puis à replanifier son
+	 * expansion. Le simulateur peut alors étendre lui-même ces incendies, en
+	 * parallèle de ceux des autres évènements de même date.
+	 * 
+	 * @return les incendies étendus, ou null par défaut
+	 */
+	public List<Incendie> getExpansions() {
+		return null;
+	}
+
+	/**
+	 * Commence l'exécution d'un évènement qui se résume à des
+	 * {@link #getExpansions() expansions}, avant celles-ci. Par défaut, ne fait
+	 * rien
+	 * 
+	 * @param simulateur le simulateur courant
+	 */
+	public void commencerExpansions(Simulateur simulateur) {
+	}
+
 	/**
 	 * Execute l'évènement dans le simulateur
 	 * 
@@ -37,4 +92,31 @@ public abstract class Evenement {
 	 */
 	public abstract void executer(Simulateur simulateur);
 
+	/**
+	 * Construit la copie de l'évènement dans une duplication, à la même date, en
+	 * reportant ses références sur les copies des robots et incendies concernés.
+	 * Par défaut, l'évènement ne peut pas être dupliqué
+	 * 
+	 * @param d la duplication en cours
+	 * @return la copie de l'évènement
+	 * @throws UnsupportedOperationException si l'évènement ne sait pas se copier
+	 */
+	@Override
+	public Evenement dupliquer(Duplication d) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("L'évènement " + getClass().getSimpleName() + " ne peut pas être dupliqué");
+	}
+
+	/**
+	 * Écrit la date de l'évènement dans une sauvegarde. Les classes dérivées y
+	 * ajoutent leurs propres champs, et doivent avoir un constructeur de reprise
+	 * pour pouvoir être relues
+	 * 
+	 * @param s la sauvegarde en cours
+	 * @throws IOException si l'écriture échoue
+	 */
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireLong(date);
+	}
+
 }
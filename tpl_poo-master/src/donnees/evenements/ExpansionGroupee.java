@@ -0,0 +1,125 @@
+package donnees.evenements;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import donnees.Incendie;
+import donnees.VoisinageLot;
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegarde;
+import donnees.simulation.Simulateur;
+import donnees.simulation.ZoneIncendie;
+import donnees.terrain.Carte;
+
+/**
+ * Évènement représentant les expansions de tous les incendies prévues à une
+ * même date, à la place d'un {@link ExpansionIncendie} par incendie. Les
+ * incendies sont ajoutés dans l'ordre où leurs expansions auraient été
+ * planifiées, et s'étendent dans cet ordre.
+ */
+public class ExpansionGroupee extends Evenement {
+
+	/**
+	 * Les incendies qui s'étendent
+	 */
+	private final List<Incendie> incendies;
+
+	/**
+	 * Contruit l'évènement, sans incendie
+	 * @param date la date effective
+	 */
+	public ExpansionGroupee(long date) {
+		super(date);
+		this.incendies = new ArrayList<>();
+	}
+
+	/**
+	 * Construit la copie d'un regroupement dans une duplication, avec les copies
+	 * de ses incendies
+	 * @param groupe le regroupement à copier
+	 * @param d la duplication en cours
+	 */
+	private ExpansionGroupee(ExpansionGroupee groupe, Duplication d) {
+		super(groupe.getDate());
+		d.enregistrer(groupe, this);
+		this.incendies = new ArrayList<>(groupe.incendies.size());
+		for (Incendie incendie : groupe.incendies)
+			incendies.add(d.copie(incendie));
+	}
+
+	/**
+	 * Relit un regroupement dans une reprise
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private ExpansionGroupee(Reprise r) throws IOException {
+		super(r);
+		int nbIncendies = r.lireInt();
+		this.incendies = new ArrayList<>(nbIncendies);
+		for (int i = 0; i < nbIncendies; i++)
+			incendies.add(r.lireReference());
+	}
+
+	/**
+	 * Ajoute un incendie qui s'étendra à la date de l'évènement
+	 * @param incendie l'incendie
+	 */
+	public void ajouter(Incendie incendie) {
+		incendies.add(incendie);
+	}
+
+	/**
+	 * @return le nombre d'incendies qui s'étendent
+	 */
+	public int getNbIncendies() {
+		return incendies.size();
+	}
+
+	@Override
+	public ExpansionGroupee dupliquer(Duplication d) {
+		return new ExpansionGroupee(this, d);
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		super.sauvegarder(s);
+		s.ecrireInt(incendies.size());
+		for (Incendie incendie : incendies)
+			s.ecrireReference(incendie);
+	}
+
+	@Override
+	public List<Incendie> getExpansions() {
+		return incendies;
+	}
+
+	@Override
+	public void commencerExpansions(Simulateur simulateur) {
+		// Les incendies planifies desormais a cette date le seront dans un autre groupe
+		simulateur.fermerExpansionGroupee(getDate());
+	}
+
+	@Override
+	public void executer(Simulateur simulateur) {
+		commencerExpansions(simulateur);
+		// Les incendies voisins sont recherches une seule fois pour tout le groupe
+		DonneeSimulation donnees = simulateur.getDonneeSimulation();
+		Carte carte = donnees.getCarte();
+		VoisinageLot voisinage = new VoisinageLot(donnees, incendies.size());
+		for (Incendie incendie : incendies)
+			if (incendie.getIntensite() > 0 && !(incendie instanceof ZoneIncendie))
+				voisinage.connaitre(carte.getCellule(incendie.getPosition()), incendie);
+		for (int i = 0; i < incendies.size(); i++) {
+			Incendie incendie = incendies.get(i);
+			// Un incendie eteint depuis ne s'etend plus
+			if (incendie.getIntensite() <= 0)
+				continue;
+			incendie.propager(simulateur, voisinage);
+			simulateur.planifierExpansion(incendie);
+		}
+	}
+
+}
@@ -1,7 +1,13 @@
 package donnees.evenements;
 
+import java.io.IOException;
+import java.util.List;
+
 import donnees.Incendie;
 import donnees.simulation.DonneeSimulation;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegarde;
 import donnees.simulation.Simulateur;
 
 /**
@@ -12,7 +18,7 @@ public class ExpansionIncendie extends Evenement {
 		/**
 		 * L'incendie qui s'étend
 		 */
-	private Incendie incendieDepart;
+	private final Incendie incendieDepart;
 
 		/**
 		 * Contruit l'évènement
@@ -24,6 +30,27 @@ public class ExpansionIncendie extends Evenement {
 		this.incendieDepart = incendie;
 	}
 
+	/**
+	 * Construit la copie d'une expansion dans une duplication
+	 * @param expansion l'expansion à copier
+	 * @param d la duplication en cours
+	 */
+	private ExpansionIncendie(ExpansionIncendie expansion, Duplication d) {
+		super(expansion.getDate());
+		d.enregistrer(expansion, this);
+		this.incendieDepart = d.copie(expansion.incendieDepart);
+	}
+
+	/**
+	 * Relit une expansion dans une reprise
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private ExpansionIncendie(Reprise r) throws IOException {
+		super(r);
+		this.incendieDepart = r.lireReference();
+	}
+
 	/**
 	 * Permet de créer un évènement d'expansion d'incendie en calculant le temps nécessaire à sa réalisation
 	 * @param dateActuelle date à laquelle l'incendie s'est déclaré, ou date de dernière expansion de l'incendie
@@ -36,13 +63,48 @@ public class ExpansionIncendie extends Evenement {
 				incendie);
 	}
 
+	/**
+	 * Réutilise l'évènement, une fois exécuté, pour la prochaine expansion du même incendie
+	 * @param dateActuelle date de la dernière expansion de l'incendie
+	 * @param donnee les données de la simulation
+	 */
+	public void recalculer(long dateActuelle, DonneeSimulation donnee) {
+		reporter(dateActuelle + incendieDepart.getTempsPropagation(donnee.getCarte().getTailleCase()));
+	}
+
+	/**
+	 * Réutilise l'évènement, une fois exécuté, pour une expansion du même incendie
+	 * dont la date est déjà calculée
+	 * 
+	 * @param date la date de la prochaine expansion
+	 */
+	public void reporter(long date) {
+		setDate(date);
+	}
+
+	@Override
+	public ExpansionIncendie dupliquer(Duplication d) {
+		return new ExpansionIncendie(this, d);
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		super.sauvegarder(s);
+		s.ecrireReference(incendieDepart);
+	}
+
+	@Override
+	public List<Incendie> getExpansions() {
+		return List.of(incendieDepart);
+	}
+
 	@Override
 	public void executer(Simulateur simulateur) {
 		if (incendieDepart.getIntensite() <= 0)
 			return;
 
 		incendieDepart.propager(simulateur);
-		simulateur.ajouterEvenement(calculer(simulateur.getDate(), simulateur.getDonneeSimulation(), incendieDepart));
+		simulateur.planifierExpansion(incendieDepart);
 	}
 
 }
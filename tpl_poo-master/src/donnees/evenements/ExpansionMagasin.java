@@ -0,0 +1,80 @@
+package donnees.evenements;
+
+import java.io.IOException;
+
+import donnees.simulation.Duplication;
+import donnees.simulation.MagasinIncendies;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegarde;
+import donnees.simulation.Simulateur;
+
+/**
+ * Évènement représentant toutes les expansions des incendies d'un
+ * {@link MagasinIncendies} prévues à une même date, ou dans une même tranche de
+ * temps si le magasin utilise un moteur
+ */
+public class ExpansionMagasin extends Evenement {
+
+	/**
+	 * Le magasin dont les incendies s'étendent
+	 */
+	private final MagasinIncendies magasin;
+
+	/**
+	 * Contruit l'évènement
+	 * @param date la date des expansions
+	 * @param magasin le magasin dont les incendies s'étendent
+	 */
+	public ExpansionMagasin(long date, MagasinIncendies magasin) {
+		super(date);
+		this.magasin = magasin;
+	}
+
+	/**
+	 * Construit la copie de l'évènement dans une duplication, sur la copie du
+	 * magasin
+	 * @param expansion l'évènement à copier
+	 * @param d la duplication en cours
+	 */
+	private ExpansionMagasin(ExpansionMagasin expansion, Duplication d) {
+		super(expansion.getDate());
+		d.enregistrer(expansion, this);
+		this.magasin = d.copie(expansion.magasin);
+	}
+
+	/**
+	 * Relit l'évènement dans une reprise
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private ExpansionMagasin(Reprise r) throws IOException {
+		super(r);
+		this.magasin = r.lireReference();
+	}
+
+	/**
+	 * Réutilise l'évènement, une fois exécuté, pour la prochaine date d'expansion
+	 * @param date la nouvelle date
+	 */
+	public void reporter(long date) {
+		setDate(date);
+	}
+
+	@Override
+	public ExpansionMagasin dupliquer(Duplication d) {
+		return new ExpansionMagasin(this, d);
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		super.sauvegarder(s);
+		s.ecrireReference(magasin);
+	}
+
+	@Override
+	public void executer(Simulateur simulateur) {
+		magasin.executerExpansions(getDate(), simulateur.getDonneeSimulation());
+		simulateur.planifierExpansionsMagasin();
+	}
+
+}
@@ -0,0 +1,82 @@
+package donnees.evenements;
+
+import java.io.IOException;
+
+import donnees.Arrosage;
+import donnees.Incendie;
+import donnees.robots.Robot;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegarde;
+import donnees.simulation.Simulateur;
+
+/**
+ * Évènement représentant la dernière intervention d'un {@link Arrosage} : les
+ * interventions précédentes sont appliquées, puis la dernière est effectuée
+ * comme une {@link InterventionRobot} ordinaire
+ */
+public class ExtinctionIncendie extends InterventionRobot {
+	/**
+	 * L'arrosage terminé par l'évènement
+	 */
+	private Arrosage arrosage;
+
+	/**
+	 * Construit l'évènement
+	 * @param date la date de la dernière intervention
+	 * @param arrosage l'arrosage terminé par l'évènement
+	 * @param robot le robot pompier
+	 * @param incendie l'incendie arrosé
+	 */
+	public ExtinctionIncendie(long date, Arrosage arrosage, Robot robot, Incendie incendie) {
+		super(date, robot, incendie);
+		this.arrosage = arrosage;
+	}
+
+	/**
+	 * Construit la copie de l'évènement dans une duplication, qui termine la copie
+	 * de l'arrosage
+	 * @param extinction l'évènement à copier
+	 * @param d la duplication en cours
+	 */
+	private ExtinctionIncendie(ExtinctionIncendie extinction, Duplication d) {
+		super(extinction, d);
+		this.arrosage = d.copie(extinction.arrosage);
+	}
+
+	/**
+	 * Relit l'évènement dans une reprise
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private ExtinctionIncendie(Reprise r) throws IOException {
+		super(r);
+		this.arrosage = r.lireReference();
+	}
+
+	/**
+	 * Déplace la dernière intervention de l'arrosage à une nouvelle date, quand
+	 * l'arrosage est replanifié
+	 * @param date la nouvelle date de la dernière intervention
+	 */
+	public void reporter(long date) {
+		setDate(date);
+	}
+
+	@Override
+	public ExtinctionIncendie dupliquer(Duplication d) {
+		return new ExtinctionIncendie(this, d);
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		super.sauvegarder(s);
+		s.ecrireReference(arrosage);
+	}
+
+	@Override
+	public void executer(Simulateur simulateur) {
+		arrosage.terminer();
+		super.executer(simulateur);
+	}
+}
@@ -1,5 +1,10 @@
 package donnees.evenements;
 
+import java.io.IOException;
+
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegarde;
 import donnees.simulation.Simulateur;
 
 /**
@@ -23,6 +28,30 @@ public class FinSimulation extends Evenement {
 		this.cause = cause;
 	}
 
+	/**
+	 * Relit l'évènement dans une reprise
+	 * 
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private FinSimulation(Reprise r) throws IOException {
+		super(r);
+		this.cause = r.lireChaine();
+	}
+
+	@Override
+	public FinSimulation dupliquer(Duplication d) {
+		FinSimulation copie = new FinSimulation(getDate(), cause);
+		d.enregistrer(this, copie);
+		return copie;
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		super.sauvegarder(s);
+		s.ecrireChaine(cause);
+	}
+
 	@Override
 	public void executer(Simulateur simulateur) {
 		simulateur.terminer();
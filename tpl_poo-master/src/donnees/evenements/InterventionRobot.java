@@ -1,7 +1,13 @@
 package donnees.evenements;
 
+import java.io.IOException;
+
 import donnees.Incendie;
 import donnees.robots.Robot;
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegarde;
 import donnees.simulation.Simulateur;
 
 /**
@@ -28,6 +34,29 @@ public class InterventionRobot extends Evenement {
         this.robot = robot;
         this.incendie = incendie;
     }
+
+    /**
+     * Construit la copie d'une intervention dans une duplication
+     * @param intervention l'intervention à copier
+     * @param d la duplication en cours
+     */
+    protected InterventionRobot(InterventionRobot intervention, Duplication d) {
+        super(intervention.getDate());
+        d.enregistrer(intervention, this);
+        this.robot = d.copie(intervention.robot);
+        this.incendie = d.copie(intervention.incendie);
+    }
+
+    /**
+     * Relit une intervention dans une reprise
+     * @param r la reprise en cours
+     * @throws IOException si la lecture échoue
+     */
+    protected InterventionRobot(Reprise r) throws IOException {
+        super(r);
+        this.robot = r.lireReference();
+        this.incendie = r.lireReference();
+    }
     /**
 	 * Permet de créer un évènement d'intervention en calculant le temps nécessaire à sa réalisation
      * @param dateActuelle la date à laquelle le robot commence son intervention
@@ -38,9 +67,50 @@ public class InterventionRobot extends Evenement {
     public static InterventionRobot  calculer(long dateActuelle, Robot r, Incendie incendie){
         return new InterventionRobot(dateActuelle + r.getTempsIntervention(), r, incendie);
     }
+    /**
+     * Réutilise l'évènement, une fois exécuté, pour une nouvelle intervention du même robot
+     * @param dateActuelle la date à laquelle le robot commence son intervention
+     * @param incendie l'incendie à éteindre
+     * @return l'évènement lui-même, replanifiable
+     */
+    public InterventionRobot recalculer(long dateActuelle, Incendie incendie) {
+        setDate(dateActuelle + robot.getTempsIntervention());
+        this.incendie = incendie;
+        return this;
+    }
+    /**
+     * @return le robot pompier
+     */
+    public Robot getRobot() {
+        return robot;
+    }
+
+    /**
+     * @return l'incendie sur lequel le robot intervient
+     */
+    public Incendie getIncendie() {
+        return incendie;
+    }
+
+    @Override
+    public InterventionRobot dupliquer(Duplication d) {
+        return new InterventionRobot(this, d);
+    }
+
+    @Override
+    public void sauvegarder(Sauvegarde s) throws IOException {
+        super.sauvegarder(s);
+        s.ecrireReference(robot);
+        s.ecrireReference(incendie);
+    }
+
     @Override
     public void executer(Simulateur simulateur) {
-        simulateur.getDonneeSimulation().interventionRobot(this.robot, this.incendie);
+        DonneeSimulation donnees = simulateur.getDonneeSimulation();
+        // Si l'incendie est eteint, les robots en route vers lui s'arretent
+        if (donnees.interventionRobot(this.robot, this.incendie))
+            for (Robot r : donnees.getRobots())
+                r.signalerIncendieEteint(simulateur, this.incendie);
         robot.planifierEvenement(simulateur);
     }
 }
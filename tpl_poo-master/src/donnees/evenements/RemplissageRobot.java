@@ -1,6 +1,12 @@
 package donnees.evenements;
 
+import java.io.IOException;
+
 import donnees.robots.Robot;
+import donnees.simulation.Changement;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegarde;
 import donnees.simulation.Simulateur;
 
 /**
@@ -21,6 +27,27 @@ public class RemplissageRobot extends Evenement {
         super(date);
         this.robot = robot;
     }
+
+    /**
+     * Construit la copie de l'évènement dans une duplication
+     * @param remplissage l'évènement à copier
+     * @param d la duplication en cours
+     */
+    private RemplissageRobot(RemplissageRobot remplissage, Duplication d) {
+        super(remplissage.getDate());
+        d.enregistrer(remplissage, this);
+        this.robot = d.copie(remplissage.robot);
+    }
+
+    /**
+     * Relit l'évènement dans une reprise
+     * @param r la reprise en cours
+     * @throws IOException si la lecture échoue
+     */
+    private RemplissageRobot(Reprise r) throws IOException {
+        super(r);
+        this.robot = r.lireReference();
+    }
     /**
      * Permet de construire un évènement de remplissage du robot en calculant le temps de remplissage
      * @param dateActuelle date de début du remplissage
@@ -31,9 +58,31 @@ public class RemplissageRobot extends Evenement {
         return new RemplissageRobot(dateActuelle + r.getReservoir().getTempsRemplissage(), r);
     }
 
+    /**
+     * Réutilise l'évènement, une fois exécuté, pour un nouveau remplissage du même robot
+     * @param dateActuelle date de début du remplissage
+     * @return l'évènement lui-même, replanifiable
+     */
+    public RemplissageRobot recalculer(long dateActuelle) {
+        setDate(dateActuelle + robot.getReservoir().getTempsRemplissage());
+        return this;
+    }
+
+    @Override
+    public RemplissageRobot dupliquer(Duplication d) {
+        return new RemplissageRobot(this, d);
+    }
+
+    @Override
+    public void sauvegarder(Sauvegarde s) throws IOException {
+        super.sauvegarder(s);
+        s.ecrireReference(robot);
+    }
+
     @Override
     public void executer(Simulateur simulateur) {
-        robot.remplir(simulateur.getDonneeSimulation().getCarte());
+        if (robot.remplir(simulateur.getDonneeSimulation().getCarte()))
+            simulateur.getDonneeSimulation().signalerChangement(Changement.RESERVOIR_REMPLI);
         robot.planifierEvenement(simulateur);
     }
 }
@@ -0,0 +1,243 @@
+package donnees.evenements;
+
+import java.io.IOException;
+import java.util.List;
+
+import donnees.robots.Robot;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegarde;
+import donnees.simulation.Simulateur;
+import donnees.terrain.Case;
+import ia.chemins.Chemin;
+
+/**
+ * Évènement représentant le parcours d'un chemin par un robot, case après case,
+ * jusqu'à une étape d'arrivée. Seule l'arrivée est planifiée dans le simulateur
+ * : la position intermédiaire du robot est déduite, quand on l'observe, de la
+ * date actuelle et des dates de passage sur chaque case, calculées comme pour
+ * une suite de {@link DeplacementRobot}.
+ *
+ * Le trajet peut être interrompu : le robot s'arrête alors à la prochaine case
+ * qu'il atteint.
+ */
+public class TrajetRobot extends Evenement {
+	/**
+	 * Robot concerné par le trajet
+	 */
+	private final Robot robot;
+	/**
+	 * Simulateur dont la date sert à calculer la position du robot
+	 */
+	private Simulateur simulateur;
+	/**
+	 * Chemin parcouru par le robot
+	 */
+	private Chemin chemin;
+	/**
+	 * Cases du chemin au départ du trajet, la première étant la case de départ.
+	 * Le tableau est réutilisé d'un trajet à l'autre et peut être plus long que
+	 * le trajet
+	 */
+	private Case[] cases;
+	/**
+	 * Date d'arrivée sur chaque case du chemin, la première étant la date de
+	 * départ. Le tableau est réutilisé comme {@link #cases}
+	 */
+	private long[] dates;
+	/**
+	 * Indice dans {@link #cases} de la case d'arrivée du trajet
+	 */
+	private int etapeArrivee;
+	/**
+	 * Indice de la dernière case atteinte lors de la dernière observation
+	 */
+	private int etapeCourante;
+
+	/**
+	 * Construit un trajet vide, à calculer avant d'être planifié
+	 *
+	 * @param robot le robot concerné
+	 */
+	private TrajetRobot(Robot robot) {
+		super(0);
+		this.robot = robot;
+		this.cases = new Case[0];
+		this.dates = new long[0];
+	}
+
+	/**
+	 * Construit la copie d'un trajet dans une duplication, pour la copie du robot
+	 * et sur la copie de son chemin
+	 *
+	 * @param trajet le trajet à copier
+	 * @param d      la duplication en cours
+	 */
+	private TrajetRobot(TrajetRobot trajet, Duplication d) {
+		super(trajet.getDate());
+		d.enregistrer(trajet, this);
+		this.robot = d.copie(trajet.robot);
+		this.simulateur = trajet.simulateur == null ? null : d.getSimulateur();
+		this.chemin = d.copie(trajet.chemin);
+		this.cases = trajet.cases.clone();
+		this.dates = trajet.dates.clone();
+		this.etapeArrivee = trajet.etapeArrivee;
+		this.etapeCourante = trajet.etapeCourante;
+	}
+
+	/**
+	 * Relit un trajet dans une reprise, rattaché au simulateur repris
+	 *
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private TrajetRobot(Reprise r) throws IOException {
+		super(r);
+		this.robot = r.lireReference();
+		this.simulateur = r.lireBooleen() ? r.getSimulateur() : null;
+		this.chemin = r.lireReference();
+		this.cases = new Case[r.lireInt()];
+		for (int i = 0; i < cases.length; i++)
+			cases[i] = r.lireCase();
+		this.dates = new long[cases.length];
+		r.lireLongs(dates, dates.length);
+		this.etapeArrivee = r.lireInt();
+		this.etapeCourante = r.lireInt();
+	}
+
+	/**
+	 * Permet de créer un trajet en calculant la date d'arrivée sur chaque case
+	 *
+	 * @param simulateur   le simulateur dans lequel évolue le robot, le trajet
+	 *                     commence à sa date actuelle
+	 * @param r            le robot concerné, situé au départ du chemin
+	 * @param chemin       le chemin à parcourir
+	 * @param etapeArrivee l'indice dans le chemin de la case où s'arrête le trajet
+	 * @return Un évènement de type {@link TrajetRobot} correctement construit
+	 * @throws IllegalArgumentException si l'étape d'arrivée n'est pas une case du
+	 *                                  chemin autre que le départ
+	 */
+	public static TrajetRobot calculer(Simulateur simulateur, Robot r, Chemin chemin, int etapeArrivee)
+			throws IllegalArgumentException {
+		return new TrajetRobot(r).recalculer(simulateur, chemin, etapeArrivee);
+	}
+
+	/**
+	 * Réutilise l'évènement, une fois exécuté, pour un nouveau trajet du même
+	 * robot, en calculant la date d'arrivée sur chaque case
+	 *
+	 * @param simulateur   le simulateur dans lequel évolue le robot, le trajet
+	 *                     commence à sa date actuelle
+	 * @param chemin       le chemin à parcourir, le robot étant situé à son départ
+	 * @param etapeArrivee l'indice dans le chemin de la case où s'arrête le trajet
+	 * @return l'évènement lui-même, replanifiable
+	 * @throws IllegalArgumentException si l'étape d'arrivée n'est pas une case du
+	 *                                  chemin autre que le départ
+	 */
+	public TrajetRobot recalculer(Simulateur simulateur, Chemin chemin, int etapeArrivee)
+			throws IllegalArgumentException {
+		if (etapeArrivee < 1 || etapeArrivee >= chemin.getTaille())
+			throw new IllegalArgumentException("L'étape d'arrivée doit être une case du chemin autre que le départ");
+
+		// Les cases apres l'arrivee ne servent jamais, on ne garde que le debut du chemin
+		if (cases.length <= etapeArrivee) {
+			cases = new Case[chemin.getTaille()];
+			dates = new long[chemin.getTaille()];
+		}
+		List<Case> listeCases = chemin.getListeCases();
+		cases[0] = listeCases.get(0);
+		dates[0] = simulateur.getDate();
+		for (int i = 1; i <= etapeArrivee; i++) {
+			cases[i] = listeCases.get(i);
+			dates[i] = dates[i - 1] + DeplacementRobot.calculerDuree(simulateur.getDonneeSimulation(), robot, cases[i - 1]);
+		}
+		this.simulateur = simulateur;
+		this.chemin = chemin;
+		this.etapeArrivee = etapeArrivee;
+		this.etapeCourante = 0;
+		setDate(dates[etapeArrivee]);
+		return this;
+	}
+
+	/**
+	 * @return le chemin parcouru par le robot
+	 */
+	public Chemin getChemin() {
+		return chemin;
+	}
+
+	/**
+	 * @return le nombre de cases parcourues entre le départ et l'arrivée du trajet
+	 */
+	public int getNbEtapes() {
+		return etapeArrivee;
+	}
+
+	/**
+	 * @return la case d'arrivée du trajet
+	 */
+	public Case getArrivee() {
+		return cases[etapeArrivee];
+	}
+
+	/**
+	 * Calcule la position du robot à la date actuelle du simulateur, c'est-à-dire
+	 * la dernière case qu'il a atteinte
+	 *
+	 * @return la position du robot
+	 */
+	public Case getPosition() {
+		// Le temps ne fait qu'avancer, on reprend donc a partir de la derniere
+		// observation
+		long date = simulateur.getDate();
+		while (etapeCourante < etapeArrivee && dates[etapeCourante + 1] <= date)
+			etapeCourante++;
+		return cases[etapeCourante];
+	}
+
+	/**
+	 * Interrompt le trajet à la première case que le robot atteindra à partir de
+	 * la date actuelle du simulateur. La date de l'évènement est alors avancée, et
+	 * il doit être replanifié
+	 *
+	 * @return vrai si le trajet a été raccourci, faux si le robot s'arrête déjà à
+	 *         la prochaine case
+	 */
+	public boolean interrompre() {
+		long date = simulateur.getDate();
+		int etape = 1;
+		while (etape < etapeArrivee && dates[etape] < date)
+			etape++;
+		if (etape >= etapeArrivee)
+			return false;
+		etapeArrivee = etape;
+		setDate(dates[etape]);
+		return true;
+	}
+
+	@Override
+	public TrajetRobot dupliquer(Duplication d) {
+		return new TrajetRobot(this, d);
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		super.sauvegarder(s);
+		s.ecrireReference(robot);
+		s.ecrireBooleen(simulateur != null);
+		s.ecrireReference(chemin);
+		s.ecrireInt(cases.length);
+		for (Case c : cases)
+			s.ecrireCase(c);
+		s.ecrireLongs(dates, dates.length);
+		s.ecrireInt(etapeArrivee);
+		s.ecrireInt(etapeCourante);
+	}
+
+	@Override
+	public void executer(Simulateur simulateur) {
+		robot.terminerTrajet(this);
+		robot.planifierEvenement(simulateur);
+	}
+
+}
@@ -1,7 +1,9 @@
 package donnees.robots;
 
 import java.awt.Color;
+import java.io.IOException;
 import dessin.RepresentationOval;
+import donnees.simulation.Reprise;
 import donnees.terrain.Carte;
 import donnees.terrain.Case;
 import donnees.terrain.NatureTerrain;
@@ -53,25 +55,35 @@ public class Drone extends Robot {
 		this(position, VITESSE_DEFAUT);
 	}
 
+	/**
+	 * Relit un drone dans une reprise
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private Drone(Reprise r) throws IOException {
+		this(r.lireCase());
+		reprendre(r);
+	}
+
 	@Override
 	protected double getCoefficientVitesse(NatureTerrain natureTerrain) {
 		return 1;
 	}
 	
 	@Override
-	protected Chemin calculerCheminRemplissage(Carte carte)
+	protected Chemin calculerCheminRemplissage(Carte carte, Case depart)
 	{
-		return algoRecherche.trouverPlusProche(this, carte, NatureTerrain.EAU);
+		return algoRecherche.trouverPlusProche(this, carte, depart, NatureTerrain.EAU);
 	}
 
 	@Override
 	protected Robot doCopy() throws IllegalArgumentException {
-		return new Drone(new Case(getPosition()), getVitesseBase());
+		return new Drone(getPosition(), getVitesseKmh());
 	}
 	
 	@Override
-	public boolean peutSeRemplir(Carte c)
+	protected boolean peutSeRemplirSur(Carte c, Case position)
 	{
-		return getPosition().getNature() == NatureTerrain.EAU;
+		return position.getNature() == NatureTerrain.EAU;
 	}
 }
@@ -1,13 +1,23 @@
 package donnees.robots;
 
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
 import dessin.Representation;
+import donnees.Arrosage;
 import donnees.Incendie;
 import donnees.Reservoir;
-import donnees.evenements.DeplacementRobot;
 import donnees.evenements.Evenement;
 import donnees.evenements.InterventionRobot;
 import donnees.evenements.RemplissageRobot;
+import donnees.evenements.TrajetRobot;
+import donnees.simulation.Changement;
 import donnees.simulation.DonneeSimulation;
+import donnees.simulation.Duplicable;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegardable;
+import donnees.simulation.Sauvegarde;
 import donnees.simulation.Simulateur;
 import donnees.terrain.Carte;
 import donnees.terrain.Case;
@@ -23,7 +33,7 @@ import ordres.TypeOrdre;
  * Classe abstraite représentant un robot pompier Cette classe regroupe toutes
  * les caractéristiques communes et par défaut des robots
  */
-public abstract class Robot {
+public abstract class Robot implements Duplicable, Sauvegardable {
 	/**
 	 * Constante représentant une vitesse infinie
 	 */
@@ -32,6 +42,17 @@ public abstract class Robot {
 	 * Taille en pixels du robot
 	 */
 	protected final static int TAILLE = 20;
+	/**
+	 * Les natures de terrain, indexées par leur numéro d'ordre
+	 */
+	private final static NatureTerrain[] NATURES = NatureTerrain.values();
+	/**
+	 * Les tables des coûts de traversée déjà calculées, par type de robot puis par
+	 * vitesse : tous les robots d'un même type roulant à la même vitesse partagent
+	 * la même table
+	 */
+	private final static ConcurrentHashMap<Class<? extends Robot>, ConcurrentHashMap<Double, double[]>> TABLES_COUTS =
+			new ConcurrentHashMap<>();
 
 	/**
 	 * Case ou se trouve le robot
@@ -45,6 +66,11 @@ public abstract class Robot {
 	 * Vitesse du robot, en km/h
 	 */
 	private double vitesse;
+	/**
+	 * Le coût de traversée d'une case de chaque nature de terrain à la vitesse
+	 * actuelle, tiré de {@link #TABLES_COUTS} à sa première utilisation
+	 */
+	private volatile double[] coutsTraversee;
 	/**
 	 * Intervention unitaire du robot, en L / s La première case du tableau
 	 * correspond au volume de l'intervention et la deuxième à sa durée
@@ -75,6 +101,35 @@ public abstract class Robot {
 	 * s'il est actuellement inactif
 	 */
 	private boolean inactif;
+	/**
+	 * Numéro du robot dans les données de simulation, qui est aussi celui de son
+	 * créneau dans la file des évènements
+	 */
+	private int numero;
+	/**
+	 * Le trajet en cours du robot, ou null s'il n'est pas en train de se déplacer
+	 */
+	private TrajetRobot trajet;
+	/**
+	 * L'arrosage en cours du robot, ou null s'il n'arrose aucun incendie
+	 */
+	private Arrosage arrosage;
+	/**
+	 * L'évènement d'intervention du robot, construit à sa première utilisation
+	 * puis réutilisé : le robot n'ayant qu'un évènement planifié à la fois, il a
+	 * été exécuté quand on le recalcule
+	 */
+	private InterventionRobot evenementIntervention;
+	/**
+	 * L'évènement de remplissage du robot, réutilisé comme
+	 * {@link #evenementIntervention}
+	 */
+	private RemplissageRobot evenementRemplissage;
+	/**
+	 * L'évènement de trajet du robot, réutilisé comme
+	 * {@link #evenementIntervention}
+	 */
+	private TrajetRobot evenementTrajet;
 
 	/**
 	 * Permet aux classes dérivées de construire le robot
@@ -100,14 +155,18 @@ public abstract class Robot {
 		incendieObjectif = null;
 		cheminActuel = null;
 		inactif = true;
+		numero = 0;
+		trajet = null;
+		arrosage = null;
 		algoRecherche = new RechercheAStar();
 	}
 
 	/**
-	 * @return la position actuelle du robot
+	 * @return la position actuelle du robot. S'il est en train de parcourir un
+	 *         trajet, il s'agit de la dernière case qu'il a atteinte
 	 */
 	public Case getPosition() {
-		return this.position;
+		return trajet == null ? this.position : trajet.getPosition();
 	}
 
 	/**
@@ -119,6 +178,22 @@ public abstract class Robot {
 		this.position = position;
 	}
 
+	/**
+	 * @return le numéro du robot dans les données de simulation
+	 */
+	public int getNumero() {
+		return numero;
+	}
+
+	/**
+	 * Définit le numéro du robot dans les données de simulation
+	 * 
+	 * @param numero le numéro du robot
+	 */
+	public void setNumero(int numero) {
+		this.numero = numero;
+	}
+
 	/**
 	 * Retourne le vitesse du robot sur un terrain de nature spécifique
 	 * 
@@ -130,6 +205,65 @@ public abstract class Robot {
 		return getVitesseBase() * getCoefficientVitesse(natureTerrain);
 	}
 
+	/**
+	 * Retourne le coût de traversée d'une case de chaque nature de terrain, soit
+	 * l'inverse de la vitesse du robot sur ce terrain, indexé par le numéro
+	 * d'ordre de la nature (celui de {@link Carte#getNumeroNature(int)}). Un
+	 * terrain infranchissable coûte {@link Double#POSITIVE_INFINITY}. La table est
+	 * partagée et ne doit pas être modifiée
+	 * 
+	 * @return la table des coûts de traversée du robot
+	 */
+	public double[] getCoutsTraversee() {
+		double[] couts = coutsTraversee;
+		return couts != null ? couts : chargerCoutsTraversee();
+	}
+
+	/**
+	 * Méthode interne tirant de {@link #TABLES_COUTS} la table des coûts de
+	 * traversée à la vitesse actuelle, à part pour que {@link #getCoutsTraversee()}
+	 * reste assez court pour être intégré aux recherches de chemin
+	 * 
+	 * @return la table des coûts, indexée par numéro d'ordre de nature
+	 */
+	private double[] chargerCoutsTraversee() {
+		double[] couts = TABLES_COUTS.computeIfAbsent(getClass(), c -> new ConcurrentHashMap<>())
+				.computeIfAbsent(vitesse, v -> calculerCoutsTraversee());
+		coutsTraversee = couts;
+		return couts;
+	}
+
+	/**
+	 * Retourne la classe de franchissement du robot : les natures de terrain qu'il
+	 * peut traverser à sa vitesse actuelle, qui désignent ses
+	 * {@link Carte#getComposantes(int) composantes connexes}
+	 * 
+	 * @return les natures franchissables, un bit par numéro d'ordre de nature
+	 */
+	public int getNaturesFranchissables() {
+		double[] couts = getCoutsTraversee();
+		int franchissables = 0;
+		for (int n = 0; n < couts.length; n++)
+			if (couts[n] != Double.POSITIVE_INFINITY)
+				franchissables |= 1 << n;
+		return franchissables;
+	}
+
+	/**
+	 * Méthode interne calculant la table des coûts de traversée à la vitesse
+	 * actuelle du robot
+	 * 
+	 * @return la table des coûts, indexée par numéro d'ordre de nature
+	 */
+	private double[] calculerCoutsTraversee() {
+		double[] couts = new double[NATURES.length];
+		for (NatureTerrain nature : NATURES) {
+			double vitesseTerrain = getVitesse(nature);
+			couts[nature.ordinal()] = vitesseTerrain == 0 ? Double.POSITIVE_INFINITY : 1 / vitesseTerrain;
+		}
+		return couts;
+	}
+
 	/**
 	 * @return la vitesse de déplacement du robot, en mètres / secondes
 	 */
@@ -137,6 +271,14 @@ public abstract class Robot {
 		return (vitesse * 1000)/ 3600;
 	}
 
+	/**
+	 * @return la vitesse de déplacement du robot, en km / h, telle que passée à
+	 *         son constructeur
+	 */
+	protected double getVitesseKmh() {
+		return vitesse;
+	}
+
 	/**
 	 * Permet de connaître le coefficient multiplicateur de vitesse du robot sur un
 	 * terrain spécifique
@@ -158,6 +300,7 @@ public abstract class Robot {
 			throw new IllegalArgumentException("La vitesse du robot doit être compris entre 0 et " + vitesseMax);
 		}
 		this.vitesse = vitesse;
+		this.coutsTraversee = null;
 	}
 
 	/**
@@ -175,7 +318,8 @@ public abstract class Robot {
 	 * @return un élément graphique affichable
 	 */
 	public GraphicalElement getGraphicalElement(int tailleCase) {
-		return representation.toGraphicalElement(position.getColonne(), position.getLigne(), tailleCase);
+		Case pos = getPosition();
+		return representation.toGraphicalElement(pos.getColonne(), pos.getLigne(), tailleCase);
 	}
 
 	/**
@@ -203,6 +347,84 @@ public abstract class Robot {
 	 */
 	protected abstract Robot doCopy() throws IllegalArgumentException;
 
+	/**
+	 * Duplique le robot avec son état en cours : position, réservoir, objectif,
+	 * chemin, trajet, arrosage et évènements. Contrairement à {@link #copy()}, la
+	 * copie garde aussi l'algorithme de recherche du robot.
+	 * 
+	 * @param d la duplication en cours
+	 * @return la copie du robot
+	 */
+	@Override
+	public Robot dupliquer(Duplication d) {
+		Robot copie = copy();
+		d.enregistrer(this, copie);
+		copie.position = position;
+		copie.coutsTraversee = coutsTraversee;
+		copie.intervention = intervention;
+		copie.representation = representation;
+		copie.algoRecherche = algoRecherche;
+		copie.reservoir.recopier(reservoir);
+		copie.inactif = inactif;
+		copie.numero = numero;
+		copie.incendieObjectif = d.copie(incendieObjectif);
+		copie.cheminActuel = d.copie(cheminActuel);
+		copie.trajet = d.copie(trajet);
+		copie.arrosage = d.copie(arrosage);
+		copie.evenementIntervention = d.copie(evenementIntervention);
+		copie.evenementRemplissage = d.copie(evenementRemplissage);
+		copie.evenementTrajet = d.copie(evenementTrajet);
+		return copie;
+	}
+
+	/**
+	 * Écrit le robot dans une sauvegarde, en commençant par sa position que le
+	 * constructeur de reprise de la classe dérivée passe à son constructeur
+	 * ordinaire avant d'appeler {@link #reprendre(Reprise)}
+	 * 
+	 * @param s la sauvegarde en cours
+	 * @throws IOException si l'écriture échoue
+	 */
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireCase(position);
+		s.ecrireDouble(vitesse);
+		s.ecrireInt(reservoir.getVolumeActuel());
+		s.ecrireBooleen(inactif);
+		s.ecrireInt(numero);
+		s.ecrireReference(incendieObjectif);
+		s.ecrireReference(cheminActuel);
+		s.ecrireReference(trajet);
+		s.ecrireReference(arrosage);
+		s.ecrireReference(evenementIntervention);
+		s.ecrireReference(evenementRemplissage);
+		s.ecrireReference(evenementTrajet);
+	}
+
+	/**
+	 * Relit l'état du robot dans une reprise, une fois construit à sa position
+	 * par le constructeur de reprise de la classe dérivée. Le robot y est
+	 * enregistré
+	 * 
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	protected final void reprendre(Reprise r) throws IOException {
+		r.enregistrer(this);
+		vitesse = r.lireDouble();
+		coutsTraversee = null;
+		reservoir.setVolumeActuel(r.lireInt());
+		inactif = r.lireBooleen();
+		numero = r.lireInt();
+		incendieObjectif = r.lireReference();
+		cheminActuel = r.lireReference();
+		trajet = r.lireReference();
+		arrosage = r.lireReference();
+		evenementIntervention = r.lireReference();
+		evenementRemplissage = r.lireReference();
+		evenementTrajet = r.lireReference();
+	}
+
 	/**
 	 * @return le temps d'une intervention unitaire, en secondes
 	 */
@@ -218,12 +440,23 @@ public abstract class Robot {
 	}
 
 	/**
-	 * @return le réservoir du robot
+	 * @return le réservoir du robot, en tenant compte de l'arrosage en cours
 	 */
 	public Reservoir getReservoir() {
+		if (arrosage != null)
+			arrosage.materialiser();
 		return reservoir;
 	}
 
+	/**
+	 * Définit l'arrosage en cours du robot
+	 * 
+	 * @param arrosage l'arrosage, ou null s'il est terminé
+	 */
+	public void setArrosage(Arrosage arrosage) {
+		this.arrosage = arrosage;
+	}
+
 	/**
 	 * Permet de déterminer si le robot est en position pour éteindre un incendie
 	 * 
@@ -258,7 +491,26 @@ public abstract class Robot {
 	 * @return vrai si le robot peut se remplir, faux sinon
 	 */
 	public boolean peutSeRemplir(Carte c) {
-		return getPosition().getVoisines(c).stream().anyMatch(v -> v.getNature() == NatureTerrain.EAU);
+		return peutSeRemplirSur(c, getPosition());
+	}
+
+	/**
+	 * Permet de déterminer si le robot pourrait se remplir depuis une case donnée.
+	 * C'est cette méthode que redéfinissent les robots qui se remplissent
+	 * autrement
+	 * 
+	 * @param c       la carte de la simulation
+	 * @param position la case où se trouverait le robot
+	 * @return vrai si le robot pourrait s'y remplir, faux sinon
+	 */
+	protected boolean peutSeRemplirSur(Carte c, Case position) {
+		int cellule = c.getCellule(position);
+		for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+			int voisine = c.getVoisine(cellule, d);
+			if (voisine != Carte.HORS_CARTE && c.getNature(voisine) == NatureTerrain.EAU)
+				return true;
+		}
+		return false;
 	}
 
 	/**
@@ -281,15 +533,17 @@ public abstract class Robot {
 	}
 
 	/**
-	 * Permet de calculer le chemin pour atteindre la source d'eau la plus proche.
-	 * L'implémentation de {@link Robot#calculerCheminRemplissage(Carte)} correspond
-	 * au comportement par défaut d'un robot
+	 * Permet de calculer le chemin pour atteindre la source d'eau la plus proche
+	 * d'une case de départ. L'implémentation de
+	 * {@link Robot#calculerCheminRemplissage(Carte, Case)} correspond au
+	 * comportement par défaut d'un robot
 	 * 
-	 * @param carte carte du simulateur
+	 * @param carte  carte du simulateur
+	 * @param depart case de départ du chemin
 	 * @return le chemin calculé, ou null si le remplissage est impossible
 	 */
-	protected Chemin calculerCheminRemplissage(Carte carte) {
-		return algoRecherche.trouverCaseAdjacenteA(this, carte, NatureTerrain.EAU);
+	protected Chemin calculerCheminRemplissage(Carte carte, Case depart) {
+		return algoRecherche.trouverCaseAdjacenteA(this, carte, depart, NatureTerrain.EAU);
 	}
 
 	/**
@@ -304,25 +558,32 @@ public abstract class Robot {
 	}
 
 	/**
-	 * Permet de planifier le prochain événement du robot
+	 * Permet de planifier le prochain événement du robot. Si un événement
+	 * précédemment planifié est encore en attente, il est remplacé. Un robot qui
+	 * n'a plus rien à faire le signale comme un changement.
 	 * 
 	 * @param simulateur le simulateur dans lequel évolue le robot
 	 */
 	public void planifierEvenement(Simulateur simulateur) {
-		Evenement evenement = calculerEvenement(simulateur.getDate(), simulateur.getDonneeSimulation());
-		if (evenement != null)
-			simulateur.ajouterEvenement(evenement);
+		Evenement evenement = calculerEvenement(simulateur);
+		if (evenement == null) {
+			simulateur.annulerEvenementRobot(this);
+			simulateur.getDonneeSimulation().signalerChangement(Changement.ROBOT_INACTIF);
+		} else
+			simulateur.planifierEvenementRobot(this, evenement);
 	}
 
 	/**
 	 * Méthode interne calculant le prochain événement du robot
 	 * 
-	 * @param date    la date actuelle du simulateur
-	 * @param donnees les données du simulateur
+	 * @param simulateur le simulateur dans lequel évolue le robot
 	 * @return l'évènement calculé, ou null si aucune action n'est nécessaire /
 	 *         possible
 	 */
-	private Evenement calculerEvenement(long date, DonneeSimulation donnees) {
+	private Evenement calculerEvenement(Simulateur simulateur) {
+		long date = simulateur.getDate();
+		DonneeSimulation donnees = simulateur.getDonneeSimulation();
+
 		// On reintialise le booleen d'inactivite
 		inactif = false;
 
@@ -343,9 +604,11 @@ public abstract class Robot {
 			// Si on y est deja, on se remplit
 			if (peutSeRemplir(donnees.getCarte())) {
 				resetChemin(); // Le chemin est fini puisqu'on est arrive
-				return RemplissageRobot.calculer(date, this);
+				if (evenementRemplissage == null)
+					evenementRemplissage = RemplissageRobot.calculer(date, this);
+				return evenementRemplissage.recalculer(date);
 			} else if (cheminActuel == null) // Sinon, si le chemin n'est pas deja calcule on le calcule
-				cheminActuel = calculerCheminRemplissage(donnees.getCarte());
+				cheminActuel = calculerCheminRemplissage(donnees.getCarte(), position);
 		}
 		/*
 		 * Si le reservoir n'est pas vide on cherche a eteindre l'incendie. On a
@@ -356,7 +619,15 @@ public abstract class Robot {
 			// Si on est sur l'incendie on l'eteint
 			if (position.equals(incendieObjectif.getPosition())) {
 				resetChemin(); // Le chemin est fini
-				return InterventionRobot.calculer(date, this, incendieObjectif);
+				// Si un autre robot arrose deja l'incendie, on intervient une fois a la fois
+				if (incendieObjectif.getArrosage() != null) {
+					if (evenementIntervention == null)
+						evenementIntervention = InterventionRobot.calculer(date, this, incendieObjectif);
+					return evenementIntervention.recalculer(date, incendieObjectif);
+				}
+				// Sinon on l'arrose jusqu'a l'extinction ou jusqu'a ce que le reservoir soit vide
+				arrosage = new Arrosage(simulateur, this, incendieObjectif);
+				return arrosage.calculerEvenement();
 			} else if (cheminActuel == null) // Sinon et si le chemin n'est pas calcule, on le calcule
 				cheminActuel = algoRecherche.cheminVers(this, donnees.getCarte(), incendieObjectif.getPosition());
 		}
@@ -373,8 +644,77 @@ public abstract class Robot {
 		if (cheminActuel.getTaille() == 1)
 			throw new RuntimeException("Le robot ne fait rien une fois arrive a destination");
 
-		// Enfin, si le chemin est valide, on effectue le prochain deplacement
-		return DeplacementRobot.calculer(date, donnees, this, cheminActuel.avancer());
+		// Enfin, si le chemin est valide, on le parcourt d'une traite jusqu'a la
+		// premiere case ou on aura quelque chose a faire
+		int etapeArrivee = calculerEtapeArrivee(donnees.getCarte());
+		if (evenementTrajet == null)
+			evenementTrajet = TrajetRobot.calculer(simulateur, this, cheminActuel, etapeArrivee);
+		trajet = evenementTrajet.recalculer(simulateur, cheminActuel, etapeArrivee);
+		return trajet;
+	}
+
+	/**
+	 * Méthode interne calculant la case du chemin actuel où le robot devra
+	 * s'arrêter : la case d'arrivée du chemin, ou la première case où il peut se
+	 * remplir s'il cherche de l'eau
+	 * 
+	 * @param carte la carte de la simulation
+	 * @return l'indice de la case dans le chemin actuel
+	 */
+	private int calculerEtapeArrivee(Carte carte) {
+		int derniere = cheminActuel.getTaille() - 1;
+		if (!reservoir.estVide())
+			return derniere;
+
+		// On regarde pour chaque case du chemin si on pourrait s'y remplir
+		int etape = 1;
+		for (; etape < derniere; etape++)
+			if (peutSeRemplirSur(carte, cheminActuel.getListeCases().get(etape)))
+				break;
+		return etape;
+	}
+
+	/**
+	 * Termine le trajet en cours du robot : le robot est placé sur la case
+	 * d'arrivée du trajet, et son chemin est avancé d'autant
+	 * 
+	 * @param t le trajet terminé
+	 */
+	public void terminerTrajet(TrajetRobot t) {
+		trajet = null;
+		setPosition(t.getArrivee());
+		// Si le chemin a change en cours de route, il n'est plus valable depuis la
+		// case d'arrivee
+		if (cheminActuel != t.getChemin()) {
+			resetChemin();
+			return;
+		}
+		for (int i = 0; i < t.getNbEtapes(); i++)
+			cheminActuel.avancer();
+	}
+
+	/**
+	 * Interrompt le trajet en cours du robot, s'il y en a un : le robot s'arrêtera
+	 * à la prochaine case qu'il atteindra
+	 * 
+	 * @param simulateur le simulateur dans lequel évolue le robot
+	 */
+	public void interrompreTrajet(Simulateur simulateur) {
+		if (trajet != null && trajet.interrompre())
+			simulateur.planifierEvenementRobot(this, trajet);
+	}
+
+	/**
+	 * Prévient le robot qu'un incendie a été éteint. S'il était en route pour
+	 * l'éteindre, il s'arrête à la prochaine case
+	 * 
+	 * @param simulateur le simulateur dans lequel évolue le robot
+	 * @param ic         l'incendie éteint
+	 */
+	public void signalerIncendieEteint(Simulateur simulateur, Incendie ic) {
+		// Un robot allant chercher de l'eau continue sa route
+		if (ic.equals(incendieObjectif) && !reservoir.estVide())
+			interrompreTrajet(simulateur);
 	}
 
 	/**
@@ -405,6 +745,13 @@ public abstract class Robot {
 		return inactif;
 	}
 
+	/**
+	 * @return vrai si le robot n'a aucun évènement planifié dans le simulateur
+	 */
+	public boolean estInactif() {
+		return inactif;
+	}
+
 	/**
 	 * Méthode commode permettant d'éxécuter {@link #isReady(TypeOrdre)} sur un ordre déjà construit
 	 * @param o l'ordre à tester
@@ -427,10 +774,19 @@ public abstract class Robot {
 		switch (o.getType()) {
 		case ETEINDRE_INCENDIE:
 			Incendie incendie = (Incendie) o.getData();
-			cheminActuel = calculerCheminVers(simulateur.getDonneeSimulation().getCarte(), incendie.getPosition());
-			// Si l'incendie est inatteignable, on n'effectue pas l'ordre
-			if (cheminActuel == null)
-				return false;
+			Carte carte = simulateur.getDonneeSimulation().getCarte();
+			if (trajet == null) {
+				cheminActuel = calculerCheminVers(carte, incendie.getPosition());
+				// Si l'incendie est inatteignable, on n'effectue pas l'ordre
+				if (cheminActuel == null)
+					return false;
+			} else {
+				// En route, le chemin ne sera calcule qu'a l'arret du robot, depuis sa case
+				// d'arrivee : on verifie seulement que l'incendie est atteignable
+				if (!algoRecherche.estAccessible(this, carte, getPosition(), incendie.getPosition()))
+					return false;
+				resetChemin();
+			}
 
 			incendieObjectif = incendie;
 			break;
@@ -439,6 +795,9 @@ public abstract class Robot {
 		// Si jamais le robot est inactif, on relance un évènement maintenant qu'il a quelque chose à faire
 		if (inactif)
 			planifierEvenement(simulateur);
+		// S'il est en route, il s'arrête à la prochaine case pour suivre son nouveau chemin
+		else
+			interrompreTrajet(simulateur);
 
 		return true;
 	}
@@ -461,16 +820,7 @@ public abstract class Robot {
 	 * @return un chemin ou null si aucune case d'eau n'est atteignable depuis la case voulue pour ce robot
 	 */
 	public Chemin trouverEauPlusProcheDepuis(Carte carte, Case depart) {
-		// On se positionne à la case départ
-		Case pos = getPosition();
-		setPosition(depart);
-
-		// On regarde quel serait le chemin
-		Chemin chemin = calculerCheminRemplissage(carte);
-		
-		// Fin de l'observation, on se remet à notre position
-		setPosition(pos);
-		return chemin;
+		return calculerCheminRemplissage(carte, depart);
 	}
 
 }
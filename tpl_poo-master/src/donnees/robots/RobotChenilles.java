@@ -1,7 +1,9 @@
 package donnees.robots;
 
 import java.awt.Color;
+import java.io.IOException;
 import dessin.RepresentationRectangle;
+import donnees.simulation.Reprise;
 import donnees.terrain.Case;
 import donnees.terrain.NatureTerrain;
 
@@ -54,6 +56,16 @@ public class RobotChenilles extends Robot {
 		this(position, VITESSE_DEFAUT);
 	}
 
+	/**
+	 * Relit un robot à chenilles dans une reprise
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private RobotChenilles(Reprise r) throws IOException {
+		this(r.lireCase());
+		reprendre(r);
+	}
+
 	@Override
 	protected double getCoefficientVitesse(NatureTerrain natureTerrain) {
 		switch (natureTerrain) {
@@ -69,6 +81,6 @@ public class RobotChenilles extends Robot {
 
 	@Override
 	protected Robot doCopy() throws IllegalArgumentException {
-		return new RobotChenilles(new Case(getPosition()), getVitesseBase());
+		return new RobotChenilles(getPosition(), getVitesseKmh());
 	}
 }
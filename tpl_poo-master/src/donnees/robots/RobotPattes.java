@@ -1,8 +1,10 @@
 package donnees.robots;
 
 import java.awt.Color;
+import java.io.IOException;
 import dessin.RepresentationRectangle;
 import donnees.Reservoir;
+import donnees.simulation.Reprise;
 import donnees.terrain.Carte;
 import donnees.terrain.Case;
 import donnees.terrain.NatureTerrain;
@@ -39,6 +41,16 @@ public class RobotPattes extends Robot {
 				new RepresentationRectangle(Color.ORANGE, Color.BLACK, TAILLE));
 	}
 
+	/**
+	 * Relit un robot à pattes dans une reprise
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private RobotPattes(Reprise r) throws IOException {
+		this(r.lireCase());
+		reprendre(r);
+	}
+
 	@Override
 	protected double getCoefficientVitesse(NatureTerrain natureTerrain) {
 		switch (natureTerrain) {
@@ -53,11 +65,11 @@ public class RobotPattes extends Robot {
 
 	@Override
 	protected Robot doCopy() throws IllegalArgumentException {
-		return new RobotPattes(new Case(getPosition()));
+		return new RobotPattes(getPosition());
 	}
 
 	@Override
-	public boolean peutSeRemplir(Carte c) {
+	protected boolean peutSeRemplirSur(Carte c, Case position) {
 		return false;
 	}
 }
@@ -1,8 +1,10 @@
 package donnees.robots;
 
 import java.awt.Color;
+import java.io.IOException;
 
 import dessin.RepresentationOval;
+import donnees.simulation.Reprise;
 import donnees.terrain.Case;
 import donnees.terrain.NatureTerrain;
 
@@ -52,6 +54,16 @@ public class RobotRoues extends Robot {
 		this(position, VITESSE_DEFAUT);
 	}
 
+	/**
+	 * Relit un robot à roues dans une reprise
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private RobotRoues(Reprise r) throws IOException {
+		this(r.lireCase());
+		reprendre(r);
+	}
+
 	@Override
 	protected double getCoefficientVitesse(NatureTerrain natureTerrain) {
 		switch (natureTerrain) {
@@ -65,6 +77,6 @@ public class RobotRoues extends Robot {
 	
 	@Override
 	protected Robot doCopy() throws IllegalArgumentException {
-		return new RobotRoues(new Case(getPosition()), getVitesseBase());
+		return new RobotRoues(getPosition(), getVitesseKmh());
 	}
 }
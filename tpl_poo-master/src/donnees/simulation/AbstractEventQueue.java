@@ -0,0 +1,305 @@
+package donnees.simulation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import donnees.evenements.Evenement;
+
+/**
+ * Base commune aux implémentations de {@link EventQueue}. Elle numérote les
+ * ajouts, ignore les entrées annulées lorsqu'elles arrivent en tête de file et
+ * déclenche le compactage de la file lorsque la proportion d'entrées annulées
+ * dépasse {@link #SEUIL_COMPACTAGE}. Les classes dérivées n'ont qu'à gérer le
+ * rangement des entrées, sans se soucier des annulations.
+ * 
+ * Les évènements planifiés dans des créneaux sont rangés à part, dans un
+ * {@link IndexedEventHeap}, et fusionnés à la volée avec les autres évènements
+ * de la file grâce à leur numéro d'ordre commun.
+ */
+public abstract class AbstractEventQueue implements EventQueue {
+	/**
+	 * Proportion d'entrées annulées au-delà de laquelle la file est compactée
+	 */
+	public static final double SEUIL_COMPACTAGE = 0.5;
+	/**
+	 * Nombre minimal d'entrées annulées avant d'envisager un compactage, pour ne
+	 * pas compacter sans cesse de petites files
+	 */
+	private static final int MIN_COMPACTAGE = 64;
+
+	/**
+	 * Numéro d'ordre du prochain ajout
+	 */
+	private long prochaineSequence;
+	/**
+	 * Nombre d'entrées présentes dans la file, annulées comprises
+	 */
+	private int nbEntrees;
+	/**
+	 * Nombre d'entrées annulées encore présentes dans la file
+	 */
+	private int nbAnnulees;
+	/**
+	 * Nombre de compactages effectués depuis la création de la file
+	 */
+	private int nbCompactages;
+	/**
+	 * Les évènements planifiés dans des créneaux
+	 */
+	private final IndexedEventHeap creneaux;
+
+	/**
+	 * Construit une file vide
+	 */
+	protected AbstractEventQueue() {
+		creneaux = new IndexedEventHeap();
+		prochaineSequence = 0;
+		nbEntrees = 0;
+		nbAnnulees = 0;
+		nbCompactages = 0;
+	}
+
+	@Override
+	public EvenementPlanifie add(Evenement e) {
+		EvenementPlanifie entree = new EvenementPlanifie(e, prochaineSequence++, this);
+		inserer(entree);
+		nbEntrees++;
+		return entree;
+	}
+
+	@Override
+	public boolean reajouter(EvenementPlanifie entree) {
+		if (!entree.estReutilisable(this))
+			return false;
+		entree.reinitialiser(prochaineSequence++);
+		inserer(entree);
+		nbEntrees++;
+		return true;
+	}
+
+	@Override
+	public void planifier(int creneau, Evenement e) throws IllegalArgumentException {
+		creneaux.placer(creneau, e, prochaineSequence++);
+	}
+
+	@Override
+	public boolean annuler(int creneau) {
+		return creneaux.retirer(creneau);
+	}
+
+	@Override
+	public Evenement peek() {
+		EvenementPlanifie entree = premiereEnAttente();
+		if (creneauEnTete(entree))
+			return creneaux.getEvenement(creneaux.tete());
+		return entree == null ? null : entree.evenement;
+	}
+
+	@Override
+	public Evenement poll() {
+		return pollAvant(Long.MAX_VALUE);
+	}
+
+	@Override
+	public Evenement pollAvant(long dateLimite) {
+		EvenementPlanifie entree = premiereEnAttente();
+		if (creneauEnTete(entree)) {
+			int creneau = creneaux.tete();
+			if (creneaux.getDate(creneau) > dateLimite)
+				return null;
+			Evenement e = creneaux.getEvenement(creneau);
+			creneaux.retirer(creneau);
+			return e;
+		}
+		if (entree == null || entree.date > dateLimite)
+			return null;
+
+		extraireTete();
+		nbEntrees--;
+		entree.retirer();
+		return entree.evenement;
+	}
+
+	@Override
+	public int size() {
+		return nbEntrees - nbAnnulees + creneaux.size();
+	}
+
+	@Override
+	public int getNbEntrees() {
+		return nbEntrees + creneaux.size();
+	}
+
+	/**
+	 * @return le nombre de créneaux contenant un évènement
+	 */
+	public int getNbCreneauxOccupes() {
+		return creneaux.size();
+	}
+
+	@Override
+	public int getNbAnnulees() {
+		return nbAnnulees;
+	}
+
+	/**
+	 * @return le nombre de compactages effectués depuis la création de la file
+	 */
+	public int getNbCompactages() {
+		return nbCompactages;
+	}
+
+	/**
+	 * Prend en compte l'annulation d'une entrée de la file, et compacte la file si
+	 * elle contient trop d'entrées annulées
+	 */
+	void signalerAnnulation() {
+		nbAnnulees++;
+		if (nbAnnulees >= MIN_COMPACTAGE && nbAnnulees > SEUIL_COMPACTAGE * nbEntrees) {
+			compacter();
+			nbEntrees -= nbAnnulees;
+			nbAnnulees = 0;
+			nbCompactages++;
+		}
+	}
+
+	/**
+	 * Recopie dans cette file, encore vide, les entrées en attente et les créneaux
+	 * d'une autre file lors d'une duplication. Les copies gardent la date et le
+	 * numéro d'ordre des originaux, et sortent donc de la file dans le même ordre.
+	 * Les entrées annulées ne sont pas recopiées.
+	 *
+	 * @param source la file recopiée
+	 * @param d      la duplication en cours
+	 */
+	void recopier(AbstractEventQueue source, Duplication d) {
+		List<EvenementPlanifie> entrees = new ArrayList<>(source.nbEntrees);
+		source.collecter(entrees);
+		// Les entrees sont inserees dans l'ordre ou elles sortiront, comme lors
+		// d'ajouts successifs
+		entrees.sort(null);
+		for (EvenementPlanifie entree : entrees) {
+			if (!entree.estAnnule()) {
+				inserer(d.copie(entree));
+				nbEntrees++;
+			}
+		}
+		creneaux.recopier(source.creneaux, d);
+		prochaineSequence = source.prochaineSequence;
+	}
+
+	/**
+	 * Écrit les entrées en attente et les créneaux de la file dans une
+	 * sauvegarde, avec leurs numéros d'ordre. Les entrées annulées sont omises,
+	 * et les autres écrites dans l'ordre où elles sortiront
+	 * 
+	 * @param s la sauvegarde en cours
+	 * @throws IOException si l'écriture échoue
+	 */
+	void sauvegarder(Sauvegarde s) throws IOException {
+		List<EvenementPlanifie> entrees = new ArrayList<>(nbEntrees);
+		collecter(entrees);
+		entrees.sort(null);
+		entrees.removeIf(EvenementPlanifie::estAnnule);
+		s.ecrireInt(entrees.size());
+		for (EvenementPlanifie entree : entrees)
+			s.ecrireReference(entree);
+		creneaux.sauvegarder(s);
+		s.ecrireLong(prochaineSequence);
+	}
+
+	/**
+	 * Relit dans cette file, encore vide, les entrées et les créneaux écrits par
+	 * {@link #sauvegarder(Sauvegarde)}
+	 * 
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	void reprendre(Reprise r) throws IOException {
+		int nbEnAttente = r.lireInt();
+		for (int i = 0; i < nbEnAttente; i++) {
+			inserer(r.lireReference());
+			nbEntrees++;
+		}
+		creneaux.reprendre(r);
+		prochaineSequence = r.lireLong();
+	}
+
+	/**
+	 * Détermine si le prochain évènement est celui d'un créneau plutôt que
+	 * l'entrée en tête du reste de la file
+	 * 
+	 * @param entree la première entrée non annulée du reste de la file, ou null
+	 * @return vrai si un créneau est occupé et passe avant l'entrée
+	 */
+	private boolean creneauEnTete(EvenementPlanifie entree) {
+		int creneau = creneaux.tete();
+		if (creneau < 0)
+			return false;
+		if (entree == null)
+			return true;
+		long date = creneaux.getDate(creneau);
+		if (date != entree.date)
+			return date < entree.date;
+		return creneaux.getSequence(creneau) < entree.sequence;
+	}
+
+	/**
+	 * Retire de la tête de file les entrées annulées
+	 * 
+	 * @return la première entrée non annulée, ou null si la file est vide
+	 */
+	private EvenementPlanifie premiereEnAttente() {
+		EvenementPlanifie entree = tete();
+		while (entree != null && entree.estAnnule()) {
+			retirerTete();
+			nbEntrees--;
+			nbAnnulees--;
+			entree.retirer();
+			entree = tete();
+		}
+		return entree;
+	}
+
+	/**
+	 * Range une nouvelle entrée dans la file
+	 * 
+	 * @param entree l'entrée à ranger
+	 */
+	protected abstract void inserer(EvenementPlanifie entree);
+
+	/**
+	 * Consulte l'entrée minimale de la file, qu'elle soit annulée ou non
+	 * 
+	 * @return l'entrée de plus petite date et plus petit numéro d'ordre, ou null si
+	 *         la file est vide
+	 */
+	protected abstract EvenementPlanifie tete();
+
+	/**
+	 * Retire de la file l'entrée minimale, qui a été annulée
+	 */
+	protected abstract void retirerTete();
+
+	/**
+	 * Retire de la file l'entrée minimale, pour l'exécuter. Par défaut, fait comme
+	 * {@link #retirerTete()}.
+	 */
+	protected void extraireTete() {
+		retirerTete();
+	}
+
+	/**
+	 * Retire de la file toutes les entrées annulées
+	 */
+	protected abstract void compacter();
+
+	/**
+	 * Ajoute à une liste toutes les entrées de la file, annulées comprises, dans
+	 * un ordre quelconque
+	 *
+	 * @param entrees la liste à compléter
+	 */
+	protected abstract void collecter(List<EvenementPlanifie> entrees);
+}
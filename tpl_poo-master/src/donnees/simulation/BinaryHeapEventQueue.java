@@ -0,0 +1,105 @@
+package donnees.simulation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * File d'évènements implémentée par un tas binaire stocké dans un tableau.
+ * L'ajout et le retrait sont en O(log n).
+ */
+public class BinaryHeapEventQueue extends AbstractEventQueue {
+	/**
+	 * Capacité initiale du tas
+	 */
+	private static final int CAPACITE_INITIALE = 64;
+
+	/**
+	 * Le tas : le parent de la case i est la case (i - 1) / 2
+	 */
+	private EvenementPlanifie[] tas;
+	/**
+	 * Nombre d'entrées dans le tas
+	 */
+	private int taille;
+
+	/**
+	 * Construit une file vide
+	 */
+	public BinaryHeapEventQueue() {
+		tas = new EvenementPlanifie[CAPACITE_INITIALE];
+		taille = 0;
+	}
+
+	@Override
+	protected void inserer(EvenementPlanifie entree) {
+		if (taille == tas.length)
+			tas = Arrays.copyOf(tas, tas.length * 2);
+
+		// On place la nouvelle entree en bas du tas puis on la fait remonter
+		int i = taille++;
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (tas[parent].compareTo(entree) <= 0)
+				break;
+			tas[i] = tas[parent];
+			i = parent;
+		}
+		tas[i] = entree;
+	}
+
+	@Override
+	protected EvenementPlanifie tete() {
+		return taille == 0 ? null : tas[0];
+	}
+
+	@Override
+	protected void retirerTete() {
+		// On remplace la racine par la derniere entree, qu'on fait redescendre
+		EvenementPlanifie derniere = tas[--taille];
+		tas[taille] = null;
+		if (taille > 0)
+			descendre(0, derniere);
+	}
+
+	@Override
+	protected void compacter() {
+		// On ne garde que les entrees en attente, puis on reconstruit le tas en
+		// faisant redescendre chaque parent, des feuilles vers la racine
+		int nbGardees = 0;
+		for (int i = 0; i < taille; i++)
+			if (!tas[i].estAnnule())
+				tas[nbGardees++] = tas[i];
+		Arrays.fill(tas, nbGardees, taille, null);
+		taille = nbGardees;
+		for (int i = taille / 2 - 1; i >= 0; i--)
+			descendre(i, tas[i]);
+	}
+
+	@Override
+	protected void collecter(List<EvenementPlanifie> entrees) {
+		for (int i = 0; i < taille; i++)
+			entrees.add(tas[i]);
+	}
+
+	/**
+	 * Place une entrée à une position du tas, puis la fait descendre jusqu'à ce
+	 * que ses fils lui soient supérieurs
+	 * 
+	 * @param i      la position de départ
+	 * @param entree l'entrée à placer
+	 */
+	private void descendre(int i, EvenementPlanifie entree) {
+		while (true) {
+			int fils = 2 * i + 1;
+			if (fils >= taille)
+				break;
+			if (fils + 1 < taille && tas[fils + 1].compareTo(tas[fils]) < 0)
+				fils++;
+			if (entree.compareTo(tas[fils]) <= 0)
+				break;
+			tas[i] = tas[fils];
+			i = fils;
+		}
+		tas[i] = entree;
+	}
+}
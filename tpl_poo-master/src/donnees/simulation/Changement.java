@@ -0,0 +1,31 @@
+package donnees.simulation;
+
+/**
+ * Les changements de l'état de la simulation auxquels un chef pompier peut
+ * s'abonner : il n'est consulté que si l'un d'eux est survenu depuis sa
+ * dernière consultation
+ *
+ * @see ia.strategie.ChefPompier#getAbonnements()
+ */
+public enum Changement {
+	/**
+	 * Un incendie a été ajouté à la simulation
+	 */
+	INCENDIE_AJOUTE,
+	/**
+	 * Un incendie a été éteint
+	 */
+	INCENDIE_ETEINT,
+	/**
+	 * Un robot n'a plus rien à faire
+	 */
+	ROBOT_INACTIF,
+	/**
+	 * Le réservoir d'un robot a été vidé
+	 */
+	RESERVOIR_VIDE,
+	/**
+	 * Le réservoir d'un robot a été rempli
+	 */
+	RESERVOIR_REMPLI
+}
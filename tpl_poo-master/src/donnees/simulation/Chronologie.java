@@ -0,0 +1,209 @@
+package donnees.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chronologie d'une simulation, permettant de la replacer à n'importe quelle
+ * date déjà atteinte avec {@link Simulateur#seek(long)}. Elle garde des images
+ * clés de la simulation, des duplications jamais lancées prises au plus tous
+ * les {@link #getEspacement() espacement} secondes de simulation. Entre deux
+ * images clés, il n'y a rien à retenir : la simulation étant déterministe, les
+ * évènements de la file de l'image clé, réexécutés dans le même ordre, refont
+ * exactement les mêmes changements de cases, d'intensités, de positions et de
+ * réservoirs, y compris ceux que les trajets et les arrosages calculent à la
+ * demande entre deux évènements.
+ * <p>
+ * Une image clé coûte autant que l'état de la simulation : avec un incendie par
+ * objet, plus d'une seconde pour des centaines de milliers d'incendies. Pour
+ * que l'enregistrement puisse rester actif, une image clé n'est donc prise que
+ * si le temps passé depuis la précédente est assez grand devant le temps de
+ * capture de celle-ci, son surcoût restant ainsi sous un
+ * {@link #getSurcoutMax() maximum}. Les images clés sont alors plus espacées,
+ * et les rejeux plus longs, quand elles coûtent cher.
+ * <p>
+ * La mémoire occupée est bornée par le nombre maximal d'images clés : quand il
+ * est atteint, une image sur deux est oubliée (la première restant toujours) et
+ * l'espacement est doublé, si bien que la chronologie couvre toute la
+ * simulation quelle que soit sa durée, avec des rejeux de plus en plus longs.
+ * <p>
+ * Les images clés ne sont prises qu'en avançant au-delà de la dernière d'entre
+ * elles : après un retour en arrière, la simulation refait les mêmes
+ * évènements et les images suivantes restent valables. Elles ne le sont plus si
+ * la simulation est modifiée à la main (évènements ajoutés, chef pompier
+ * changé), il faut alors recommencer l'enregistrement.
+ */
+public class Chronologie {
+	/**
+	 * Les images clés, par dates croissantes
+	 */
+	private final List<Simulateur> cles;
+	/**
+	 * Le nombre maximal d'images clés gardées
+	 */
+	private final int nbClesMax;
+	/**
+	 * L'espacement minimal actuel entre deux images clés, en secondes de
+	 * simulation
+	 */
+	private long espacement;
+	/**
+	 * La date à partir de laquelle la prochaine image clé est prise
+	 */
+	private long dateProchaineCle;
+	/**
+	 * Le surcoût maximal de l'enregistrement, rapporté au temps passé à simuler
+	 */
+	private final double surcoutMax;
+	/**
+	 * L'instant où la dernière image clé a été prise, en nanosecondes
+	 */
+	private long finDerniereCle;
+	/**
+	 * Le temps à attendre après la dernière image clé avant d'en prendre une
+	 * autre, en nanosecondes, si la file des évènements n'a pas grandi depuis
+	 */
+	private double attenteMin;
+	/**
+	 * Le nombre d'évènements en attente, plus un, lors de la dernière image clé
+	 */
+	private int tailleDerniereCle;
+	/**
+	 * Le temps passé à prendre les images clés, en nanosecondes
+	 */
+	private long dureeCaptures;
+	/**
+	 * Le nombre d'évènements exécutés depuis que la date de la prochaine image
+	 * clé est dépassée
+	 */
+	private int nbEvenementsEnRetard;
+
+	/**
+	 * Commence la chronologie d'une simulation, dont l'état actuel est la première
+	 * image clé
+	 *
+	 * @param simulateur la simulation enregistrée
+	 * @param espacement l'espacement minimal initial entre deux images clés, en
+	 *                   secondes de simulation
+	 * @param nbClesMax  le nombre maximal d'images clés gardées, au moins 2
+	 * @param surcoutMax le surcoût maximal de l'enregistrement, rapporté au temps
+	 *                   passé à simuler, strictement positif
+	 */
+	Chronologie(Simulateur simulateur, long espacement, int nbClesMax, double surcoutMax) {
+		if (espacement <= 0 || nbClesMax < 2 || !(surcoutMax > 0))
+			throw new IllegalArgumentException("L'espacement, le nombre d'images clés ou le surcoût est incorrect");
+		this.cles = new ArrayList<>();
+		this.nbClesMax = nbClesMax;
+		this.espacement = espacement;
+		this.surcoutMax = surcoutMax;
+		capturer(simulateur);
+	}
+
+	/**
+	 * Prend une image clé si la simulation a dépassé la date de la prochaine et
+	 * que la précédente est assez loin derrière, appelée par le simulateur après
+	 * chaque évènement exécuté
+	 *
+	 * @param simulateur la simulation enregistrée
+	 */
+	void signalerEvenement(Simulateur simulateur) {
+		if (simulateur.getDate() < dateProchaineCle)
+			return;
+		if (attenteMin > 0) {
+			// L'horloge coutant cher devant un evenement, elle n'est lue qu'un
+			// evenement sur 64 tant qu'il faut attendre
+			if ((++nbEvenementsEnRetard & 63) != 0)
+				return;
+			// Une image cle coute d'autant plus que la file des evenements a grandi
+			double croissance = Math.max(1, (simulateur.getNbEvenementsEnAttente() + 1) / (double) tailleDerniereCle);
+			if (System.nanoTime() - finDerniereCle < attenteMin * croissance)
+				return;
+		}
+		capturer(simulateur);
+	}
+
+	/**
+	 * Méthode interne prenant une image clé de la simulation à sa date actuelle,
+	 * en éclaircissant les images clés si leur nombre maximal est dépassé
+	 *
+	 * @param simulateur la simulation enregistrée
+	 */
+	private void capturer(Simulateur simulateur) {
+		long debut = System.nanoTime();
+		cles.add(simulateur.prendreImageCle());
+		if (cles.size() > nbClesMax) {
+			// On garde une image sur deux, dont la premiere, et on espace les suivantes
+			int nbGardees = 0;
+			for (int i = 0; i < cles.size(); i += 2)
+				cles.set(nbGardees++, cles.get(i));
+			cles.subList(nbGardees, cles.size()).clear();
+			espacement = espacement > Long.MAX_VALUE / 2 ? Long.MAX_VALUE : espacement * 2;
+		}
+		long derniere = cles.get(cles.size() - 1).getDate();
+		dateProchaineCle = espacement > Long.MAX_VALUE - derniere ? Long.MAX_VALUE : derniere + espacement;
+		finDerniereCle = System.nanoTime();
+		dureeCaptures += finDerniereCle - debut;
+		attenteMin = (finDerniereCle - debut) / surcoutMax;
+		tailleDerniereCle = simulateur.getNbEvenementsEnAttente() + 1;
+		nbEvenementsEnRetard = 0;
+	}
+
+	/**
+	 * Cherche l'image clé la plus récente prise au plus tard à une date
+	 *
+	 * @param date la date visée
+	 * @return l'image clé, ou null si la date précède la chronologie
+	 */
+	Simulateur trouverCle(long date) {
+		// Recherche dichotomique de la derniere image de date inferieure ou egale
+		int debut = 0;
+		int fin = cles.size();
+		while (debut < fin) {
+			int milieu = (debut + fin) >>> 1;
+			if (cles.get(milieu).getDate() <= date)
+				debut = milieu + 1;
+			else
+				fin = milieu;
+		}
+		return debut == 0 ? null : cles.get(debut - 1);
+	}
+
+	/**
+	 * @return le nombre d'images clés actuellement gardées
+	 */
+	public int getNbCles() {
+		return cles.size();
+	}
+
+	/**
+	 * @return l'espacement minimal actuel entre deux images clés, en secondes de
+	 *         simulation
+	 */
+	public long getEspacement() {
+		return espacement;
+	}
+
+	/**
+	 * @return le surcoût maximal de l'enregistrement, rapporté au temps passé à
+	 *         simuler
+	 */
+	public double getSurcoutMax() {
+		return surcoutMax;
+	}
+
+	/**
+	 * @return le temps passé à prendre les images clés depuis le début de
+	 *         l'enregistrement, en nanosecondes
+	 */
+	public long getDureeCaptures() {
+		return dureeCaptures;
+	}
+
+	/**
+	 * @return la date de la première image clé, à partir de laquelle la
+	 *         simulation peut être replacée
+	 */
+	public long getDateDebut() {
+		return cles.get(0).getDate();
+	}
+}
@@ -1,22 +1,72 @@
 package donnees.simulation;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import donnees.Incendie;
 import donnees.robots.Robot;
 import donnees.terrain.Carte;
 import donnees.terrain.Case;
 import donnees.terrain.Direction;
+import donnees.terrain.NatureTerrain;
 
 /**
  * Classe regroupant toutes les données de la simulation pour l'état courant
+ * 
+ * Une copie des données partage les incendies et les robots de l'original tant
+ * que ni l'une ni l'autre ne les modifie : la copie profonde n'est faite qu'à la
+ * première modification, par les données qui divergent les premières, l'état
+ * partagé n'étant lui jamais modifié. Les modifications passent donc par les
+ * méthodes de ces données ({@link #deplacerRobot(Robot, Direction)},
+ * {@link #interventionRobot(Robot, Incendie)},
+ * {@link #ajouterIncendie(Incendie)}), et les accesseurs se contentent de
+ * rendre l'état, partagé ou non.
+ * 
+ * Un simulateur, dont les évènements tiennent directement les robots et les
+ * incendies et les modifient sans passer par ces méthodes, s'approprie ses
+ * données à son initialisation avec {@link #approprier()} : la copie de données
+ * appropriées est alors profonde. Avec un incendie par objet, la planification
+ * des expansions rattache de toute façon un évènement à chaque incendie, et ne
+ * coûte pas moins que leur copie ; un magasin d'incendies est copié d'un bloc.
  */
 public class DonneeSimulation {
 	/**
-	 * Liste des incendies actuellement allumés
+	 * Les natures de terrain, indexées par leur rang
 	 */
-	private List<Incendie> incendies;
+	private static final NatureTerrain[] NATURES = NatureTerrain.values();
+
+	/**
+	 * Incendies actuellement allumés, dans leur ordre d'ajout, ou null si les
+	 * incendies sont conservés dans un magasin
+	 */
+	private Set<Incendie> incendies;
+	/**
+	 * Vue non modifiable des incendies, rendue par {@link #getIncendies()}
+	 */
+	private Collection<Incendie> vueIncendies;
+	/**
+	 * Index des incendies par case, ou null si les incendies sont conservés dans
+	 * un magasin
+	 */
+	private GrilleIncendies grilleIncendies;
+	/**
+	 * Le magasin conservant les incendies sous forme de tableaux, ou null si
+	 * chaque incendie est un objet
+	 */
+	private MagasinIncendies magasin;
+	/**
+	 * Intensité en dessous de laquelle un nouvel incendie rejoint une zone
+	 * d'incendies plutôt que d'être un objet à part, ou 0 si les incendies ne sont
+	 * pas regroupés en zones
+	 */
+	private int seuilZones;
 	/**
 	 * Carte du terrain de la simulation
 	 */
@@ -25,38 +75,353 @@ public class DonneeSimulation {
 	 * Liste des robots pompiers
 	 */
 	private List<Robot> robots;
+	/**
+	 * Nombre de données partageant ces incendies et ces robots, ou null si ces
+	 * données en sont les seules détentrices
+	 */
+	private AtomicInteger partage;
+	/**
+	 * Vrai si un simulateur s'est approprié ces données, dont il modifie alors
+	 * directement les incendies et les robots
+	 */
+	private boolean appropriee;
+	/**
+	 * Changements survenus depuis la dernière consultation du chef pompier
+	 */
+	private EnumSet<Changement> changements;
 
 	/**
 	 * Construit la structure des données de simulation à partir des données
 	 * initiale de la simulation
 	 * 
-	 * @param incendies liste des incendies
+	 * @param incendies les incendies
 	 * @param carte     carte du terrain
 	 * @param robots    liste des robots
 	 */
-	public DonneeSimulation(List<Incendie> incendies, Carte carte, List<Robot> robots) {
+	public DonneeSimulation(Collection<Incendie> incendies, Carte carte, List<Robot> robots) {
+		this(incendies, carte, robots, false);
+	}
+
+	/**
+	 * Construit la structure des données de simulation à partir des données
+	 * initiale de la simulation, en conservant éventuellement les incendies dans
+	 * un {@link MagasinIncendies} plutôt que sous forme d'objets
+	 * 
+	 * @param incendies les incendies
+	 * @param carte     carte du terrain
+	 * @param robots    liste des robots
+	 * @param magasin   vrai pour conserver les incendies dans un magasin
+	 */
+	public DonneeSimulation(Collection<Incendie> incendies, Carte carte, List<Robot> robots, boolean magasin) {
+		// Carte est un objet non modifiable, pas besoin de le copier
+		this.carte = carte;
+
 		// On fait une copie profonde des liste, pour permettre de faire une copie
 		// indépendante des
 		// données de simulation
-		this.incendies = new ArrayList<>(incendies.size());
-		for (Incendie incendie : incendies)
-			this.incendies.add(new Incendie(incendie));
+		if (magasin) {
+			initialiserMagasin(new MagasinIncendies(carte));
+			for (Incendie incendie : incendies)
+				this.magasin.allumer(incendie.getPosition(), incendie.getIntensite());
+		} else {
+			initialiserIncendies();
+			for (Incendie incendie : incendies)
+				indexer(copier(incendie));
+		}
+		copierRobots(robots);
 
-		this.robots = new ArrayList<>(robots.size());
+		// Au debut de la simulation, tout est nouveau pour le chef pompier
+		this.changements = EnumSet.allOf(Changement.class);
+	}
+
+	/**
+	 * Construit un objet {@link DonneeSimulation} en temps constant, qui partage
+	 * les incendies et les robots de l'objet copié jusqu'à la première
+	 * modification de l'un ou de l'autre. Tout se passe comme pour une copie
+	 * profonde, faite à ce moment-là. Les données d'un simulateur, qu'il modifie
+	 * sans prévenir, sont copiées tout de suite. Un magasin d'incendies est copié
+	 * avec les expansions qu'il a prévues
+	 * 
+	 * @param d l'objet à copier
+	 */
+	public DonneeSimulation(DonneeSimulation d) {
+		this.carte = d.carte;
+		this.seuilZones = d.seuilZones;
+		this.changements = EnumSet.allOf(Changement.class);
+		if (d.appropriee) {
+			copierEtat(d);
+			return;
+		}
+		// Plusieurs fils peuvent copier les memes donnees
+		synchronized (d) {
+			if (d.partage == null)
+				d.partage = new AtomicInteger(1);
+			d.partage.incrementAndGet();
+			this.partage = d.partage;
+		}
+		reprendreEtat(d);
+	}
+
+	/**
+	 * Construit la copie des données d'un simulateur dupliqué par
+	 * {@link Simulateur#fork()} : les incendies et les robots copiés gardent leurs
+	 * évènements, arrosages et objectifs, rattachés à leurs copies. Les robots
+	 * gardent leur numéro.
+	 * 
+	 * @param d   les données à copier
+	 * @param dup la duplication en cours
+	 */
+	DonneeSimulation(DonneeSimulation d, Duplication dup) {
+		this.carte = d.carte;
+		this.seuilZones = d.seuilZones;
+		dup.enregistrer(d, this);
+		if (d.magasin != null)
+			initialiserMagasin(dup.copie(d.magasin));
+		else {
+			initialiserIncendies();
+			for (Incendie incendie : d.incendies)
+				indexer(dup.copie(incendie));
+		}
+		this.robots = new ArrayList<>(d.robots.size());
+		for (Robot robot : d.robots)
+			robots.add(dup.copie(robot));
+		this.changements = EnumSet.copyOf(d.changements);
+		this.appropriee = true;
+	}
+
+	/**
+	 * Relit les données d'un simulateur repris par
+	 * {@link Simulateur#reprendre(java.nio.file.Path)}, carte comprise : les
+	 * incendies et les robots retrouvent leurs évènements, arrosages et
+	 * objectifs, et les robots leur numéro.
+	 * 
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	DonneeSimulation(Reprise r) throws IOException {
+		int nbLignes = r.lireInt();
+		int nbColonnes = r.lireInt();
+		Carte.Builder builder = new Carte.Builder(nbLignes, nbColonnes, r.lireInt());
+		byte[] natures = new byte[nbColonnes];
+		for (int lig = 0; lig < nbLignes; lig++) {
+			r.lireOctets(natures, nbColonnes);
+			for (int col = 0; col < nbColonnes; col++)
+				builder.setNature(lig, col, NATURES[natures[col]]);
+		}
+		this.carte = builder.construire();
+		r.setCarte(carte);
+		r.enregistrer(this);
+		this.seuilZones = r.lireInt();
+		if (r.lireBooleen())
+			initialiserMagasin(r.lireReference());
+		else {
+			initialiserIncendies();
+			int nbIncendies = r.lireInt();
+			for (int i = 0; i < nbIncendies; i++)
+				indexer(r.lireReference());
+		}
+		int nbRobots = r.lireInt();
+		this.robots = new ArrayList<>(nbRobots);
+		for (int i = 0; i < nbRobots; i++)
+			robots.add(r.lireReference());
+		this.changements = EnumSet.noneOf(Changement.class);
+		int masque = r.lireInt();
+		for (Changement c : Changement.values())
+			if ((masque & (1 << c.ordinal())) != 0)
+				changements.add(c);
+		this.appropriee = true;
+	}
+
+	/**
+	 * Écrit les données dans la sauvegarde d'un simulateur, en commençant par la
+	 * carte dont les cases des objets écrits ensuite sont tirées
+	 * 
+	 * @param s la sauvegarde en cours
+	 * @throws IOException si l'écriture échoue
+	 */
+	void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireInt(carte.getNbLignes());
+		s.ecrireInt(carte.getNbColonnes());
+		s.ecrireInt(carte.getTailleCase());
+		byte[] natures = new byte[carte.getNbColonnes()];
+		for (int lig = 0; lig < carte.getNbLignes(); lig++) {
+			for (int col = 0; col < natures.length; col++)
+				natures[col] = carte.getNumeroNature(carte.getCellule(lig, col));
+			s.ecrireOctets(natures, natures.length);
+		}
+		s.enregistrer(this);
+		s.ecrireInt(seuilZones);
+		s.ecrireBooleen(magasin != null);
+		if (magasin != null)
+			s.ecrireReference(magasin);
+		else {
+			s.ecrireInt(incendies.size());
+			for (Incendie incendie : incendies)
+				s.ecrireReference(incendie);
+		}
+		s.ecrireInt(robots.size());
 		for (Robot robot : robots)
-			this.robots.add(robot.copy());
+			s.ecrireReference(robot);
+		int masque = 0;
+		for (Changement c : changements)
+			masque |= 1 << c.ordinal();
+		s.ecrireInt(masque);
+	}
 
-		// Carte est un objet non modifiable, pas besoin de le copier
+	/**
+	 * Constructeur interne de données vides sur une carte, complétées ensuite
+	 * 
+	 * @param carte la carte
+	 */
+	private DonneeSimulation(Carte carte) {
 		this.carte = carte;
+		this.changements = EnumSet.allOf(Changement.class);
 	}
 
 	/**
-	 * Construit un objet {@link DonneeSimulation} en faisant une copie profonde
+	 * Réunit les données de plusieurs parties de la même carte, sans les copier :
+	 * les incendies et les robots des données obtenues sont ceux des différentes
+	 * parties. Les numéros des robots ne sont pas modifiés.
 	 * 
-	 * @param d l'objet à copier
+	 * @param carte   la carte commune à toutes les parties
+	 * @param parties les données de chaque partie
+	 * @return une vue d'ensemble des données
 	 */
-	public DonneeSimulation(DonneeSimulation d) {
-		this(d.incendies, d.carte, d.robots);
+	static DonneeSimulation reunir(Carte carte, List<DonneeSimulation> parties) {
+		DonneeSimulation donnees = new DonneeSimulation(carte);
+		donnees.initialiserIncendies();
+		donnees.robots = new ArrayList<>();
+		for (DonneeSimulation partie : parties) {
+			for (Incendie incendie : partie.getIncendies())
+				donnees.indexer(incendie);
+			donnees.robots.addAll(partie.getRobots());
+		}
+		// Les objets appartiennent aux parties, une copie de la vue doit etre profonde
+		donnees.appropriee = true;
+		return donnees;
+	}
+
+	/**
+	 * Méthode interne créant l'ensemble et l'index des incendies, vides
+	 */
+	private void initialiserIncendies() {
+		this.incendies = new LinkedHashSet<>();
+		this.vueIncendies = Collections.unmodifiableCollection(incendies);
+		this.grilleIncendies = new GrilleIncendies(carte.getNbLignes(), carte.getNbColonnes());
+	}
+
+	/**
+	 * Méthode interne conservant les incendies dans un magasin
+	 * 
+	 * @param magasin le magasin
+	 */
+	private void initialiserMagasin(MagasinIncendies magasin) {
+		this.magasin = magasin;
+		this.vueIncendies = magasin.getIncendies();
+	}
+
+	/**
+	 * Réserve les incendies et les robots au simulateur qui va les modifier sans
+	 * passer par ces données : ses évènements, trajets et arrosages les tiennent
+	 * directement, et leur état calculé à la demande dépend de la date du
+	 * simulateur. Les données cessent de les partager, et toute copie qui en sera
+	 * faite ensuite sera profonde
+	 */
+	void approprier() {
+		if (partage != null)
+			detacher();
+		appropriee = true;
+	}
+
+	/**
+	 * Méthode interne cessant de partager les incendies et les robots avant de
+	 * les modifier. Les dernières données à les partager les reprennent, les
+	 * autres en font une copie : l'état partagé n'est jamais modifié, et peut
+	 * être lu sans verrou
+	 */
+	private void detacher() {
+		AtomicInteger p = partage;
+		partage = null;
+		if (p.get() == 1 && p.compareAndSet(1, 0))
+			return;
+		copierEtat(this);
+		// Les autres detentrices ne peuvent reprendre l'etat qu'une fois la copie
+		// faite
+		p.decrementAndGet();
+	}
+
+	/**
+	 * Méthode interne faisant une copie profonde des incendies et des robots
+	 * de données, qui peuvent être celles-ci
+	 * 
+	 * @param d les données à copier
+	 */
+	private void copierEtat(DonneeSimulation d) {
+		Set<Incendie> incendiesCopies = d.incendies;
+		List<Robot> robotsCopies = d.robots;
+		if (d.magasin != null)
+			initialiserMagasin(new MagasinIncendies(d.magasin));
+		else {
+			initialiserIncendies();
+			for (Incendie incendie : incendiesCopies)
+				indexer(copier(incendie));
+		}
+		copierRobots(robotsCopies);
+	}
+
+	/**
+	 * Méthode interne reprenant les incendies et les robots d'autres données,
+	 * sans les copier
+	 * 
+	 * @param d les données dont l'état est repris
+	 */
+	private void reprendreEtat(DonneeSimulation d) {
+		this.incendies = d.incendies;
+		this.vueIncendies = d.vueIncendies;
+		this.grilleIncendies = d.grilleIncendies;
+		this.magasin = d.magasin;
+		this.robots = d.robots;
+	}
+
+	/**
+	 * Méthode interne copiant les robots, chacun étant numéroté selon sa position
+	 * dans la liste
+	 * 
+	 * @param robots les robots à copier
+	 */
+	private void copierRobots(List<Robot> robots) {
+		this.robots = new ArrayList<>(robots.size());
+		for (Robot robot : robots) {
+			Robot copie = robot.copy();
+			copie.setNumero(this.robots.size());
+			this.robots.add(copie);
+		}
+	}
+
+	/**
+	 * Méthode interne copiant un incendie, ou une zone d'incendies avec toutes ses
+	 * cases
+	 * 
+	 * @param incendie l'incendie à copier
+	 * @return la copie
+	 */
+	private static Incendie copier(Incendie incendie) {
+		return incendie instanceof ZoneIncendie ? new ZoneIncendie((ZoneIncendie) incendie) : new Incendie(incendie);
+	}
+
+	/**
+	 * Méthode interne ajoutant un incendie à l'ensemble et à l'index des
+	 * incendies, sur chacune de ses cases s'il s'agit d'une zone
+	 * 
+	 * @param incendie l'incendie à ajouter
+	 */
+	private void indexer(Incendie incendie) {
+		incendies.add(incendie);
+		if (incendie instanceof ZoneIncendie)
+			for (Case c : ((ZoneIncendie) incendie).getCases())
+				grilleIncendies.placer(c, incendie);
+		else
+			grilleIncendies.placer(incendie);
 	}
 
 	/**
@@ -68,6 +433,8 @@ public class DonneeSimulation {
 	 * @return vrai si le robot a pu se déplacer, faux sinon
 	 */
 	public boolean deplacerRobot(Robot r, Direction dir) {
+		if (partage != null)
+			detacher();
 		Case newPos = getCaseInDirection(r.getPosition(), dir);
 		if (newPos != null && r.getVitesse(newPos.getNature()) != 0) {
 			r.setPosition(newPos);
@@ -91,53 +458,190 @@ public class DonneeSimulation {
 	}
 
 	/**
-	 * Permet de prendre en compte l'intervention d'un robot
+	 * Permet de prendre en compte l'intervention d'un robot. Si l'incendie est
+	 * éteint, son expansion prévue est annulée. L'extinction de l'incendie et le
+	 * vidage du réservoir du robot sont signalés comme des changements
 	 * 
 	 * @param r  le robot pompier
 	 * @param ic l'incendie sur lequel le robot intervient
 	 * @return vrai si jamais l'incendie a été éteint, faux sinon
 	 */
 	public boolean interventionRobot(Robot r, Incendie ic) {
+		if (partage != null)
+			detacher();
 		boolean eteint = r.intervention(ic);
-		// Si l'incendie est eteint, on l'enleve de la liste des incendies
-		if (eteint)
-			this.incendies.remove(ic);
+		if (r.getReservoir().estVide())
+			signalerChangement(Changement.RESERVOIR_VIDE);
+		// Si l'incendie est eteint, on l'enleve de la liste des incendies et il ne
+		// s'etendra plus
+		if (eteint) {
+			if (magasin != null)
+				magasin.eteindre(ic);
+			else if (ic instanceof ZoneIncendie) {
+				this.incendies.remove(ic);
+				for (Case c : ((ZoneIncendie) ic).getCases())
+					grilleIncendies.retirer(c, ic);
+			} else {
+				this.incendies.remove(ic);
+				grilleIncendies.retirer(ic);
+			}
+			signalerChangement(Changement.INCENDIE_ETEINT);
+			if (ic.getExpansionPrevue() != null)
+				ic.getExpansionPrevue().annuler();
+		}
 		return eteint;
 	}
 
 	/**
-	 * Accède à un incendie depuis une position
+	 * Accède à un incendie depuis une position, en temps constant
 	 * 
 	 * @param cs la position testée
 	 * @return l'incendie qui est à cette position, ou null si aucun incendie ne se
 	 *         trouve à cette position
 	 */
 	public Incendie getSingleIncendie(Case cs) {
-		// On a bien redefini la methode equals() de Case pour verifier uniquement les
-		// coordonnees des cases
-		return this.incendies.stream().filter(incendie -> cs.equals(incendie.getPosition())).findAny().orElse(null);
+		// L'index ne regarde que les coordonnees de la case, comme equals()
+		return magasin != null ? magasin.getIncendie(cs) : grilleIncendies.get(cs);
 	}
 
 	/**
-	 * Permet d'ajouter un incendie dans les données
+	 * Permet d'ajouter un incendie dans les données. Dans un magasin, l'incendie
+	 * est recopié et son expansion planifiée à la date actuelle du magasin
 	 * 
 	 * @param incendie l'incendie à ajouter
 	 * @throws IllegalArgumentException si un incendie se trouve à cette position
 	 */
 	public void ajouterIncendie(Incendie incendie) throws IllegalArgumentException  {
+		if (partage != null)
+			detacher();
 		if (getSingleIncendie(incendie.getPosition()) != null)
 			throw new IllegalArgumentException("Un incendie se trouve déjà à cette position");
-		incendies.add(incendie);
+		if (magasin != null)
+			magasin.allumer(incendie.getPosition(), incendie.getIntensite());
+		else
+			indexer(incendie);
+		signalerChangement(Changement.INCENDIE_AJOUTE);
 	}
 
 	/**
-	 * Retourne la liste des incendies
+	 * Fait rejoindre à un incendie une zone d'incendies voisine, s'il y en a une.
+	 * L'ensemble des incendies ne changeant pas, le chef pompier n'en est pas
+	 * averti
 	 * 
-	 * @return les incendies
+	 * @param incendie l'incendie à ajouter
+	 * @param date     la date actuelle de la simulation
+	 * @return la zone que l'incendie a rejointe, ou null s'il reste à l'ajouter
+	 * @throws IllegalArgumentException si un incendie se trouve à cette position
 	 */
-	public List<Incendie> getIncendies() {
-		// Pour garantir une encapsulation parfaite on devrait faire une copie ici
-		return incendies;
+	ZoneIncendie rejoindreZone(Incendie incendie, long date) throws IllegalArgumentException {
+		if (partage != null)
+			detacher();
+		Case position = incendie.getPosition();
+		if (getSingleIncendie(position) != null)
+			throw new IllegalArgumentException("Un incendie se trouve déjà à cette position");
+		int cellule = carte.getCellule(position);
+		for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+			int voisine = carte.getVoisine(cellule, d);
+			if (voisine == Carte.HORS_CARTE)
+				continue;
+			Incendie incendieVoisin = grilleIncendies.get(carte.getCase(voisine));
+			if (incendieVoisin instanceof ZoneIncendie) {
+				etendreZone((ZoneIncendie) incendieVoisin, position, incendie.getIntensite(), date);
+				return (ZoneIncendie) incendieVoisin;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Ajoute une case en feu à une zone d'incendies
+	 * 
+	 * @param zone      la zone
+	 * @param c         la case, sans incendie
+	 * @param intensite l'intensité de l'incendie de la case
+	 * @param date      la date actuelle de la simulation
+	 */
+	void etendreZone(ZoneIncendie zone, Case c, int intensite, long date) {
+		if (partage != null)
+			detacher();
+		grilleIncendies.placer(c, zone);
+		zone.ajouterCase(c, intensite, date, carte.getTailleCase());
+	}
+
+	/**
+	 * @return l'intensité en dessous de laquelle un nouvel incendie rejoint une
+	 *         zone d'incendies, ou 0 si les incendies ne sont pas regroupés
+	 */
+	public int getSeuilZones() {
+		return seuilZones;
+	}
+
+	/**
+	 * Permet de regrouper les nouveaux incendies plus faibles qu'un seuil dans des
+	 * {@link ZoneIncendie zones} couvrant des cases contiguës, chaque zone étant
+	 * un seul incendie pour les robots et les chefs pompiers. Les incendies déjà
+	 * allumés ne sont pas regroupés. La simulation obtenue n'est qu'une
+	 * approximation de la simulation case par case, dont les écarts sont décrits
+	 * par {@link ZoneIncendie}
+	 * 
+	 * @param seuil l'intensité en dessous de laquelle un nouvel incendie rejoint
+	 *              une zone, ou 0 pour ne pas regrouper les incendies
+	 * @throws UnsupportedOperationException si les incendies sont conservés dans
+	 *                                       un magasin
+	 */
+	public void setSeuilZones(int seuil) throws UnsupportedOperationException {
+		if (magasin != null && seuil > 0)
+			throw new UnsupportedOperationException("Les incendies d'un magasin ne sont pas regroupés en zones");
+		this.seuilZones = seuil;
+	}
+
+	/**
+	 * Signale un changement de l'état de la simulation, qui entraînera la
+	 * consultation du chef pompier s'il y est abonné
+	 * 
+	 * @param changement le changement survenu
+	 */
+	public void signalerChangement(Changement changement) {
+		changements.add(changement);
+	}
+
+	/**
+	 * Oublie les changements survenus depuis le dernier appel, en indiquant si l'un
+	 * d'eux fait partie des abonnements donnés
+	 * 
+	 * @param abonnements les changements auxquels on s'intéresse
+	 * @return vrai si l'un de ces changements est survenu
+	 */
+	public boolean consommerChangements(Set<Changement> abonnements) {
+		// Le cas courant, sans allouer d'iterateur
+		if (changements.isEmpty())
+			return false;
+		boolean changement = false;
+		for (Changement c : abonnements)
+			changement |= changements.contains(c);
+		changements.clear();
+		return changement;
+	}
+
+	/**
+	 * Retourne les incendies, dans leur ordre d'ajout, ou dans l'ordre des cases
+	 * s'ils sont conservés dans un magasin. Une zone d'incendies y figure comme un
+	 * seul incendie
+	 * 
+	 * @return les incendies, non modifiables : on passe par
+	 *         {@link #ajouterIncendie(Incendie)} et
+	 *         {@link #interventionRobot(Robot, Incendie)} pour les modifier
+	 */
+	public Collection<Incendie> getIncendies() {
+		return vueIncendies;
+	}
+
+	/**
+	 * @return le magasin conservant les incendies, ou null si chaque incendie est
+	 *         un objet
+	 */
+	public MagasinIncendies getMagasinIncendies() {
+		return magasin;
 	}
 
 	/**
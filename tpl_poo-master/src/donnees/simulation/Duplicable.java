@@ -0,0 +1,21 @@
+package donnees.simulation;
+
+/**
+ * Objet de l'état d'une simulation en cours que {@link Simulateur#fork()} peut
+ * dupliquer. Les objets s'y référençant souvent les uns les autres, la copie
+ * doit être {@link Duplication#enregistrer(Object, Object) enregistrée} avant
+ * de copier les objets qu'elle référence, qui la retrouveront ainsi au lieu
+ * d'en faire une autre.
+ *
+ * @see Duplication
+ */
+public interface Duplicable {
+	/**
+	 * Construit la copie de l'objet dans une duplication, sans passer par
+	 * {@link Duplication#copie(Duplicable)} qui est la seule à l'appeler
+	 *
+	 * @param d la duplication en cours
+	 * @return la copie de l'objet
+	 */
+	public Object dupliquer(Duplication d);
+}
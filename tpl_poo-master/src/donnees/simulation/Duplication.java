@@ -0,0 +1,79 @@
+package donnees.simulation;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Duplication de l'état d'un simulateur en cours par {@link Simulateur#fork()}.
+ * Chaque objet {@link Duplicable} n'est copié qu'une fois, quel que soit le
+ * nombre d'objets qui le référencent, et les références entre objets copiés
+ * sont reportées sur leurs copies. Les objets qui ne changent pas au cours de
+ * la simulation (la carte, les cases, les algorithmes de recherche de chemin)
+ * sont partagés avec l'original.
+ */
+public class Duplication {
+	/**
+	 * La copie de chaque objet déjà dupliqué
+	 */
+	private final Map<Object, Object> copies;
+	/**
+	 * Le simulateur construit par la duplication
+	 */
+	private final Simulateur simulateur;
+
+	/**
+	 * Commence la duplication d'un simulateur
+	 *
+	 * @param original le simulateur dupliqué
+	 * @param copie    le simulateur construit, encore vide
+	 */
+	Duplication(Simulateur original, Simulateur copie) {
+		this.copies = new IdentityHashMap<>();
+		this.simulateur = copie;
+		copies.put(original, copie);
+	}
+
+	/**
+	 * @return le simulateur construit par la duplication, auquel les objets
+	 *         copiés se rattachent
+	 */
+	public Simulateur getSimulateur() {
+		return simulateur;
+	}
+
+	/**
+	 * Enregistre la copie d'un objet, avant de copier les objets qu'il référence
+	 *
+	 * @param original l'objet dupliqué
+	 * @param copie    sa copie
+	 */
+	public void enregistrer(Object original, Object copie) {
+		copies.put(original, copie);
+	}
+
+	/**
+	 * Donne la copie d'un objet, en le dupliquant s'il ne l'a pas encore été
+	 *
+	 * @param <T>      le type de l'objet
+	 * @param original l'objet, ou null
+	 * @return sa copie, ou null
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Duplicable> T copie(T original) {
+		if (original == null)
+			return null;
+		Object copie = copies.get(original);
+		return (T) (copie != null ? copie : original.dupliquer(this));
+	}
+
+	/**
+	 * Donne la copie déjà enregistrée d'un objet qui n'est pas
+	 * {@link Duplicable}
+	 *
+	 * @param original l'objet
+	 * @return sa copie, ou null si elle n'a pas été enregistrée
+	 */
+	Object getCopie(Object original) {
+		return copies.get(original);
+	}
+}
@@ -0,0 +1,202 @@
+package donnees.simulation;
+
+import java.io.IOException;
+
+import donnees.evenements.Evenement;
+
+/**
+ * Poignée sur un évènement ajouté dans une {@link EventQueue}. Elle permet
+ * d'annuler l'évènement tant qu'il n'a pas été retiré de la file : l'entrée
+ * reste alors dans la file (pierre tombale) et sera simplement ignorée lors du
+ * retrait, la file se compactant d'elle-même lorsque la proportion d'entrées
+ * annulées devient trop grande.
+ * 
+ * Le numéro d'ordre d'ajout de l'entrée sert à départager les évènements de
+ * même date.
+ * 
+ * Une fois son évènement exécuté, l'entrée peut être remise dans la file avec
+ * {@link EventQueue#reajouter(EvenementPlanifie)} pour replanifier le même
+ * évènement à une autre date, sans rien allouer.
+ */
+public class EvenementPlanifie implements Comparable<EvenementPlanifie>, Duplicable, Sauvegardable {
+	/**
+	 * L'évènement planifié, qui ne change plus une fois l'entrée construite
+	 */
+	Evenement evenement;
+	/**
+	 * Date de l'évènement au moment de son ajout, en secondes
+	 */
+	long date;
+	/**
+	 * Numéro d'ordre d'ajout dans la file
+	 */
+	long sequence;
+	/**
+	 * La file contenant l'entrée, prévenue lors d'une annulation
+	 */
+	private final AbstractEventQueue file;
+	/**
+	 * Vrai si l'évènement a été annulé
+	 */
+	private boolean annule;
+	/**
+	 * Vrai si l'entrée a été retirée de la file, que l'évènement ait été annulé
+	 * ou non
+	 */
+	private boolean retire;
+
+	/**
+	 * Construit une entrée de file
+	 * 
+	 * @param evenement l'évènement planifié
+	 * @param sequence  le numéro d'ordre d'ajout
+	 * @param file      la file contenant l'entrée
+	 */
+	EvenementPlanifie(Evenement evenement, long sequence, AbstractEventQueue file) {
+		this.evenement = evenement;
+		this.date = evenement.getDate();
+		this.sequence = sequence;
+		this.file = file;
+		this.annule = false;
+		this.retire = false;
+	}
+
+	/**
+	 * Construit la copie d'une entrée dans une duplication, dans la copie de sa
+	 * file, qui doit déjà être enregistrée. La copie n'est pas rangée dans la
+	 * file
+	 * 
+	 * @param entree l'entrée à copier
+	 * @param d      la duplication en cours
+	 */
+	private EvenementPlanifie(EvenementPlanifie entree, Duplication d) {
+		d.enregistrer(entree, this);
+		this.date = entree.date;
+		this.sequence = entree.sequence;
+		this.file = (AbstractEventQueue) d.getCopie(entree.file);
+		this.annule = entree.annule;
+		this.retire = entree.retire;
+		this.evenement = d.copie(entree.evenement);
+	}
+
+	@Override
+	public EvenementPlanifie dupliquer(Duplication d) {
+		return new EvenementPlanifie(this, d);
+	}
+
+	/**
+	 * Relit une entrée dans une reprise, rattachée à la file reprise qui doit
+	 * déjà être enregistrée. L'entrée n'est pas rangée dans la file
+	 * 
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private EvenementPlanifie(Reprise r) throws IOException {
+		r.enregistrer(this);
+		this.date = r.lireLong();
+		this.sequence = r.lireLong();
+		this.annule = r.lireBooleen();
+		this.retire = r.lireBooleen();
+		this.file = r.lireReference();
+		this.evenement = r.lireReference();
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireLong(date);
+		s.ecrireLong(sequence);
+		s.ecrireBooleen(annule);
+		s.ecrireBooleen(retire);
+		s.ecrireReferenceConnue(file);
+		s.ecrireReference(evenement);
+	}
+
+	/**
+	 * @return l'évènement planifié
+	 */
+	public Evenement getEvenement() {
+		return evenement;
+	}
+
+	/**
+	 * @return la date de l'évènement, en secondes
+	 */
+	public long getDate() {
+		return date;
+	}
+
+	/**
+	 * @return vrai si l'évènement a été annulé
+	 */
+	public boolean estAnnule() {
+		return annule;
+	}
+
+	/**
+	 * @return vrai si l'évènement est toujours en attente d'exécution dans la
+	 *         file, c'est-à-dire ni retiré ni annulé
+	 */
+	public boolean estEnAttente() {
+		return !annule && !retire;
+	}
+
+	/**
+	 * @return vrai si l'entrée a été retirée de la file pour que son évènement
+	 *         soit exécuté, c'est-à-dire sans avoir été annulée
+	 */
+	public boolean estRetire() {
+		return retire && !annule;
+	}
+
+	/**
+	 * Annule l'évènement, s'il est toujours en attente : il ne sera jamais retourné
+	 * par la file
+	 * 
+	 * @return vrai si l'évènement a été annulé, faux s'il avait déjà été retiré ou
+	 *         annulé
+	 */
+	public boolean annuler() {
+		if (!estEnAttente())
+			return false;
+		annule = true;
+		file.signalerAnnulation();
+		return true;
+	}
+
+	/**
+	 * Indique que l'entrée a quitté la file
+	 */
+	void retirer() {
+		retire = true;
+	}
+
+	/**
+	 * Détermine si l'entrée peut être remise dans une file
+	 * 
+	 * @param file la file dans laquelle on veut remettre l'entrée
+	 * @return vrai si l'entrée appartient à cette file et a été retirée sans avoir
+	 *         été annulée
+	 */
+	boolean estReutilisable(AbstractEventQueue file) {
+		return this.file == file && estRetire();
+	}
+
+	/**
+	 * Prépare l'entrée à être remise dans sa file, à la nouvelle date de son
+	 * évènement
+	 * 
+	 * @param sequence le nouveau numéro d'ordre d'ajout
+	 */
+	void reinitialiser(long sequence) {
+		this.date = evenement.getDate();
+		this.sequence = sequence;
+		this.retire = false;
+	}
+
+	@Override
+	public int compareTo(EvenementPlanifie autre) {
+		if (date != autre.date)
+			return date < autre.date ? -1 : 1;
+		return Long.compare(sequence, autre.sequence);
+	}
+}
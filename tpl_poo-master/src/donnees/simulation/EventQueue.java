@@ -0,0 +1,115 @@
+package donnees.simulation;
+
+import donnees.evenements.Evenement;
+
+/**
+ * File de priorité des évènements du simulateur, ordonnée par date croissante.
+ * Deux évènements de même date sont toujours rendus dans leur ordre d'ajout
+ * (FIFO), ce qui garantit que la simulation se déroule de la même façon quelle
+ * que soit l'implémentation choisie.
+ * 
+ * Un évènement ajouté peut être annulé grâce à la poignée
+ * {@link EvenementPlanifie} retournée par {@link #add(Evenement)}.
+ * 
+ * Pour les acteurs n'ayant qu'un seul évènement en attente à la fois (les
+ * robots), la file propose aussi des créneaux numérotés : planifier un nouvel
+ * évènement dans un créneau remplace celui qui s'y trouvait, sans laisser
+ * d'entrée annulée dans la file.
+ * 
+ * @see EventQueueType
+ */
+public interface EventQueue {
+
+	/**
+	 * Ajoute un évènement dans la file
+	 * 
+	 * @param e l'évènement à ajouter
+	 * @return la poignée permettant d'annuler l'évènement
+	 */
+	public EvenementPlanifie add(Evenement e);
+
+	/**
+	 * Remet dans la file une entrée dont l'évènement a déjà été exécuté, à la
+	 * nouvelle date de cet évènement. L'entrée est ordonnée comme si l'évènement
+	 * venait d'être ajouté par {@link #add(Evenement)}, mais la poignée est
+	 * réutilisée au lieu d'en allouer une nouvelle.
+	 * 
+	 * @param entree la poignée retournée par un précédent ajout dans cette file
+	 * @return vrai si l'entrée a été remise dans la file, faux si elle
+	 *         n'appartient pas à cette file, a été annulée ou est encore en attente
+	 */
+	public boolean reajouter(EvenementPlanifie entree);
+
+	/**
+	 * Planifie un évènement dans un créneau, en remplaçant l'évènement qui y était
+	 * éventuellement déjà planifié. L'évènement est ordonné comme s'il venait
+	 * d'être ajouté par {@link #add(Evenement)}.
+	 * 
+	 * @param creneau le numéro du créneau, positif ou nul
+	 * @param e       l'évènement à planifier
+	 * @throws IllegalArgumentException si le numéro de créneau est négatif
+	 */
+	public void planifier(int creneau, Evenement e) throws IllegalArgumentException;
+
+	/**
+	 * Retire de la file l'évènement planifié dans un créneau
+	 * 
+	 * @param creneau le numéro du créneau
+	 * @return vrai si un évènement était planifié dans le créneau, faux sinon
+	 */
+	public boolean annuler(int creneau);
+
+	/**
+	 * Consulte le prochain évènement de la file sans le retirer
+	 * 
+	 * @return l'évènement de date minimale, ou null si la file est vide
+	 */
+	public Evenement peek();
+
+	/**
+	 * Retire et retourne le prochain évènement de la file
+	 * 
+	 * @return l'évènement de date minimale, ou null si la file est vide
+	 */
+	public Evenement poll();
+
+	/**
+	 * Retire et retourne le prochain évènement de la file, seulement si sa date ne
+	 * dépasse pas une date limite
+	 * 
+	 * @param dateLimite la date maximale de l'évènement retiré, en secondes
+	 * @return l'évènement de date minimale, ou null si la file est vide ou si ce
+	 *         prochain évènement est postérieur à la date limite
+	 */
+	public default Evenement pollAvant(long dateLimite) {
+		Evenement e = peek();
+		if (e == null || e.getDate() > dateLimite)
+			return null;
+		return poll();
+	}
+
+	/**
+	 * @return le nombre d'évènements en attente dans la file, sans compter les
+	 *         évènements annulés
+	 */
+	public int size();
+
+	/**
+	 * @return le nombre d'entrées présentes dans la file, y compris les entrées
+	 *         annulées qui n'ont pas encore été retirées et les évènements des
+	 *         créneaux
+	 */
+	public int getNbEntrees();
+
+	/**
+	 * @return le nombre d'entrées annulées encore présentes dans la file
+	 */
+	public int getNbAnnulees();
+
+	/**
+	 * @return vrai si la file ne contient aucun évènement, faux sinon
+	 */
+	public default boolean isEmpty() {
+		return size() == 0;
+	}
+}
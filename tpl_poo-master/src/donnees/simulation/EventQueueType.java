@@ -0,0 +1,43 @@
+package donnees.simulation;
+
+/**
+ * Les différentes implémentations de {@link EventQueue} utilisables par le
+ * simulateur
+ */
+public enum EventQueueType {
+	/**
+	 * Liste triée historique, en O(n) par opération
+	 */
+	LISTE,
+	/**
+	 * Tas binaire, en O(log n) par opération
+	 */
+	TAS_BINAIRE,
+	/**
+	 * Tas d'appariement, ajout en O(1) et retrait en O(log n) amorti
+	 */
+	TAS_APPARIEMENT,
+	/**
+	 * Roue temporelle hiérarchique, ajout et retrait en O(1) amorti pour des dates
+	 * proches de la date courante
+	 */
+	ROUE_TEMPORELLE;
+
+	/**
+	 * Crée une file d'évènements vide de ce type
+	 * 
+	 * @return la file créée
+	 */
+	public EventQueue creer() {
+		switch (this) {
+		case LISTE:
+			return new ListEventQueue();
+		case TAS_APPARIEMENT:
+			return new PairingHeapEventQueue();
+		case ROUE_TEMPORELLE:
+			return new TimingWheelEventQueue();
+		default:
+			return new BinaryHeapEventQueue();
+		}
+	}
+}
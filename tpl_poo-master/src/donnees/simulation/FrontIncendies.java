@@ -0,0 +1,267 @@
+package donnees.simulation;
+
+import donnees.terrain.Carte;
+import donnees.terrain.NatureTerrain;
+
+/**
+ * Front des incendies sous forme de bitboards : l'ensemble des cases pouvant
+ * brûler et l'ensemble des cases en feu, à raison d'un bit par case. Chaque
+ * ligne de la carte occupe un nombre entier de mots de 64 bits, la colonne c
+ * étant le bit c % 64 du mot c / 64 de la ligne : les voisines au nord et au
+ * sud d'un mot sont les mots de même rang des lignes adjacentes, et les
+ * voisines à l'est et à l'ouest s'obtiennent par décalage. Les opérations sur
+ * une plage de lignes traitent ainsi 64 cases par opération.
+ *
+ * Les bits au-delà de la dernière colonne ne sont jamais des cases pouvant
+ * brûler, ils n'apparaissent donc dans aucun résultat.
+ */
+public class FrontIncendies {
+	/**
+	 * Nombre de lignes de la carte
+	 */
+	private final int nbLignes;
+	/**
+	 * Nombre de colonnes de la carte
+	 */
+	private final int nbColonnes;
+	/**
+	 * Nombre de mots occupés par chaque ligne
+	 */
+	private final int nbMots;
+	/**
+	 * Les cases pouvant brûler, c'est-à-dire ni de l'eau ni de la roche
+	 */
+	private final long[] brulables;
+	/**
+	 * Les cases en feu
+	 */
+	private final long[] enFeu;
+
+	/**
+	 * Construit le front d'une carte sans incendie
+	 *
+	 * @param carte la carte du terrain
+	 */
+	public FrontIncendies(Carte carte) {
+		this.nbLignes = carte.getNbLignes();
+		this.nbColonnes = carte.getNbColonnes();
+		this.nbMots = (nbColonnes + 63) >> 6;
+		brulables = new long[nbLignes * nbMots];
+		for (int lig = 0; lig < nbLignes; lig++)
+			for (int col = 0; col < nbColonnes; col++) {
+				NatureTerrain nature = carte.getNature(lig, col);
+				if (nature != NatureTerrain.EAU && nature != NatureTerrain.ROCHE)
+					brulables[lig * nbMots + (col >> 6)] |= 1L << col;
+			}
+		enFeu = new long[brulables.length];
+	}
+
+	/**
+	 * Construit une copie d'un front
+	 *
+	 * @param front le front à copier
+	 */
+	public FrontIncendies(FrontIncendies front) {
+		this.nbLignes = front.nbLignes;
+		this.nbColonnes = front.nbColonnes;
+		this.nbMots = front.nbMots;
+		// Le terrain ne change pas, il peut etre partage
+		this.brulables = front.brulables;
+		this.enFeu = front.enFeu.clone();
+	}
+
+	/**
+	 * @return le nombre de lignes de la carte
+	 */
+	public int getNbLignes() {
+		return nbLignes;
+	}
+
+	/**
+	 * @return le nombre de mots occupés par chaque ligne d'un bitboard
+	 */
+	public int getNbMotsParLigne() {
+		return nbMots;
+	}
+
+	/**
+	 * @return un bitboard vide, de la taille de la carte
+	 */
+	public long[] creerBitboard() {
+		return new long[brulables.length];
+	}
+
+	/**
+	 * @param ligne   la ligne d'une case
+	 * @param colonne la colonne de la case
+	 * @return l'indice du mot contenant la case dans un bitboard
+	 */
+	public int getIndiceMot(int ligne, int colonne) {
+		return ligne * nbMots + (colonne >> 6);
+	}
+
+	/**
+	 * @param ligne   la ligne d'une case de la carte
+	 * @param colonne la colonne de la case
+	 * @return vrai si la case peut brûler
+	 */
+	public boolean estBrulable(int ligne, int colonne) {
+		return (brulables[getIndiceMot(ligne, colonne)] & (1L << colonne)) != 0;
+	}
+
+	/**
+	 * @param ligne   la ligne d'une case de la carte
+	 * @param colonne la colonne de la case
+	 * @return vrai si la case est en feu
+	 */
+	public boolean estEnFeu(int ligne, int colonne) {
+		return (enFeu[getIndiceMot(ligne, colonne)] & (1L << colonne)) != 0;
+	}
+
+	/**
+	 * Met une case en feu
+	 *
+	 * @param ligne   la ligne d'une case de la carte
+	 * @param colonne la colonne de la case
+	 */
+	public void allumer(int ligne, int colonne) {
+		enFeu[getIndiceMot(ligne, colonne)] |= 1L << colonne;
+	}
+
+	/**
+	 * Éteint une case
+	 *
+	 * @param ligne   la ligne d'une case de la carte
+	 * @param colonne la colonne de la case
+	 */
+	public void eteindre(int ligne, int colonne) {
+		enFeu[getIndiceMot(ligne, colonne)] &= ~(1L << colonne);
+	}
+
+	/**
+	 * Calcule, pour une plage de lignes, les cases qu'un incendie atteindrait en
+	 * se propageant depuis un ensemble de cases : les cases pouvant brûler, pas
+	 * encore en feu, voisines d'au moins une case de l'ensemble. Les lignes de
+	 * l'ensemble adjacentes à la plage sont prises en compte.
+	 *
+	 * @param sources    l'ensemble des cases qui se propagent
+	 * @param ligneDebut la première ligne de la plage
+	 * @param ligneFin   la ligne suivant la dernière ligne de la plage
+	 * @param resultat   le bitboard recevant les cases atteintes, dont seules les
+	 *                   lignes de la plage sont modifiées
+	 */
+	public void calculerNouveaux(long[] sources, int ligneDebut, int ligneFin, long[] resultat) {
+		for (int lig = ligneDebut; lig < ligneFin; lig++) {
+			int debut = lig * nbMots;
+			for (int i = debut; i < debut + nbMots; i++)
+				resultat[i] = dilater(sources, lig, i, debut) & brulables[i] & ~enFeu[i];
+		}
+	}
+
+	/**
+	 * Calcule un seul mot de {@link #calculerNouveaux(long[], int, int, long[])}
+	 *
+	 * @param sources l'ensemble des cases qui se propagent
+	 * @param ligne   la ligne du mot
+	 * @param mot     le rang du mot dans la ligne
+	 * @return les cases du mot atteintes
+	 */
+	public long calculerNouveaux(long[] sources, int ligne, int mot) {
+		int premier = ligne * nbMots, i = premier + mot;
+		return dilater(sources, ligne, i, premier) & brulables[i] & ~enFeu[i];
+	}
+
+	/**
+	 * Calcule, pour un seul mot, les cases en feu voisines d'au moins une case
+	 * d'un ensemble, qui reçoivent une partie de sa propagation
+	 *
+	 * @param sources l'ensemble des cases qui se propagent
+	 * @param ligne   la ligne du mot
+	 * @param mot     le rang du mot dans la ligne
+	 * @return les cases en feu du mot atteintes
+	 */
+	public long calculerRecepteurs(long[] sources, int ligne, int mot) {
+		int premier = ligne * nbMots, i = premier + mot;
+		return dilater(sources, ligne, i, premier) & enFeu[i];
+	}
+
+	/**
+	 * Calcule, pour une plage de lignes, les cases du front : les cases en feu
+	 * dont au moins une voisine peut brûler sans être en feu
+	 *
+	 * @param ligneDebut la première ligne de la plage
+	 * @param ligneFin   la ligne suivant la dernière ligne de la plage
+	 * @param resultat   le bitboard recevant les cases du front, dont seules les
+	 *                   lignes de la plage sont modifiées
+	 */
+	public void calculerFront(int ligneDebut, int ligneFin, long[] resultat) {
+		// Les cases intactes voisines d'un incendie, puis les incendies voisins de
+		// ces cases : l'ensemble intact ne depasse la plage que d'une ligne
+		int debut = Math.max(0, ligneDebut - 1), fin = Math.min(nbLignes, ligneFin + 1);
+		long[] intactes = new long[brulables.length];
+		for (int i = debut * nbMots; i < fin * nbMots; i++)
+			intactes[i] = brulables[i] & ~enFeu[i];
+		for (int lig = ligneDebut; lig < ligneFin; lig++) {
+			int premier = lig * nbMots;
+			for (int i = premier; i < premier + nbMots; i++)
+				resultat[i] = dilater(intactes, lig, i, premier) & enFeu[i];
+		}
+	}
+
+	/**
+	 * Méthode interne donnant les cases d'un mot voisines d'au moins une case d'un
+	 * ensemble
+	 *
+	 * @param ensemble l'ensemble de cases
+	 * @param ligne    la ligne du mot
+	 * @param i        l'indice du mot
+	 * @param premier  l'indice du premier mot de la ligne
+	 * @return les voisines, y compris éventuellement des bits au-delà de la
+	 *         dernière colonne
+	 */
+	private long dilater(long[] ensemble, int ligne, int i, int premier) {
+		long mot = ensemble[i];
+		// A l'est et a l'ouest dans la ligne, avec la retenue des mots adjacents
+		long voisines = (mot << 1) | (mot >>> 1);
+		if (i > premier)
+			voisines |= ensemble[i - 1] >>> 63;
+		if (i < premier + nbMots - 1)
+			voisines |= ensemble[i + 1] << 63;
+		// Au nord et au sud, le mot de meme rang des lignes adjacentes
+		if (ligne > 0)
+			voisines |= ensemble[i - nbMots];
+		if (ligne < nbLignes - 1)
+			voisines |= ensemble[i + nbMots];
+		return voisines;
+	}
+
+	/**
+	 * Cherche la première case d'un bitboard à partir d'une case, ligne par ligne
+	 *
+	 * @param bitboard le bitboard
+	 * @param ligne    la ligne de la case de départ
+	 * @param colonne  la colonne de la case de départ, dans la carte
+	 * @return le numéro (ligne * nombre de colonnes + colonne) de la première
+	 *         case de l'ensemble, ou -1 s'il n'y en a pas
+	 */
+	public int chercher(long[] bitboard, int ligne, int colonne) {
+		if (ligne >= nbLignes)
+			return -1;
+		int i = getIndiceMot(ligne, colonne);
+		long bits = bitboard[i] & (-1L << colonne);
+		while (bits == 0) {
+			if (++i == bitboard.length)
+				return -1;
+			bits = bitboard[i];
+		}
+		int lig = i / nbMots;
+		return lig * nbColonnes + ((i - lig * nbMots) << 6) + Long.numberOfTrailingZeros(bits);
+	}
+
+	/**
+	 * @return l'ensemble des cases en feu, à ne pas modifier
+	 */
+	long[] getEnFeu() {
+		return enFeu;
+	}
+}
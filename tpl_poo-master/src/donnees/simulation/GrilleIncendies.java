@@ -0,0 +1,132 @@
+package donnees.simulation;
+
+import donnees.Incendie;
+import donnees.terrain.Case;
+
+/**
+ * Index des incendies par case, pour retrouver en temps constant l'incendie
+ * d'une case. La carte est découpée en blocs carrés de
+ * {@link #TAILLE_BLOC}x{@link #TAILLE_BLOC} cases, un bloc n'étant alloué que
+ * lorsqu'un incendie s'y déclare : la mémoire utilisée dépend de l'étendue des
+ * zones en feu et non de la taille de la carte, ce qui importe pour les données
+ * d'une région qui ne couvrent qu'une partie de la carte.
+ */
+class GrilleIncendies {
+	/**
+	 * Logarithme en base 2 de la taille d'un bloc
+	 */
+	private static final int LOG_TAILLE_BLOC = 4;
+	/**
+	 * Nombre de lignes et de colonnes d'un bloc
+	 */
+	private static final int TAILLE_BLOC = 1 << LOG_TAILLE_BLOC;
+
+	/**
+	 * Nombre de lignes de la carte
+	 */
+	private final int nbLignes;
+	/**
+	 * Nombre de colonnes de la carte
+	 */
+	private final int nbColonnes;
+	/**
+	 * Nombre de blocs sur la largeur de la carte
+	 */
+	private final int nbBlocsColonnes;
+	/**
+	 * Les blocs, ligne de blocs par ligne de blocs. Chaque bloc contient
+	 * l'incendie de chacune de ses cases, ligne par ligne, ou est null si aucun
+	 * incendie ne s'y est jamais déclaré
+	 */
+	private final Incendie[][] blocs;
+
+	/**
+	 * Construit un index vide pour une carte
+	 *
+	 * @param nbLignes   nombre de lignes de la carte
+	 * @param nbColonnes nombre de colonnes de la carte
+	 */
+	GrilleIncendies(int nbLignes, int nbColonnes) {
+		this.nbLignes = nbLignes;
+		this.nbColonnes = nbColonnes;
+		int nbBlocsLignes = (nbLignes + TAILLE_BLOC - 1) >> LOG_TAILLE_BLOC;
+		nbBlocsColonnes = (nbColonnes + TAILLE_BLOC - 1) >> LOG_TAILLE_BLOC;
+		blocs = new Incendie[nbBlocsLignes * nbBlocsColonnes][];
+	}
+
+	/**
+	 * @param c une case de la carte
+	 * @return l'incendie de la case, ou null s'il n'y en a pas ou si la case est
+	 *         hors de la carte
+	 */
+	Incendie get(Case c) {
+		if (c.getLigne() < 0 || c.getLigne() >= nbLignes || c.getColonne() < 0 || c.getColonne() >= nbColonnes)
+			return null;
+		Incendie[] bloc = blocs[indiceBloc(c)];
+		return bloc == null ? null : bloc[indiceDansBloc(c)];
+	}
+
+	/**
+	 * Place un incendie sur sa case, en remplaçant celui qui s'y trouvait
+	 *
+	 * @param incendie l'incendie
+	 */
+	void placer(Incendie incendie) {
+		placer(incendie.getPosition(), incendie);
+	}
+
+	/**
+	 * Place un incendie sur une case, en remplaçant celui qui s'y trouvait. Une
+	 * zone d'incendies est placée sur chacune de ses cases
+	 *
+	 * @param c        la case
+	 * @param incendie l'incendie
+	 */
+	void placer(Case c, Incendie incendie) {
+		int indice = indiceBloc(c);
+		if (blocs[indice] == null)
+			blocs[indice] = new Incendie[TAILLE_BLOC * TAILLE_BLOC];
+		blocs[indice][indiceDansBloc(c)] = incendie;
+	}
+
+	/**
+	 * Retire un incendie de sa case, s'il s'y trouve toujours
+	 *
+	 * @param incendie l'incendie
+	 */
+	void retirer(Incendie incendie) {
+		retirer(incendie.getPosition(), incendie);
+	}
+
+	/**
+	 * Retire un incendie d'une case, s'il s'y trouve toujours
+	 *
+	 * @param c        la case
+	 * @param incendie l'incendie
+	 */
+	void retirer(Case c, Incendie incendie) {
+		Incendie[] bloc = blocs[indiceBloc(c)];
+		if (bloc != null && bloc[indiceDansBloc(c)] == incendie)
+			bloc[indiceDansBloc(c)] = null;
+	}
+
+	/**
+	 * Méthode interne donnant le bloc contenant une case
+	 *
+	 * @param c la case
+	 * @return l'indice du bloc dans {@link #blocs}
+	 */
+	private int indiceBloc(Case c) {
+		return (c.getLigne() >> LOG_TAILLE_BLOC) * nbBlocsColonnes + (c.getColonne() >> LOG_TAILLE_BLOC);
+	}
+
+	/**
+	 * Méthode interne donnant la place d'une case dans son bloc
+	 *
+	 * @param c la case
+	 * @return l'indice de la case dans le bloc
+	 */
+	private int indiceDansBloc(Case c) {
+		return ((c.getLigne() & (TAILLE_BLOC - 1)) << LOG_TAILLE_BLOC) | (c.getColonne() & (TAILLE_BLOC - 1));
+	}
+}
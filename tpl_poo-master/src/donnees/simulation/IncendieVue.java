@@ -0,0 +1,163 @@
+package donnees.simulation;
+
+import java.io.IOException;
+
+import donnees.Arrosage;
+import donnees.Incendie;
+import donnees.terrain.Case;
+
+/**
+ * Vue sur un incendie d'un {@link MagasinIncendies}, permettant aux robots et
+ * aux chefs pompiers de le manipuler comme un {@link Incendie}. La vue ne
+ * contient rien d'autre que la case et la génération de l'incendie : son état
+ * est lu et modifié dans le magasin. Deux vues du même incendie sont égales, et
+ * la vue d'un incendie éteint a une intensité nulle et ne peut plus être
+ * modifiée.
+ */
+class IncendieVue extends Incendie {
+	/**
+	 * Le magasin contenant l'incendie
+	 */
+	private final MagasinIncendies magasin;
+	/**
+	 * Numéro de la case de l'incendie
+	 */
+	private final int cellule;
+	/**
+	 * Génération de l'incendie, qui le distingue des autres incendies déclarés
+	 * sur la même case
+	 */
+	private final int generation;
+
+	/**
+	 * Construit une vue sur un incendie du magasin
+	 *
+	 * @param magasin    le magasin contenant l'incendie
+	 * @param position   la case de l'incendie
+	 * @param cellule    le numéro de la case
+	 * @param generation la génération de l'incendie
+	 */
+	IncendieVue(MagasinIncendies magasin, Case position, int cellule, int generation) {
+		super(position);
+		this.magasin = magasin;
+		this.cellule = cellule;
+		this.generation = generation;
+	}
+
+	/**
+	 * Copie la vue dans une duplication, sur la copie du magasin
+	 *
+	 * @param d la duplication en cours
+	 * @return la copie de la vue
+	 */
+	@Override
+	public IncendieVue dupliquer(Duplication d) {
+		IncendieVue copie = new IncendieVue(d.copie(magasin), getPosition(), cellule, generation);
+		d.enregistrer(this, copie);
+		return copie;
+	}
+
+	/**
+	 * Relit une vue dans une reprise, sur le magasin repris
+	 *
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private IncendieVue(Reprise r) throws IOException {
+		super(r.lireCase());
+		r.enregistrer(this);
+		this.magasin = r.lireReference();
+		this.cellule = r.lireInt();
+		this.generation = r.lireInt();
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireCase(getPosition());
+		s.ecrireReference(magasin);
+		s.ecrireInt(cellule);
+		s.ecrireInt(generation);
+	}
+
+	/**
+	 * @return le numéro de la case de l'incendie
+	 */
+	int getCellule() {
+		return cellule;
+	}
+
+	/**
+	 * @return la génération de l'incendie
+	 */
+	int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * La position d'un incendie du magasin est celle de sa case
+	 *
+	 * @throws UnsupportedOperationException toujours
+	 */
+	@Override
+	public void setPosition(Case position) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("Un incendie du magasin ne peut pas être déplacé");
+	}
+
+	/**
+	 * Le magasin planifie lui-même les expansions de ses incendies
+	 *
+	 * @return null
+	 */
+	@Override
+	public EvenementPlanifie getExpansionPrevue() {
+		return null;
+	}
+
+	/**
+	 * Le magasin planifie lui-même les expansions de ses incendies
+	 *
+	 * @throws UnsupportedOperationException toujours
+	 */
+	@Override
+	public void setExpansionPrevue(EvenementPlanifie expansionPrevue) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("Le magasin planifie lui-même les expansions de ses incendies");
+	}
+
+	@Override
+	public Arrosage getArrosage() {
+		return magasin.getArrosage(cellule, generation);
+	}
+
+	@Override
+	public void setArrosage(Arrosage arrosage) {
+		magasin.setArrosage(cellule, generation, arrosage);
+	}
+
+	@Override
+	public int getIntensite() {
+		return magasin.getIntensite(cellule, generation);
+	}
+
+	@Override
+	public void setIntensite(int intensite) {
+		magasin.setIntensite(cellule, generation, intensite);
+	}
+
+	@Override
+	public void arroser(int volume) {
+		magasin.arroser(cellule, generation, volume);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof IncendieVue))
+			return false;
+		IncendieVue autre = (IncendieVue) o;
+		return magasin == autre.magasin && cellule == autre.cellule && generation == autre.generation;
+	}
+
+	@Override
+	public int hashCode() {
+		return cellule * 31 + generation;
+	}
+}
@@ -0,0 +1,311 @@
+package donnees.simulation;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import donnees.evenements.Evenement;
+
+/**
+ * Tas binaire indexé de créneaux d'évènements. Chaque créneau, repéré par un
+ * entier (le numéro d'un robot par exemple), contient au plus un évènement :
+ * replanifier un créneau déplace son évènement dans le tas au lieu d'en ajouter
+ * un nouveau, et annuler un créneau l'enlève réellement du tas. Le tas ne
+ * contient donc jamais plus d'entrées que de créneaux.
+ *
+ * Les évènements sont ordonnés par date puis par numéro d'ordre, ce numéro étant
+ * fourni par la file qui utilise le tas pour pouvoir départager ses propres
+ * évènements et ceux des créneaux.
+ */
+class IndexedEventHeap {
+	/**
+	 * Nombre initial de créneaux
+	 */
+	private static final int CAPACITE_INITIALE = 16;
+
+	/**
+	 * Le tas des numéros de créneaux : le parent de la case i est la case (i - 1) / 2
+	 */
+	private int[] tas;
+	/**
+	 * Position de chaque créneau dans le tas, -1 si le créneau est vide
+	 */
+	private int[] positions;
+	/**
+	 * Évènement de chaque créneau
+	 */
+	private Evenement[] evenements;
+	/**
+	 * Date de l'évènement de chaque créneau, en secondes
+	 */
+	private long[] dates;
+	/**
+	 * Numéro d'ordre de l'évènement de chaque créneau
+	 */
+	private long[] sequences;
+	/**
+	 * Nombre de créneaux occupés
+	 */
+	private int taille;
+
+	/**
+	 * Construit un tas sans aucun créneau occupé
+	 */
+	IndexedEventHeap() {
+		tas = new int[CAPACITE_INITIALE];
+		positions = new int[CAPACITE_INITIALE];
+		Arrays.fill(positions, -1);
+		evenements = new Evenement[CAPACITE_INITIALE];
+		dates = new long[CAPACITE_INITIALE];
+		sequences = new long[CAPACITE_INITIALE];
+		taille = 0;
+	}
+
+	/**
+	 * Place un évènement dans un créneau, en remplaçant celui qui s'y trouvait
+	 *
+	 * @param creneau   le numéro du créneau
+	 * @param e         l'évènement à placer
+	 * @param sequence  le numéro d'ordre de l'évènement
+	 * @throws IllegalArgumentException si le numéro de créneau est négatif
+	 */
+	void placer(int creneau, Evenement e, long sequence) throws IllegalArgumentException {
+		if (creneau < 0)
+			throw new IllegalArgumentException("Numéro de créneau négatif");
+		if (creneau >= positions.length)
+			agrandir(creneau + 1);
+
+		evenements[creneau] = e;
+		dates[creneau] = e.getDate();
+		sequences[creneau] = sequence;
+
+		// Si le creneau est vide on le place en bas du tas, sinon on le deplace
+		// depuis sa position actuelle dans un sens ou dans l'autre
+		int i = positions[creneau];
+		if (i < 0) {
+			i = taille++;
+			tas[i] = creneau;
+			positions[creneau] = i;
+		}
+		if (!monter(i))
+			descendre(i);
+	}
+
+	/**
+	 * Recopie dans ce tas, encore vide, les créneaux d'un autre tas lors d'une
+	 * duplication. Chaque créneau garde sa date et son numéro d'ordre, son
+	 * évènement étant remplacé par sa copie.
+	 *
+	 * @param source le tas recopié
+	 * @param d      la duplication en cours
+	 */
+	void recopier(IndexedEventHeap source, Duplication d) {
+		tas = source.tas.clone();
+		positions = source.positions.clone();
+		dates = source.dates.clone();
+		sequences = source.sequences.clone();
+		taille = source.taille;
+		evenements = new Evenement[source.evenements.length];
+		for (int i = 0; i < taille; i++)
+			evenements[tas[i]] = d.copie(source.evenements[tas[i]]);
+	}
+
+	/**
+	 * Écrit les créneaux occupés dans une sauvegarde, dans l'ordre du tas
+	 *
+	 * @param s la sauvegarde en cours
+	 * @throws IOException si l'écriture échoue
+	 */
+	void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireInt(positions.length);
+		s.ecrireInt(taille);
+		for (int i = 0; i < taille; i++) {
+			int creneau = tas[i];
+			s.ecrireInt(creneau);
+			s.ecrireLong(dates[creneau]);
+			s.ecrireLong(sequences[creneau]);
+			s.ecrireReference(evenements[creneau]);
+		}
+	}
+
+	/**
+	 * Relit dans ce tas, encore vide, les créneaux écrits par
+	 * {@link #sauvegarder(Sauvegarde)}, qui retrouvent leur place dans le tas
+	 *
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	void reprendre(Reprise r) throws IOException {
+		int capacite = r.lireInt();
+		tas = new int[capacite];
+		positions = new int[capacite];
+		Arrays.fill(positions, -1);
+		evenements = new Evenement[capacite];
+		dates = new long[capacite];
+		sequences = new long[capacite];
+		taille = r.lireInt();
+		for (int i = 0; i < taille; i++) {
+			int creneau = r.lireInt();
+			tas[i] = creneau;
+			positions[creneau] = i;
+			dates[creneau] = r.lireLong();
+			sequences[creneau] = r.lireLong();
+			evenements[creneau] = r.lireReference();
+		}
+	}
+
+	/**
+	 * Vide un créneau, en retirant son évènement du tas
+	 *
+	 * @param creneau le numéro du créneau
+	 * @return vrai si le créneau contenait un évènement, faux sinon
+	 */
+	boolean retirer(int creneau) {
+		if (creneau < 0 || creneau >= positions.length || positions[creneau] < 0)
+			return false;
+
+		// On remplace le creneau par le dernier du tas, qu'on remet a sa place
+		int i = positions[creneau];
+		vider(creneau);
+		if (i < --taille) {
+			tas[i] = tas[taille];
+			positions[tas[i]] = i;
+			if (!monter(i))
+				descendre(i);
+		}
+		return true;
+	}
+
+	/**
+	 * @return le numéro du créneau dont l'évènement est le plus proche, ou -1 si
+	 *         aucun créneau n'est occupé
+	 */
+	int tete() {
+		return taille == 0 ? -1 : tas[0];
+	}
+
+	/**
+	 * @param creneau le numéro d'un créneau occupé
+	 * @return l'évènement du créneau
+	 */
+	Evenement getEvenement(int creneau) {
+		return evenements[creneau];
+	}
+
+	/**
+	 * @param creneau le numéro d'un créneau occupé
+	 * @return la date de l'évènement du créneau, en secondes
+	 */
+	long getDate(int creneau) {
+		return dates[creneau];
+	}
+
+	/**
+	 * @param creneau le numéro d'un créneau occupé
+	 * @return le numéro d'ordre de l'évènement du créneau
+	 */
+	long getSequence(int creneau) {
+		return sequences[creneau];
+	}
+
+	/**
+	 * @param creneau le numéro d'un créneau
+	 * @return vrai si le créneau contient un évènement
+	 */
+	boolean estOccupe(int creneau) {
+		return creneau >= 0 && creneau < positions.length && positions[creneau] >= 0;
+	}
+
+	/**
+	 * @return le nombre de créneaux occupés
+	 */
+	int size() {
+		return taille;
+	}
+
+	/**
+	 * Méthode interne libérant un créneau
+	 *
+	 * @param creneau le numéro du créneau
+	 */
+	private void vider(int creneau) {
+		positions[creneau] = -1;
+		evenements[creneau] = null;
+	}
+
+	/**
+	 * Méthode interne agrandissant les tableaux pour contenir un nombre de
+	 * créneaux donné
+	 *
+	 * @param nbCreneaux le nombre minimal de créneaux
+	 */
+	private void agrandir(int nbCreneaux) {
+		int capacite = Math.max(nbCreneaux, positions.length * 2);
+		int ancienne = positions.length;
+		tas = Arrays.copyOf(tas, capacite);
+		positions = Arrays.copyOf(positions, capacite);
+		Arrays.fill(positions, ancienne, capacite, -1);
+		evenements = Arrays.copyOf(evenements, capacite);
+		dates = Arrays.copyOf(dates, capacite);
+		sequences = Arrays.copyOf(sequences, capacite);
+	}
+
+	/**
+	 * Méthode interne comparant les évènements de deux créneaux
+	 *
+	 * @param a le premier créneau
+	 * @param b le second créneau
+	 * @return vrai si l'évènement du créneau a doit passer avant celui du créneau b
+	 */
+	private boolean avant(int a, int b) {
+		if (dates[a] != dates[b])
+			return dates[a] < dates[b];
+		return sequences[a] < sequences[b];
+	}
+
+	/**
+	 * Fait remonter le créneau d'une position du tas tant qu'il passe avant son
+	 * parent
+	 *
+	 * @param i la position de départ
+	 * @return vrai si le créneau est remonté
+	 */
+	private boolean monter(int i) {
+		int creneau = tas[i];
+		int depart = i;
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!avant(creneau, tas[parent]))
+				break;
+			tas[i] = tas[parent];
+			positions[tas[i]] = i;
+			i = parent;
+		}
+		tas[i] = creneau;
+		positions[creneau] = i;
+		return i != depart;
+	}
+
+	/**
+	 * Fait descendre le créneau d'une position du tas tant qu'un de ses fils passe
+	 * avant lui
+	 *
+	 * @param i la position de départ
+	 */
+	private void descendre(int i) {
+		int creneau = tas[i];
+		while (true) {
+			int fils = 2 * i + 1;
+			if (fils >= taille)
+				break;
+			if (fils + 1 < taille && avant(tas[fils + 1], tas[fils]))
+				fils++;
+			if (!avant(tas[fils], creneau))
+				break;
+			tas[i] = tas[fils];
+			positions[tas[i]] = i;
+			i = fils;
+		}
+		tas[i] = creneau;
+		positions[creneau] = i;
+	}
+}
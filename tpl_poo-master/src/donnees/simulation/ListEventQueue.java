@@ -0,0 +1,59 @@
+package donnees.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * File d'évènements historique du simulateur : une liste triée par date
+ * croissante dans laquelle on insère par parcours linéaire. L'ajout et le
+ * retrait sont en O(n), elle n'est conservée que comme référence pour les
+ * mesures de performances.
+ */
+public class ListEventQueue extends AbstractEventQueue {
+	/**
+	 * Les entrées triées par date croissante, puis par ordre d'ajout
+	 */
+	private List<EvenementPlanifie> entrees;
+
+	/**
+	 * Construit une file vide
+	 */
+	public ListEventQueue() {
+		entrees = new ArrayList<>();
+	}
+
+	@Override
+	protected void inserer(EvenementPlanifie entree) {
+		boolean ajoute = false;
+		// On insere l'evenement apres tous ceux de date inferieure ou egale, pour
+		// garder l'ordre d'ajout entre evenements simultanes
+		for (int i = 0; i < entrees.size() && !ajoute; i++) {
+			if (entree.date < entrees.get(i).date) {
+				entrees.add(i, entree);
+				ajoute = true;
+			}
+		}
+		if (!ajoute)
+			entrees.add(entree);
+	}
+
+	@Override
+	protected EvenementPlanifie tete() {
+		return entrees.isEmpty() ? null : entrees.get(0);
+	}
+
+	@Override
+	protected void retirerTete() {
+		entrees.remove(0);
+	}
+
+	@Override
+	protected void compacter() {
+		entrees.removeIf(EvenementPlanifie::estAnnule);
+	}
+
+	@Override
+	protected void collecter(List<EvenementPlanifie> entrees) {
+		entrees.addAll(this.entrees);
+	}
+}
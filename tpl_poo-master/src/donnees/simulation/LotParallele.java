@@ -0,0 +1,471 @@
+package donnees.simulation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import donnees.Incendie;
+import donnees.VoisinageLot;
+import donnees.evenements.Evenement;
+import donnees.terrain.Carte;
+
+/**
+ * Exécution en parallèle d'un lot d'évènements de même date qui se résument à
+ * des {@link Evenement#getExpansions() expansions d'incendies}, avec des
+ * résultats identiques bit à bit à ceux de leur exécution un par un.
+ *
+ * L'expansion d'un incendie lit et modifie les incendies de sa case et de ses
+ * voisines. Les expansions dont ces cases se recoupent, directement ou de
+ * proche en proche, forment un groupe, étendu par un seul thread dans l'ordre
+ * où elles auraient été exécutées ; deux groupes ne touchent aucune case
+ * commune et sont étendus en même temps. Les modifications qui ne sont pas
+ * propres à une case, l'ajout d'un incendie à l'ensemble ordonné des incendies
+ * et la planification des expansions suivantes, qui prend un numéro d'ordre
+ * dans la file, sont notées pendant les expansions puis rejouées dans l'ordre
+ * d'exécution séquentiel, avec les consultations du chef pompier qui auraient
+ * eu lieu entre les évènements.
+ *
+ * Les évènements sont exécutés seuls à partir du premier dont une expansion
+ * touche un incendie arrosé ou une zone d'incendies, dont les modifications
+ * débordent de leurs cases, de même qu'une suite d'évènements trop petite pour
+ * gagner à être répartie entre les threads.
+ */
+class LotParallele {
+	/**
+	 * Nombre minimal d'expansions d'une suite d'évènements pour qu'elle soit
+	 * exécutée en parallèle
+	 */
+	private static final int SEUIL_PARALLELE = 16;
+	/**
+	 * Nombre de tranches de groupes données à chaque thread, pour répartir la
+	 * charge quand les groupes sont de tailles inégales
+	 */
+	private static final int TRANCHES_PAR_THREAD = 4;
+	/**
+	 * Nombre minimal d'expansions d'une tranche, pour que chaque tâche confiée
+	 * aux threads coûte plus que sa distribution
+	 */
+	private static final int TAILLE_MIN_TRANCHE = 4;
+
+	/**
+	 * Le simulateur
+	 */
+	private final Simulateur simulateur;
+	/**
+	 * Le pool de threads
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * Les incendies étendus par le lot, évènement après évènement
+	 */
+	private Incendie[] unites;
+	/**
+	 * Le nombre d'incendies étendus par le lot
+	 */
+	private int nbUnites;
+	/**
+	 * Pour chaque évènement du lot, l'indice suivant son dernier incendie étendu
+	 */
+	private int[] finUnites;
+	/**
+	 * Pour chaque incendie étendu, son prédécesseur dans son groupe
+	 */
+	private int[] parents;
+	/**
+	 * Les incendies étendus d'une suite d'évènements, groupe après groupe
+	 */
+	private int[] ordre;
+	/**
+	 * Pour chaque incendie étendu, la tranche qui l'a étendu, ou null s'il était
+	 * éteint
+	 */
+	private Tranche[] tranches;
+	/**
+	 * Pour chaque incendie étendu, le début et la fin de ses modifications notées
+	 * par sa tranche
+	 */
+	private int[] debutNotes, finNotes;
+	/**
+	 * Pour chaque case, le dernier incendie étendu qui la touche
+	 */
+	private int[] proprietaires;
+	/**
+	 * Pour chaque case, le numéro de la dernière suite d'évènements qui l'a
+	 * touchée
+	 */
+	private int[] marques;
+	/**
+	 * Le numéro de la suite d'évènements en cours
+	 */
+	private int marque;
+
+	/**
+	 * Prépare l'exécution en parallèle des lots d'un simulateur
+	 *
+	 * @param simulateur le simulateur
+	 * @param pool       le pool de threads
+	 */
+	LotParallele(Simulateur simulateur, ForkJoinPool pool) {
+		this.simulateur = simulateur;
+		this.pool = pool;
+		unites = new Incendie[SEUIL_PARALLELE];
+		finUnites = new int[16];
+	}
+
+	/**
+	 * Exécute un lot d'évènements de même date, qui se résument tous à des
+	 * expansions d'incendies, dans l'ordre où ils ont été retirés de la file. Le
+	 * chef pompier est consulté avant chaque évènement sauf le premier, comme il
+	 * l'aurait été dans la boucle du simulateur
+	 *
+	 * @param lot les évènements
+	 */
+	void executer(List<Evenement> lot) {
+		DonneeSimulation donnees = simulateur.getDonneeSimulation();
+		nbUnites = 0;
+		if (finUnites.length < lot.size())
+			finUnites = new int[Math.max(lot.size(), 2 * finUnites.length)];
+		for (int k = 0; k < lot.size(); k++) {
+			List<Incendie> expansions = lot.get(k).getExpansions();
+			if (unites.length < nbUnites + expansions.size())
+				unites = Arrays.copyOf(unites, Math.max(nbUnites + expansions.size(), 2 * unites.length));
+			for (Incendie incendie : expansions)
+				unites[nbUnites++] = incendie;
+			finUnites[k] = nbUnites;
+		}
+
+		// Les evenements qui precedent le premier evenement invalide sont executes en
+		// parallele, s'ils sont assez nombreux, et les suivants un par un
+		int k = 0;
+		if (nbUnites >= SEUIL_PARALLELE) {
+			int fin = grouper(lot.size(), donnees);
+			if (debut(fin) >= SEUIL_PARALLELE) {
+				executerSuite(lot, fin, donnees);
+				k = fin;
+			}
+		}
+		for (; k < lot.size(); k++)
+			executerSeul(lot, k);
+		Arrays.fill(unites, 0, nbUnites, null);
+	}
+
+	/**
+	 * Méthode interne exécutant un évènement du lot seul, comme le ferait la
+	 * boucle du simulateur
+	 *
+	 * @param lot les évènements
+	 * @param k   l'indice de l'évènement
+	 */
+	private void executerSeul(List<Evenement> lot, int k) {
+		if (k > 0)
+			simulateur.consulterChefPompier();
+		simulateur.executer(lot.get(k));
+	}
+
+	/**
+	 * Méthode interne vérifiant qu'une expansion ne touche ni incendie arrosé ni
+	 * zone d'incendies
+	 *
+	 * @param incendie l'incendie qui s'étend
+	 * @param donnees  les données de la simulation
+	 * @param carte    la carte
+	 * @return vrai si l'expansion peut être exécutée en parallèle
+	 */
+	private static boolean estValide(Incendie incendie, DonneeSimulation donnees, Carte carte) {
+		if (incendie instanceof ZoneIncendie || incendie.getArrosage() != null)
+			return false;
+		if (incendie.getIntensite() <= 0)
+			return true;
+		int cellule = carte.getCellule(incendie.getPosition());
+		for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+			int voisine = carte.getVoisine(cellule, d);
+			if (voisine == Carte.HORS_CARTE)
+				continue;
+			Incendie incendieVoisin = donnees.getSingleIncendie(carte.getCase(voisine));
+			if (incendieVoisin instanceof ZoneIncendie || incendieVoisin != null && incendieVoisin.getArrosage() != null)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @param k l'indice d'un évènement du lot, ou le nombre d'évènements
+	 * @return l'indice de son premier incendie étendu, ou le nombre d'incendies
+	 *         étendus
+	 */
+	private int debut(int k) {
+		return k == 0 ? 0 : finUnites[k - 1];
+	}
+
+	/**
+	 * Méthode interne exécutant en parallèle les premiers évènements du lot : les
+	 * expansions, déjà réparties en groupes, sont découpées en tranches étendues
+	 * par les threads, puis les modifications notées sont rejouées évènement
+	 * après évènement
+	 *
+	 * @param lot     les évènements
+	 * @param fin     l'indice suivant le dernier évènement exécuté en parallèle
+	 * @param donnees les données de la simulation
+	 */
+	private void executerSuite(List<Evenement> lot, int fin, DonneeSimulation donnees) {
+		int derniere = debut(fin);
+		int nbVivantes = ranger(derniere);
+
+		// Les groupes se suivent dans l'ordre, une tranche en prend plusieurs
+		// entiers
+		int taille = Math.max(TAILLE_MIN_TRANCHE, nbVivantes / (pool.getParallelism() * TRANCHES_PAR_THREAD));
+		Tranche[] suite = new Tranche[(nbVivantes + taille - 1) / taille];
+		int nbTranches = 0;
+		for (int i = 0; i < nbVivantes;) {
+			int j = Math.min(nbVivantes, i + taille);
+			while (j < nbVivantes && parents[ordre[j]] == parents[ordre[j - 1]])
+				j++;
+			suite[nbTranches++] = new Tranche(donnees, i, j);
+			i = j;
+		}
+		int nb = nbTranches;
+		pool.submit(() -> IntStream.range(0, nb).parallel().forEach(t -> suite[t].etendre())).join();
+
+		for (int k = 0; k < fin; k++) {
+			if (k > 0)
+				simulateur.consulterChefPompier();
+			lot.get(k).commencerExpansions(simulateur);
+			for (int u = debut(k); u < finUnites[k]; u++)
+				if (tranches[u] != null)
+					tranches[u].rejouer(debutNotes[u], finNotes[u]);
+			simulateur.terminerEvenement();
+		}
+		Arrays.fill(tranches, 0, derniere, null);
+		simulateur.nbLotsParalleles++;
+	}
+
+	/**
+	 * Méthode interne répartissant en groupes les expansions encore allumées des
+	 * premiers évènements du lot, jusqu'au premier dont une expansion touche un
+	 * incendie arrosé ou une zone d'incendies : deux expansions qui touchent une
+	 * même case sont dans le même groupe. Ni les incendies arrosés ni les zones
+	 * n'apparaissent au cours d'expansions, la vérification reste vraie pendant
+	 * tout le lot
+	 *
+	 * @param nbEvenements le nombre d'évènements du lot
+	 * @param donnees      les données de la simulation
+	 * @return l'indice du premier évènement qui ne peut pas être exécuté en
+	 *         parallèle, ou le nombre d'évènements
+	 */
+	private int grouper(int nbEvenements, DonneeSimulation donnees) {
+		if (parents == null || parents.length < nbUnites) {
+			int taille = Math.max(nbUnites, 2 * unites.length);
+			parents = new int[taille];
+			ordre = new int[taille];
+			tranches = new Tranche[taille];
+			debutNotes = new int[taille];
+			finNotes = new int[taille];
+		}
+		Carte carte = donnees.getCarte();
+		if (marques == null || marques.length != carte.getNbLignes() * carte.getNbColonnes()) {
+			marques = new int[carte.getNbLignes() * carte.getNbColonnes()];
+			proprietaires = new int[marques.length];
+			marque = 0;
+		}
+		marque++;
+		for (int k = 0; k < nbEvenements; k++) {
+			for (int u = debut(k); u < finUnites[k]; u++)
+				if (!estValide(unites[u], donnees, carte))
+					return k;
+			for (int u = debut(k); u < finUnites[k]; u++) {
+				parents[u] = u;
+				// Un incendie eteint depuis ne s'etend plus
+				if (unites[u].getIntensite() <= 0)
+					continue;
+				int cellule = carte.getCellule(unites[u].getPosition());
+				toucher(u, cellule);
+				for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+					int voisine = carte.getVoisine(cellule, d);
+					if (voisine != Carte.HORS_CARTE)
+						toucher(u, voisine);
+				}
+			}
+		}
+		return nbEvenements;
+	}
+
+	/**
+	 * Méthode interne rangeant dans {@link #ordre} les expansions encore allumées
+	 * groupe après groupe, chaque groupe dans l'ordre d'exécution. {@link #parents}
+	 * donne ensuite pour chacune le premier incendie de son groupe
+	 *
+	 * @param derniere l'indice suivant la dernière expansion
+	 * @return le nombre d'expansions rangées
+	 */
+	private int ranger(int derniere) {
+		// Chaque groupe est designe par sa premiere expansion, et les groupes se
+		// suivent dans l'ordre de leur premiere expansion
+		int[] tailles = new int[derniere];
+		int nbVivantes = 0;
+		for (int u = 0; u < derniere; u++)
+			if (unites[u].getIntensite() > 0) {
+				parents[u] = trouver(u);
+				tailles[parents[u]]++;
+				nbVivantes++;
+			}
+		int position = 0;
+		for (int i = 0; i < tailles.length; i++) {
+			int t = tailles[i];
+			tailles[i] = position;
+			position += t;
+		}
+		for (int u = 0; u < derniere; u++)
+			if (unites[u].getIntensite() > 0)
+				ordre[tailles[parents[u]]++] = u;
+		return nbVivantes;
+	}
+
+	/**
+	 * Méthode interne notant qu'une expansion touche une case, ce qui la met dans
+	 * le groupe de la dernière expansion qui l'a touchée
+	 *
+	 * @param u       l'indice de l'expansion
+	 * @param cellule le numéro de la case
+	 */
+	private void toucher(int u, int cellule) {
+		if (marques[cellule] == marque) {
+			int a = trouver(u), b = trouver(proprietaires[cellule]);
+			// Le groupe garde sa premiere expansion comme representant
+			if (a < b)
+				parents[b] = a;
+			else if (b < a)
+				parents[a] = b;
+		} else
+			marques[cellule] = marque;
+		proprietaires[cellule] = u;
+	}
+
+	/**
+	 * Méthode interne retrouvant le représentant du groupe d'une expansion, en
+	 * raccourcissant le chemin parcouru
+	 *
+	 * @param u l'indice de l'expansion
+	 * @return l'indice de la première expansion de son groupe
+	 */
+	private int trouver(int u) {
+		while (parents[u] != u) {
+			parents[u] = parents[parents[u]];
+			u = parents[u];
+		}
+		return u;
+	}
+
+	/**
+	 * Tranche de groupes d'expansions étendue par un seul thread. Elle partage
+	 * la recherche des incendies voisins entre ses expansions et tient à jour les
+	 * incendies qu'elles ajoutent, sans les ajouter à la simulation : elle note
+	 * ces ajouts et la planification des expansions suivantes, rejoués plus tard
+	 * dans l'ordre séquentiel
+	 */
+	private class Tranche extends VoisinageLot {
+		/**
+		 * Les positions de la première et après la dernière expansion de la tranche
+		 * dans {@link LotParallele#ordre}
+		 */
+		private final int debut, fin;
+		/**
+		 * La date actuelle de la simulation
+		 */
+		private final long date;
+		/**
+		 * La taille d'une case, en mètres
+		 */
+		private final int tailleCase;
+		/**
+		 * Les incendies dont l'ajout ou l'expansion suivante a été noté
+		 */
+		private Incendie[] incendies;
+		/**
+		 * La date de l'expansion suivante de chaque incendie noté
+		 */
+		private long[] dates;
+		/**
+		 * Pour chaque incendie noté, vrai s'il est à ajouter à la simulation
+		 */
+		private boolean[] nouveaux;
+		/**
+		 * Le nombre de modifications notées
+		 */
+		private int nbNotes;
+
+		/**
+		 * Construit une tranche
+		 *
+		 * @param donnees les données de la simulation
+		 * @param debut   la position de sa première expansion dans l'ordre
+		 * @param fin     la position suivant sa dernière expansion
+		 */
+		Tranche(DonneeSimulation donnees, int debut, int fin) {
+			super(donnees, fin - debut);
+			this.debut = debut;
+			this.fin = fin;
+			this.date = simulateur.getDate();
+			this.tailleCase = donnees.getCarte().getTailleCase();
+			int capacite = 2 * (fin - debut);
+			incendies = new Incendie[capacite];
+			dates = new long[capacite];
+			nouveaux = new boolean[capacite];
+		}
+
+		/**
+		 * Étend les expansions de la tranche, dans l'ordre
+		 */
+		void etendre() {
+			for (int i = debut; i < fin; i++) {
+				int u = ordre[i];
+				Incendie incendie = unites[u];
+				tranches[u] = this;
+				debutNotes[u] = nbNotes;
+				incendie.propager(simulateur, this);
+				noter(incendie, false);
+				finNotes[u] = nbNotes;
+			}
+		}
+
+		@Override
+		public void ajouterIncendie(Simulateur s, int cellule, Incendie incendie) {
+			// Seules les expansions de la tranche touchent la case
+			connaitre(cellule, incendie);
+			noter(incendie, true);
+		}
+
+		/**
+		 * Méthode interne notant la planification de l'expansion suivante d'un
+		 * incendie, à sa date calculée avec son intensité actuelle
+		 *
+		 * @param incendie l'incendie
+		 * @param nouveau  vrai si l'incendie est aussi à ajouter à la simulation
+		 */
+		private void noter(Incendie incendie, boolean nouveau) {
+			if (nbNotes == incendies.length) {
+				incendies = Arrays.copyOf(incendies, 2 * nbNotes);
+				dates = Arrays.copyOf(dates, 2 * nbNotes);
+				nouveaux = Arrays.copyOf(nouveaux, 2 * nbNotes);
+			}
+			incendies[nbNotes] = incendie;
+			dates[nbNotes] = date + incendie.getTempsPropagation(tailleCase);
+			nouveaux[nbNotes++] = nouveau;
+		}
+
+		/**
+		 * Rejoue dans la simulation des modifications notées
+		 *
+		 * @param de la position de la première
+		 * @param a  la position suivant la dernière
+		 */
+		void rejouer(int de, int a) {
+			DonneeSimulation donnees = simulateur.getDonneeSimulation();
+			for (int i = de; i < a; i++) {
+				if (nouveaux[i])
+					donnees.ajouterIncendie(incendies[i]);
+				simulateur.planifierExpansion(incendies[i], dates[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,876 @@
+package donnees.simulation;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+
+import donnees.Arrosage;
+import donnees.Incendie;
+import donnees.evenements.ExpansionMagasin;
+import donnees.terrain.Carte;
+import donnees.terrain.Case;
+import donnees.terrain.Direction;
+
+/**
+ * Magasin d'incendies : une représentation des incendies sous forme de tableaux
+ * de types primitifs indexés par le numéro de case (ligne * nombre de colonnes
+ * + colonne), au lieu d'un objet {@link Incendie} et d'un évènement
+ * d'expansion par case en feu. Pour chaque case, le magasin conserve
+ * l'intensité de l'incendie et la date de sa prochaine expansion ; les cases
+ * en feu et celles pouvant brûler forment un {@link FrontIncendies}.
+ *
+ * Chaque incendie planifie lui-même sa prochaine expansion dans un tas interne,
+ * ordonné par date puis par ordre de planification : le simulateur n'a dans sa
+ * file qu'un seul évènement {@link ExpansionMagasin}, à la date de la prochaine
+ * expansion, qui exécute toutes les expansions de cette date. Les règles de
+ * propagation sont celles de {@link Incendie#propager(Simulateur)}, et les
+ * expansions de même date sont exécutées dans l'ordre où elles l'auraient été
+ * avec un évènement par incendie : sans intervention des robots, les incendies
+ * évoluent exactement de la même façon. Les évènements des robots tombant à la
+ * même date qu'une expansion peuvent en revanche être exécutés dans un ordre
+ * différent.
+ *
+ * Les robots et les chefs pompiers voient les incendies du magasin à travers
+ * des vues, créées à la demande : deux vues du même incendie sont égales, et
+ * la vue d'un incendie éteint a une intensité nulle, même si un nouvel incendie
+ * s'est déclaré depuis sur la même case. Les incendies sont parcourus dans
+ * l'ordre des cases, ligne par ligne.
+ *
+ * Les expansions peuvent aussi être confiées à un {@link MoteurIncendies}, qui
+ * les range par tranches de temps à la place du tas et exécute ensemble celles
+ * d'une même tranche avec des règles synchrones.
+ */
+public class MagasinIncendies implements Duplicable, Sauvegardable {
+	/**
+	 * Les directions, dans l'ordre des voisines données par
+	 * {@link Carte#getVoisine(int, int)}
+	 */
+	private static final Direction[] DIRECTIONS = Direction.values();
+	/**
+	 * Nombre initial d'entrées du tas des expansions
+	 */
+	private static final int CAPACITE_TAS = 64;
+
+	/**
+	 * Carte du terrain
+	 */
+	private final Carte carte;
+	/**
+	 * Nombre de lignes de la carte
+	 */
+	private final int nbLignes;
+	/**
+	 * Nombre de colonnes de la carte
+	 */
+	private final int nbColonnes;
+	/**
+	 * Intensité de l'incendie de chaque case, sans tenir compte d'un arrosage en
+	 * cours
+	 */
+	private final int[] intensites;
+	/**
+	 * Date de la prochaine expansion de l'incendie de chaque case
+	 */
+	private final long[] datesExpansion;
+	/**
+	 * Nombre d'incendies qui se sont déclarés sur chaque case, pour distinguer les
+	 * incendies successifs d'une même case
+	 */
+	private final int[] generations;
+	/**
+	 * Les cases pouvant brûler et les cases en feu
+	 */
+	private final FrontIncendies front;
+	/**
+	 * Nombre de cases en feu
+	 */
+	private int nbActifs;
+	/**
+	 * Ensemble des cases dont l'incendie est en cours d'arrosage, un bit par case
+	 */
+	private final long[] arroses;
+	/**
+	 * Les arrosages en cours, par case
+	 */
+	private final Map<Integer, Arrosage> arrosages;
+	/**
+	 * Date des expansions du tas, qui est un tas binaire ordonné par date puis
+	 * par numéro d'ordre de planification
+	 */
+	private long[] tasDates;
+	/**
+	 * Numéro d'ordre de planification des expansions du tas
+	 */
+	private long[] tasSequences;
+	/**
+	 * Case des expansions du tas
+	 */
+	private int[] tasCellules;
+	/**
+	 * Génération de l'incendie des expansions du tas : une expansion planifiée
+	 * pour un incendie éteint depuis est ignorée
+	 */
+	private int[] tasGenerations;
+	/**
+	 * Nombre d'expansions dans le tas
+	 */
+	private int tailleTas;
+	/**
+	 * Prochain numéro d'ordre de planification
+	 */
+	private long prochaineSequence;
+	/**
+	 * Date actuelle du magasin, à partir de laquelle sont planifiées les
+	 * expansions des nouveaux incendies
+	 */
+	private long date;
+	/**
+	 * Numéro des cases voisines de l'incendie en cours d'expansion, ou -1 pour
+	 * une voisine hors de la carte ou ne pouvant pas brûler
+	 */
+	private final int[] voisines;
+	/**
+	 * Vue non modifiable des incendies, rendue par {@link #getIncendies()}
+	 */
+	private final Collection<Incendie> vueIncendies;
+	/**
+	 * Le moteur exécutant les expansions par tranches de temps, ou null si elles
+	 * sont exécutées une par une
+	 */
+	private MoteurIncendies moteur;
+
+	/**
+	 * Construit un magasin vide pour une carte
+	 *
+	 * @param carte la carte du terrain
+	 */
+	public MagasinIncendies(Carte carte) {
+		this.carte = carte;
+		this.nbLignes = carte.getNbLignes();
+		this.nbColonnes = carte.getNbColonnes();
+		int nbCases = nbLignes * nbColonnes;
+		front = new FrontIncendies(carte);
+		intensites = new int[nbCases];
+		datesExpansion = new long[nbCases];
+		generations = new int[nbCases];
+		arroses = new long[(nbCases + 63) >> 6];
+		arrosages = new HashMap<>();
+		tasDates = new long[CAPACITE_TAS];
+		tasSequences = new long[CAPACITE_TAS];
+		tasCellules = new int[CAPACITE_TAS];
+		tasGenerations = new int[CAPACITE_TAS];
+		voisines = new int[DIRECTIONS.length];
+		vueIncendies = new VueIncendies();
+	}
+
+	/**
+	 * Construit une copie d'un magasin, expansions prévues comprises. Les
+	 * arrosages en cours ne sont pas copiés
+	 *
+	 * @param magasin le magasin à copier
+	 */
+	public MagasinIncendies(MagasinIncendies magasin) {
+		this.carte = magasin.carte;
+		this.nbLignes = magasin.nbLignes;
+		this.nbColonnes = magasin.nbColonnes;
+		front = new FrontIncendies(magasin.front);
+		intensites = magasin.intensites.clone();
+		datesExpansion = magasin.datesExpansion.clone();
+		generations = magasin.generations.clone();
+		nbActifs = magasin.nbActifs;
+		arroses = new long[magasin.arroses.length];
+		arrosages = new HashMap<>();
+		tasDates = magasin.tasDates.clone();
+		tasSequences = magasin.tasSequences.clone();
+		tasCellules = magasin.tasCellules.clone();
+		tasGenerations = magasin.tasGenerations.clone();
+		tailleTas = magasin.tailleTas;
+		prochaineSequence = magasin.prochaineSequence;
+		date = magasin.date;
+		voisines = new int[DIRECTIONS.length];
+		vueIncendies = new VueIncendies();
+		if (magasin.moteur != null)
+			moteur = new MoteurIncendies(this, magasin.moteur);
+	}
+
+	/**
+	 * Copie le magasin dans une duplication, avec les copies de ses arrosages en
+	 * cours
+	 *
+	 * @param d la duplication en cours
+	 * @return la copie du magasin
+	 */
+	@Override
+	public MagasinIncendies dupliquer(Duplication d) {
+		MagasinIncendies copie = new MagasinIncendies(this);
+		d.enregistrer(this, copie);
+		System.arraycopy(arroses, 0, copie.arroses, 0, arroses.length);
+		for (Map.Entry<Integer, Arrosage> e : arrosages.entrySet())
+			copie.arrosages.put(e.getKey(), d.copie(e.getValue()));
+		return copie;
+	}
+
+	/**
+	 * Relit un magasin dans une reprise, sur la carte déjà lue, avec ses
+	 * arrosages en cours et son moteur. Un moteur repris traite les bandes de
+	 * lignes de façon séquentielle
+	 *
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private MagasinIncendies(Reprise r) throws IOException {
+		this(r.getCarte());
+		r.enregistrer(this);
+		int nbCases = intensites.length;
+		long[] enFeu = front.getEnFeu();
+		r.lireLongs(enFeu, enFeu.length);
+		r.lireInts(intensites, nbCases);
+		r.lireLongs(datesExpansion, nbCases);
+		r.lireInts(generations, nbCases);
+		nbActifs = r.lireInt();
+		r.lireLongs(arroses, arroses.length);
+		tailleTas = r.lireInt();
+		if (tailleTas > CAPACITE_TAS) {
+			tasDates = new long[tailleTas];
+			tasSequences = new long[tailleTas];
+			tasCellules = new int[tailleTas];
+			tasGenerations = new int[tailleTas];
+		}
+		r.lireLongs(tasDates, tailleTas);
+		r.lireLongs(tasSequences, tailleTas);
+		r.lireInts(tasCellules, tailleTas);
+		r.lireInts(tasGenerations, tailleTas);
+		prochaineSequence = r.lireLong();
+		date = r.lireLong();
+		if (r.lireBooleen())
+			moteur = new MoteurIncendies(this, r);
+		int nbArrosages = r.lireInt();
+		for (int i = 0; i < nbArrosages; i++)
+			arrosages.put(r.lireInt(), r.lireReference());
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		int nbCases = intensites.length;
+		long[] enFeu = front.getEnFeu();
+		s.ecrireLongs(enFeu, enFeu.length);
+		s.ecrireInts(intensites, nbCases);
+		s.ecrireLongs(datesExpansion, nbCases);
+		s.ecrireInts(generations, nbCases);
+		s.ecrireInt(nbActifs);
+		s.ecrireLongs(arroses, arroses.length);
+		s.ecrireInt(tailleTas);
+		s.ecrireLongs(tasDates, tailleTas);
+		s.ecrireLongs(tasSequences, tailleTas);
+		s.ecrireInts(tasCellules, tailleTas);
+		s.ecrireInts(tasGenerations, tailleTas);
+		s.ecrireLong(prochaineSequence);
+		s.ecrireLong(date);
+		s.ecrireBooleen(moteur != null);
+		if (moteur != null)
+			moteur.sauvegarder(s);
+		s.ecrireInt(arrosages.size());
+		for (Map.Entry<Integer, Arrosage> e : arrosages.entrySet()) {
+			s.ecrireInt(e.getKey());
+			s.ecrireReference(e.getValue());
+		}
+	}
+
+	/**
+	 * @return la carte du terrain
+	 */
+	public Carte getCarte() {
+		return carte;
+	}
+
+	/**
+	 * @param c une case de la carte
+	 * @return le numéro de la case
+	 */
+	public int getCellule(Case c) {
+		return c.getLigne() * nbColonnes + c.getColonne();
+	}
+
+	/**
+	 * @param cellule un numéro de case
+	 * @return la case de la carte correspondante
+	 */
+	public Case getCase(int cellule) {
+		return carte.getCase(cellule);
+	}
+
+	/**
+	 * @return le nombre de cases en feu
+	 */
+	public int getNbIncendies() {
+		return nbActifs;
+	}
+
+	/**
+	 * @param cellule un numéro de case
+	 * @return vrai si la case est en feu
+	 */
+	public boolean estActif(int cellule) {
+		int ligne = cellule / nbColonnes;
+		return front.estEnFeu(ligne, cellule - ligne * nbColonnes);
+	}
+
+	/**
+	 * @return les cases pouvant brûler et les cases en feu, sous forme de
+	 *         bitboards
+	 */
+	public FrontIncendies getFront() {
+		return front;
+	}
+
+	/**
+	 * Confie les expansions à un {@link MoteurIncendies}, qui les exécute par
+	 * tranches de temps : une expansion prévue à une date est exécutée à la fin
+	 * de sa tranche. Les expansions déjà prévues sont reprises par le moteur
+	 *
+	 * @param largeurTranche la durée d'une tranche, en secondes
+	 * @param pool           le pool de threads traitant en parallèle les bandes
+	 *                       de lignes de la carte, ou null pour un traitement
+	 *                       séquentiel
+	 */
+	public void utiliserMoteur(int largeurTranche, ForkJoinPool pool) {
+		MoteurIncendies nouveau = new MoteurIncendies(this, largeurTranche, pool);
+		while (getDateProchaineExpansion() != Long.MAX_VALUE) {
+			int cellule = tasCellules[0];
+			retirerTete();
+			nouveau.ajouterExpansion(cellule, generations[cellule], datesExpansion[cellule]);
+		}
+		moteur = nouveau;
+	}
+
+	/**
+	 * @return le moteur exécutant les expansions par tranches de temps, ou null
+	 *         si elles sont exécutées une par une
+	 */
+	public MoteurIncendies getMoteur() {
+		return moteur;
+	}
+
+	/**
+	 * @param cellule un numéro de case
+	 * @return l'intensité de l'incendie de la case, sans tenir compte d'un
+	 *         arrosage en cours, ou 0 si la case n'est pas en feu
+	 */
+	public int getIntensite(int cellule) {
+		return estActif(cellule) ? intensites[cellule] : 0;
+	}
+
+	/**
+	 * @param cellule un numéro de case en feu
+	 * @return la date de la prochaine expansion de l'incendie de la case
+	 */
+	public long getDateExpansion(int cellule) {
+		return datesExpansion[cellule];
+	}
+
+	/**
+	 * @return la date actuelle du magasin
+	 */
+	public long getDate() {
+		return date;
+	}
+
+	/**
+	 * Avance la date actuelle du magasin, avant d'y ajouter un incendie à cette
+	 * date
+	 *
+	 * @param date la nouvelle date, qui ne peut pas précéder la date actuelle
+	 */
+	public void avancer(long date) {
+		if (date < this.date)
+			throw new IllegalArgumentException("Le magasin ne peut pas revenir dans le passé");
+		this.date = date;
+	}
+
+	/**
+	 * Donne l'incendie d'une case
+	 *
+	 * @param c une case
+	 * @return une vue sur l'incendie de la case, ou null si la case n'est pas en
+	 *         feu ou est hors de la carte
+	 */
+	public Incendie getIncendie(Case c) {
+		if (c.getLigne() < 0 || c.getLigne() >= nbLignes || c.getColonne() < 0 || c.getColonne() >= nbColonnes)
+			return null;
+		int cellule = getCellule(c);
+		return estActif(cellule) ? new IncendieVue(this, carte.getCase(c.getLigne(), c.getColonne()), cellule,
+				generations[cellule]) : null;
+	}
+
+	/**
+	 * @return les incendies, dans l'ordre des cases, non modifiables
+	 */
+	public Collection<Incendie> getIncendies() {
+		return vueIncendies;
+	}
+
+	/**
+	 * Déclare un incendie sur une case qui n'est pas en feu, et planifie sa
+	 * première expansion à partir de la date actuelle du magasin
+	 *
+	 * @param c         la case
+	 * @param intensite l'intensité de l'incendie
+	 * @throws IllegalArgumentException si la case ne peut pas brûler ou est déjà
+	 *                                  en feu
+	 */
+	public void allumer(Case c, int intensite) throws IllegalArgumentException {
+		int cellule = getCellule(c);
+		if (!front.estBrulable(c.getLigne(), c.getColonne()))
+			throw new IllegalArgumentException("Un incendie ne peut pas se déclarer sur de l'eau ou de la roche");
+		if (estActif(cellule))
+			throw new IllegalArgumentException("Un incendie se trouve déjà à cette position");
+		allumer(cellule, intensite);
+	}
+
+	/**
+	 * Éteint un incendie, si c'est toujours celui qui occupe sa case
+	 *
+	 * @param incendie une vue sur un incendie du magasin
+	 */
+	void eteindre(Incendie incendie) {
+		IncendieVue vue = (IncendieVue) incendie;
+		if (!estValide(vue.getCellule(), vue.getGeneration()))
+			return;
+		int cellule = vue.getCellule();
+		front.eteindre(cellule / nbColonnes, cellule % nbColonnes);
+		nbActifs--;
+		intensites[cellule] = 0;
+		// L'arrosage se terminera de lui-meme, sans plus toucher a la case
+		if ((arroses[cellule >> 6] & (1L << cellule)) != 0) {
+			arroses[cellule >> 6] &= ~(1L << cellule);
+			arrosages.remove(cellule);
+		}
+	}
+
+	/**
+	 * Retourne la date de la prochaine expansion, en oubliant au passage les
+	 * expansions prévues d'incendies éteints depuis
+	 *
+	 * @return la date de la prochaine expansion, ou de la fin de sa tranche
+	 *         avec un moteur, ou {@link Long#MAX_VALUE} si aucune expansion
+	 *         n'est prévue
+	 */
+	public long getDateProchaineExpansion() {
+		if (moteur != null)
+			return moteur.getDateProchaineTranche();
+		while (tailleTas > 0 && !estValide(tasCellules[0], tasGenerations[0]))
+			retirerTete();
+		return tailleTas == 0 ? Long.MAX_VALUE : tasDates[0];
+	}
+
+	/**
+	 * Exécute, dans leur ordre de planification, toutes les expansions prévues à
+	 * une date, y compris celles planifiées entre temps pour cette même date. Les
+	 * nouveaux incendies sont signalés comme des changements
+	 *
+	 * @param date    la date des expansions, qui doit être celle de la prochaine
+	 *                expansion
+	 * @param donnees les données de la simulation
+	 * @return le nombre d'expansions exécutées
+	 */
+	public int executerExpansions(long date, DonneeSimulation donnees) {
+		if (moteur != null)
+			return moteur.executerTranche(date, donnees);
+		avancer(date);
+		int nbExpansions = 0;
+		boolean nouveaux = false;
+		while (getDateProchaineExpansion() == date) {
+			int cellule = tasCellules[0];
+			retirerTete();
+			nouveaux |= propager(cellule);
+			nbExpansions++;
+		}
+		if (nouveaux)
+			donnees.signalerChangement(Changement.INCENDIE_AJOUTE);
+		return nbExpansions;
+	}
+
+	/**
+	 * Méthode interne propageant l'incendie d'une case comme
+	 * {@link Incendie#propager(Simulateur)}, puis planifiant sa prochaine
+	 * expansion
+	 *
+	 * @param cellule la case en feu
+	 * @return vrai si de nouveaux incendies se sont déclarés
+	 */
+	private boolean propager(int cellule) {
+		int intensite = lireIntensite(cellule);
+		if (intensite <= 0)
+			return false;
+
+		int ligne = cellule / nbColonnes, colonne = cellule % nbColonnes;
+		int nbVoisines = 0;
+		for (int d = 0; d < DIRECTIONS.length; d++) {
+			int lig = ligne + DIRECTIONS[d].getLigne(), col = colonne + DIRECTIONS[d].getColonne();
+			boolean dansCarte = lig >= 0 && lig < nbLignes && col >= 0 && col < nbColonnes;
+			// Les voisines ne pouvant pas bruler comptent dans le partage
+			voisines[d] = dansCarte && front.estBrulable(lig, col) ? lig * nbColonnes + col : -1;
+			if (dansCarte)
+				nbVoisines++;
+		}
+
+		// On propage 50% de l'intensite, partage entre les voisines
+		boolean nouveaux = false;
+		int intensitePropagee = intensite / (2 * nbVoisines);
+		if (intensitePropagee > 0) {
+			for (int d = 0; d < DIRECTIONS.length; d++) {
+				int voisine = voisines[d];
+				if (voisine < 0)
+					continue;
+				// Une case deja en feu ne recoit qu'un quart de l'intensite propagee
+				if (front.estEnFeu(ligne + DIRECTIONS[d].getLigne(), colonne + DIRECTIONS[d].getColonne()))
+					ecrireIntensite(voisine, lireIntensite(voisine) + intensitePropagee / 4);
+				else {
+					allumer(voisine, intensitePropagee);
+					nouveaux = true;
+				}
+			}
+		}
+		planifier(cellule, lireIntensite(cellule));
+		return nouveaux;
+	}
+
+	/**
+	 * Méthode interne déclarant un incendie sur une case et planifiant sa
+	 * première expansion
+	 *
+	 * @param cellule   la case, qui peut brûler et n'est pas en feu
+	 * @param intensite l'intensité de l'incendie
+	 */
+	private void allumer(int cellule, int intensite) {
+		declarer(cellule, intensite);
+		nbActifs++;
+		planifier(cellule, intensites[cellule]);
+	}
+
+	/**
+	 * Déclare un incendie sur une case, sans le compter ni planifier son
+	 * expansion. Ne modifie que la case et le mot de sa ligne dans le front : des
+	 * threads peuvent déclarer en même temps des incendies sur des lignes
+	 * différentes
+	 *
+	 * @param cellule   la case, qui peut brûler et n'est pas en feu
+	 * @param intensite l'intensité de l'incendie
+	 */
+	void declarer(int cellule, int intensite) {
+		front.allumer(cellule / nbColonnes, cellule % nbColonnes);
+		generations[cellule]++;
+		intensites[cellule] = Math.min(Incendie.MAX_INTENSITE, intensite);
+	}
+
+	/**
+	 * Compte des incendies déclarés par {@link #declarer(int, int)}
+	 *
+	 * @param nb le nombre d'incendies
+	 */
+	void compterIncendies(int nb) {
+		nbActifs += nb;
+	}
+
+	/**
+	 * Méthode interne planifiant la prochaine expansion de l'incendie d'une case,
+	 * à partir de la date actuelle
+	 *
+	 * @param cellule   la case en feu
+	 * @param intensite l'intensité actuelle de l'incendie
+	 */
+	private void planifier(int cellule, int intensite) {
+		planifier(cellule, date + (moteur != null ? moteur.getTempsPropagation(carte.getNature(cellule), intensite)
+				: Incendie.getTempsPropagation(carte.getNature(cellule), intensite, carte.getTailleCase())));
+	}
+
+	/**
+	 * Planifie la prochaine expansion de l'incendie d'une case à une date donnée
+	 *
+	 * @param cellule       la case en feu
+	 * @param dateExpansion la date de l'expansion
+	 */
+	void planifier(int cellule, long dateExpansion) {
+		datesExpansion[cellule] = dateExpansion;
+		// Le moteur range lui-meme les expansions par tranche
+		if (moteur != null) {
+			moteur.ajouterExpansion(cellule, generations[cellule], dateExpansion);
+			return;
+		}
+		if (tailleTas == tasDates.length) {
+			int capacite = 2 * tasDates.length;
+			tasDates = Arrays.copyOf(tasDates, capacite);
+			tasSequences = Arrays.copyOf(tasSequences, capacite);
+			tasCellules = Arrays.copyOf(tasCellules, capacite);
+			tasGenerations = Arrays.copyOf(tasGenerations, capacite);
+		}
+		placer(tailleTas, dateExpansion, prochaineSequence++, cellule, generations[cellule]);
+		remonter(tailleTas++);
+	}
+
+	/**
+	 * Détermine si un incendie est toujours celui qui occupe sa case
+	 *
+	 * @param cellule    la case de l'incendie
+	 * @param generation la génération de l'incendie
+	 * @return vrai si la case est toujours en feu, du même incendie
+	 */
+	boolean estValide(int cellule, int generation) {
+		return estActif(cellule) && generations[cellule] == generation;
+	}
+
+	/**
+	 * Méthode interne donnant l'intensité de l'incendie d'une case, après avoir
+	 * appliqué les interventions passées de son arrosage éventuel
+	 *
+	 * @param cellule la case en feu
+	 * @return l'intensité de l'incendie
+	 */
+	int lireIntensite(int cellule) {
+		if ((arroses[cellule >> 6] & (1L << cellule)) != 0)
+			arrosages.get(cellule).materialiser();
+		return intensites[cellule];
+	}
+
+	/**
+	 * Méthode interne définissant l'intensité de l'incendie d'une case, en
+	 * replanifiant son arrosage éventuel comme {@link Incendie#setIntensite(int)}
+	 *
+	 * @param cellule   la case en feu
+	 * @param intensite la nouvelle intensité
+	 */
+	private void ecrireIntensite(int cellule, int intensite) {
+		intensites[cellule] = Math.min(Incendie.MAX_INTENSITE, intensite);
+		if ((arroses[cellule >> 6] & (1L << cellule)) != 0)
+			arrosages.get(cellule).replanifier();
+	}
+
+	/**
+	 * @return l'intensité de l'incendie de chaque case, sans tenir compte d'un
+	 *         arrosage en cours, à ne modifier que pour des cases en feu
+	 */
+	int[] getIntensites() {
+		return intensites;
+	}
+
+	/**
+	 * @param cellule une case
+	 * @return vrai si l'incendie de la case est en cours d'arrosage
+	 */
+	boolean estArrose(int cellule) {
+		return (arroses[cellule >> 6] & (1L << cellule)) != 0;
+	}
+
+	/**
+	 * Applique aux incendies les interventions passées de tous les arrosages en
+	 * cours
+	 */
+	void materialiserArrosages() {
+		for (Arrosage arrosage : arrosages.values())
+			arrosage.materialiser();
+	}
+
+	/**
+	 * Prend en compte une modification de l'intensité de l'incendie d'une case,
+	 * faite directement dans {@link #getIntensites()}, pour son arrosage
+	 *
+	 * @param cellule une case en cours d'arrosage
+	 */
+	void replanifierArrosage(int cellule) {
+		arrosages.get(cellule).replanifier();
+	}
+
+	/**
+	 * @param cellule    la case de l'incendie
+	 * @param generation la génération de l'incendie
+	 * @return l'intensité courante de l'incendie, en tenant compte de l'arrosage
+	 *         en cours, ou 0 s'il est éteint
+	 */
+	int getIntensite(int cellule, int generation) {
+		return estValide(cellule, generation) ? lireIntensite(cellule) : 0;
+	}
+
+	/**
+	 * Définit l'intensité d'un incendie, s'il n'est pas éteint
+	 *
+	 * @param cellule    la case de l'incendie
+	 * @param generation la génération de l'incendie
+	 * @param intensite  la nouvelle intensité
+	 */
+	void setIntensite(int cellule, int generation, int intensite) {
+		if (estValide(cellule, generation))
+			ecrireIntensite(cellule, intensite);
+	}
+
+	/**
+	 * Diminue l'intensité d'un incendie du volume d'eau déversé par son arrosage,
+	 * comme {@link Incendie#arroser(int)}
+	 *
+	 * @param cellule    la case de l'incendie
+	 * @param generation la génération de l'incendie
+	 * @param volume     le volume d'eau, en litres
+	 */
+	void arroser(int cellule, int generation, int volume) {
+		if (estValide(cellule, generation))
+			intensites[cellule] = Math.max(0, intensites[cellule] - volume);
+	}
+
+	/**
+	 * @param cellule    la case de l'incendie
+	 * @param generation la génération de l'incendie
+	 * @return l'arrosage en cours de l'incendie, ou null
+	 */
+	Arrosage getArrosage(int cellule, int generation) {
+		if (!estValide(cellule, generation) || (arroses[cellule >> 6] & (1L << cellule)) == 0)
+			return null;
+		return arrosages.get(cellule);
+	}
+
+	/**
+	 * Définit l'arrosage en cours d'un incendie, s'il n'est pas éteint
+	 *
+	 * @param cellule    la case de l'incendie
+	 * @param generation la génération de l'incendie
+	 * @param arrosage   l'arrosage, ou null s'il est terminé
+	 */
+	void setArrosage(int cellule, int generation, Arrosage arrosage) {
+		if (!estValide(cellule, generation))
+			return;
+		if (arrosage == null) {
+			arroses[cellule >> 6] &= ~(1L << cellule);
+			arrosages.remove(cellule);
+		} else {
+			arroses[cellule >> 6] |= 1L << cellule;
+			arrosages.put(cellule, arrosage);
+		}
+	}
+
+	/**
+	 * Méthode interne retirant l'expansion en tête du tas
+	 */
+	private void retirerTete() {
+		tailleTas--;
+		if (tailleTas > 0) {
+			placer(0, tasDates[tailleTas], tasSequences[tailleTas], tasCellules[tailleTas],
+					tasGenerations[tailleTas]);
+			descendre(0);
+		}
+	}
+
+	/**
+	 * Méthode interne plaçant une expansion à un indice du tas
+	 *
+	 * @param i          l'indice
+	 * @param date       la date de l'expansion
+	 * @param sequence   le numéro d'ordre de planification
+	 * @param cellule    la case de l'incendie
+	 * @param generation la génération de l'incendie
+	 */
+	private void placer(int i, long date, long sequence, int cellule, int generation) {
+		tasDates[i] = date;
+		tasSequences[i] = sequence;
+		tasCellules[i] = cellule;
+		tasGenerations[i] = generation;
+	}
+
+	/**
+	 * Méthode interne comparant deux expansions du tas
+	 *
+	 * @param i l'indice de la première expansion
+	 * @param j l'indice de la seconde expansion
+	 * @return vrai si la première doit être exécutée avant la seconde
+	 */
+	private boolean avant(int i, int j) {
+		if (tasDates[i] != tasDates[j])
+			return tasDates[i] < tasDates[j];
+		return tasSequences[i] < tasSequences[j];
+	}
+
+	/**
+	 * Méthode interne échangeant deux expansions du tas
+	 *
+	 * @param i l'indice de la première expansion
+	 * @param j l'indice de la seconde expansion
+	 */
+	private void echanger(int i, int j) {
+		long date = tasDates[i], sequence = tasSequences[i];
+		int cellule = tasCellules[i], generation = tasGenerations[i];
+		placer(i, tasDates[j], tasSequences[j], tasCellules[j], tasGenerations[j]);
+		placer(j, date, sequence, cellule, generation);
+	}
+
+	/**
+	 * Méthode interne faisant remonter une expansion à sa place dans le tas
+	 *
+	 * @param i l'indice de l'expansion
+	 */
+	private void remonter(int i) {
+		while (i > 0) {
+			int parent = (i - 1) >> 1;
+			if (!avant(i, parent))
+				return;
+			echanger(i, parent);
+			i = parent;
+		}
+	}
+
+	/**
+	 * Méthode interne faisant descendre une expansion à sa place dans le tas
+	 *
+	 * @param i l'indice de l'expansion
+	 */
+	private void descendre(int i) {
+		while (true) {
+			int enfant = 2 * i + 1;
+			if (enfant >= tailleTas)
+				return;
+			if (enfant + 1 < tailleTas && avant(enfant + 1, enfant))
+				enfant++;
+			if (!avant(enfant, i))
+				return;
+			echanger(i, enfant);
+			i = enfant;
+		}
+	}
+
+	/**
+	 * Vue non modifiable des incendies du magasin, dans l'ordre des cases
+	 */
+	private class VueIncendies extends AbstractCollection<Incendie> {
+		@Override
+		public int size() {
+			return nbActifs;
+		}
+
+		@Override
+		public Iterator<Incendie> iterator() {
+			return new Iterator<Incendie>() {
+				/**
+				 * La prochaine case en feu, ou -1 s'il n'y en a plus
+				 */
+				private int suivante = front.chercher(front.getEnFeu(), 0, 0);
+
+				@Override
+				public boolean hasNext() {
+					return suivante >= 0;
+				}
+
+				@Override
+				public Incendie next() {
+					if (suivante < 0)
+						throw new NoSuchElementException();
+					int cellule = suivante;
+					int prochaine = cellule + 1;
+					suivante = front.chercher(front.getEnFeu(), prochaine / nbColonnes, prochaine % nbColonnes);
+					return new IncendieVue(MagasinIncendies.this, getCase(cellule), cellule, generations[cellule]);
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package donnees.simulation;
+
+import java.util.Comparator;
+
+import donnees.Incendie;
+import donnees.robots.Robot;
+import donnees.terrain.Case;
+
+/**
+ * Message envoyé par une région d'un {@link SimulateurPartitionne} à la région
+ * possédant une case qui ne lui appartient pas. Les messages sont déposés dans
+ * la file de la région destinataire pendant une fenêtre de temps, par le thread
+ * de la région qui les envoie, puis reçus par la région destinataire au début
+ * de la fenêtre suivante.
+ */
+abstract class MessageRegion {
+	/**
+	 * Ordre de réception des messages : par date, puis par région d'origine et
+	 * ordre d'envoi, pour que le résultat ne dépende pas de l'ordre dans lequel
+	 * les threads les ont déposés
+	 */
+	static final Comparator<MessageRegion> ORDRE = Comparator.comparingLong((MessageRegion m) -> m.date)
+			.thenComparingInt(m -> m.origine).thenComparingLong(m -> m.numero);
+
+	/**
+	 * La date de l'envoi, en secondes
+	 */
+	private final long date;
+	/**
+	 * L'indice de la région qui envoie le message
+	 */
+	private final int origine;
+	/**
+	 * Le numéro du message parmi ceux envoyés par sa région
+	 */
+	private final long numero;
+
+	/**
+	 * Construit un message
+	 *
+	 * @param date    la date de l'envoi
+	 * @param origine l'indice de la région qui l'envoie
+	 * @param numero  le numéro du message dans sa région
+	 */
+	MessageRegion(long date, int origine, long numero) {
+		this.date = date;
+		this.origine = origine;
+		this.numero = numero;
+	}
+
+	/**
+	 * @return la date de l'envoi
+	 */
+	long getDate() {
+		return date;
+	}
+
+	/**
+	 * @return la case concernée par le message, qui détermine la région
+	 *         destinataire
+	 */
+	abstract Case getCase();
+
+	/**
+	 * Applique le message à la région destinataire
+	 *
+	 * @param destination la région possédant la case du message
+	 */
+	abstract void livrer(SimulateurRegion destination);
+
+	/**
+	 * Propagation d'un incendie sur une case d'une autre région
+	 */
+	static class Propagation extends MessageRegion {
+		/**
+		 * L'incendie qui aurait été ajouté sur la case si elle ne brûlait pas déjà
+		 */
+		private final Incendie incendie;
+
+		/**
+		 * Construit le message de propagation
+		 *
+		 * @param incendie l'incendie propagé, dont l'intensité est celle propagée
+		 * @param date     la date de la propagation
+		 * @param origine  l'indice de la région qui propage l'incendie
+		 * @param numero   le numéro du message dans sa région
+		 */
+		Propagation(Incendie incendie, long date, int origine, long numero) {
+			super(date, origine, numero);
+			this.incendie = incendie;
+		}
+
+		@Override
+		Case getCase() {
+			return incendie.getPosition();
+		}
+
+		@Override
+		void livrer(SimulateurRegion destination) {
+			destination.recevoirPropagation(incendie, getDate());
+		}
+	}
+
+	/**
+	 * Passage d'un robot inactif dans la région où il se trouve
+	 */
+	static class TransfertRobot extends MessageRegion {
+		/**
+		 * Le robot transféré
+		 */
+		private final Robot robot;
+
+		/**
+		 * Construit le message de transfert
+		 *
+		 * @param robot   le robot, déjà retiré de sa région de départ
+		 * @param date    la date du transfert
+		 * @param origine l'indice de la région de départ
+		 * @param numero  le numéro du message dans sa région
+		 */
+		TransfertRobot(Robot robot, long date, int origine, long numero) {
+			super(date, origine, numero);
+			this.robot = robot;
+		}
+
+		@Override
+		Case getCase() {
+			return robot.getPosition();
+		}
+
+		@Override
+		void livrer(SimulateurRegion destination) {
+			destination.recevoirRobot(robot, getDate());
+		}
+	}
+}
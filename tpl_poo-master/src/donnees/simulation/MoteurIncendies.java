@@ -0,0 +1,760 @@
+package donnees.simulation;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import donnees.Incendie;
+import donnees.terrain.NatureTerrain;
+
+/**
+ * Moteur exécutant les expansions des incendies d'un {@link MagasinIncendies}
+ * par tranches de temps, à la manière d'un automate cellulaire : toutes les
+ * expansions prévues dans une tranche sont exécutées ensemble à la fin de
+ * celle-ci, en une passe sur les tableaux du magasin.
+ *
+ * Les règles sont celles de {@link Incendie#propager(Simulateur)}, appliquées
+ * de façon synchrone : chaque incendie propage la moitié de l'intensité qu'il
+ * avait au début de la tranche, partagée entre ses voisines. Une voisine déjà
+ * en feu reçoit le quart de chaque propagation ; sur une voisine qui ne brûle
+ * pas encore, la plus forte propagation déclare l'incendie et les autres y
+ * ajoutent leur quart. Contrairement aux expansions exécutées une par une, le
+ * résultat ne dépend donc pas de l'ordre des expansions d'une même tranche.
+ *
+ * Les cases atteintes sont calculées sur les bitboards du
+ * {@link FrontIncendies}, et la carte est découpée en bandes de lignes traitées
+ * en parallèle. L'intensité propagée par chaque incendie est figée avant la
+ * passe et chaque bande n'écrit que dans ses propres lignes : le résultat ne
+ * dépend ni du nombre de bandes ni de l'ordre d'exécution des threads. Les
+ * temps de propagation sont lus dans une table calculée à la construction.
+ *
+ * Les expansions prévues sont rangées, à la place du tas du magasin, dans un
+ * calendrier circulaire d'une alvéole par tranche, chaque alvéole étant une
+ * simple liste de cases : les expansions d'une tranche sont retrouvées d'un
+ * bloc. Les expansions au-delà de l'horizon du calendrier sont placées dans un
+ * tas de débordement.
+ */
+public class MoteurIncendies {
+	/**
+	 * Les natures de terrain, indexées par leur numéro d'ordre
+	 */
+	private static final NatureTerrain[] NATURES = NatureTerrain.values();
+	/**
+	 * Nombre minimal d'incendies se propageant dans une tranche pour découper la
+	 * carte en bandes traitées en parallèle
+	 */
+	private static final int SEUIL_PARALLELE = 1024;
+	/**
+	 * Nombre de bandes par thread du pool, pour équilibrer la charge
+	 */
+	private static final int BANDES_PAR_THREAD = 4;
+	/**
+	 * Nombre de bits du numéro de tranche donnant l'alvéole du calendrier
+	 */
+	private static final int NB_BITS_CALENDRIER = 16;
+	/**
+	 * Nombre d'alvéoles du calendrier, qui couvre autant de tranches
+	 */
+	private static final int NB_ALVEOLES = 1 << NB_BITS_CALENDRIER;
+	/**
+	 * Masque donnant l'alvéole d'un numéro de tranche
+	 */
+	private static final long MASQUE = NB_ALVEOLES - 1;
+
+	/**
+	 * Le magasin dont les incendies s'étendent
+	 */
+	private final MagasinIncendies magasin;
+	/**
+	 * Les cases pouvant brûler et les cases en feu du magasin
+	 */
+	private final FrontIncendies front;
+	/**
+	 * Nombre de lignes de la carte
+	 */
+	private final int nbLignes;
+	/**
+	 * Nombre de colonnes de la carte
+	 */
+	private final int nbColonnes;
+	/**
+	 * Nombre de mots occupés par chaque ligne des bitboards
+	 */
+	private final int nbMots;
+	/**
+	 * Durée d'une tranche, en secondes
+	 */
+	private final int largeurTranche;
+	/**
+	 * Le pool de threads traitant les bandes, ou null
+	 */
+	private final ForkJoinPool pool;
+	/**
+	 * Temps de propagation, indexés par numéro d'ordre de la nature du terrain
+	 * puis par intensité, null pour les terrains ne pouvant pas brûler
+	 */
+	private final int[][] tempsPropagation;
+	/**
+	 * Intensité propagée à chaque voisine par chaque incendie de la tranche, 0
+	 * pour les autres cases
+	 */
+	private final int[] propagees;
+	/**
+	 * Les incendies de la tranche qui se propagent
+	 */
+	private final long[] sources;
+	/**
+	 * Les mots des bitboards pouvant contenir une case atteinte par un incendie
+	 * de la tranche, un bit par mot
+	 */
+	private final long[] motsAtteints;
+	/**
+	 * Les expansions prévues de chaque alvéole du calendrier : la case puis la
+	 * génération de son incendie, une expansion prévue pour un incendie éteint
+	 * depuis étant ignorée
+	 */
+	private final int[][] alveoles;
+	/**
+	 * Nombre d'entiers utilisés dans chaque alvéole
+	 */
+	private final int[] taillesAlveoles;
+	/**
+	 * Le bit i est à 1 si l'alvéole i n'est pas vide
+	 */
+	private final long[] occupees;
+	/**
+	 * Les expansions au-delà de l'horizon du calendrier : numéro de tranche, case
+	 * et génération
+	 */
+	private final PriorityQueue<long[]> debordement;
+	/**
+	 * Numéro de la tranche courante, la première que peut contenir le
+	 * calendrier
+	 */
+	private long trancheCourante;
+	/**
+	 * Liste vide échangée avec l'alvéole de la tranche exécutée, pour que les
+	 * expansions ajoutées pendant l'exécution n'y soient pas mélangées
+	 */
+	private int[] reserve;
+	/**
+	 * Les cases dont l'expansion est exécutée dans la tranche, dans l'ordre où
+	 * elles ont été planifiées
+	 */
+	private int[] dues;
+	/**
+	 * Nombre de cases dans {@link #dues}
+	 */
+	private int nbDues;
+	/**
+	 * Les bandes de lignes
+	 */
+	private final Bande[] bandes;
+	/**
+	 * Nombre de tranches exécutées
+	 */
+	private long nbTranches;
+
+	/**
+	 * Construit le moteur d'un magasin
+	 *
+	 * @param magasin        le magasin
+	 * @param largeurTranche la durée d'une tranche, en secondes
+	 * @param pool           le pool de threads traitant les bandes, ou null
+	 * @throws IllegalArgumentException si la durée d'une tranche n'est pas
+	 *                                  positive
+	 */
+	MoteurIncendies(MagasinIncendies magasin, int largeurTranche, ForkJoinPool pool)
+			throws IllegalArgumentException {
+		this(magasin, largeurTranche, pool, creerTable(magasin.getCarte().getTailleCase()));
+	}
+
+	/**
+	 * Construit le moteur de la copie d'un magasin, avec les mêmes paramètres
+	 * qu'un autre moteur
+	 *
+	 * @param magasin la copie du magasin
+	 * @param moteur  le moteur du magasin copié
+	 */
+	MoteurIncendies(MagasinIncendies magasin, MoteurIncendies moteur) {
+		// La table ne depend que de la taille des cases, elle peut etre partagee
+		this(magasin, moteur.largeurTranche, moteur.pool, moteur.tempsPropagation);
+		for (int a = 0; a < NB_ALVEOLES; a++)
+			if (moteur.alveoles[a] != null)
+				alveoles[a] = moteur.alveoles[a].clone();
+		System.arraycopy(moteur.taillesAlveoles, 0, taillesAlveoles, 0, NB_ALVEOLES);
+		System.arraycopy(moteur.occupees, 0, occupees, 0, occupees.length);
+		// Les entrees du debordement ne sont jamais modifiees
+		debordement.addAll(moteur.debordement);
+		trancheCourante = moteur.trancheCourante;
+	}
+
+	/**
+	 * Relit un moteur dans une reprise, pour un magasin dont la date est déjà
+	 * lue. Le moteur repris n'a pas de pool de threads
+	 *
+	 * @param magasin le magasin repris
+	 * @param r       la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	MoteurIncendies(MagasinIncendies magasin, Reprise r) throws IOException {
+		this(magasin, r.lireInt(), null);
+		trancheCourante = r.lireLong();
+		r.lireLongs(occupees, occupees.length);
+		int nbAlveoles = r.lireInt();
+		for (int i = 0; i < nbAlveoles; i++) {
+			int a = r.lireInt();
+			taillesAlveoles[a] = r.lireInt();
+			alveoles[a] = new int[Math.max(16, taillesAlveoles[a])];
+			r.lireInts(alveoles[a], taillesAlveoles[a]);
+		}
+		int nbDebordements = r.lireInt();
+		for (int i = 0; i < nbDebordements; i++) {
+			long[] entree = new long[3];
+			r.lireLongs(entree, entree.length);
+			debordement.add(entree);
+		}
+	}
+
+	/**
+	 * Écrit le moteur dans la sauvegarde de son magasin, sans sa table des temps
+	 * de propagation qui est recalculée à la reprise. Les entrées du débordement
+	 * sont écrites dans l'ordre de son tas, qu'elles retrouvent à la relecture
+	 *
+	 * @param s la sauvegarde en cours
+	 * @throws IOException si l'écriture échoue
+	 */
+	void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireInt(largeurTranche);
+		s.ecrireLong(trancheCourante);
+		s.ecrireLongs(occupees, occupees.length);
+		int nbAlveoles = 0;
+		for (int a = 0; a < NB_ALVEOLES; a++)
+			if (taillesAlveoles[a] > 0)
+				nbAlveoles++;
+		s.ecrireInt(nbAlveoles);
+		for (int a = 0; a < NB_ALVEOLES; a++) {
+			if (taillesAlveoles[a] > 0) {
+				s.ecrireInt(a);
+				s.ecrireInt(taillesAlveoles[a]);
+				s.ecrireInts(alveoles[a], taillesAlveoles[a]);
+			}
+		}
+		s.ecrireInt(debordement.size());
+		for (long[] entree : debordement)
+			s.ecrireLongs(entree, entree.length);
+	}
+
+	/**
+	 * Constructeur interne
+	 *
+	 * @param magasin          le magasin
+	 * @param largeurTranche   la durée d'une tranche, en secondes
+	 * @param pool             le pool de threads traitant les bandes, ou null
+	 * @param tempsPropagation la table des temps de propagation
+	 * @throws IllegalArgumentException si la durée d'une tranche n'est pas
+	 *                                  positive
+	 */
+	private MoteurIncendies(MagasinIncendies magasin, int largeurTranche, ForkJoinPool pool,
+			int[][] tempsPropagation) throws IllegalArgumentException {
+		if (largeurTranche <= 0)
+			throw new IllegalArgumentException("La durée d'une tranche doit être positive");
+		this.magasin = magasin;
+		this.front = magasin.getFront();
+		this.nbLignes = magasin.getCarte().getNbLignes();
+		this.nbColonnes = magasin.getCarte().getNbColonnes();
+		this.nbMots = front.getNbMotsParLigne();
+		this.largeurTranche = largeurTranche;
+		this.pool = pool;
+		this.tempsPropagation = tempsPropagation;
+		propagees = new int[nbLignes * nbColonnes];
+		sources = front.creerBitboard();
+		motsAtteints = new long[(sources.length + 63) >> 6];
+		alveoles = new int[NB_ALVEOLES][];
+		taillesAlveoles = new int[NB_ALVEOLES];
+		occupees = new long[NB_ALVEOLES >> 6];
+		debordement = new PriorityQueue<>(Comparator.comparingLong(e -> e[0]));
+		trancheCourante = getNumeroTranche(magasin.getDate());
+		reserve = new int[16];
+		dues = new int[64];
+		bandes = new Bande[pool == null ? 1 : pool.getParallelism() * BANDES_PAR_THREAD];
+		for (int b = 0; b < bandes.length; b++)
+			bandes[b] = new Bande();
+	}
+
+	/**
+	 * Méthode interne calculant la table des temps de propagation
+	 *
+	 * @param tailleCase taille d'une case en mètres
+	 * @return la table, indexée par numéro d'ordre de la nature du terrain puis
+	 *         par intensité
+	 */
+	private static int[][] creerTable(int tailleCase) {
+		int[][] table = new int[NATURES.length][];
+		for (NatureTerrain nature : NATURES) {
+			if (nature == NatureTerrain.EAU || nature == NatureTerrain.ROCHE)
+				continue;
+			int[] temps = new int[Incendie.MAX_INTENSITE + 1];
+			for (int intensite = 0; intensite <= Incendie.MAX_INTENSITE; intensite++)
+				temps[intensite] = Incendie.getTempsPropagation(nature, intensite, tailleCase);
+			table[nature.ordinal()] = temps;
+		}
+		return table;
+	}
+
+	/**
+	 * @return la durée d'une tranche, en secondes
+	 */
+	public int getLargeurTranche() {
+		return largeurTranche;
+	}
+
+	/**
+	 * @return le nombre de tranches exécutées
+	 */
+	public long getNbTranches() {
+		return nbTranches;
+	}
+
+	/**
+	 * @param date une date
+	 * @return la fin de la tranche contenant la date, à laquelle sont exécutées
+	 *         les expansions prévues à cette date
+	 */
+	public long getFinTranche(long date) {
+		long reste = Math.floorMod(date, largeurTranche);
+		return reste == 0 ? date : date - reste + largeurTranche;
+	}
+
+	/**
+	 * Méthode interne donnant le numéro de la tranche contenant une date
+	 *
+	 * @param date une date
+	 * @return le numéro de la tranche
+	 */
+	private long getNumeroTranche(long date) {
+		return Math.floorDiv(getFinTranche(date), largeurTranche);
+	}
+
+	/**
+	 * Donne le temps de propagation d'un incendie, comme
+	 * {@link Incendie#getTempsPropagation(NatureTerrain, int, int)} mais sans
+	 * calcul
+	 *
+	 * @param nature    la nature du terrain en feu, qui peut brûler
+	 * @param intensite l'intensité de l'incendie
+	 * @return le temps de la prochaine propagation
+	 */
+	public int getTempsPropagation(NatureTerrain nature, int intensite) {
+		return tempsPropagation[nature.ordinal()][intensite];
+	}
+
+	/**
+	 * Exécute toutes les expansions de la tranche se terminant à une date. Les
+	 * nouveaux incendies sont signalés comme des changements
+	 *
+	 * @param date    la fin de la tranche, qui doit être celle de la prochaine
+	 *                expansion
+	 * @param donnees les données de la simulation
+	 * @return le nombre d'expansions exécutées
+	 */
+	int executerTranche(long date, DonneeSimulation donnees) {
+		magasin.avancer(date);
+		avancerCalendrier(getNumeroTranche(date));
+		// Les intensites lues pendant la passe doivent tenir compte des arrosages
+		magasin.materialiserArrosages();
+		int[] intensites = magasin.getIntensites();
+
+		// On detache l'alveole de la tranche, qui recoit une liste vide
+		int alveole = (int) (trancheCourante & MASQUE);
+		int[] entrees = alveoles[alveole];
+		int taille = taillesAlveoles[alveole];
+		alveoles[alveole] = reserve;
+		taillesAlveoles[alveole] = 0;
+		occupees[alveole >> 6] &= ~(1L << alveole);
+
+		// On fige l'intensite propagee par chaque incendie avant toute modification
+		nbDues = 0;
+		int nbSources = 0, ligneMin = nbLignes, ligneMax = -1;
+		for (int e = 0; e < taille; e += 2) {
+			int cellule = entrees[e];
+			if (!estPrevue(cellule, entrees[e + 1], trancheCourante))
+				continue;
+			int intensite = intensites[cellule];
+			if (intensite <= 0)
+				continue;
+			if (nbDues == dues.length)
+				dues = Arrays.copyOf(dues, 2 * nbDues);
+			dues[nbDues++] = cellule;
+			int lig = cellule / nbColonnes, col = cellule - lig * nbColonnes;
+			int nbVoisines = compterVoisines(lig, col);
+			int propagee = nbVoisines == 0 ? 0 : intensite / (2 * nbVoisines);
+			if (propagee <= 0)
+				continue;
+			propagees[cellule] = propagee;
+			int mot = front.getIndiceMot(lig, col);
+			sources[mot] |= 1L << col;
+			marquerAtteints(lig, col, mot);
+			nbSources++;
+			ligneMin = Math.min(ligneMin, lig);
+			ligneMax = Math.max(ligneMax, lig);
+		}
+
+		int nbBandes = 0;
+		if (nbSources > 0) {
+			int debut = Math.max(0, ligneMin - 1), fin = Math.min(nbLignes, ligneMax + 2);
+			nbBandes = pool == null || nbSources < SEUIL_PARALLELE ? 1 : Math.min(bandes.length, fin - debut);
+			for (int b = 0; b < nbBandes; b++)
+				bandes[b].preparer(debut + (fin - debut) * b / nbBandes, debut + (fin - debut) * (b + 1) / nbBandes);
+			if (nbBandes == 1)
+				bandes[0].executer();
+			else {
+				int n = nbBandes;
+				pool.submit(() -> Arrays.stream(bandes, 0, n).parallel().forEach(Bande::executer)).join();
+			}
+		}
+
+		// Les bandes couvrent les lignes dans l'ordre : les incendies sont planifies
+		// dans l'ordre des cases, quel que soit le decoupage
+		int nbNouvelles = 0;
+		for (int b = 0; b < nbBandes; b++) {
+			Bande bande = bandes[b];
+			for (int i = 0; i < bande.nbArrosees; i++)
+				magasin.replanifierArrosage(bande.arrosees[i]);
+			nbNouvelles += bande.nbNouvelles;
+		}
+		magasin.compterIncendies(nbNouvelles);
+		for (int i = 0; i < nbDues; i++)
+			planifier(dues[i], date);
+		for (int b = 0; b < nbBandes; b++)
+			for (int i = 0; i < bandes[b].nbNouvelles; i++)
+				planifier(bandes[b].nouvelles[i], date);
+
+		// On remet a zero les tableaux de la tranche, seulement la ou ils ont servi
+		for (int i = 0; i < nbDues; i++) {
+			int cellule = dues[i], lig = cellule / nbColonnes;
+			propagees[cellule] = 0;
+			sources[front.getIndiceMot(lig, cellule - lig * nbColonnes)] = 0;
+		}
+		if (nbSources > 0)
+			Arrays.fill(motsAtteints, Math.max(0, ligneMin - 1) * nbMots >> 6,
+					(Math.min(nbLignes, ligneMax + 2) * nbMots + 63) >> 6, 0);
+		reserve = entrees != null ? entrees : new int[16];
+		if (nbNouvelles > 0)
+			donnees.signalerChangement(Changement.INCENDIE_AJOUTE);
+		nbTranches++;
+		return nbDues;
+	}
+
+	/**
+	 * Range une expansion dans le calendrier
+	 *
+	 * @param cellule       la case en feu
+	 * @param generation    la génération de son incendie
+	 * @param dateExpansion la date de l'expansion
+	 */
+	void ajouterExpansion(int cellule, int generation, long dateExpansion) {
+		// Une expansion deja depassee est executee a la tranche courante
+		long tranche = Math.max(trancheCourante, getNumeroTranche(dateExpansion));
+		if (tranche - trancheCourante >= NB_ALVEOLES) {
+			debordement.add(new long[] { tranche, cellule, generation });
+			return;
+		}
+		int alveole = (int) (tranche & MASQUE);
+		int[] entrees = alveoles[alveole];
+		int taille = taillesAlveoles[alveole];
+		if (entrees == null)
+			entrees = alveoles[alveole] = new int[16];
+		else if (taille == entrees.length)
+			entrees = alveoles[alveole] = Arrays.copyOf(entrees, 2 * taille);
+		entrees[taille] = cellule;
+		entrees[taille + 1] = generation;
+		taillesAlveoles[alveole] = taille + 2;
+		occupees[alveole >> 6] |= 1L << alveole;
+	}
+
+	/**
+	 * Retourne la fin de la prochaine tranche contenant une expansion, en
+	 * oubliant au passage les expansions prévues d'incendies éteints depuis
+	 *
+	 * @return la fin de la prochaine tranche, ou {@link Long#MAX_VALUE} si aucune
+	 *         expansion n'est prévue
+	 */
+	long getDateProchaineTranche() {
+		for (int alveole = chercherAlveole(); alveole >= 0; alveole = chercherAlveole()) {
+			long tranche = trancheCourante + ((alveole - trancheCourante) & MASQUE);
+			// On compacte l'alveole, qui ne compte que si une expansion y reste valable
+			int[] entrees = alveoles[alveole];
+			int taille = 0;
+			for (int e = 0; e < taillesAlveoles[alveole]; e += 2)
+				if (estPrevue(entrees[e], entrees[e + 1], tranche)) {
+					entrees[taille++] = entrees[e];
+					entrees[taille++] = entrees[e + 1];
+				}
+			taillesAlveoles[alveole] = taille;
+			if (taille > 0)
+				return tranche * largeurTranche;
+			occupees[alveole >> 6] &= ~(1L << alveole);
+		}
+		while (!debordement.isEmpty()) {
+			long[] entree = debordement.peek();
+			if (estPrevue((int) entree[1], (int) entree[2], entree[0]))
+				return entree[0] * largeurTranche;
+			debordement.poll();
+		}
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * Méthode interne cherchant la première alvéole non vide du calendrier, à
+	 * partir de celle de la tranche courante
+	 *
+	 * @return l'alvéole, ou -1 si le calendrier est vide
+	 */
+	private int chercherAlveole() {
+		int debut = (int) (trancheCourante & MASQUE);
+		int i = debut >> 6;
+		long bits = occupees[i] & (-1L << debut);
+		// On fait le tour complet, en revenant au mot de depart
+		for (int n = 0; n <= occupees.length; n++) {
+			if (bits != 0)
+				return (i << 6) + Long.numberOfTrailingZeros(bits);
+			i = (i + 1) % occupees.length;
+			bits = occupees[i];
+		}
+		return -1;
+	}
+
+	/**
+	 * Méthode interne avançant le calendrier jusqu'à une tranche, en y rangeant
+	 * les expansions du débordement entrées dans son horizon
+	 *
+	 * @param tranche le numéro de la nouvelle tranche courante
+	 */
+	private void avancerCalendrier(long tranche) {
+		trancheCourante = Math.max(trancheCourante, tranche);
+		while (!debordement.isEmpty() && debordement.peek()[0] - trancheCourante < NB_ALVEOLES) {
+			long[] entree = debordement.poll();
+			ajouterExpansion((int) entree[1], (int) entree[2], entree[0] * largeurTranche);
+		}
+	}
+
+	/**
+	 * Méthode interne déterminant si une expansion du calendrier est toujours
+	 * prévue dans une tranche
+	 *
+	 * @param cellule    la case de l'expansion
+	 * @param generation la génération de son incendie
+	 * @param tranche    le numéro de la tranche
+	 * @return vrai si l'incendie n'est pas éteint et que son expansion est prévue
+	 *         dans la tranche
+	 */
+	private boolean estPrevue(int cellule, int generation, long tranche) {
+		return magasin.estValide(cellule, generation)
+				&& Math.max(trancheCourante, getNumeroTranche(magasin.getDateExpansion(cellule))) == tranche;
+	}
+
+	/**
+	 * Méthode interne planifiant la prochaine expansion de l'incendie d'une case
+	 *
+	 * @param cellule la case en feu
+	 * @param date    la date actuelle
+	 */
+	private void planifier(int cellule, long date) {
+		int temps = tempsPropagation[magasin.getCarte().getNumeroNature(cellule)][magasin.getIntensites()[cellule]];
+		magasin.planifier(cellule, date + temps);
+	}
+
+	/**
+	 * Méthode interne marquant les mots pouvant contenir une voisine d'une case :
+	 * le mot de la case, ceux de même rang des lignes adjacentes, et ceux des
+	 * colonnes adjacentes si la case est au bord de son mot
+	 *
+	 * @param lig la ligne de la case
+	 * @param col la colonne de la case
+	 * @param mot l'indice du mot de la case
+	 */
+	private void marquerAtteints(int lig, int col, int mot) {
+		marquer(mot);
+		if (lig > 0)
+			marquer(mot - nbMots);
+		if (lig < nbLignes - 1)
+			marquer(mot + nbMots);
+		if ((col & 63) == 0 && col > 0)
+			marquer(mot - 1);
+		if ((col & 63) == 63 && col < nbColonnes - 1)
+			marquer(mot + 1);
+	}
+
+	/**
+	 * Méthode interne marquant un mot des bitboards
+	 *
+	 * @param mot l'indice du mot
+	 */
+	private void marquer(int mot) {
+		motsAtteints[mot >> 6] |= 1L << mot;
+	}
+
+	/**
+	 * Méthode interne comptant les voisines d'une case dans la carte, y compris
+	 * celles qui ne peuvent pas brûler
+	 *
+	 * @param lig la ligne de la case
+	 * @param col la colonne de la case
+	 * @return le nombre de voisines
+	 */
+	private int compterVoisines(int lig, int col) {
+		return (lig > 0 ? 1 : 0) + (lig < nbLignes - 1 ? 1 : 0) + (col > 0 ? 1 : 0) + (col < nbColonnes - 1 ? 1 : 0);
+	}
+
+	/**
+	 * Méthode interne sommant les quarts des intensités propagées à une case par
+	 * ses voisines
+	 *
+	 * @param lig     la ligne de la case
+	 * @param col     la colonne de la case
+	 * @param cellule le numéro de la case
+	 * @return la somme des quarts
+	 */
+	private int sommerQuarts(int lig, int col, int cellule) {
+		int somme = 0;
+		if (lig > 0)
+			somme += propagees[cellule - nbColonnes] / 4;
+		if (lig < nbLignes - 1)
+			somme += propagees[cellule + nbColonnes] / 4;
+		if (col > 0)
+			somme += propagees[cellule - 1] / 4;
+		if (col < nbColonnes - 1)
+			somme += propagees[cellule + 1] / 4;
+		return somme;
+	}
+
+	/**
+	 * Méthode interne donnant la plus forte intensité propagée à une case par ses
+	 * voisines
+	 *
+	 * @param lig     la ligne de la case
+	 * @param col     la colonne de la case
+	 * @param cellule le numéro de la case
+	 * @return la plus forte intensité propagée
+	 */
+	private int chercherMaximum(int lig, int col, int cellule) {
+		int maximum = 0;
+		if (lig > 0)
+			maximum = Math.max(maximum, propagees[cellule - nbColonnes]);
+		if (lig < nbLignes - 1)
+			maximum = Math.max(maximum, propagees[cellule + nbColonnes]);
+		if (col > 0)
+			maximum = Math.max(maximum, propagees[cellule - 1]);
+		if (col < nbColonnes - 1)
+			maximum = Math.max(maximum, propagees[cellule + 1]);
+		return maximum;
+	}
+
+	/**
+	 * Bande de lignes de la carte, traitée par un seul thread : elle ne modifie
+	 * que les cases de ses lignes, et garde pour la suite de la tranche les
+	 * incendies qu'elle a déclarés et les arrosages à replanifier
+	 */
+	private class Bande {
+		/**
+		 * La première ligne de la bande
+		 */
+		private int ligneDebut;
+		/**
+		 * La ligne suivant la dernière ligne de la bande
+		 */
+		private int ligneFin;
+		/**
+		 * Les cases où un incendie s'est déclaré, dans l'ordre des cases
+		 */
+		private int[] nouvelles = new int[16];
+		/**
+		 * Nombre de cases dans {@link #nouvelles}
+		 */
+		private int nbNouvelles;
+		/**
+		 * Les cases en cours d'arrosage dont l'intensité a augmenté
+		 */
+		private int[] arrosees = new int[4];
+		/**
+		 * Nombre de cases dans {@link #arrosees}
+		 */
+		private int nbArrosees;
+
+		/**
+		 * Prépare la bande pour une tranche
+		 *
+		 * @param ligneDebut la première ligne de la bande
+		 * @param ligneFin   la ligne suivant la dernière ligne de la bande
+		 */
+		void preparer(int ligneDebut, int ligneFin) {
+			this.ligneDebut = ligneDebut;
+			this.ligneFin = ligneFin;
+			nbNouvelles = 0;
+			nbArrosees = 0;
+		}
+
+		/**
+		 * Applique aux cases de la bande les propagations de la tranche, mot par mot
+		 * parmi les mots marqués
+		 */
+		void executer() {
+			int[] intensites = magasin.getIntensites();
+			int premier = ligneDebut * nbMots, dernier = ligneFin * nbMots;
+			for (int m = premier >> 6; m < (dernier + 63) >> 6; m++) {
+				long marques = motsAtteints[m];
+				// Les mots de la bande seulement, aux extremites de la plage
+				if (m == premier >> 6)
+					marques &= -1L << premier;
+				if (m == (dernier - 1) >> 6 && (dernier & 63) != 0)
+					marques &= -1L >>> -dernier;
+				for (; marques != 0; marques &= marques - 1) {
+					int mot = (m << 6) + Long.numberOfTrailingZeros(marques);
+					int lig = mot / nbMots, rang = mot - lig * nbMots;
+					for (long bits = front.calculerRecepteurs(sources, lig, rang); bits != 0; bits &= bits - 1) {
+						int col = (rang << 6) + Long.numberOfTrailingZeros(bits), cellule = lig * nbColonnes + col;
+						int quarts = sommerQuarts(lig, col, cellule);
+						if (quarts == 0)
+							continue;
+						intensites[cellule] = Math.min(Incendie.MAX_INTENSITE, intensites[cellule] + quarts);
+						if (magasin.estArrose(cellule))
+							ajouterArrosee(cellule);
+					}
+					for (long bits = front.calculerNouveaux(sources, lig, rang); bits != 0; bits &= bits - 1) {
+						int col = (rang << 6) + Long.numberOfTrailingZeros(bits), cellule = lig * nbColonnes + col;
+						// La plus forte propagation declare l'incendie, les autres y ajoutent leur quart
+						int maximum = chercherMaximum(lig, col, cellule);
+						magasin.declarer(cellule, maximum + sommerQuarts(lig, col, cellule) - maximum / 4);
+						ajouterNouvelle(cellule);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Méthode interne gardant une case où un incendie s'est déclaré
+		 *
+		 * @param cellule la case
+		 */
+		private void ajouterNouvelle(int cellule) {
+			if (nbNouvelles == nouvelles.length)
+				nouvelles = Arrays.copyOf(nouvelles, 2 * nbNouvelles);
+			nouvelles[nbNouvelles++] = cellule;
+		}
+
+		/**
+		 * Méthode interne gardant une case en cours d'arrosage dont l'intensité a
+		 * augmenté
+		 *
+		 * @param cellule la case
+		 */
+		private void ajouterArrosee(int cellule) {
+			if (nbArrosees == arrosees.length)
+				arrosees = Arrays.copyOf(arrosees, 2 * nbArrosees);
+			arrosees[nbArrosees++] = cellule;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package donnees.simulation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * File d'évènements implémentée par un tas d'appariement (pairing heap).
+ * L'ajout est en O(1) et le retrait en O(log n) amorti, ce qui en fait une
+ * bonne candidate lorsque beaucoup d'évènements sont ajoutés pour peu de
+ * retraits.
+ */
+public class PairingHeapEventQueue extends AbstractEventQueue {
+
+	/**
+	 * Noeud du tas, chaque noeud connaît son premier fils et son frère suivant
+	 */
+	private static class Noeud {
+		/**
+		 * L'entrée portée par le noeud
+		 */
+		private final EvenementPlanifie entree;
+		/**
+		 * Premier fils du noeud
+		 */
+		private Noeud fils;
+		/**
+		 * Frère suivant du noeud
+		 */
+		private Noeud frere;
+
+		/**
+		 * Construit un noeud isolé
+		 * 
+		 * @param entree l'entrée portée par le noeud
+		 */
+		private Noeud(EvenementPlanifie entree) {
+			this.entree = entree;
+		}
+	}
+
+	/**
+	 * Racine du tas, qui porte l'entrée minimale
+	 */
+	private Noeud racine;
+
+	/**
+	 * Construit une file vide
+	 */
+	public PairingHeapEventQueue() {
+		racine = null;
+	}
+
+	@Override
+	protected void inserer(EvenementPlanifie entree) {
+		racine = fusionner(racine, new Noeud(entree));
+	}
+
+	@Override
+	protected EvenementPlanifie tete() {
+		return racine == null ? null : racine.entree;
+	}
+
+	@Override
+	protected void retirerTete() {
+		racine = fusionnerFreres(racine.fils);
+	}
+
+	@Override
+	protected void compacter() {
+		// On detache tous les noeuds en attente en parcourant l'arbre avec une pile
+		// (la liste chainee des freres sert de pile), puis on les refusionne
+		Noeud aParcourir = racine;
+		Noeud gardes = null;
+		if (aParcourir != null)
+			aParcourir.frere = null;
+		while (aParcourir != null) {
+			Noeud n = aParcourir;
+			aParcourir = n.frere;
+			Noeud fils = n.fils;
+			while (fils != null) {
+				Noeud suivant = fils.frere;
+				fils.frere = aParcourir;
+				aParcourir = fils;
+				fils = suivant;
+			}
+			n.fils = null;
+			if (!n.entree.estAnnule()) {
+				n.frere = gardes;
+				gardes = n;
+			}
+		}
+		racine = fusionnerFreres(gardes);
+	}
+
+	@Override
+	protected void collecter(List<EvenementPlanifie> entrees) {
+		// Parcours de l'arbre avec une pile, sans toucher aux liens des noeuds
+		Deque<Noeud> aParcourir = new ArrayDeque<>();
+		if (racine != null)
+			aParcourir.push(racine);
+		while (!aParcourir.isEmpty()) {
+			Noeud n = aParcourir.pop();
+			entrees.add(n.entree);
+			for (Noeud fils = n.fils; fils != null; fils = fils.frere)
+				aParcourir.push(fils);
+		}
+	}
+
+	/**
+	 * Fusionne deux tas : la racine de plus grande priorité devient le premier
+	 * fils de l'autre
+	 * 
+	 * @param a premier tas, éventuellement null
+	 * @param b second tas, éventuellement null
+	 * @return la racine du tas fusionné
+	 */
+	private static Noeud fusionner(Noeud a, Noeud b) {
+		if (a == null)
+			return b;
+		if (b == null)
+			return a;
+		if (b.entree.compareTo(a.entree) < 0) {
+			Noeud tmp = a;
+			a = b;
+			b = tmp;
+		}
+		b.frere = a.fils;
+		a.fils = b;
+		return a;
+	}
+
+	/**
+	 * Fusionne une liste de frères en deux passes : on apparie les frères deux à
+	 * deux de gauche à droite, puis on fusionne les paires de droite à gauche. La
+	 * seconde passe est faite en empilant les paires sur la liste des frères, pour
+	 * éviter toute récursion sur de longues listes.
+	 * 
+	 * @param premier premier noeud de la liste des frères
+	 * @return la racine du tas obtenu
+	 */
+	private static Noeud fusionnerFreres(Noeud premier) {
+		// Premiere passe : appariement, les paires sont empilees en ordre inverse
+		Noeud paires = null;
+		while (premier != null) {
+			Noeud a = premier;
+			Noeud b = a.frere;
+			premier = b == null ? null : b.frere;
+			a.frere = null;
+			if (b != null)
+				b.frere = null;
+			Noeud paire = fusionner(a, b);
+			paire.frere = paires;
+			paires = paire;
+		}
+
+		// Seconde passe : on fusionne les paires de la derniere a la premiere
+		Noeud resultat = null;
+		while (paires != null) {
+			Noeud suivante = paires.frere;
+			paires.frere = null;
+			resultat = fusionner(resultat, paires);
+			paires = suivante;
+		}
+		return resultat;
+	}
+}
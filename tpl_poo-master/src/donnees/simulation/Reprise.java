@@ -0,0 +1,310 @@
+package donnees.simulation;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import donnees.terrain.Carte;
+import donnees.terrain.Case;
+
+/**
+ * Lecture d'un point de reprise écrit par une {@link Sauvegarde}, par
+ * {@link Simulateur#reprendre(java.nio.file.Path)}. Les octets sont lus au fur
+ * et à mesure dans un tampon de taille fixe, et chaque objet est reconstruit
+ * directement par le constructeur de sa classe prenant une reprise, à sa
+ * première référence.
+ *
+ * @see Sauvegarde
+ */
+public class Reprise {
+	/**
+	 * Taille du tampon de lecture, en octets
+	 */
+	private final static int TAILLE_TAMPON = 1 << 16;
+
+	/**
+	 * Le canal contenant la sauvegarde
+	 */
+	private final ReadableByteChannel canal;
+	/**
+	 * Le tampon des octets lus dans le canal et pas encore consommés
+	 */
+	private final ByteBuffer tampon;
+	/**
+	 * Les objets déjà lus ou enregistrés, par numéro
+	 */
+	private final List<Object> objets;
+	/**
+	 * Le constructeur de chaque classe déjà rencontrée, par numéro
+	 */
+	private final List<Constructor<?>> constructeurs;
+	/**
+	 * Le simulateur reconstruit
+	 */
+	private final Simulateur simulateur;
+	/**
+	 * La carte de la simulation, dont sont tirées les cases lues
+	 */
+	private Carte carte;
+
+	/**
+	 * Commence la reprise d'un simulateur
+	 *
+	 * @param simulateur le simulateur reconstruit, encore vide
+	 * @param canal      le canal contenant la sauvegarde
+	 */
+	Reprise(Simulateur simulateur, ReadableByteChannel canal) {
+		this.canal = canal;
+		this.tampon = ByteBuffer.allocateDirect(TAILLE_TAMPON);
+		tampon.flip();
+		this.objets = new ArrayList<>();
+		this.constructeurs = new ArrayList<>();
+		this.simulateur = simulateur;
+		enregistrer(simulateur);
+	}
+
+	/**
+	 * @return le simulateur reconstruit, auquel les objets lus se rattachent
+	 */
+	public Simulateur getSimulateur() {
+		return simulateur;
+	}
+
+	/**
+	 * @return la carte de la simulation, une fois lue
+	 */
+	public Carte getCarte() {
+		return carte;
+	}
+
+	/**
+	 * @param carte la carte de la simulation, qui vient d'être lue
+	 */
+	void setCarte(Carte carte) {
+		this.carte = carte;
+	}
+
+	/**
+	 * Enregistre un objet en cours de lecture, avant de lire les objets qu'il
+	 * référence
+	 *
+	 * @param o l'objet
+	 */
+	public void enregistrer(Object o) {
+		objets.add(o);
+	}
+
+	/**
+	 * Lit une référence vers un objet, en le reconstruisant si c'est sa première
+	 * référence
+	 *
+	 * @param <T> le type de l'objet
+	 * @return l'objet, ou null
+	 * @throws IOException si la lecture échoue ou si la sauvegarde est invalide
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T lireReference() throws IOException {
+		int numero = lireInt();
+		if (numero < 0)
+			return null;
+		if (numero < objets.size())
+			return (T) objets.get(numero);
+		if (numero > objets.size())
+			throw new IOException("Sauvegarde invalide : objet " + numero + " inattendu");
+
+		int classe = lireInt();
+		if (classe == constructeurs.size())
+			constructeurs.add(trouverConstructeur(lireChaine()));
+		else if (classe > constructeurs.size())
+			throw new IOException("Sauvegarde invalide : classe " + classe + " inattendue");
+		Constructor<?> constructeur = constructeurs.get(classe);
+		Object o;
+		try {
+			if (constructeur.getParameterCount() == 0) {
+				o = constructeur.newInstance();
+				enregistrer(o);
+			} else {
+				o = constructeur.newInstance(this);
+			}
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IOException(e.getCause());
+		} catch (ReflectiveOperationException e) {
+			throw new IOException(e);
+		}
+		if (objets.size() <= numero || objets.get(numero) != o)
+			throw new IOException(o.getClass().getName() + " ne s'est pas enregistré lors de sa reprise");
+		return (T) o;
+	}
+
+	/**
+	 * @return l'octet lu
+	 * @throws IOException si la lecture échoue
+	 */
+	public int lireOctet() throws IOException {
+		exiger(1);
+		return tampon.get();
+	}
+
+	/**
+	 * @return le booléen lu
+	 * @throws IOException si la lecture échoue
+	 */
+	public boolean lireBooleen() throws IOException {
+		return lireOctet() != 0;
+	}
+
+	/**
+	 * @return l'entier lu
+	 * @throws IOException si la lecture échoue
+	 */
+	public int lireInt() throws IOException {
+		exiger(4);
+		return tampon.getInt();
+	}
+
+	/**
+	 * @return l'entier lu
+	 * @throws IOException si la lecture échoue
+	 */
+	public long lireLong() throws IOException {
+		exiger(8);
+		return tampon.getLong();
+	}
+
+	/**
+	 * @return le réel lu
+	 * @throws IOException si la lecture échoue
+	 */
+	public double lireDouble() throws IOException {
+		exiger(8);
+		return tampon.getDouble();
+	}
+
+	/**
+	 * @return la chaîne lue
+	 * @throws IOException si la lecture échoue
+	 */
+	public String lireChaine() throws IOException {
+		byte[] octets = new byte[lireInt()];
+		lireOctets(octets, octets.length);
+		return new String(octets, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return la case lue, tirée de la carte
+	 * @throws IOException si la lecture échoue
+	 */
+	public Case lireCase() throws IOException {
+		int ligne = lireInt();
+		if (ligne < 0)
+			return null;
+		return carte.getCase(ligne, lireInt());
+	}
+
+	/**
+	 * Lit les premiers éléments d'un tableau
+	 *
+	 * @param t        le tableau à remplir
+	 * @param longueur le nombre d'éléments à lire
+	 * @throws IOException si la lecture échoue
+	 */
+	public void lireOctets(byte[] t, int longueur) throws IOException {
+		for (int i = 0; i < longueur;) {
+			exiger(1);
+			int n = Math.min(longueur - i, tampon.remaining());
+			tampon.get(t, i, n);
+			i += n;
+		}
+	}
+
+	/**
+	 * Lit les premiers éléments d'un tableau
+	 *
+	 * @param t        le tableau à remplir
+	 * @param longueur le nombre d'éléments à lire
+	 * @throws IOException si la lecture échoue
+	 */
+	public void lireInts(int[] t, int longueur) throws IOException {
+		for (int i = 0; i < longueur;) {
+			exiger(4);
+			int n = Math.min(longueur - i, tampon.remaining() / 4);
+			tampon.asIntBuffer().get(t, i, n);
+			tampon.position(tampon.position() + 4 * n);
+			i += n;
+		}
+	}
+
+	/**
+	 * Lit les premiers éléments d'un tableau
+	 *
+	 * @param t        le tableau à remplir
+	 * @param longueur le nombre d'éléments à lire
+	 * @throws IOException si la lecture échoue
+	 */
+	public void lireLongs(long[] t, int longueur) throws IOException {
+		for (int i = 0; i < longueur;) {
+			exiger(8);
+			int n = Math.min(longueur - i, tampon.remaining() / 8);
+			tampon.asLongBuffer().get(t, i, n);
+			tampon.position(tampon.position() + 8 * n);
+			i += n;
+		}
+	}
+
+	/**
+	 * Méthode interne trouvant le constructeur de reprise d'une classe, ou à
+	 * défaut son constructeur sans paramètre. Le nom venant du fichier, la
+	 * classe est chargée sans être initialisée, et refusée si elle n'est pas
+	 * {@link Sauvegardable} : une sauvegarde modifiée ne peut donc pas faire
+	 * construire un objet quelconque
+	 *
+	 * @param nom le nom de la classe
+	 * @return le constructeur, rendu accessible
+	 * @throws IOException si la classe ne peut pas être reprise
+	 */
+	private static Constructor<?> trouverConstructeur(String nom) throws IOException {
+		try {
+			Class<?> classe = Class.forName(nom, false, Reprise.class.getClassLoader());
+			if (!Sauvegardable.class.isAssignableFrom(classe))
+				throw new IOException("La classe " + nom + " n'est pas sauvegardable");
+			Constructor<?> constructeur;
+			try {
+				constructeur = classe.getDeclaredConstructor(Reprise.class);
+			} catch (NoSuchMethodException e) {
+				constructeur = classe.getDeclaredConstructor();
+			}
+			constructeur.setAccessible(true);
+			return constructeur;
+		} catch (ReflectiveOperationException | SecurityException e) {
+			throw new IOException("La classe " + nom + " ne peut pas être reprise", e);
+		}
+	}
+
+	/**
+	 * Méthode interne remplissant le tampon jusqu'à ce qu'il contienne un
+	 * nombre d'octets donné
+	 *
+	 * @param nbOctets le nombre d'octets à lire
+	 * @throws IOException si la lecture échoue ou si la sauvegarde est tronquée
+	 */
+	private void exiger(int nbOctets) throws IOException {
+		if (tampon.remaining() >= nbOctets)
+			return;
+		tampon.compact();
+		while (tampon.position() < nbOctets) {
+			if (canal.read(tampon) < 0)
+				throw new EOFException("Sauvegarde tronquée");
+		}
+		tampon.flip();
+	}
+}
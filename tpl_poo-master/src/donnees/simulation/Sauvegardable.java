@@ -0,0 +1,26 @@
+package donnees.simulation;
+
+import java.io.IOException;
+
+/**
+ * Objet de l'état d'une simulation en cours que
+ * {@link Simulateur#sauvegarder(java.nio.file.Path)} peut écrire dans un point
+ * de reprise. L'objet est relu par un constructeur de sa classe prenant une
+ * {@link Reprise}, qui doit s'y {@link Reprise#enregistrer(Object) enregistrer}
+ * avant de lire les objets qu'il référence, et lire exactement ce que
+ * {@link #sauvegarder(Sauvegarde)} a écrit, dans le même ordre. Une classe sans
+ * état peut se contenter d'un constructeur sans paramètre.
+ *
+ * @see Sauvegarde
+ * @see Reprise
+ */
+public interface Sauvegardable {
+	/**
+	 * Écrit l'état de l'objet dans une sauvegarde, sans passer par
+	 * {@link Sauvegarde#ecrireReference(Object)} qui est la seule à l'appeler
+	 *
+	 * @param s la sauvegarde en cours
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void sauvegarder(Sauvegarde s) throws IOException;
+}
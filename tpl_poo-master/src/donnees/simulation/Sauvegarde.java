@@ -0,0 +1,281 @@
+package donnees.simulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import donnees.terrain.Case;
+
+/**
+ * Écriture de l'état d'un simulateur en cours dans un point de reprise par
+ * {@link Simulateur#sauvegarder(java.nio.file.Path)}. Les valeurs sont écrites
+ * en binaire dans un tampon de taille fixe, vidé dans le canal dès qu'il est
+ * plein : la sauvegarde ne construit jamais de copie de la simulation en
+ * mémoire.
+ *
+ * Chaque objet {@link Sauvegardable} n'est écrit qu'une fois, à sa première
+ * référence, précédé de son numéro et de sa classe ; les références suivantes
+ * ne donnent que son numéro. Le nom de chaque classe n'est lui aussi écrit
+ * qu'une fois.
+ *
+ * @see Reprise
+ */
+public class Sauvegarde {
+	/**
+	 * Taille du tampon d'écriture, en octets
+	 */
+	private final static int TAILLE_TAMPON = 1 << 16;
+
+	/**
+	 * Le canal recevant la sauvegarde
+	 */
+	private final WritableByteChannel canal;
+	/**
+	 * Le tampon des octets pas encore écrits dans le canal
+	 */
+	private final ByteBuffer tampon;
+	/**
+	 * Le numéro de chaque objet déjà écrit ou enregistré
+	 */
+	private final Map<Object, Integer> numeros;
+	/**
+	 * Le numéro de chaque classe dont le nom a déjà été écrit
+	 */
+	private final Map<Class<?>, Integer> classes;
+	/**
+	 * Le simulateur sauvegardé
+	 */
+	private final Simulateur simulateur;
+
+	/**
+	 * Commence la sauvegarde d'un simulateur
+	 *
+	 * @param simulateur le simulateur sauvegardé
+	 * @param canal      le canal recevant la sauvegarde
+	 */
+	Sauvegarde(Simulateur simulateur, WritableByteChannel canal) {
+		this.canal = canal;
+		this.tampon = ByteBuffer.allocateDirect(TAILLE_TAMPON);
+		this.numeros = new IdentityHashMap<>();
+		this.classes = new HashMap<>();
+		this.simulateur = simulateur;
+		enregistrer(simulateur);
+	}
+
+	/**
+	 * @return le simulateur sauvegardé
+	 */
+	public Simulateur getSimulateur() {
+		return simulateur;
+	}
+
+	/**
+	 * Donne un numéro à un objet qui n'est pas {@link Sauvegardable}, écrit à la
+	 * main par son propriétaire, pour que les autres objets puissent y faire
+	 * référence. La reprise doit l'enregistrer au même moment
+	 *
+	 * @param o l'objet
+	 */
+	void enregistrer(Object o) {
+		numeros.put(o, numeros.size());
+	}
+
+	/**
+	 * Écrit une référence vers un objet, suivie de l'objet lui-même si c'est sa
+	 * première référence
+	 *
+	 * @param o l'objet, ou null
+	 * @throws IOException              si l'écriture échoue
+	 * @throws IllegalArgumentException si l'objet n'est ni enregistré ni
+	 *                                  {@link Sauvegardable}
+	 */
+	public void ecrireReference(Object o) throws IOException, IllegalArgumentException {
+		if (o == null) {
+			ecrireInt(-1);
+			return;
+		}
+		Integer numero = numeros.get(o);
+		if (numero != null) {
+			ecrireInt(numero);
+			return;
+		}
+		if (!(o instanceof Sauvegardable))
+			throw new IllegalArgumentException(o.getClass().getName() + " n'est pas sauvegardable");
+
+		// L'objet est numerote avant d'ecrire les objets qu'il reference, qui
+		// peuvent y faire reference a leur tour
+		ecrireInt(numeros.size());
+		numeros.put(o, numeros.size());
+		Integer classe = classes.get(o.getClass());
+		if (classe != null) {
+			ecrireInt(classe);
+		} else {
+			ecrireInt(classes.size());
+			classes.put(o.getClass(), classes.size());
+			ecrireChaine(o.getClass().getName());
+		}
+		((Sauvegardable) o).sauvegarder(this);
+	}
+
+	/**
+	 * Écrit une référence vers un objet s'il a déjà été écrit ou enregistré, et
+	 * une référence nulle sinon
+	 *
+	 * @param o l'objet, ou null
+	 * @throws IOException si l'écriture échoue
+	 */
+	void ecrireReferenceConnue(Object o) throws IOException {
+		Integer numero = o == null ? null : numeros.get(o);
+		ecrireInt(numero == null ? -1 : numero);
+	}
+
+	/**
+	 * @param valeur l'octet à écrire
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void ecrireOctet(int valeur) throws IOException {
+		reserver(1);
+		tampon.put((byte) valeur);
+	}
+
+	/**
+	 * @param valeur le booléen à écrire
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void ecrireBooleen(boolean valeur) throws IOException {
+		ecrireOctet(valeur ? 1 : 0);
+	}
+
+	/**
+	 * @param valeur l'entier à écrire
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void ecrireInt(int valeur) throws IOException {
+		reserver(4);
+		tampon.putInt(valeur);
+	}
+
+	/**
+	 * @param valeur l'entier à écrire
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void ecrireLong(long valeur) throws IOException {
+		reserver(8);
+		tampon.putLong(valeur);
+	}
+
+	/**
+	 * @param valeur le réel à écrire
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void ecrireDouble(double valeur) throws IOException {
+		reserver(8);
+		tampon.putDouble(valeur);
+	}
+
+	/**
+	 * Écrit une chaîne en UTF-8, précédée de sa longueur en octets
+	 *
+	 * @param valeur la chaîne à écrire
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void ecrireChaine(String valeur) throws IOException {
+		byte[] octets = valeur.getBytes(StandardCharsets.UTF_8);
+		ecrireInt(octets.length);
+		ecrireOctets(octets, octets.length);
+	}
+
+	/**
+	 * Écrit une case par sa ligne et sa colonne, la carte étant écrite avant
+	 * elle
+	 *
+	 * @param c la case, ou null
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void ecrireCase(Case c) throws IOException {
+		if (c == null) {
+			ecrireInt(-1);
+			return;
+		}
+		ecrireInt(c.getLigne());
+		ecrireInt(c.getColonne());
+	}
+
+	/**
+	 * Écrit les premiers éléments d'un tableau, sans sa longueur
+	 *
+	 * @param t        le tableau
+	 * @param longueur le nombre d'éléments à écrire
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void ecrireOctets(byte[] t, int longueur) throws IOException {
+		for (int i = 0; i < longueur;) {
+			reserver(1);
+			int n = Math.min(longueur - i, tampon.remaining());
+			tampon.put(t, i, n);
+			i += n;
+		}
+	}
+
+	/**
+	 * Écrit les premiers éléments d'un tableau, sans sa longueur
+	 *
+	 * @param t        le tableau
+	 * @param longueur le nombre d'éléments à écrire
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void ecrireInts(int[] t, int longueur) throws IOException {
+		for (int i = 0; i < longueur;) {
+			reserver(4);
+			int n = Math.min(longueur - i, tampon.remaining() / 4);
+			tampon.asIntBuffer().put(t, i, n);
+			tampon.position(tampon.position() + 4 * n);
+			i += n;
+		}
+	}
+
+	/**
+	 * Écrit les premiers éléments d'un tableau, sans sa longueur
+	 *
+	 * @param t        le tableau
+	 * @param longueur le nombre d'éléments à écrire
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void ecrireLongs(long[] t, int longueur) throws IOException {
+		for (int i = 0; i < longueur;) {
+			reserver(8);
+			int n = Math.min(longueur - i, tampon.remaining() / 8);
+			tampon.asLongBuffer().put(t, i, n);
+			tampon.position(tampon.position() + 8 * n);
+			i += n;
+		}
+	}
+
+	/**
+	 * Écrit dans le canal les octets restant dans le tampon
+	 *
+	 * @throws IOException si l'écriture échoue
+	 */
+	void vider() throws IOException {
+		tampon.flip();
+		while (tampon.hasRemaining())
+			canal.write(tampon);
+		tampon.clear();
+	}
+
+	/**
+	 * Méthode interne vidant le tampon s'il ne peut plus recevoir un nombre
+	 * d'octets donné
+	 *
+	 * @param nbOctets le nombre d'octets à écrire
+	 * @throws IOException si l'écriture échoue
+	 */
+	private void reserver(int nbOctets) throws IOException {
+		if (tampon.remaining() < nbOctets)
+			vider();
+	}
+}
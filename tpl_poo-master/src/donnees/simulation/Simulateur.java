@@ -3,14 +3,24 @@ package donnees.simulation;
 import gui.Simulable;
 import ia.strategie.ChefPompier;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import dessin.DessinSimulation;
 import dessin.Dessinateur;
+import dessin.DummyDessinSimulation;
 import donnees.Incendie;
 import donnees.evenements.Evenement;
+import donnees.evenements.ExpansionGroupee;
 import donnees.evenements.ExpansionIncendie;
+import donnees.evenements.ExpansionMagasin;
 import donnees.robots.Robot;
 
 /**
@@ -22,6 +32,15 @@ import donnees.robots.Robot;
  * à pas constant.
  */
 public class Simulateur implements Simulable {
+	/**
+	 * Entier écrit en tête des points de reprise, qui identifie leur format
+	 */
+	private static final int FORMAT_SAUVEGARDE = 0x504f4f02;
+	/**
+	 * Le surcoût maximal par défaut de l'enregistrement de la chronologie
+	 */
+	private static final double SURCOUT_CHRONOLOGIE = 0.05;
+
 	/**
 	 * Les données de la simulation
 	 */
@@ -40,14 +59,60 @@ public class Simulateur implements Simulable {
 	 */
 	private long dateActuelle;
 	/**
-	 * La file des évènements, on aurait pu utiliser une PriorityQueue qui s'y prête
-	 * bien
+	 * La file des évènements, ordonnée par date croissante
+	 */
+	protected EventQueue evenements;
+	/**
+	 * L'implémentation de la file des évènements à utiliser
+	 */
+	protected EventQueueType typeFile;
+	/**
+	 * Le nombre d'évènements exécutés depuis le début de la simulation
+	 */
+	protected long nbEvenementsExecutes;
+	/**
+	 * Poignée sur l'évènement exécutant les prochaines expansions des incendies du
+	 * magasin, ou null si les incendies ne sont pas conservés dans un magasin
+	 */
+	protected EvenementPlanifie expansionMagasin;
+	/**
+	 * Booléen indiquant si les expansions des incendies de même date sont
+	 * regroupées dans un seul évènement
 	 */
-	protected List<Evenement> listeEvenements;
+	protected boolean regroupementExpansions;
+	/**
+	 * Les évènements regroupant les expansions prévues à chaque date, tant qu'ils
+	 * n'ont pas été exécutés
+	 */
+	protected Map<Long, ExpansionGroupee> expansionsGroupees;
+	/**
+	 * Le pool de threads exécutant en parallèle les expansions d'incendies de
+	 * même date, ou null si les évènements sont exécutés un par un
+	 */
+	protected ForkJoinPool poolParallele;
+	/**
+	 * L'exécution en parallèle des lots d'expansions, ou null sans pool de
+	 * threads
+	 */
+	private LotParallele lotParallele;
+	/**
+	 * Le nombre de suites d'évènements exécutées en parallèle depuis le début de
+	 * la simulation
+	 */
+	protected long nbLotsParalleles;
 	/**
 	 * Le chef pompier gérant les pompier pour cette simulation
 	 */
 	protected ChefPompier chefPompier;
+	/**
+	 * Booléen indiquant si le chef pompier est consulté avant chaque évènement, ou
+	 * seulement quand un changement auquel il est abonné est survenu
+	 */
+	protected boolean consultationSystematique;
+	/**
+	 * Le nombre de consultations du chef pompier depuis le début de la simulation
+	 */
+	protected long nbConsultations;
 	/**
 	 * Booléen indiquant si la simulation est finie (soit elle a été interrompue,
 	 * soit il n'y a plus d'incendies)
@@ -61,6 +126,10 @@ public class Simulateur implements Simulable {
 	 * Temps maximal d'un pas de simulation, en secondes
 	 */
 	protected long tempsMaximalPas;
+	/**
+	 * La chronologie de la simulation, null si elle n'est pas enregistrée
+	 */
+	protected Chronologie chronologie;
 
 	/**
 	 * Construit un simulateur avec une spécification des contraintes de temps liées
@@ -72,9 +141,10 @@ public class Simulateur implements Simulable {
 	 *                         chaque pas de simulation
 	 * @param tempsMaximalPas  le temps de simulation maximal, en secondes, entre
 	 *                         chaque pas de simulation
+	 * @param typeFile         l'implémentation de la file des évènements
 	 */
 	public Simulateur(DonneeSimulation donneeSimulation, ChefPompier chefPompier, long tempsMinimalPas,
-			long tempsMaximalPas) {
+			long tempsMaximalPas, EventQueueType typeFile) {
 		if (tempsMaximalPas < tempsMinimalPas || tempsMinimalPas <= 0)
 			throw new IllegalArgumentException("Le temps minimal ou  de pas est incorrect");
 		this.donneeSimulation = donneeSimulation;
@@ -83,9 +153,26 @@ public class Simulateur implements Simulable {
 		this.chefPompier = chefPompier;
 		this.tempsMinimalPas = tempsMinimalPas;
 		this.tempsMaximalPas = tempsMaximalPas;
+		this.typeFile = typeFile;
 		init();
 	}
 
+	/**
+	 * Construit un simulateur avec une spécification des contraintes de temps liées
+	 * au pas de simulation, et la file d'évènements par défaut (un tas binaire)
+	 * 
+	 * @param donneeSimulation les données initiales de la simulation
+	 * @param chefPompier      le chef pompier opérant pour cette simulation
+	 * @param tempsMinimalPas  le temps de simulation minimal, en secondes, entre
+	 *                         chaque pas de simulation
+	 * @param tempsMaximalPas  le temps de simulation maximal, en secondes, entre
+	 *                         chaque pas de simulation
+	 */
+	public Simulateur(DonneeSimulation donneeSimulation, ChefPompier chefPompier, long tempsMinimalPas,
+			long tempsMaximalPas) {
+		this(donneeSimulation, chefPompier, tempsMinimalPas, tempsMaximalPas, EventQueueType.TAS_BINAIRE);
+	}
+
 	/**
 	 * Construit un simulateur avec le pas de simulation par défaut, c'est à dire
 	 * que le simulateur avance d'exactement 1 évènement par pas
@@ -110,48 +197,391 @@ public class Simulateur implements Simulable {
 	 */
 	protected void init() {
 		dateActuelle = 0;
-		listeEvenements = new ArrayList<>();
+		evenements = typeFile.creer();
+		nbEvenementsExecutes = 0;
+		nbLotsParalleles = 0;
+		nbConsultations = 0;
 		estFini = false;
 
-		for (Incendie i : donneeSimulation.getIncendies())
-			ajouterEvenement(ExpansionIncendie.calculer(dateActuelle, donneeSimulation, i));
+		// Les evenements planifies ici et les ordres du chef pompier modifient
+		// directement les incendies et les robots
+		donneeSimulation.approprier();
+
+		// Les incendies d'un magasin ont deja planifie leur expansion
+		expansionMagasin = null;
+		expansionsGroupees = new HashMap<>();
+		if (donneeSimulation.getMagasinIncendies() != null)
+			planifierExpansionsMagasin();
+		else
+			for (Incendie i : donneeSimulation.getIncendies())
+				planifierExpansion(i);
 
 		draw();
 	}
 
 	/**
-	 * Ajoute un évènement dans la file des évènements, en le plaçant au bon endroit
+	 * Duplique la simulation en cours, à sa date actuelle, pour explorer une autre
+	 * suite d'ordres ou d'autres paramètres sans toucher à l'original. La copie
+	 * reprend les données, la file des évènements avec leurs numéros d'ordre, les
+	 * trajets, objectifs et arrosages des robots et l'état du chef pompier : les
+	 * deux simulations se déroulent ensuite exactement de la même façon tant
+	 * qu'on ne les modifie pas. Les objets qui ne changent pas au cours de la
+	 * simulation (carte, algorithmes de recherche, chefs pompiers sans état) sont
+	 * partagés. La copie n'a pas d'interface graphique, et ses données initiales
+	 * sont celles de l'original.
+	 * 
+	 * Seule une simulation dont les incendies sont conservés dans un
+	 * {@link MagasinIncendies magasin} peut être dupliquée : le magasin est copié
+	 * d'un bloc, avec une seule expansion en attente, en quelques millisecondes
+	 * même pour des centaines de milliers d'incendies. Avec un objet et une
+	 * expansion par incendie, chacun devrait être copié un à un avec son évènement,
+	 * et une duplication coûterait autant que tout l'état de la simulation.
+	 * 
+	 * @return la copie de la simulation
+	 * @throws UnsupportedOperationException si les incendies ne sont pas
+	 *                                       conservés dans un magasin
+	 */
+	public Simulateur fork() throws UnsupportedOperationException {
+		if (donneeSimulation.getMagasinIncendies() == null)
+			throw new UnsupportedOperationException(
+					"Seule une simulation dont les incendies sont dans un magasin peut être dupliquée");
+		Simulateur fork = new Simulateur();
+		fork.recopier(this);
+		fork.donneeSimulationIntiale = donneeSimulationIntiale == null ? null
+				: new DonneeSimulation(donneeSimulationIntiale);
+		fork.dessinSimulateur = new DummyDessinSimulation();
+		return fork;
+	}
+
+	/**
+	 * Prend une image clé de la simulation pour sa chronologie : une duplication
+	 * sans données initiales ni interface graphique, destinée seulement à être
+	 * recopiée par {@link #seek(long)}
+	 * 
+	 * @return l'image clé
+	 */
+	Simulateur prendreImageCle() {
+		Simulateur cle = new Simulateur();
+		cle.recopier(this);
+		return cle;
+	}
+
+	/**
+	 * Méthode interne remplaçant l'état de la simulation par une copie de celui
+	 * d'une autre simulation, dont les objets copiés se rattachent à celle-ci.
+	 * Les données initiales, l'interface graphique et la chronologie ne sont pas
+	 * modifiées
+	 * 
+	 * @param source la simulation copiée
+	 */
+	private void recopier(Simulateur source) {
+		Duplication d = new Duplication(source, this);
+		// La file est creee avant les donnees, les poignees des incendies s'y
+		// rattachant
+		typeFile = source.typeFile;
+		evenements = typeFile.creer();
+		d.enregistrer(source.evenements, evenements);
+		donneeSimulation = new DonneeSimulation(source.donneeSimulation, d);
+		((AbstractEventQueue) evenements).recopier((AbstractEventQueue) source.evenements, d);
+		dateActuelle = source.dateActuelle;
+		nbEvenementsExecutes = source.nbEvenementsExecutes;
+		expansionMagasin = d.copie(source.expansionMagasin);
+		regroupementExpansions = source.regroupementExpansions;
+		expansionsGroupees = new HashMap<>();
+		for (Map.Entry<Long, ExpansionGroupee> e : source.expansionsGroupees.entrySet())
+			expansionsGroupees.put(e.getKey(), d.copie(e.getValue()));
+		setPoolParallele(source.poolParallele);
+		nbLotsParalleles = source.nbLotsParalleles;
+		chefPompier = d.copie(source.chefPompier);
+		consultationSystematique = source.consultationSystematique;
+		nbConsultations = source.nbConsultations;
+		estFini = source.estFini;
+		tempsMinimalPas = source.tempsMinimalPas;
+		tempsMaximalPas = source.tempsMaximalPas;
+	}
+
+	/**
+	 * Écrit la simulation en cours, à sa date actuelle, dans un point de reprise
+	 * binaire : la carte, la file des évènements avec leurs numéros d'ordre, les
+	 * incendies, les robots avec leurs réservoirs, trajets, objectifs et
+	 * arrosages, et l'état du chef pompier. Les objets sont écrits au fil de
+	 * l'eau dans le fichier, sans être copiés en mémoire. Les données initiales,
+	 * l'interface graphique et le pool de threads ne sont pas sauvegardés.
+	 * 
+	 * @param fichier le fichier à écrire, remplacé s'il existe déjà
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void sauvegarder(Path fichier) throws IOException {
+		try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Sauvegarde s = new Sauvegarde(this, canal);
+			s.ecrireInt(FORMAT_SAUVEGARDE);
+			// La file est enregistree avant les donnees, les poignees des
+			// incendies s'y rattachant
+			s.ecrireOctet(typeFile.ordinal());
+			s.enregistrer(evenements);
+			donneeSimulation.sauvegarder(s);
+			((AbstractEventQueue) evenements).sauvegarder(s);
+			s.ecrireLong(dateActuelle);
+			s.ecrireLong(nbEvenementsExecutes);
+			s.ecrireReference(expansionMagasin);
+			s.ecrireBooleen(regroupementExpansions);
+			s.ecrireInt(expansionsGroupees.size());
+			for (Map.Entry<Long, ExpansionGroupee> e : expansionsGroupees.entrySet()) {
+				s.ecrireLong(e.getKey());
+				s.ecrireReference(e.getValue());
+			}
+			s.ecrireReference(chefPompier);
+			s.ecrireBooleen(consultationSystematique);
+			s.ecrireLong(nbConsultations);
+			s.ecrireBooleen(estFini);
+			s.ecrireLong(tempsMinimalPas);
+			s.ecrireLong(tempsMaximalPas);
+			s.vider();
+		}
+	}
+
+	/**
+	 * Reprend une simulation à partir d'un point de reprise écrit par
+	 * {@link #sauvegarder(Path)}, en lisant le fichier au fil de l'eau : la
+	 * simulation reprise se déroule exactement comme l'aurait fait la simulation
+	 * sauvegardée. Elle n'a pas d'interface graphique ni de pool de threads, et
+	 * sans données initiales elle ne peut pas être réinitialisée.
+	 * 
+	 * @param fichier le point de reprise
+	 * @return la simulation reprise
+	 * @throws IOException si la lecture échoue ou si le fichier n'est pas un
+	 *                     point de reprise valide
+	 */
+	public static Simulateur reprendre(Path fichier) throws IOException {
+		try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+			Simulateur simulateur = new Simulateur();
+			Reprise r = new Reprise(simulateur, canal);
+			if (r.lireInt() != FORMAT_SAUVEGARDE)
+				throw new IOException(fichier + " n'est pas un point de reprise valide");
+			simulateur.typeFile = EventQueueType.values()[r.lireOctet()];
+			simulateur.evenements = simulateur.typeFile.creer();
+			r.enregistrer(simulateur.evenements);
+			simulateur.donneeSimulation = new DonneeSimulation(r);
+			((AbstractEventQueue) simulateur.evenements).reprendre(r);
+			simulateur.donneeSimulationIntiale = null;
+			simulateur.dessinSimulateur = new DummyDessinSimulation();
+			simulateur.dateActuelle = r.lireLong();
+			simulateur.nbEvenementsExecutes = r.lireLong();
+			simulateur.expansionMagasin = r.lireReference();
+			simulateur.regroupementExpansions = r.lireBooleen();
+			simulateur.expansionsGroupees = new HashMap<>();
+			int nbGroupees = r.lireInt();
+			for (int i = 0; i < nbGroupees; i++)
+				simulateur.expansionsGroupees.put(r.lireLong(), r.lireReference());
+			simulateur.chefPompier = r.lireReference();
+			simulateur.consultationSystematique = r.lireBooleen();
+			simulateur.nbConsultations = r.lireLong();
+			simulateur.estFini = r.lireBooleen();
+			simulateur.tempsMinimalPas = r.lireLong();
+			simulateur.tempsMaximalPas = r.lireLong();
+			return simulateur;
+		}
+	}
+
+	/**
+	 * Ajoute un évènement dans la file des évènements. Les évènements de même date
+	 * seront exécutés dans leur ordre d'ajout
 	 * 
 	 * @param e l'évènement à ajouter
+	 * @return la poignée permettant d'annuler l'évènement
 	 * @throws IllegalArgumentException si l'évènement a une date antérieure à la
 	 *                                  date actuelle de la simulation
 	 */
-	public void ajouterEvenement(Evenement e) throws IllegalArgumentException {
+	public EvenementPlanifie ajouterEvenement(Evenement e) throws IllegalArgumentException {
 		if (e.getDate() < dateActuelle)
 			throw new IllegalArgumentException("L'évènement a une date passée");
 
-		boolean ajoute = false;
-		// On insere l'evenement a la bonne place pour garder une file d'evenement a
-		// dates croissantes
-		for (int i = 0; i < listeEvenements.size() && !ajoute; i++) {
-			if (e.getDate() < listeEvenements.get(i).getDate()) {
-				listeEvenements.add(i, e);
-				ajoute = true;
-			}
+		return evenements.add(e);
+	}
+
+	/**
+	 * Planifie le prochain évènement d'un robot, en remplaçant celui qu'il avait
+	 * éventuellement déjà planifié. Chaque robot dispose de son propre créneau dans
+	 * la file des évènements, qui contient donc au plus un évènement par robot.
+	 * 
+	 * @param robot le robot concerné
+	 * @param e     le nouvel évènement du robot
+	 * @throws IllegalArgumentException si l'évènement a une date antérieure à la
+	 *                                  date actuelle de la simulation
+	 */
+	public void planifierEvenementRobot(Robot robot, Evenement e) throws IllegalArgumentException {
+		if (e.getDate() < dateActuelle)
+			throw new IllegalArgumentException("L'évènement a une date passée");
+
+		evenements.planifier(robot.getNumero(), e);
+	}
+
+	/**
+	 * Retire de la file l'évènement planifié par un robot, s'il y en a un
+	 * 
+	 * @param robot le robot concerné
+	 */
+	public void annulerEvenementRobot(Robot robot) {
+		evenements.annuler(robot.getNumero());
+	}
+
+	/**
+	 * Planifie la prochaine expansion d'un incendie à partir de la date actuelle,
+	 * et la mémorise dans l'incendie pour pouvoir l'annuler s'il est éteint. Si la
+	 * précédente expansion de l'incendie a déjà été retirée de la file, son
+	 * évènement et sa poignée sont réutilisés
+	 * 
+	 * @param incendie l'incendie qui s'étendra
+	 */
+	public void planifierExpansion(Incendie incendie) {
+		planifierExpansion(incendie,
+				dateActuelle + incendie.getTempsPropagation(donneeSimulation.getCarte().getTailleCase()));
+	}
+
+	/**
+	 * Planifie l'expansion d'un incendie comme {@link #planifierExpansion(Incendie)},
+	 * à une date déjà calculée à partir de son intensité
+	 * 
+	 * @param incendie l'incendie qui s'étendra
+	 * @param date     la date de son expansion
+	 */
+	void planifierExpansion(Incendie incendie, long date) {
+		if (regroupementExpansions) {
+			planifierExpansionGroupee(incendie, date);
+			return;
+		}
+		EvenementPlanifie prevue = incendie.getExpansionPrevue();
+		if (prevue == null || !prevue.estRetire()) {
+			incendie.setExpansionPrevue(ajouterEvenement(new ExpansionIncendie(date, incendie)));
+			return;
+		}
+
+		ExpansionIncendie expansion = (ExpansionIncendie) prevue.getEvenement();
+		expansion.reporter(date);
+		if (expansion.getDate() < dateActuelle)
+			throw new IllegalArgumentException("L'évènement a une date passée");
+		// La poignee ne peut etre remise que dans la file qui l'a creee
+		if (!evenements.reajouter(prevue))
+			incendie.setExpansionPrevue(ajouterEvenement(expansion));
+	}
+
+	/**
+	 * Méthode interne ajoutant la prochaine expansion d'un incendie à l'évènement
+	 * regroupant les expansions de sa date, créé si besoin. L'incendie n'a alors
+	 * pas d'expansion prévue à annuler : s'il est éteint, l'évènement l'ignore
+	 * 
+	 * @param incendie l'incendie qui s'étendra
+	 * @param date     la date de son expansion
+	 */
+	private void planifierExpansionGroupee(Incendie incendie, long date) {
+		ExpansionGroupee groupe = expansionsGroupees.get(date);
+		if (groupe == null) {
+			groupe = new ExpansionGroupee(date);
+			ajouterEvenement(groupe);
+			expansionsGroupees.put(date, groupe);
+		}
+		groupe.ajouter(incendie);
+		incendie.setExpansionPrevue(null);
+	}
+
+	/**
+	 * Signale que l'évènement regroupant les expansions d'une date commence son
+	 * exécution : les expansions planifiées désormais à cette date le seront dans
+	 * un nouvel évènement
+	 * 
+	 * @param date la date de l'évènement
+	 */
+	public void fermerExpansionGroupee(long date) {
+		expansionsGroupees.remove(date);
+	}
+
+	/**
+	 * Permet de regrouper les expansions des incendies de même date dans un seul
+	 * évènement {@link ExpansionGroupee}, qui les exécute dans l'ordre où elles
+	 * auraient été exécutées séparément. Les expansions déjà planifiées le
+	 * restent, chaque incendie rejoignant les regroupements à sa prochaine
+	 * expansion
+	 * 
+	 * @param regroupement vrai pour regrouper les expansions de même date
+	 */
+	public void setRegroupementExpansions(boolean regroupement) {
+		this.regroupementExpansions = regroupement;
+	}
+
+	/**
+	 * Planifie l'exécution des prochaines expansions des incendies du magasin,
+	 * en déplaçant si besoin celle qui était déjà planifiée. Si elle a déjà été
+	 * retirée de la file, son évènement et sa poignée sont réutilisés
+	 */
+	public void planifierExpansionsMagasin() {
+		MagasinIncendies magasin = donneeSimulation.getMagasinIncendies();
+		long date = magasin.getDateProchaineExpansion();
+		if (expansionMagasin != null && expansionMagasin.estEnAttente()) {
+			if (expansionMagasin.getDate() == date)
+				return;
+			expansionMagasin.annuler();
+		}
+		if (date == Long.MAX_VALUE)
+			return;
+
+		if (expansionMagasin == null || !expansionMagasin.estRetire()) {
+			expansionMagasin = ajouterEvenement(new ExpansionMagasin(date, magasin));
+			return;
 		}
-		if (!ajoute)
-			listeEvenements.add(e);
+
+		ExpansionMagasin expansion = (ExpansionMagasin) expansionMagasin.getEvenement();
+		expansion.reporter(date);
+		if (date < dateActuelle)
+			throw new IllegalArgumentException("L'évènement a une date passée");
+		// La poignee ne peut etre remise que dans la file qui l'a creee
+		if (!evenements.reajouter(expansionMagasin))
+			expansionMagasin = ajouterEvenement(expansion);
 	}
 
 	/**
-	 * Ajoute un incendie dans la simulation
+	 * Ajoute un incendie dans la simulation. Si les incendies sont regroupés en
+	 * zones et que celui-ci est plus faible que le seuil, il rejoint une zone
+	 * voisine ou devient une nouvelle zone
 	 * 
 	 * @param incendie l'incendie à ajouter
 	 * @throws IllegalArgumentException si un incendie se trouve déjà à cette place
 	 */
 	public void ajouterIncendie(Incendie incendie) throws IllegalArgumentException {
+		MagasinIncendies magasin = donneeSimulation.getMagasinIncendies();
+		if (magasin == null) {
+			// Un incendie faible rejoint une zone voisine, qui s'etend pour lui, ou en
+			// devient une
+			if (incendie.getIntensite() < donneeSimulation.getSeuilZones()) {
+				ZoneIncendie zone = donneeSimulation.rejoindreZone(incendie, dateActuelle);
+				if (zone != null) {
+					replanifierZone(zone);
+					return;
+				}
+				incendie = new ZoneIncendie(incendie.getPosition(), incendie.getIntensite(), dateActuelle,
+						donneeSimulation.getCarte().getTailleCase());
+			}
+			donneeSimulation.ajouterIncendie(incendie);
+			planifierExpansion(incendie);
+			return;
+		}
+		// Le magasin planifie lui-meme l'expansion du nouvel incendie, a sa date
+		magasin.avancer(dateActuelle);
 		donneeSimulation.ajouterIncendie(incendie);
-		ajouterEvenement(ExpansionIncendie.calculer(dateActuelle, donneeSimulation, incendie));
+		planifierExpansionsMagasin();
+	}
+
+	/**
+	 * Méthode interne avançant l'expansion d'une zone d'incendies qu'un incendie
+	 * vient de rejoindre, si celui-ci doit se propager avant la date prévue. Une
+	 * expansion regroupée avec d'autres n'est pas avancée
+	 * 
+	 * @param zone la zone
+	 */
+	private void replanifierZone(ZoneIncendie zone) {
+		EvenementPlanifie prevue = zone.getExpansionPrevue();
+		if (prevue != null && prevue.getDate() > zone.getDateProchaineExpansion() && prevue.annuler())
+			planifierExpansion(zone);
 	}
 
 	/**
@@ -166,25 +596,86 @@ public class Simulateur implements Simulable {
 	 * @return l'évènement correspondant au prochain pas ou null
 	 */
 	public Evenement pollNextEvent() {
-		if (listeEvenements.isEmpty())
+		if (evenements.isEmpty())
 			return null;
 		
-		// On regarde l'evenement en tete de file (peek)
-		Evenement e = listeEvenements.get(0);
+		// On ne retire l'evenement en tete de file que s'il n'est pas trop lointain,
+		// la file n'est donc pas modifiee (ni la roue temporelle avancee) sinon
+		long dateLimite = tempsMaximalPas > Long.MAX_VALUE - dateActuelle ? Long.MAX_VALUE
+				: dateActuelle + tempsMaximalPas;
+		Evenement e = evenements.pollAvant(dateLimite);
 		// S'il est trop lointain, on avance la date de simulation mais on retourne null
-		if (e.getDate() - dateActuelle > tempsMaximalPas) {
+		if (e == null) {
 			dateActuelle += tempsMaximalPas;
 			return null;
 		}
 		
-		// Si l'evenement n'est pas trop lointain, on le retire de la file (poll)
-		listeEvenements.remove(0);
 		// On avance la date de la simulation a la date de l'evenement
 		dateActuelle = e.getDate();
 		// Et on le retourne
 		return e;
 	}
 
+	/**
+	 * Consulte le chef pompier pour qu'il donne ses ordres, si un changement auquel
+	 * il est abonné est survenu depuis sa dernière consultation ou si la
+	 * consultation est systématique. Les changements provoqués par ses ordres
+	 * entraînent une nouvelle consultation.
+	 */
+	protected void consulterChefPompier() {
+		// Les changements sont oublies avant de donner les ordres, et non apres, pour
+		// que le chef pompier soit reconsulte si ses ordres changent quelque chose
+		if (donneeSimulation.consommerChangements(chefPompier.getAbonnements()) || consultationSystematique) {
+			chefPompier.donnerOrdres(this);
+			nbConsultations++;
+		}
+	}
+
+	/**
+	 * Permet de revenir à la consultation du chef pompier avant chaque évènement,
+	 * au lieu de ne le consulter que lorsqu'un changement auquel il est abonné est
+	 * survenu
+	 * 
+	 * @param systematique vrai pour consulter le chef pompier avant chaque
+	 *                     évènement
+	 */
+	public void setConsultationSystematique(boolean systematique) {
+		this.consultationSystematique = systematique;
+	}
+
+	/**
+	 * @return le nombre de fois où le chef pompier a été consulté depuis le début
+	 *         de la simulation
+	 */
+	public long getNbConsultations() {
+		return nbConsultations;
+	}
+
+	/**
+	 * Exécute en parallèle les expansions d'incendies de même date, sur un pool de
+	 * threads, avec des résultats identiques à ceux de leur exécution un par un :
+	 * voir {@link LotParallele}. Ne s'applique ni aux incendies conservés dans un
+	 * magasin, ni aux zones d'incendies, ni pendant l'enregistrement d'une
+	 * chronologie. Les expansions de plusieurs évènements ne sont réunies que si
+	 * le chef pompier n'est pas consulté entre eux : il ne doit pas être abonné
+	 * aux ajouts d'incendies, ni consulté systématiquement
+	 * 
+	 * @param pool le pool de threads à utiliser, ou null pour exécuter les
+	 *             évènements un par un
+	 */
+	public void setPoolParallele(ForkJoinPool pool) {
+		this.poolParallele = pool;
+		this.lotParallele = pool == null ? null : new LotParallele(this, pool);
+	}
+
+	/**
+	 * @return le nombre de suites d'évènements exécutées en parallèle depuis le
+	 *         début de la simulation
+	 */
+	public long getNbLotsParalleles() {
+		return nbLotsParalleles;
+	}
+
 		/**
 		 * @return les données de la simulation
 		 */
@@ -197,12 +688,44 @@ public class Simulateur implements Simulable {
 	public long getDate() {
 		return dateActuelle;
 	}
+
+	/**
+	 * @return le nombre d'évènements exécutés depuis le début de la simulation
+	 */
+	public long getNbEvenementsExecutes() {
+		return nbEvenementsExecutes;
+	}
+
+	/**
+	 * @return le nombre d'évènements en attente dans la file, sans compter les
+	 *         évènements annulés
+	 */
+	public int getNbEvenementsEnAttente() {
+		return evenements.size();
+	}
+
+	/**
+	 * @return la profondeur de la file d'évènements, c'est-à-dire le nombre
+	 *         d'entrées qu'elle contient en comptant les évènements annulés
+	 */
+	public int getProfondeurFile() {
+		return evenements.getNbEntrees();
+	}
+
+	/**
+	 * @return la proportion d'entrées de la file correspondant à des évènements
+	 *         annulés, entre 0 et 1
+	 */
+	public double getTauxAnnulation() {
+		int profondeur = evenements.getNbEntrees();
+		return profondeur == 0 ? 0 : evenements.getNbAnnulees() / (double) profondeur;
+	}
 	
 	/**
 	 * Affiche la simulation sur l'interface graphique
 	 */
 	public void draw() {
-		dessinSimulateur.draw(donneeSimulation);
+		dessinSimulateur.draw(getDonneeSimulation());
 	}
 
 	@Override
@@ -218,7 +741,7 @@ public class Simulateur implements Simulable {
 		while (tempsPasse < tempsMinimalPas && !estFini) {
 			
 			// On donne les ordres si besoin
-			chefPompier.donnerOrdres(this);
+			consulterChefPompier();
 
 			// On recupere le prochain evenement
 			long datePrecedente = dateActuelle;
@@ -226,15 +749,15 @@ public class Simulateur implements Simulable {
 			if (e == null)
 				break;
 
-			// On execute l'evenement
-			e.executer(this);
-
-			// Si il n'y a plus d'incendies, la simulation est finie
-			if (donneeSimulation.getIncendies().size() == 0)
-				estFini = true;
-
 			// On met a jour le temps passe pour ce pas de simulation
 			tempsPasse += dateActuelle - datePrecedente;
+
+			// On execute l'evenement, en parallele avec les expansions de meme date qui
+			// le suivent si possible
+			if (lotParallele != null && e.getExpansions() != null && peutParalleliser())
+				executerLot(e, tempsPasse < tempsMinimalPas);
+			else
+				executer(e);
 		}
 		
 		//System.out.println(dateActuelle);
@@ -243,10 +766,187 @@ public class Simulateur implements Simulable {
 		draw();
 	}
 
+	/**
+	 * Méthode interne indiquant si les expansions peuvent être exécutées en
+	 * parallèle dans l'état actuel de la simulation
+	 * 
+	 * @return vrai si elles le peuvent
+	 */
+	private boolean peutParalleliser() {
+		// Une expansion a la date actuelle serait executee apres le lot
+		return donneeSimulation.getMagasinIncendies() == null && donneeSimulation.getSeuilZones() == 0
+				&& chronologie == null
+				&& Incendie.getTempsPropagationMin(donneeSimulation.getCarte().getTailleCase()) > 0;
+	}
+
+	/**
+	 * Méthode interne exécutant en parallèle un évènement d'expansions retiré de
+	 * la file et, si le pas continue après lui, les évènements d'expansions qui le
+	 * suivent à la même date, tant que le chef pompier ne peut pas être consulté
+	 * entre eux
+	 * 
+	 * @param premier l'évènement retiré de la file
+	 * @param suite   vrai si le pas continue après cet évènement
+	 */
+	private void executerLot(Evenement premier, boolean suite) {
+		List<Evenement> lot = new ArrayList<>();
+		lot.add(premier);
+		if (suite && !consultationSystematique && !chefPompier.getAbonnements().contains(Changement.INCENDIE_AJOUTE)) {
+			Evenement prochain = evenements.peek();
+			while (prochain != null && prochain.getDate() == dateActuelle && prochain.getExpansions() != null) {
+				lot.add(evenements.poll());
+				prochain = evenements.peek();
+			}
+		}
+		lotParallele.executer(lot);
+	}
+
+	/**
+	 * Méthode interne exécutant un évènement retiré de la file, et notant la fin
+	 * de la simulation s'il n'y a plus d'incendies
+	 * 
+	 * @param e l'évènement à exécuter
+	 */
+	void executer(Evenement e) {
+		e.executer(this);
+		terminerEvenement();
+	}
+
+	/**
+	 * Méthode interne comptant un évènement exécuté, et notant la fin de la
+	 * simulation s'il n'y a plus d'incendies
+	 */
+	void terminerEvenement() {
+		nbEvenementsExecutes++;
+
+		// Si il n'y a plus d'incendies, la simulation est finie
+		if (donneeSimulation.getIncendies().size() == 0)
+			estFini = true;
+
+		if (chronologie != null)
+			chronologie.signalerEvenement(this);
+	}
+
+	/**
+	 * Commence l'enregistrement de la chronologie de la simulation à partir de son
+	 * état actuel, pour pouvoir ensuite la replacer à n'importe quelle date
+	 * atteinte avec {@link #seek(long)}. Une éventuelle chronologie précédente est
+	 * oubliée. L'enregistrement ralentit la simulation de 5% au plus.
+	 * 
+	 * @param espacement l'espacement minimal initial entre deux images clés, en
+	 *                   secondes de simulation
+	 * @param nbClesMax  le nombre maximal d'images clés gardées, au moins 2
+	 * @throws IllegalArgumentException      si l'espacement ou le nombre d'images
+	 *                                       clés est incorrect
+	 * @throws UnsupportedOperationException si la simulation ne peut pas être
+	 *                                       dupliquée
+	 * @see Chronologie
+	 */
+	public void enregistrerChronologie(long espacement, int nbClesMax) throws IllegalArgumentException {
+		enregistrerChronologie(espacement, nbClesMax, SURCOUT_CHRONOLOGIE);
+	}
+
+	/**
+	 * Commence l'enregistrement de la chronologie de la simulation à partir de son
+	 * état actuel, en bornant son surcoût. Une image clé n'est prise que si le
+	 * temps passé depuis la précédente vaut au moins le temps de capture de
+	 * celle-ci divisé par ce surcoût : une valeur infinie prend toutes les images
+	 * clés permises par l'espacement.
+	 * 
+	 * @param espacement l'espacement minimal initial entre deux images clés, en
+	 *                   secondes de simulation
+	 * @param nbClesMax  le nombre maximal d'images clés gardées, au moins 2
+	 * @param surcoutMax le surcoût maximal de l'enregistrement, rapporté au temps
+	 *                   passé à simuler, strictement positif
+	 * @throws IllegalArgumentException      si l'espacement, le nombre d'images
+	 *                                       clés ou le surcoût est incorrect
+	 * @throws UnsupportedOperationException si la simulation ne peut pas être
+	 *                                       dupliquée
+	 * @see Chronologie
+	 */
+	public void enregistrerChronologie(long espacement, int nbClesMax, double surcoutMax)
+			throws IllegalArgumentException {
+		chronologie = new Chronologie(this, espacement, nbClesMax, surcoutMax);
+	}
+
+	/**
+	 * Arrête l'enregistrement de la chronologie et libère ses images clés
+	 */
+	public void oublierChronologie() {
+		chronologie = null;
+	}
+
+	/**
+	 * @return la chronologie de la simulation, null si elle n'est pas enregistrée
+	 */
+	public Chronologie getChronologie() {
+		return chronologie;
+	}
+
+	/**
+	 * Replace la simulation à une date, en arrière comme en avant : elle repart de
+	 * l'image clé la plus proche précédant cette date (ou de son état actuel s'il
+	 * est plus proche) et réexécute les évènements jusqu'à cette date incluse. La
+	 * simulation se retrouve alors exactement dans l'état où elle était après le
+	 * dernier de ces évènements, et peut être continuée normalement.
+	 * 
+	 * @param date la date visée
+	 * @throws IllegalStateException    si la chronologie n'est pas enregistrée
+	 * @throws IllegalArgumentException si la date précède la chronologie
+	 */
+	public void seek(long date) throws IllegalStateException, IllegalArgumentException {
+		if (chronologie == null)
+			throw new IllegalStateException("La chronologie de la simulation n'est pas enregistrée");
+		Simulateur cle = chronologie.trouverCle(date);
+		if (cle == null)
+			throw new IllegalArgumentException("La date " + date + " précède la chronologie de la simulation");
+
+		// On ne repart de l'image cle que si l'etat actuel est plus loin de la date
+		if (dateActuelle > date || cle.getDate() > dateActuelle)
+			recopier(cle);
+		avancerJusqua(date);
+	}
+
+	/**
+	 * Exécute les évènements jusqu'à une date incluse, en consultant le chef
+	 * pompier avant chacun comme {@link #next()}, et s'arrête avant le premier
+	 * évènement postérieur. Le chef pompier n'est consulté que si un évènement va
+	 * être exécuté : la consultation précédant le suivant aura lieu au prochain
+	 * pas, comme pour une simulation avancée directement jusqu'à la date
+	 * 
+	 * @param date la date du dernier évènement à exécuter
+	 */
+	public void avancerJusqua(long date) {
+		while (!estFini) {
+			Evenement prochain = evenements.peek();
+			if (prochain == null || prochain.getDate() > date)
+				break;
+			consulterChefPompier();
+			Evenement e = pollNextEvent();
+			if (e != null)
+				executer(e);
+		}
+
+		draw();
+	}
+
+	/**
+	 * Avance la date actuelle sans exécuter d'évènement, pour un simulateur qui
+	 * reçoit d'ailleurs un robot arrivé à cette date. La file ne contient aucun
+	 * évènement antérieur
+	 * 
+	 * @param date la nouvelle date, ignorée si elle est déjà passée
+	 */
+	void avancerDate(long date) {
+		dateActuelle = Math.max(dateActuelle, date);
+	}
+
 	@Override
 	public void restart() {
 		donneeSimulation = new DonneeSimulation(donneeSimulationIntiale);
 		init();
+		// Les images cles de la chronologie ne correspondent plus a la simulation
+		chronologie = null;
 	}
 	
 	/**
@@ -259,7 +959,7 @@ public class Simulateur implements Simulable {
 	@Override
 	public String toString() {
 		StringBuilder desc = new StringBuilder("Robots : ");
-		for (Robot r : donneeSimulation.getRobots())
+		for (Robot r : getDonneeSimulation().getRobots())
 			desc.append("\t" + r.getPosition() + " ; " + r.getReservoir());
 		return desc.toString();
 	}
@@ -0,0 +1,446 @@
+package donnees.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.Supplier;
+
+import donnees.Incendie;
+import donnees.evenements.DeplacementRobot;
+import donnees.robots.Robot;
+import donnees.terrain.Carte;
+import donnees.terrain.Case;
+import gui.Simulable;
+import ia.strategie.ChefPompier;
+
+/**
+ * Simulation sans interface graphique découpant la carte en régions
+ * rectangulaires, chacune ayant sa propre file d'évènements, ses incendies, ses
+ * robots et son chef pompier, et s'exécutant sur son propre thread. Elle est
+ * destinée aux très grandes cartes, sur lesquelles un seul {@link Simulateur}
+ * ne suffit plus.
+ *
+ * Les régions avancent ensemble par fenêtres de temps, dont la durée est le plus
+ * petit délai d'interaction entre deux cases : le plus petit temps de
+ * propagation d'un incendie ou de déplacement d'un robot. Pendant une fenêtre,
+ * une région dépose les propagations d'incendies vers une autre région dans la
+ * file de messages de celle-ci, ainsi que ses robots inactifs arrêtés hors de
+ * ses cases ; chaque région reçoit ses messages au début de la fenêtre suivante.
+ *
+ * Les résultats sont proches de ceux du simulateur séquentiel, sans être
+ * identiques dès qu'il y a plusieurs régions :
+ * <ul>
+ * <li>un incendie propagé dans une autre région y apparaît avec son expansion à
+ * la bonne date, mais l'intensité ajoutée à un incendie existant n'est prise en
+ * compte qu'au début de la fenêtre suivante ;</li>
+ * <li>chaque chef pompier ne voit que les incendies et les robots de sa
+ * région ;</li>
+ * <li>la simulation ne s'arrête qu'à la fin de la fenêtre où le dernier incendie
+ * est éteint.</li>
+ * </ul>
+ * Avec une seule région, seul ce dernier point diffère. Les résultats ne
+ * dépendent pas de l'ordonnancement des threads : les messages ne sont relevés
+ * qu'entre deux fenêtres, puis triés par chaque région.
+ */
+public class SimulateurPartitionne implements Simulable {
+	/**
+	 * Les données initiales de la simulation, copiées par les régions à chaque
+	 * démarrage
+	 */
+	private final DonneeSimulation donneeSimulationInitiale;
+	/**
+	 * Fabrique du chef pompier de chaque région
+	 */
+	private final Supplier<ChefPompier> fabriqueChefs;
+	/**
+	 * Le temps de simulation, en secondes, de chaque pas
+	 */
+	private final long tempsPas;
+	/**
+	 * L'implémentation de la file des évènements de chaque région
+	 */
+	private final EventQueueType typeFile;
+	/**
+	 * Nombre de régions dans la hauteur de la carte
+	 */
+	private final int nbLignesRegions;
+	/**
+	 * Nombre de régions dans la largeur de la carte
+	 */
+	private final int nbColonnesRegions;
+	/**
+	 * Nombre de lignes de chaque région, la dernière pouvant en avoir moins
+	 */
+	private final int hauteurRegion;
+	/**
+	 * Nombre de colonnes de chaque région, la dernière pouvant en avoir moins
+	 */
+	private final int largeurRegion;
+	/**
+	 * Les régions, ligne par ligne
+	 */
+	private SimulateurRegion[] regions;
+	/**
+	 * Durée d'une fenêtre de temps, en secondes
+	 */
+	private long dureeFenetre;
+	/**
+	 * La date de fin de la dernière fenêtre exécutée : tous les évènements
+	 * antérieurs l'ont été
+	 */
+	private long date;
+	/**
+	 * La date de fin de la fenêtre en cours, lue par les threads des régions
+	 */
+	private long finFenetre;
+	/**
+	 * Nombre de fenêtres exécutées depuis le début de la simulation
+	 */
+	private long nbFenetres;
+	/**
+	 * Booléen indiquant si la simulation est finie, faute d'incendies
+	 */
+	private boolean estFini;
+	/**
+	 * Les données réunies de toutes les régions, reconstruites à la demande après
+	 * une fenêtre, ou null si elles ne sont plus à jour
+	 */
+	private DonneeSimulation vue;
+	/**
+	 * Les threads exécutant les régions, un par région
+	 */
+	private final Thread[] threads;
+	/**
+	 * Barrière franchie par les threads des régions et le thread de la simulation
+	 * au début de chaque fenêtre
+	 */
+	private final CyclicBarrier depart;
+	/**
+	 * Barrière franchie par les threads des régions et le thread de la simulation
+	 * à la fin de chaque fenêtre
+	 */
+	private final CyclicBarrier arrivee;
+	/**
+	 * L'erreur survenue dans une région pendant la fenêtre en cours, ou null
+	 */
+	private volatile Throwable erreur;
+	/**
+	 * Booléen indiquant si les threads des régions doivent s'arrêter
+	 */
+	private volatile boolean ferme;
+
+	/**
+	 * Construit un simulateur partitionné, qui pour chaque pas exécute la
+	 * simulation sur un temps donné
+	 *
+	 * @param donneeSimulation  les données initiales de la simulation, qui ne
+	 *                          sont pas modifiées
+	 * @param fabriqueChefs     fabrique donnant un nouveau chef pompier pour chaque
+	 *                          région
+	 * @param tempsPas          le temps de simulation de chaque pas, en secondes
+	 * @param nbLignesRegions   le nombre de régions dans la hauteur de la carte
+	 * @param nbColonnesRegions le nombre de régions dans la largeur de la carte
+	 * @param typeFile          l'implémentation de la file des évènements de chaque
+	 *                          région
+	 * @throws IllegalArgumentException si le découpage demandé est impossible
+	 */
+	public SimulateurPartitionne(DonneeSimulation donneeSimulation, Supplier<ChefPompier> fabriqueChefs,
+			long tempsPas, int nbLignesRegions, int nbColonnesRegions, EventQueueType typeFile)
+			throws IllegalArgumentException {
+		Carte carte = donneeSimulation.getCarte();
+		if (nbLignesRegions <= 0 || nbColonnesRegions <= 0 || nbLignesRegions > carte.getNbLignes()
+				|| nbColonnesRegions > carte.getNbColonnes())
+			throw new IllegalArgumentException("Le découpage en régions est incorrect");
+		if (tempsPas <= 0)
+			throw new IllegalArgumentException("Le temps d'un pas est incorrect");
+		this.donneeSimulationInitiale = new DonneeSimulation(donneeSimulation);
+		this.fabriqueChefs = fabriqueChefs;
+		this.tempsPas = tempsPas;
+		this.typeFile = typeFile;
+		this.nbLignesRegions = nbLignesRegions;
+		this.nbColonnesRegions = nbColonnesRegions;
+		this.hauteurRegion = (carte.getNbLignes() + nbLignesRegions - 1) / nbLignesRegions;
+		this.largeurRegion = (carte.getNbColonnes() + nbColonnesRegions - 1) / nbColonnesRegions;
+		init();
+
+		int nbRegions = regions.length;
+		this.depart = new CyclicBarrier(nbRegions + 1);
+		this.arrivee = new CyclicBarrier(nbRegions + 1);
+		this.threads = new Thread[nbRegions];
+		for (int i = 0; i < nbRegions; i++) {
+			int indice = i;
+			threads[i] = new Thread(() -> travailler(indice), "region-" + i);
+			// Les threads ne doivent pas empecher la fin du programme
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+	}
+
+	/**
+	 * Construit un simulateur partitionné avec la file d'évènements par défaut
+	 *
+	 * @param donneeSimulation  les données initiales de la simulation, qui ne
+	 *                          sont pas modifiées
+	 * @param fabriqueChefs     fabrique donnant un nouveau chef pompier pour chaque
+	 *                          région
+	 * @param tempsPas          le temps de simulation de chaque pas, en secondes
+	 * @param nbLignesRegions   le nombre de régions dans la hauteur de la carte
+	 * @param nbColonnesRegions le nombre de régions dans la largeur de la carte
+	 * @throws IllegalArgumentException si le découpage demandé est impossible
+	 */
+	public SimulateurPartitionne(DonneeSimulation donneeSimulation, Supplier<ChefPompier> fabriqueChefs,
+			long tempsPas, int nbLignesRegions, int nbColonnesRegions) throws IllegalArgumentException {
+		this(donneeSimulation, fabriqueChefs, tempsPas, nbLignesRegions, nbColonnesRegions,
+				EventQueueType.TAS_BINAIRE);
+	}
+
+	/**
+	 * Méthode interne découpant les données initiales entre les régions, chacune
+	 * recevant une copie des incendies et des robots situés sur ses cases
+	 */
+	private void init() {
+		Carte carte = donneeSimulationInitiale.getCarte();
+		int nbRegions = nbLignesRegions * nbColonnesRegions;
+		List<List<Incendie>> incendies = new ArrayList<>(nbRegions);
+		List<List<Robot>> robots = new ArrayList<>(nbRegions);
+		for (int i = 0; i < nbRegions; i++) {
+			incendies.add(new ArrayList<>());
+			robots.add(new ArrayList<>());
+		}
+		for (Incendie incendie : donneeSimulationInitiale.getIncendies())
+			incendies.get(getIndiceRegion(incendie.getPosition())).add(incendie);
+		for (Robot robot : donneeSimulationInitiale.getRobots())
+			robots.get(getIndiceRegion(robot.getPosition())).add(robot);
+
+		regions = new SimulateurRegion[nbRegions];
+		for (int i = 0; i < nbRegions; i++) {
+			int ligne = i / nbColonnesRegions, colonne = i % nbColonnesRegions;
+			DonneeSimulation partie = new DonneeSimulation(incendies.get(i), carte, robots.get(i));
+			regions[i] = new SimulateurRegion(this, i, partie, fabriqueChefs.get(), typeFile, ligne * hauteurRegion,
+					Math.min(carte.getNbLignes(), (ligne + 1) * hauteurRegion), colonne * largeurRegion,
+					Math.min(carte.getNbColonnes(), (colonne + 1) * largeurRegion));
+		}
+
+		// Aucune interaction entre deux cases ne peut etre plus rapide qu'une
+		// propagation ou qu'un deplacement de robot
+		dureeFenetre = Incendie.getTempsPropagationMin(carte.getTailleCase());
+		for (Robot robot : donneeSimulationInitiale.getRobots())
+			dureeFenetre = Math.min(dureeFenetre, DeplacementRobot.calculerDureeMin(carte.getTailleCase(), robot));
+		dureeFenetre = Math.max(1, dureeFenetre);
+
+		date = 0;
+		nbFenetres = 0;
+		estFini = donneeSimulationInitiale.getIncendies().isEmpty();
+		vue = null;
+	}
+
+	@Override
+	public void next() {
+		// Si la simulation est finie, on ne fait rien
+		if (estFini)
+			return;
+
+		long dateFin = tempsPas > Long.MAX_VALUE - date ? Long.MAX_VALUE : date + tempsPas;
+		while (date < dateFin && !estFini) {
+			// Si aucune region n'a rien a faire d'ici la, la fenetre commence au prochain
+			// evenement : les messages en attente ne planifient rien avant la fin de la
+			// fenetre precedente
+			long prochain = Long.MAX_VALUE;
+			for (SimulateurRegion region : regions)
+				prochain = Math.min(prochain, region.aDesMessages() ? date : region.getDateProchainEvenement());
+			if (prochain >= dateFin) {
+				date = dateFin;
+				break;
+			}
+			// Une fenetre plus courte reste correcte, la derniere s'arrete a la fin du pas
+			long debut = Math.max(date, prochain);
+			executerFenetre(dureeFenetre > dateFin - debut ? dateFin : debut + dureeFenetre);
+
+			// S'il n'y a plus d'incendies ni de propagation en attente, la simulation est
+			// finie
+			estFini = true;
+			for (SimulateurRegion region : regions)
+				if (region.aDesMessages() || !region.getDonneeSimulation().getIncendies().isEmpty())
+					estFini = false;
+		}
+	}
+
+	@Override
+	public void restart() {
+		init();
+	}
+
+	/**
+	 * Méthode interne exécutant toutes les régions sur une fenêtre de temps, chacune
+	 * sur son thread, et attendant qu'elles aient toutes fini
+	 *
+	 * @param fin la date de fin de la fenêtre, exclue
+	 */
+	private void executerFenetre(long fin) {
+		finFenetre = fin;
+		attendre(depart);
+		attendre(arrivee);
+		if (erreur != null) {
+			Throwable e = erreur;
+			erreur = null;
+			throw new RuntimeException("Erreur dans l'exécution d'une région", e);
+		}
+		for (SimulateurRegion region : regions)
+			region.releverMessages();
+		date = fin;
+		nbFenetres++;
+		vue = null;
+	}
+
+	/**
+	 * Méthode interne exécutée par le thread d'une région : à chaque fenêtre, la
+	 * région reçoit ses messages et exécute ses évènements jusqu'à la fin de la
+	 * fenêtre
+	 *
+	 * @param indice l'indice de la région
+	 */
+	private void travailler(int indice) {
+		while (true) {
+			attendre(depart);
+			if (ferme)
+				return;
+			try {
+				regions[indice].executerFenetre(finFenetre);
+			} catch (RuntimeException | Error e) {
+				// Le thread de la simulation relance l'erreur, et ne doit pas rester bloque
+				erreur = e;
+			}
+			attendre(arrivee);
+		}
+	}
+
+	/**
+	 * Méthode interne attendant que tous les threads aient atteint une barrière
+	 *
+	 * @param barriere la barrière
+	 */
+	private static void attendre(CyclicBarrier barriere) {
+		try {
+			barriere.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Simulation interrompue", e);
+		} catch (BrokenBarrierException e) {
+			throw new IllegalStateException("Simulation interrompue", e);
+		}
+	}
+
+	/**
+	 * Arrête les threads des régions. La simulation ne peut plus avancer ensuite
+	 */
+	public void fermer() {
+		if (ferme)
+			return;
+		ferme = true;
+		attendre(depart);
+	}
+
+	/**
+	 * Méthode interne donnant la région qui possède une case
+	 *
+	 * @param c la case
+	 * @return l'indice de la région dans {@link #regions}
+	 */
+	private int getIndiceRegion(Case c) {
+		return (c.getLigne() / hauteurRegion) * nbColonnesRegions + c.getColonne() / largeurRegion;
+	}
+
+	/**
+	 * @param c une case
+	 * @return la région qui possède la case
+	 */
+	SimulateurRegion getRegion(Case c) {
+		return regions[getIndiceRegion(c)];
+	}
+
+	/**
+	 * Les données réunies de toutes les régions, sans copie : les incendies et les
+	 * robots sont ceux des régions, et ne doivent pas être modifiés
+	 *
+	 * @return les données de la simulation
+	 */
+	public DonneeSimulation getDonneeSimulation() {
+		if (vue == null) {
+			List<DonneeSimulation> parties = new ArrayList<>(regions.length);
+			for (SimulateurRegion region : regions)
+				parties.add(region.getDonneeSimulation());
+			vue = DonneeSimulation.reunir(donneeSimulationInitiale.getCarte(), parties);
+		}
+		return vue;
+	}
+
+	/**
+	 * @return la date de fin de la dernière fenêtre exécutée, tous les évènements
+	 *         antérieurs l'ayant été
+	 */
+	public long getDate() {
+		return date;
+	}
+
+	/**
+	 * @return vrai si la simulation est finie, faute d'incendies
+	 */
+	public boolean estFini() {
+		return estFini;
+	}
+
+	/**
+	 * @return le nombre de régions
+	 */
+	public int getNbRegions() {
+		return regions.length;
+	}
+
+	/**
+	 * @return la durée d'une fenêtre de temps, en secondes
+	 */
+	public long getDureeFenetre() {
+		return dureeFenetre;
+	}
+
+	/**
+	 * @return le nombre de fenêtres exécutées depuis le début de la simulation
+	 */
+	public long getNbFenetres() {
+		return nbFenetres;
+	}
+
+	/**
+	 * @return le nombre de messages échangés entre régions depuis le début de la
+	 *         simulation
+	 */
+	public long getNbMessages() {
+		long nb = 0;
+		for (SimulateurRegion region : regions)
+			nb += region.getNbMessagesEnvoyes();
+		return nb;
+	}
+
+	/**
+	 * @return le nombre d'évènements exécutés par toutes les régions depuis le
+	 *         début de la simulation
+	 */
+	public long getNbEvenementsExecutes() {
+		long nb = 0;
+		for (SimulateurRegion region : regions)
+			nb += region.getNbEvenementsExecutes();
+		return nb;
+	}
+
+	/**
+	 * @return le nombre de consultations des chefs pompiers de toutes les régions
+	 *         depuis le début de la simulation
+	 */
+	public long getNbConsultations() {
+		long nb = 0;
+		for (SimulateurRegion region : regions)
+			nb += region.getNbConsultations();
+		return nb;
+	}
+}
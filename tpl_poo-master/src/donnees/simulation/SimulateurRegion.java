@@ -0,0 +1,249 @@
+package donnees.simulation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import dessin.DummyDessinSimulation;
+import donnees.Incendie;
+import donnees.evenements.Evenement;
+import donnees.robots.Robot;
+import donnees.terrain.Case;
+import ia.strategie.ChefPompier;
+import ordres.TypeOrdre;
+
+/**
+ * Simulateur d'une région rectangulaire de la carte, pour un
+ * {@link SimulateurPartitionne}. La région a sa propre file d'évènements, ses
+ * incendies, ses robots et son chef pompier, et avance fenêtre de temps par
+ * fenêtre de temps sur le thread qui lui est dédié. Tout ce qui concerne une
+ * case hors de la région (propagation d'un incendie, robot inactif arrêté hors
+ * de la région) est déposé sous forme de {@link MessageRegion message} dans la
+ * file de la région qui la possède.
+ */
+class SimulateurRegion extends Simulateur {
+	/**
+	 * Le simulateur partitionné dont la région fait partie
+	 */
+	private final SimulateurPartitionne partition;
+	/**
+	 * L'indice de la région dans le simulateur partitionné
+	 */
+	private final int indice;
+	/**
+	 * Première ligne de la région
+	 */
+	private final int ligneMin;
+	/**
+	 * Ligne suivant la dernière ligne de la région
+	 */
+	private final int ligneMax;
+	/**
+	 * Première colonne de la région
+	 */
+	private final int colonneMin;
+	/**
+	 * Colonne suivant la dernière colonne de la région
+	 */
+	private final int colonneMax;
+	/**
+	 * Messages déposés par les autres régions pendant la fenêtre en cours
+	 */
+	private final ConcurrentLinkedQueue<MessageRegion> messages;
+	/**
+	 * Messages relevés à la fin de la fenêtre précédente, dans leur
+	 * {@link MessageRegion#ORDRE ordre de réception}, reçus au début de la
+	 * fenêtre en cours
+	 */
+	private final List<MessageRegion> recus;
+	/**
+	 * Nombre de messages envoyés par la région depuis le début de la simulation
+	 */
+	private long nbMessagesEnvoyes;
+	/**
+	 * Numéro à donner au prochain robot arrivant dans la région
+	 */
+	private int prochainNumeroRobot;
+
+	/**
+	 * Construit le simulateur d'une région
+	 *
+	 * @param partition        le simulateur partitionné dont la région fait partie
+	 * @param indice           l'indice de la région
+	 * @param donneeSimulation les données de la région : ses incendies et ses
+	 *                         robots, sur la carte entière
+	 * @param chefPompier      le chef pompier de la région
+	 * @param typeFile         l'implémentation de la file des évènements
+	 * @param ligneMin         la première ligne de la région
+	 * @param ligneMax         la ligne suivant la dernière ligne de la région
+	 * @param colonneMin       la première colonne de la région
+	 * @param colonneMax       la colonne suivant la dernière colonne de la région
+	 */
+	SimulateurRegion(SimulateurPartitionne partition, int indice, DonneeSimulation donneeSimulation,
+			ChefPompier chefPompier, EventQueueType typeFile, int ligneMin, int ligneMax, int colonneMin,
+			int colonneMax) {
+		super();
+		this.partition = partition;
+		this.indice = indice;
+		this.donneeSimulation = donneeSimulation;
+		this.dessinSimulateur = new DummyDessinSimulation();
+		this.chefPompier = chefPompier;
+		this.tempsMinimalPas = 1;
+		this.tempsMaximalPas = Long.MAX_VALUE;
+		this.typeFile = typeFile;
+		this.ligneMin = ligneMin;
+		this.ligneMax = ligneMax;
+		this.colonneMin = colonneMin;
+		this.colonneMax = colonneMax;
+		this.messages = new ConcurrentLinkedQueue<>();
+		this.recus = new ArrayList<>();
+		this.prochainNumeroRobot = donneeSimulation.getRobots().size();
+		init();
+	}
+
+	/**
+	 * @param c une case de la carte
+	 * @return vrai si la case appartient à la région
+	 */
+	boolean contient(Case c) {
+		return c.getLigne() >= ligneMin && c.getLigne() < ligneMax && c.getColonne() >= colonneMin
+				&& c.getColonne() < colonneMax;
+	}
+
+	/**
+	 * Un incendie hors de la région est envoyé à la région qui possède sa case, qui
+	 * l'ajoutera ou renforcera l'incendie déjà présent
+	 */
+	@Override
+	public void ajouterIncendie(Incendie incendie) throws IllegalArgumentException {
+		if (contient(incendie.getPosition()))
+			super.ajouterIncendie(incendie);
+		else
+			envoyer(new MessageRegion.Propagation(incendie, getDate(), indice, nbMessagesEnvoyes++));
+	}
+
+	/**
+	 * Une région sans incendie peut en recevoir de ses voisines : seul le
+	 * simulateur partitionné décide de la fin de la simulation
+	 */
+	@Override
+	void terminerEvenement() {
+		super.terminerEvenement();
+		estFini = false;
+	}
+
+	/**
+	 * Exécute une fenêtre de temps : reçoit les messages relevés à la fin de la
+	 * fenêtre précédente, exécute tous les évènements de la région antérieurs à la
+	 * fin de la fenêtre, puis envoie aux régions voisines les robots inactifs qui
+	 * ont quitté la région
+	 *
+	 * @param fin la date de fin de la fenêtre, exclue
+	 */
+	void executerFenetre(long fin) {
+		recevoirMessages();
+		avancerJusqua(fin - 1);
+
+		// Seuls les robots sans rien a faire changent de region, leurs evenements
+		// restent donc toujours dans la file ou ils ont ete planifies
+		Iterator<Robot> it = donneeSimulation.getRobots().iterator();
+		while (it.hasNext()) {
+			Robot robot = it.next();
+			if (robot.estInactif() && robot.isReady(TypeOrdre.ETEINDRE_INCENDIE) && !contient(robot.getPosition())) {
+				it.remove();
+				envoyer(new MessageRegion.TransfertRobot(robot, getDate(), indice, nbMessagesEnvoyes++));
+			}
+		}
+	}
+
+	/**
+	 * Méthode interne déposant un message dans la file de la région qui possède sa
+	 * case
+	 *
+	 * @param message le message
+	 */
+	private void envoyer(MessageRegion message) {
+		partition.getRegion(message.getCase()).messages.add(message);
+	}
+
+	/**
+	 * Relève les messages déposés pendant la fenêtre qui vient de finir. Appelée
+	 * par le thread de la simulation entre deux fenêtres, quand aucune région ne
+	 * s'exécute : une région rapide ne peut pas ainsi déposer de message pendant
+	 * que la destinataire reçoit ceux de la fenêtre précédente
+	 */
+	void releverMessages() {
+		MessageRegion message;
+		while ((message = messages.poll()) != null)
+			recus.add(message);
+		recus.sort(MessageRegion.ORDRE);
+	}
+
+	/**
+	 * Méthode interne recevant les messages relevés à la fin de la fenêtre
+	 * précédente
+	 */
+	private void recevoirMessages() {
+		for (MessageRegion message : recus)
+			message.livrer(this);
+		recus.clear();
+	}
+
+	/**
+	 * Reçoit la propagation d'un incendie voisin sur une case de la région, comme
+	 * l'aurait fait {@link Incendie#propager(Simulateur)}
+	 *
+	 * @param incendie l'incendie propagé
+	 * @param date     la date de la propagation, dans la fenêtre précédente
+	 */
+	void recevoirPropagation(Incendie incendie, long date) {
+		Incendie existant = donneeSimulation.getSingleIncendie(incendie.getPosition());
+		if (existant != null) {
+			existant.recevoirPropagation(incendie.getIntensite(), incendie.getPosition());
+			return;
+		}
+		// Le nouvel incendie s'etend a partir de la date de la propagation, ce qui
+		// tombe au plus tot dans cette fenetre
+		donneeSimulation.ajouterIncendie(incendie);
+		planifierExpansion(incendie, date + incendie.getTempsPropagation(donneeSimulation.getCarte().getTailleCase()));
+	}
+
+	/**
+	 * Accueille un robot inactif venant d'une autre région, en lui donnant un
+	 * nouveau numéro dans la région. Le chef pompier de la région en est averti
+	 * comme d'un robot devenu inactif
+	 *
+	 * @param robot le robot
+	 * @param date  la date à laquelle il a quitté sa région
+	 */
+	void recevoirRobot(Robot robot, long date) {
+		avancerDate(date);
+		robot.setNumero(prochainNumeroRobot++);
+		donneeSimulation.getRobots().add(robot);
+		donneeSimulation.signalerChangement(Changement.ROBOT_INACTIF);
+	}
+
+	/**
+	 * @return vrai si des messages relevés attendent d'être reçus
+	 */
+	boolean aDesMessages() {
+		return !recus.isEmpty();
+	}
+
+	/**
+	 * @return le nombre de messages envoyés depuis le début de la simulation
+	 */
+	long getNbMessagesEnvoyes() {
+		return nbMessagesEnvoyes;
+	}
+
+	/**
+	 * @return la date du prochain évènement de la région, ou Long.MAX_VALUE s'il
+	 *         n'y en a pas
+	 */
+	long getDateProchainEvenement() {
+		Evenement prochain = evenements.peek();
+		return prochain == null ? Long.MAX_VALUE : prochain.getDate();
+	}
+}
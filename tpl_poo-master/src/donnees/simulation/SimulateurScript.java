@@ -13,8 +13,10 @@ public class SimulateurScript extends Simulateur {
 	 * @param donneeSimulation les données initiales de la simulation
 	 * @param chefPompier le chef pompier opérant pour cette simulation
 	 * @param maxExec le temps maximal d'exécution, pour chaque pas
+	 * @param typeFile l'implémentation de la file des évènements
 	 */
-	public SimulateurScript(DonneeSimulation donneeSimulation, ChefPompier chefPompier, long maxExec) {
+	public SimulateurScript(DonneeSimulation donneeSimulation, ChefPompier chefPompier, long maxExec,
+			EventQueueType typeFile) {
 		super();
 		this.donneeSimulation = new DonneeSimulation(donneeSimulation);
 		this.donneeSimulationIntiale = null;
@@ -22,7 +24,18 @@ public class SimulateurScript extends Simulateur {
 		this.chefPompier = chefPompier;
 		this.tempsMinimalPas = maxExec;
 		this.tempsMaximalPas = Long.MAX_VALUE;
+		this.typeFile = typeFile;
 		init();
 	}
 
+	/**
+	 * Construit un simulateur sans interface graphique avec la file d'évènements par défaut
+	 * @param donneeSimulation les données initiales de la simulation
+	 * @param chefPompier le chef pompier opérant pour cette simulation
+	 * @param maxExec le temps maximal d'exécution, pour chaque pas
+	 */
+	public SimulateurScript(DonneeSimulation donneeSimulation, ChefPompier chefPompier, long maxExec) {
+		this(donneeSimulation, chefPompier, maxExec, EventQueueType.TAS_BINAIRE);
+	}
+
 }
@@ -0,0 +1,339 @@
+package donnees.simulation;
+
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * File d'évènements implémentée par une roue temporelle hiérarchique. Les dates
+ * étant des nombres entiers de secondes, chaque niveau de la roue découpe le
+ * temps en {@value #TAILLE_NIVEAU} alvéoles : une seconde par alvéole au niveau
+ * 0, {@value #TAILLE_NIVEAU} secondes au niveau 1, etc. Un évènement est rangé
+ * au niveau le plus bas dont la fenêtre courante contient sa date, et redescend
+ * d'un niveau (cascade) lorsque la date courante de la roue atteint son
+ * alvéole. L'ajout et le retrait sont ainsi en O(1) amorti tant que les dates
+ * restent proches de la date courante, ce qui est le cas des déplacements,
+ * remplissages et propagations. Les évènements au-delà du dernier niveau (fin
+ * de scénario par exemple) sont placés dans un tas de débordement.
+ * 
+ * Au niveau 0 une alvéole ne contient qu'une seule date, ses entrées y sont
+ * gardées triées par ordre d'ajout pour respecter l'ordre FIFO des évènements
+ * simultanés.
+ * 
+ * La date courante de la roue n'avance que lorsqu'un évènement est
+ * effectivement retiré pour être exécuté : consulter la tête de file, ou en
+ * retirer une entrée annulée, ne la modifie pas. Des évènements peuvent donc
+ * toujours être ajoutés à toute date postérieure au dernier retrait.
+ */
+public class TimingWheelEventQueue extends AbstractEventQueue {
+	/**
+	 * Nombre de bits de date traités par niveau
+	 */
+	private static final int NB_BITS = 6;
+	/**
+	 * Nombre d'alvéoles par niveau
+	 */
+	private static final int TAILLE_NIVEAU = 1 << NB_BITS;
+	/**
+	 * Masque permettant d'obtenir l'alvéole d'une date à un niveau
+	 */
+	private static final long MASQUE = TAILLE_NIVEAU - 1;
+	/**
+	 * Nombre de niveaux de la roue, qui couvre ainsi 2^24 secondes (un peu plus de
+	 * 194 jours) avant débordement
+	 */
+	private static final int NB_NIVEAUX = 4;
+
+	/**
+	 * Maillon des listes chaînées formant les alvéoles
+	 */
+	private static class Noeud {
+		/**
+		 * L'entrée portée par le maillon
+		 */
+		private final EvenementPlanifie entree;
+		/**
+		 * Maillon suivant dans l'alvéole
+		 */
+		private Noeud suivant;
+
+		/**
+		 * Construit un maillon isolé
+		 * 
+		 * @param entree l'entrée portée
+		 */
+		private Noeud(EvenementPlanifie entree) {
+			this.entree = entree;
+		}
+	}
+
+	/**
+	 * Premiers maillons des alvéoles, indexés par niveau puis par alvéole
+	 */
+	private final Noeud[][] tetes;
+	/**
+	 * Derniers maillons des alvéoles, indexés par niveau puis par alvéole
+	 */
+	private final Noeud[][] queues;
+	/**
+	 * Pour chaque niveau, le bit i est à 1 si l'alvéole i n'est pas vide
+	 */
+	private final long[] occupees;
+	/**
+	 * Les entrées trop lointaines pour être rangées dans la roue
+	 */
+	private final PriorityQueue<EvenementPlanifie> debordement;
+	/**
+	 * Date courante de la roue : toutes les entrées ont une date supérieure ou
+	 * égale. Elle n'avance que lors d'un retrait, jusqu'à la date de l'entrée
+	 * retirée.
+	 */
+	private long base;
+	/**
+	 * Entrée minimale mémorisée par la dernière recherche, ou null si elle doit
+	 * être recalculée
+	 */
+	private EvenementPlanifie prochaine;
+	/**
+	 * Niveau où se trouve l'entrée {@link #prochaine}, ou -1 si elle est dans le
+	 * tas de débordement
+	 */
+	private int niveauProchaine;
+
+	/**
+	 * Construit une roue vide, dont la date courante est 0
+	 */
+	public TimingWheelEventQueue() {
+		tetes = new Noeud[NB_NIVEAUX][TAILLE_NIVEAU];
+		queues = new Noeud[NB_NIVEAUX][TAILLE_NIVEAU];
+		occupees = new long[NB_NIVEAUX];
+		debordement = new PriorityQueue<>();
+		base = 0;
+		prochaine = null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws IllegalArgumentException si l'évènement a une date antérieure au
+	 *                                  dernier évènement retiré
+	 */
+	@Override
+	protected void inserer(EvenementPlanifie entree) throws IllegalArgumentException {
+		if (entree.date < base)
+			throw new IllegalArgumentException("L'évènement a une date passée");
+
+		ranger(new Noeud(entree));
+		if (prochaine != null && entree.compareTo(prochaine) < 0)
+			prochaine = null;
+	}
+
+	@Override
+	protected EvenementPlanifie tete() {
+		return chercherProchaine();
+	}
+
+	@Override
+	protected void retirerTete() {
+		// L'entree est detachee la ou elle se trouve, sans avancer la roue
+		if (niveauProchaine < 0) {
+			debordement.poll();
+		} else {
+			int niveau = niveauProchaine;
+			int alveole = (int) ((prochaine.date >>> (NB_BITS * niveau)) & MASQUE);
+			Noeud precedent = null;
+			Noeud n = tetes[niveau][alveole];
+			while (n.entree != prochaine) {
+				precedent = n;
+				n = n.suivant;
+			}
+			detacher(niveau, alveole, precedent, n);
+		}
+		prochaine = null;
+	}
+
+	@Override
+	protected void extraireTete() {
+		// On avance la roue jusqu'a la date de l'entree, qui se retrouve en tete de son
+		// alveole au niveau 0
+		long date = prochaine.date;
+		avancer(date);
+		int alveole = (int) (date & MASQUE);
+		detacher(0, alveole, null, tetes[0][alveole]);
+		prochaine = null;
+	}
+
+	@Override
+	protected void compacter() {
+		for (int niveau = 0; niveau < NB_NIVEAUX; niveau++) {
+			for (int alveole = 0; alveole < TAILLE_NIVEAU; alveole++) {
+				Noeud precedent = null;
+				Noeud n = tetes[niveau][alveole];
+				while (n != null) {
+					Noeud suivant = n.suivant;
+					if (n.entree.estAnnule())
+						detacher(niveau, alveole, precedent, n);
+					else
+						precedent = n;
+					n = suivant;
+				}
+			}
+		}
+		debordement.removeIf(EvenementPlanifie::estAnnule);
+		prochaine = null;
+	}
+
+	@Override
+	protected void collecter(List<EvenementPlanifie> entrees) {
+		for (int niveau = 0; niveau < NB_NIVEAUX; niveau++)
+			for (int alveole = 0; alveole < TAILLE_NIVEAU; alveole++)
+				for (Noeud n = tetes[niveau][alveole]; n != null; n = n.suivant)
+					entrees.add(n.entree);
+		entrees.addAll(debordement);
+	}
+
+	/**
+	 * Cherche l'entrée minimale sans modifier la roue. Les niveaux sont ordonnés :
+	 * toute entrée d'un niveau est antérieure aux entrées des niveaux supérieurs,
+	 * et dans un niveau les alvéoles sont dans l'ordre chronologique.
+	 * 
+	 * @return l'entrée minimale, ou null si la file est vide
+	 */
+	private EvenementPlanifie chercherProchaine() {
+		if (prochaine != null)
+			return prochaine;
+
+		if (occupees[0] != 0) {
+			// Au niveau 0 une alveole ne contient qu'une date, triee par ordre d'ajout
+			prochaine = tetes[0][Long.numberOfTrailingZeros(occupees[0])].entree;
+			niveauProchaine = 0;
+			return prochaine;
+		}
+
+		for (int niveau = 1; niveau < NB_NIVEAUX && prochaine == null; niveau++) {
+			if (occupees[niveau] == 0)
+				continue;
+			// Aux niveaux superieurs, on parcourt la premiere alveole non vide
+			for (Noeud n = tetes[niveau][Long.numberOfTrailingZeros(occupees[niveau])]; n != null; n = n.suivant)
+				if (prochaine == null || n.entree.compareTo(prochaine) < 0)
+					prochaine = n.entree;
+			niveauProchaine = niveau;
+		}
+		if (prochaine == null) {
+			prochaine = debordement.peek();
+			niveauProchaine = -1;
+		}
+		return prochaine;
+	}
+
+	/**
+	 * Range une entrée au niveau le plus bas dont la fenêtre courante contient sa
+	 * date, ou dans le tas de débordement si elle est trop lointaine
+	 * 
+	 * @param noeud le maillon portant l'entrée à ranger, de date supérieure ou
+	 *              égale à la date courante de la roue
+	 */
+	private void ranger(Noeud noeud) {
+		EvenementPlanifie entree = noeud.entree;
+		for (int niveau = 0; niveau < NB_NIVEAUX; niveau++) {
+			int decalage = NB_BITS * (niveau + 1);
+			if ((entree.date >>> decalage) == (base >>> decalage)) {
+				int alveole = (int) ((entree.date >>> (NB_BITS * niveau)) & MASQUE);
+				inserer(niveau, alveole, noeud);
+				return;
+			}
+		}
+		debordement.add(entree);
+	}
+
+	/**
+	 * Insère un maillon dans une alvéole. Au niveau 0, les maillons sont gardés
+	 * triés par ordre d'ajout ; un ajout direct a toujours le plus grand numéro
+	 * d'ordre, seules les entrées redescendues d'un niveau supérieur demandent un
+	 * parcours.
+	 * 
+	 * @param niveau  le niveau de l'alvéole
+	 * @param alveole l'indice de l'alvéole
+	 * @param noeud   le maillon à insérer
+	 */
+	private void inserer(int niveau, int alveole, Noeud noeud) {
+		Noeud queue = queues[niveau][alveole];
+		if (queue == null) {
+			tetes[niveau][alveole] = noeud;
+			queues[niveau][alveole] = noeud;
+			occupees[niveau] |= 1L << alveole;
+		} else if (niveau > 0 || queue.entree.sequence < noeud.entree.sequence) {
+			queue.suivant = noeud;
+			queues[niveau][alveole] = noeud;
+		} else if (noeud.entree.sequence < tetes[niveau][alveole].entree.sequence) {
+			noeud.suivant = tetes[niveau][alveole];
+			tetes[niveau][alveole] = noeud;
+		} else {
+			Noeud precedent = tetes[niveau][alveole];
+			while (precedent.suivant.entree.sequence < noeud.entree.sequence)
+				precedent = precedent.suivant;
+			noeud.suivant = precedent.suivant;
+			precedent.suivant = noeud;
+		}
+	}
+
+	/**
+	 * Détache un maillon de son alvéole
+	 * 
+	 * @param niveau    le niveau de l'alvéole
+	 * @param alveole   l'indice de l'alvéole
+	 * @param precedent le maillon précédent, ou null si le maillon est en tête
+	 * @param noeud     le maillon à détacher
+	 */
+	private void detacher(int niveau, int alveole, Noeud precedent, Noeud noeud) {
+		if (precedent == null)
+			tetes[niveau][alveole] = noeud.suivant;
+		else
+			precedent.suivant = noeud.suivant;
+		if (queues[niveau][alveole] == noeud)
+			queues[niveau][alveole] = precedent;
+		if (tetes[niveau][alveole] == null)
+			occupees[niveau] &= ~(1L << alveole);
+		noeud.suivant = null;
+	}
+
+	/**
+	 * Avance la date courante de la roue et fait redescendre les entrées des
+	 * alvéoles atteintes. Aucune entrée ne doit être antérieure à la nouvelle
+	 * date.
+	 * 
+	 * @param nouvelleBase la nouvelle date courante
+	 */
+	private void avancer(long nouvelleBase) {
+		long ancienneBase = base;
+		base = nouvelleBase;
+		if (nouvelleBase == ancienneBase)
+			return;
+
+		// Les entrees debordantes entrees dans la fenetre du dernier niveau y sont
+		// rangees
+		int decalageMax = NB_BITS * NB_NIVEAUX;
+		if ((nouvelleBase >>> decalageMax) != (ancienneBase >>> decalageMax))
+			while (!debordement.isEmpty() && (debordement.peek().date >>> decalageMax) == (base >>> decalageMax))
+				ranger(new Noeud(debordement.poll()));
+
+		// Puis on cascade, du niveau le plus haut au plus bas, l'alveole contenant la
+		// nouvelle date si on vient d'y entrer
+		for (int niveau = NB_NIVEAUX - 1; niveau > 0; niveau--) {
+			int decalage = NB_BITS * niveau;
+			if ((nouvelleBase >>> decalage) == (ancienneBase >>> decalage))
+				continue;
+
+			int alveole = (int) ((nouvelleBase >>> decalage) & MASQUE);
+			Noeud n = tetes[niveau][alveole];
+			tetes[niveau][alveole] = null;
+			queues[niveau][alveole] = null;
+			occupees[niveau] &= ~(1L << alveole);
+			while (n != null) {
+				Noeud suivant = n.suivant;
+				n.suivant = null;
+				ranger(n);
+				n = suivant;
+			}
+		}
+	}
+}
@@ -0,0 +1,735 @@
+package donnees.simulation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import donnees.Arrosage;
+import donnees.Incendie;
+import donnees.VoisinageLot;
+import donnees.terrain.Carte;
+import donnees.terrain.Case;
+import donnees.terrain.NatureTerrain;
+
+/**
+ * Zone regroupant les incendies d'une région contiguë de cases, manipulée comme
+ * un seul {@link Incendie} par les robots et les chefs pompiers. Son intensité
+ * est la somme de celles de ses cases, c'est-à-dire le volume d'eau nécessaire
+ * pour l'éteindre entièrement, et sa position est sa première case.
+ *
+ * Les cases du bord de la zone, qui touchent une case pouvant brûler hors de la
+ * zone, ou qui sont moins fortes que la moyenne de l'intérieur, se comportent
+ * comme des incendies case par case : chacune a sa propre intensité et se
+ * propage à la date où elle se serait étendue seule, arrondie au multiple le
+ * plus proche de la moitié du temps de propagation minimal, les expansions de
+ * la zone regroupant ainsi celles de ses cases. Les cases intérieures mettent
+ * leur intensité en commun : elles se propagent entre elles et vers le bord
+ * comme des incendies ayant chacun l'intensité moyenne de l'intérieur, en
+ * proportion du temps écoulé. Une expansion ne parcourt donc que les cases du
+ * bord qui se propagent, et son coût dépend du contour de la zone et non de sa
+ * surface.
+ *
+ * L'eau déversée sur la zone est retirée d'abord de l'intérieur, puis des cases
+ * du bord, et la zone ne s'éteint que tout entière.
+ *
+ * Ce regroupement n'est pas équivalent à la simulation case par case, il en
+ * donne une approximation. Les robots et les chefs pompiers voient la zone
+ * comme un seul incendie situé sur sa première case : un robot s'y rend et
+ * l'arrose depuis cette case, et l'eau qu'il déverse est retirée de toute la
+ * zone. Un seul robot posté sur une case peut ainsi éteindre des milliers de
+ * cases éloignées de lui, qu'il n'aurait jamais atteintes case par case. Sans
+ * robot, l'intérieur ne gardant que son intensité moyenne et les propagations
+ * du bord étant arrondies, la surface brûlée s'écarte de 0,3 à 0,7 % et
+ * l'intensité totale de 2 à 4 % de celles de la simulation case par case sur
+ * la carte de {@code test.BenchmarkZonesIncendies}, d'autant plus que le seuil
+ * de regroupement est élevé. Les durées d'extinction obtenues avec des robots
+ * ne sont donc pas comparables à celles du mode case par case.
+ */
+public class ZoneIncendie extends Incendie {
+	/**
+	 * Nombre maximal de voisines d'une case
+	 */
+	private static final int MAX_VOISINES = Carte.NB_DIRECTIONS;
+	/**
+	 * Les natures de terrain, indexées par leur rang
+	 */
+	private static final NatureTerrain[] NATURES = NatureTerrain.values();
+
+	/**
+	 * Une case du bord de la zone
+	 */
+	private static class CaseBord {
+		/**
+		 * La case
+		 */
+		private final Case position;
+		/**
+		 * L'intensité de l'incendie de la case
+		 */
+		private int intensite;
+		/**
+		 * La date de la prochaine propagation de la case
+		 */
+		private long echeance;
+		/**
+		 * La date jusqu'à laquelle la case a reçu la propagation de ses voisines
+		 * intérieures
+		 */
+		private long dateAlimentation;
+		/**
+		 * L'intensité moyenne de l'intérieur à cette date
+		 */
+		private int moyenneAlimentation;
+
+		/**
+		 * @param position            la case
+		 * @param intensite           l'intensité de l'incendie de la case
+		 * @param echeance            la date de sa prochaine propagation
+		 * @param dateAlimentation    la date jusqu'à laquelle elle a reçu la
+		 *                            propagation de l'intérieur
+		 * @param moyenneAlimentation l'intensité moyenne de l'intérieur à cette date
+		 */
+		private CaseBord(Case position, int intensite, long echeance, long dateAlimentation,
+				int moyenneAlimentation) {
+			this.position = position;
+			this.intensite = intensite;
+			this.echeance = echeance;
+			this.dateAlimentation = dateAlimentation;
+			this.moyenneAlimentation = moyenneAlimentation;
+		}
+	}
+
+	/**
+	 * Ordre des cases du bord par date de prochaine propagation
+	 */
+	private static final Comparator<CaseBord> PAR_ECHEANCE = Comparator.comparingLong(b -> b.echeance);
+
+	/**
+	 * Les cases de la zone, dans leur ordre d'ajout
+	 */
+	private final List<Case> cases;
+	/**
+	 * Les cases du bord, par date de prochaine propagation
+	 */
+	private final PriorityQueue<CaseBord> bord;
+	/**
+	 * Les cases du bord, indexées par leur case
+	 */
+	private final Map<Case, CaseBord> indexBord;
+	/**
+	 * Somme des intensités des cases du bord
+	 */
+	private long intensiteBord;
+	/**
+	 * Intensité totale des cases intérieures
+	 */
+	private long intensiteInterieure;
+	/**
+	 * Nombre de cases intérieures de chaque nature
+	 */
+	private final int[] nbInterieures;
+	/**
+	 * Pour chaque nature et chaque nombre n de voisines, le nombre de paires (case
+	 * intérieure de cette nature ayant n voisines, voisine intérieure)
+	 */
+	private final int[][] pairesInterieures;
+	/**
+	 * Date de la dernière expansion de la zone, ou de sa création
+	 */
+	private long dateExpansion;
+	/**
+	 * Date à laquelle la prochaine expansion a été fixée
+	 */
+	private long dateDerniere;
+	/**
+	 * Date de la prochaine expansion de la zone
+	 */
+	private long dateProchaine;
+	/**
+	 * L'arrosage en cours de la zone par un robot, ou null
+	 */
+	private Arrosage arrosage;
+
+	/**
+	 * Construit une zone d'une seule case
+	 *
+	 * @param position   la première case de la zone
+	 * @param intensite  l'intensité de l'incendie de la case
+	 * @param date       la date actuelle de la simulation
+	 * @param tailleCase taille d'une case en mètres
+	 */
+	ZoneIncendie(Case position, int intensite, long date, int tailleCase) {
+		super(position);
+		this.cases = new ArrayList<>();
+		this.bord = new PriorityQueue<>(PAR_ECHEANCE);
+		this.indexBord = new HashMap<>();
+		this.nbInterieures = new int[NATURES.length];
+		this.pairesInterieures = new int[NATURES.length][MAX_VOISINES + 1];
+		this.dateExpansion = date;
+		this.dateDerniere = date;
+		this.dateProchaine = Long.MAX_VALUE;
+		cases.add(position);
+		ajouterBord(position, intensite, date, tailleCase);
+	}
+
+	/**
+	 * Construit une copie d'une zone, sans son arrosage
+	 *
+	 * @param zone la zone à copier
+	 */
+	ZoneIncendie(ZoneIncendie zone) {
+		this(zone, null);
+	}
+
+	/**
+	 * Construit une copie d'une zone. Hors duplication, l'arrosage en cours de la
+	 * zone copiée lui est appliqué et la copie n'a pas d'arrosage ; dans une
+	 * duplication, la copie reprend l'état de la zone tel quel, avec les copies de
+	 * son arrosage et de sa prochaine expansion.
+	 *
+	 * @param zone la zone à copier
+	 * @param d    la duplication en cours, ou null
+	 */
+	private ZoneIncendie(ZoneIncendie zone, Duplication d) {
+		super(zone.getPosition());
+		if (d != null)
+			d.enregistrer(zone, this);
+		else
+			// L'arrosage en cours de la zone copiee est applique avant de lire son etat
+			zone.getIntensite();
+		this.cases = new ArrayList<>(zone.cases);
+		this.bord = new PriorityQueue<>(PAR_ECHEANCE);
+		this.indexBord = new HashMap<>();
+		for (CaseBord b : zone.bord) {
+			CaseBord copie = new CaseBord(b.position, b.intensite, b.echeance, b.dateAlimentation,
+					b.moyenneAlimentation);
+			bord.add(copie);
+			indexBord.put(b.position, copie);
+		}
+		this.intensiteBord = zone.intensiteBord;
+		this.intensiteInterieure = zone.intensiteInterieure;
+		this.nbInterieures = zone.nbInterieures.clone();
+		this.pairesInterieures = new int[NATURES.length][];
+		for (int i = 0; i < NATURES.length; i++)
+			pairesInterieures[i] = zone.pairesInterieures[i].clone();
+		this.dateExpansion = zone.dateExpansion;
+		this.dateDerniere = zone.dateDerniere;
+		this.dateProchaine = zone.dateProchaine;
+		if (d != null) {
+			setExpansionPrevue(d.copie(zone.getExpansionPrevue()));
+			this.arrosage = d.copie(zone.arrosage);
+		}
+	}
+
+	@Override
+	public ZoneIncendie dupliquer(Duplication d) {
+		return new ZoneIncendie(this, d);
+	}
+
+	/**
+	 * Relit une zone dans une reprise, avec son arrosage et sa prochaine
+	 * expansion. Les cases du bord sont rangées dans l'ordre où elles ont été
+	 * écrites, qui est celui du tas de la zone sauvegardée
+	 *
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private ZoneIncendie(Reprise r) throws IOException {
+		super(r.lireCase());
+		r.enregistrer(this);
+		int nbCases = r.lireInt();
+		this.cases = new ArrayList<>(nbCases);
+		for (int i = 0; i < nbCases; i++)
+			cases.add(r.lireCase());
+		int nbBord = r.lireInt();
+		this.bord = new PriorityQueue<>(Math.max(1, nbBord), PAR_ECHEANCE);
+		this.indexBord = new HashMap<>();
+		for (int i = 0; i < nbBord; i++) {
+			CaseBord b = new CaseBord(r.lireCase(), r.lireInt(), r.lireLong(), r.lireLong(), r.lireInt());
+			bord.add(b);
+			indexBord.put(b.position, b);
+		}
+		this.intensiteBord = r.lireLong();
+		this.intensiteInterieure = r.lireLong();
+		this.nbInterieures = new int[NATURES.length];
+		r.lireInts(nbInterieures, nbInterieures.length);
+		this.pairesInterieures = new int[NATURES.length][MAX_VOISINES + 1];
+		for (int[] paires : pairesInterieures)
+			r.lireInts(paires, paires.length);
+		this.dateExpansion = r.lireLong();
+		this.dateDerniere = r.lireLong();
+		this.dateProchaine = r.lireLong();
+		setExpansionPrevue(r.lireReference());
+		this.arrosage = r.lireReference();
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireCase(getPosition());
+		s.ecrireInt(cases.size());
+		for (Case c : cases)
+			s.ecrireCase(c);
+		s.ecrireInt(bord.size());
+		for (CaseBord b : bord) {
+			s.ecrireCase(b.position);
+			s.ecrireInt(b.intensite);
+			s.ecrireLong(b.echeance);
+			s.ecrireLong(b.dateAlimentation);
+			s.ecrireInt(b.moyenneAlimentation);
+		}
+		s.ecrireLong(intensiteBord);
+		s.ecrireLong(intensiteInterieure);
+		s.ecrireInts(nbInterieures, nbInterieures.length);
+		for (int[] paires : pairesInterieures)
+			s.ecrireInts(paires, paires.length);
+		s.ecrireLong(dateExpansion);
+		s.ecrireLong(dateDerniere);
+		s.ecrireLong(dateProchaine);
+		s.ecrireReference(getExpansionPrevue());
+		s.ecrireReference(arrosage);
+	}
+
+	/**
+	 * @return le nombre de cases de la zone
+	 */
+	public int getNbCases() {
+		return cases.size();
+	}
+
+	/**
+	 * @return le nombre de cases du bord de la zone
+	 */
+	public int getNbCasesBord() {
+		return bord.size();
+	}
+
+	/**
+	 * @return les cases de la zone, à ne pas modifier
+	 */
+	public List<Case> getCases() {
+		return cases;
+	}
+
+	/**
+	 * @return la date de la prochaine expansion de la zone
+	 */
+	long getDateProchaineExpansion() {
+		return dateProchaine;
+	}
+
+	/**
+	 * Ajoute une case en feu au bord de la zone, qui doit déjà y être indexée
+	 * dans les données. La zone s'étendra au plus tard quand la case doit se
+	 * propager
+	 *
+	 * @param c          la nouvelle case
+	 * @param intensite  l'intensité de l'incendie de la case
+	 * @param date       la date actuelle de la simulation
+	 * @param tailleCase taille d'une case en mètres
+	 */
+	void ajouterCase(Case c, int intensite, long date, int tailleCase) {
+		cases.add(c);
+		long avant = dateProchaine;
+		ajouterBord(c, intensite, date, tailleCase);
+		if (dateProchaine < avant)
+			dateDerniere = date;
+	}
+
+	/**
+	 * Étend la zone : les cases intérieures se propagent entre elles pour le temps
+	 * écoulé depuis la dernière expansion, puis les cases du bord dont la
+	 * propagation est due reçoivent celle de leurs voisines intérieures et se
+	 * propagent
+	 *
+	 * @param simulateur le simulateur
+	 */
+	@Override
+	public void propager(Simulateur simulateur, VoisinageLot voisinage) {
+		propager(simulateur);
+		// La zone a pu s'etendre sur des cases quelconques sans passer par la recherche partagee
+		if (voisinage != null)
+			voisinage.oublier();
+	}
+
+	@Override
+	public void propager(Simulateur simulateur) {
+		DonneeSimulation donnees = simulateur.getDonneeSimulation();
+		Carte carte = donnees.getCarte();
+		int tailleCase = carte.getTailleCase();
+		long date = simulateur.getDate();
+		long ecoule = date - dateExpansion;
+		int moyenne = getMoyenneInterieure();
+		int pas = getPas(tailleCase);
+
+		// La propagation entre cases interieures, calculee avant que le bord ne change
+		long interne = 0;
+		for (int nature = 0; nature < NATURES.length; nature++)
+			for (int n = 1; n <= MAX_VOISINES; n++)
+				if (pairesInterieures[nature][n] > 0)
+					interne += pairesInterieures[nature][n]
+							* apportInterieur(NATURES[nature], n, moyenne, ecoule, tailleCase);
+
+		// Les cases replacees dans la file, comme celles ajoutees a la zone, ne se
+		// propagent pas avant au moins un pas
+		while (!bord.isEmpty() && arrondir(bord.peek().echeance, pas) <= date) {
+			CaseBord b = bord.poll();
+			int cellule = carte.getCellule(b.position);
+			// Les cases interieures voisines alimentent la case, avec l'intensite moyenne
+			// de l'interieur sur la periode ecoulee
+			int moyennePeriode = (b.moyenneAlimentation + moyenne) / 2;
+			long recu = 0;
+			for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+				int voisine = carte.getVoisine(cellule, d);
+				if (voisine != Carte.HORS_CARTE && estInterieure(carte.getCase(voisine), donnees))
+					recu += apportInterieur(carte.getNature(voisine), carte.getNbVoisines(voisine), moyennePeriode,
+							date - b.dateAlimentation, tailleCase);
+			}
+			b.dateAlimentation = date;
+			b.moyenneAlimentation = moyenne;
+			modifierBord(b, b.intensite + recu);
+
+			propager(simulateur, donnees, b, cellule, date);
+			b.echeance = calculerEcheance(b.position.getNature(), b.intensite, date, tailleCase);
+
+			// Une case entouree par la zone, l'eau et la roche rejoint l'interieur
+			// quand elle y est au moins aussi forte que la moyenne
+			if (aVoisineExterieure(cellule, donnees) || b.intensite < getMoyenneInterieure())
+				bord.add(b);
+			else
+				rendreInterieure(b, donnees);
+		}
+
+		ajouterInterieur(interne);
+		dateExpansion = date;
+		dateDerniere = date;
+		dateProchaine = bord.isEmpty() ? Long.MAX_VALUE : Math.max(date + 1, arrondir(bord.peek().echeance, pas));
+		// Sans bord, l'interieur se renforce encore au rythme de sa nature la plus rapide
+		if (bord.isEmpty())
+			for (int nature = 0; nature < NATURES.length; nature++)
+				if (nbInterieures[nature] > 0)
+					dateProchaine = Math.min(dateProchaine,
+							calculerEcheance(NATURES[nature], getMoyenneInterieure(), date, tailleCase));
+		if (arrosage != null)
+			arrosage.replanifier();
+	}
+
+	/**
+	 * Méthode interne propageant une case du bord comme le ferait un incendie
+	 *
+	 * @param simulateur le simulateur
+	 * @param donnees    les données de la simulation
+	 * @param b          la case du bord
+	 * @param cellule    le numéro de la case
+	 * @param date       la date actuelle
+	 */
+	private void propager(Simulateur simulateur, DonneeSimulation donnees, CaseBord b, int cellule, long date) {
+		Carte carte = donnees.getCarte();
+		int intensitePropagee = b.intensite / (2 * carte.getNbVoisines(cellule));
+		if (intensitePropagee <= 0)
+			return;
+		for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+			int indice = carte.getVoisine(cellule, d);
+			if (indice == Carte.HORS_CARTE)
+				continue;
+			Case voisine = carte.getCase(indice);
+			if (!peutBruler(voisine))
+				continue;
+			Incendie incendieVoisin = donnees.getSingleIncendie(voisine);
+			if (incendieVoisin == this) {
+				CaseBord autre = indexBord.get(voisine);
+				if (autre != null)
+					modifierBord(autre, autre.intensite + intensitePropagee / 4);
+				else
+					ajouterInterieur(intensitePropagee / 4);
+			} else if (incendieVoisin != null)
+				incendieVoisin.recevoirPropagation(intensitePropagee, voisine);
+			else if (intensitePropagee < donnees.getSeuilZones())
+				donnees.etendreZone(this, voisine, intensitePropagee, date);
+			else
+				simulateur.ajouterIncendie(new Incendie(voisine, intensitePropagee));
+		}
+	}
+
+	/**
+	 * Reçoit la propagation d'un incendie voisin sur une case du bord de la zone
+	 *
+	 * @param intensitePropagee l'intensité propagée par le voisin
+	 * @param c                 la case de la zone qui la reçoit
+	 */
+	@Override
+	public void recevoirPropagation(int intensitePropagee, Case c) {
+		CaseBord b = indexBord.get(c);
+		if (b == null) {
+			recevoirPropagation(intensitePropagee);
+			return;
+		}
+		getIntensite();
+		modifierBord(b, b.intensite + intensitePropagee / 4);
+		if (arrosage != null)
+			arrosage.replanifier();
+	}
+
+	/**
+	 * Reçoit une propagation sans savoir sur quelle case, ajoutée à l'intérieur
+	 * de la zone s'il y en a un, et sinon à sa première case du bord
+	 *
+	 * @param intensitePropagee l'intensité propagée par le voisin
+	 */
+	@Override
+	public void recevoirPropagation(int intensitePropagee) {
+		setIntensite((int) Math.min(Integer.MAX_VALUE, (long) getIntensite() + intensitePropagee / 4));
+	}
+
+	/**
+	 * @return le temps séparant la prochaine expansion de la zone de la date où
+	 *         elle a été fixée
+	 */
+	@Override
+	public int getTempsPropagation(int tailleCase) {
+		return (int) Math.min(Integer.MAX_VALUE, dateProchaine - dateDerniere);
+	}
+
+	@Override
+	public Arrosage getArrosage() {
+		return arrosage;
+	}
+
+	@Override
+	public void setArrosage(Arrosage arrosage) {
+		this.arrosage = arrosage;
+	}
+
+	@Override
+	public int getIntensite() {
+		if (arrosage != null)
+			arrosage.materialiser();
+		return (int) Math.min(Integer.MAX_VALUE, intensiteInterieure + intensiteBord);
+	}
+
+	/**
+	 * Définit l'intensité totale de la zone : une baisse est retirée comme l'eau
+	 * déversée, une hausse est ajoutée à l'intérieur ou à la première case du bord
+	 *
+	 * @param intensite nouvelle intensité
+	 */
+	@Override
+	public void setIntensite(int intensite) {
+		long ecart = intensite - (long) getIntensite();
+		if (ecart < 0)
+			retirer(-ecart);
+		else if (getNbInterieures() > 0)
+			ajouterInterieur(ecart);
+		else
+			modifierBord(bord.peek(), bord.peek().intensite + ecart);
+		if (arrosage != null)
+			arrosage.replanifier();
+	}
+
+	@Override
+	public void arroser(int volume) {
+		retirer(volume);
+	}
+
+	/**
+	 * La position d'une zone est sa première case
+	 *
+	 * @throws UnsupportedOperationException toujours
+	 */
+	@Override
+	public void setPosition(Case position) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("Une zone d'incendies ne peut pas être déplacée");
+	}
+
+	/**
+	 * Méthode interne retirant un volume d'eau de l'intérieur, puis des cases du
+	 * bord
+	 *
+	 * @param volume le volume d'eau, en litres
+	 */
+	private void retirer(long volume) {
+		long interieur = Math.min(volume, intensiteInterieure);
+		intensiteInterieure -= interieur;
+		volume -= interieur;
+		for (CaseBord b : bord) {
+			if (volume == 0)
+				break;
+			int retire = (int) Math.min(volume, b.intensite);
+			modifierBord(b, b.intensite - retire);
+			volume -= retire;
+		}
+	}
+
+	/**
+	 * Méthode interne ajoutant une case au bord
+	 *
+	 * @param c          la case
+	 * @param intensite  l'intensité de son incendie
+	 * @param date       la date actuelle
+	 * @param tailleCase taille d'une case en mètres
+	 */
+	private void ajouterBord(Case c, int intensite, long date, int tailleCase) {
+		CaseBord b = new CaseBord(c, 0, calculerEcheance(c.getNature(), intensite, date, tailleCase), date,
+				getMoyenneInterieure());
+		modifierBord(b, intensite);
+		bord.add(b);
+		indexBord.put(c, b);
+		dateProchaine = Math.min(dateProchaine, Math.max(date + 1, arrondir(b.echeance, getPas(tailleCase))));
+	}
+
+	/**
+	 * Méthode interne calculant la date de la prochaine propagation d'une case du
+	 * bord
+	 *
+	 * @param nature     la nature de la case
+	 * @param intensite  l'intensité de son incendie
+	 * @param date       la date actuelle
+	 * @param tailleCase taille d'une case en mètres
+	 * @return la date de sa prochaine propagation, jamais pour une case éteinte
+	 */
+	private static long calculerEcheance(NatureTerrain nature, int intensite, long date, int tailleCase) {
+		int temps = getTempsPropagation(nature, intensite, tailleCase);
+		return temps > 0 ? date + temps : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Méthode interne modifiant l'intensité d'une case du bord
+	 *
+	 * @param b         la case du bord
+	 * @param intensite sa nouvelle intensité, limitée à l'intensité maximale
+	 */
+	private void modifierBord(CaseBord b, long intensite) {
+		int nouvelle = (int) Math.min(MAX_INTENSITE, intensite);
+		intensiteBord += nouvelle - b.intensite;
+		b.intensite = nouvelle;
+	}
+
+	/**
+	 * Méthode interne ajoutant de l'intensité à l'intérieur, limitée à
+	 * l'intensité maximale de chacune de ses cases
+	 *
+	 * @param intensite l'intensité ajoutée
+	 */
+	private void ajouterInterieur(long intensite) {
+		intensiteInterieure = Math.min(intensiteInterieure + intensite, getNbInterieures() * (long) MAX_INTENSITE);
+	}
+
+	/**
+	 * Méthode interne faisant passer une case du bord à l'intérieur
+	 *
+	 * @param b       la case du bord
+	 * @param donnees les données de la simulation
+	 */
+	private void rendreInterieure(CaseBord b, DonneeSimulation donnees) {
+		Carte carte = donnees.getCarte();
+		int cellule = carte.getCellule(b.position);
+		int nbVoisines = carte.getNbVoisines(cellule);
+		indexBord.remove(b.position);
+		intensiteBord -= b.intensite;
+		intensiteInterieure += b.intensite;
+		int nature = b.position.getNature().ordinal();
+		nbInterieures[nature]++;
+		for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+			int voisine = carte.getVoisine(cellule, d);
+			if (voisine != Carte.HORS_CARTE && estInterieure(carte.getCase(voisine), donnees)) {
+				pairesInterieures[nature][nbVoisines]++;
+				pairesInterieures[carte.getNumeroNature(voisine)][carte.getNbVoisines(voisine)]++;
+			}
+		}
+	}
+
+	/**
+	 * Méthode interne déterminant si une case est une case intérieure de la zone
+	 *
+	 * @param c       la case
+	 * @param donnees les données de la simulation
+	 * @return vrai si la case est dans la zone sans être au bord
+	 */
+	private boolean estInterieure(Case c, DonneeSimulation donnees) {
+		return donnees.getSingleIncendie(c) == this && !indexBord.containsKey(c);
+	}
+
+	/**
+	 * Méthode interne déterminant si une case a une voisine pouvant brûler hors de
+	 * la zone
+	 *
+	 * @param cellule le numéro de la case
+	 * @param donnees les données de la simulation
+	 * @return vrai si la case est au bord de la zone
+	 */
+	private boolean aVoisineExterieure(int cellule, DonneeSimulation donnees) {
+		Carte carte = donnees.getCarte();
+		for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+			int indice = carte.getVoisine(cellule, d);
+			if (indice == Carte.HORS_CARTE)
+				continue;
+			Case voisine = carte.getCase(indice);
+			if (peutBruler(voisine) && donnees.getSingleIncendie(voisine) != this)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Méthode interne donnant l'intensité reçue d'une case intérieure par une de
+	 * ses voisines pendant un temps donné
+	 *
+	 * @param nature     la nature de la case intérieure
+	 * @param n          son nombre de voisines
+	 * @param moyenne    l'intensité moyenne de l'intérieur
+	 * @param ecoule     le temps écoulé
+	 * @param tailleCase taille d'une case en mètres
+	 * @return l'intensité reçue par la voisine
+	 */
+	private static long apportInterieur(NatureTerrain nature, int n, int moyenne, long ecoule, int tailleCase) {
+		int recue = moyenne / (2 * n) / 4;
+		if (recue <= 0 || ecoule <= 0)
+			return 0;
+		return recue * ecoule / getTempsPropagation(nature, moyenne, tailleCase);
+	}
+
+	/**
+	 * Méthode interne donnant le pas sur lequel sont arrondies les dates de
+	 * propagation des cases du bord
+	 *
+	 * @param tailleCase taille d'une case en mètres
+	 * @return la moitié du temps de propagation minimal
+	 */
+	private static int getPas(int tailleCase) {
+		return Math.max(1, Incendie.getTempsPropagationMin(tailleCase) / 2);
+	}
+
+	/**
+	 * Méthode interne arrondissant une date au multiple du pas le plus proche
+	 *
+	 * @param date la date
+	 * @param pas  le pas
+	 * @return la date arrondie
+	 */
+	private static long arrondir(long date, int pas) {
+		if (date > Long.MAX_VALUE - pas)
+			return date;
+		return (date + pas / 2) / pas * pas;
+	}
+
+	/**
+	 * @return l'intensité moyenne d'une case intérieure, ou 0 s'il n'y en a pas
+	 */
+	private int getMoyenneInterieure() {
+		int nb = getNbInterieures();
+		return nb == 0 ? 0 : (int) (intensiteInterieure / nb);
+	}
+
+	/**
+	 * @return le nombre de cases intérieures
+	 */
+	private int getNbInterieures() {
+		int nb = 0;
+		for (int n : nbInterieures)
+			nb += n;
+		return nb;
+	}
+}
@@ -1,42 +1,135 @@
 package donnees.terrain;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
- * Représentation du terrain de la simulation
+ * Représentation du terrain de la simulation. Une carte est figée une fois
+ * construite par son {@link Builder} : elle peut donc être partagée sans
+ * synchronisation par toutes les simulations qui se déroulent dessus, même en
+ * parallèle. Le terrain est rangé dans un tableau d'octets, les numéros d'ordre
+ * des natures, indexé par le numéro de chaque case (ligne * nbColonnes +
+ * colonne), soit un octet par case.
+ * <p>
+ * Les voisines de chaque case sont calculées à la construction, dans un tableau
+ * d'entiers à {@link #NB_DIRECTIONS} emplacements par case, parcouru sans
+ * allocation :
+ * 
+ * <pre>
+ * int cellule = carte.getCellule(c);
+ * for (int d = 0; d &lt; Carte.NB_DIRECTIONS; d++) {
+ * 	int voisine = carte.getVoisine(cellule, d);
+ * 	if (voisine != Carte.HORS_CARTE)
+ * 		...
+ * }
+ * </pre>
+ * <p>
+ * Les {@link Composantes composantes connexes} de chaque classe de
+ * franchissement sont calculées à leur première demande puis gardées avec la
+ * carte.
  */
 public class Carte {
+	/**
+	 * Les natures de terrain, indexées par leur numéro d'ordre
+	 */
+	private static final NatureTerrain[] NATURES = NatureTerrain.values();
+	/**
+	 * Toutes les directions, dans l'ordre des emplacements de la table des
+	 * voisines
+	 */
+	private static final Direction[] DIRECTIONS = Direction.values();
+	/**
+	 * Nombre d'emplacements de chaque case dans la table des voisines, un par
+	 * {@link Direction}
+	 */
+	public static final int NB_DIRECTIONS = DIRECTIONS.length;
+	/**
+	 * Numéro de la voisine d'une case au bord de la carte, dans la direction du
+	 * bord
+	 */
+	public static final int HORS_CARTE = -1;
+
+	/**
+	 * Nombre de lignes de la carte (hauteur)
+	 */
+	private final int nbLignes;
+	/**
+	 * Nombre de colonnes de la carte (largeur)
+	 */
+	private final int nbColonnes;
 	/**
 	 * Taille d'une case, en mètres
 	 */
-	private int tailleCase;
+	private final int tailleCase;
+	/**
+	 * Le numéro d'ordre de la nature du terrain de chaque case
+	 */
+	private final byte[] natures;
+	/**
+	 * Les cases demandées au moins une fois, créées à la première demande : il
+	 * n'y a qu'une case par position, même si plusieurs threads la demandent en
+	 * même temps
+	 */
+	private final AtomicReferenceArray<Case> cases;
+	/**
+	 * Le numéro de la voisine de chaque case dans chaque direction, ou
+	 * {@link #HORS_CARTE}, à l'indice cellule * {@link #NB_DIRECTIONS} +
+	 * direction
+	 */
+	private final int[] voisines;
 	/**
-	 * Tableau deux dimensions répertoriant toutes les cases du terrain
+	 * Les composantes connexes déjà calculées, indexées par l'ensemble des natures
+	 * franchissables (un bit par numéro d'ordre de nature)
 	 */
-	private Case[][] cases;
+	private final AtomicReferenceArray<Composantes> composantes;
 
 	/**
-	 * Construit une carte vide
-	 * 
+	 * Constructeur interne, la carte étant construite par un {@link Builder}
+	 *
 	 * @param nbLignes   nombre de lignes de la carte (hauteur)
 	 * @param nbColonnes nombre de colonnes de la carte (largeur)
 	 * @param tailleCase taille d'une case en mètres
+	 * @param natures    le numéro d'ordre de la nature de chaque case, qui
+	 *                   appartient ensuite à la carte
 	 */
-	public Carte(int nbLignes, int nbColonnes, int tailleCase) {
-		this.cases = new Case[nbLignes][nbColonnes];
+	private Carte(int nbLignes, int nbColonnes, int tailleCase, byte[] natures) {
+		this.nbLignes = nbLignes;
+		this.nbColonnes = nbColonnes;
 		this.tailleCase = tailleCase;
+		this.natures = natures;
+		this.cases = new AtomicReferenceArray<>(natures.length);
+		this.voisines = new int[natures.length * NB_DIRECTIONS];
+		this.composantes = new AtomicReferenceArray<>(1 << NATURES.length);
+		for (int lig = 0; lig < nbLignes; lig++)
+			for (int col = 0; col < nbColonnes; col++)
+				for (int d = 0; d < NB_DIRECTIONS; d++) {
+					int ligVoisine = lig + DIRECTIONS[d].getLigne();
+					int colVoisine = col + DIRECTIONS[d].getColonne();
+					voisines[(lig * nbColonnes + col) * NB_DIRECTIONS + d] = ligVoisine < 0 || ligVoisine >= nbLignes
+							|| colVoisine < 0 || colVoisine >= nbColonnes ? HORS_CARTE
+									: ligVoisine * nbColonnes + colVoisine;
+				}
 	}
 
 	/**
 	 * @return le nombre de lignes de la carte (hauteur)
 	 */
 	public int getNbLignes() {
-		return this.cases.length;
+		return nbLignes;
 	}
 
 	/**
 	 * @return le nombre de colonnes de la carte (largeur)
 	 */
 	public int getNbColonnes() {
-		return this.cases[0].length;
+		return nbColonnes;
+	}
+
+	/**
+	 * @return le nombre de cases de la carte
+	 */
+	public int getNbCases() {
+		return natures.length;
 	}
 
 	/**
@@ -46,35 +139,90 @@ public class Carte {
 		return tailleCase;
 	}
 
+	/**
+	 * Retourne le numéro d'une case, qui indexe les tableaux parcourant toutes
+	 * les cases de la carte
+	 *
+	 * @param lig ligne de la case
+	 * @param col colonne de la case
+	 * @return le numéro de la case, ligne * nbColonnes + colonne
+	 */
+	public int getCellule(int lig, int col) {
+		return lig * nbColonnes + col;
+	}
+
+	/**
+	 * @param c une case de la carte
+	 * @return le numéro de la case
+	 */
+	public int getCellule(Case c) {
+		return c.getLigne() * nbColonnes + c.getColonne();
+	}
+
+	/**
+	 * Retourne la nature du terrain d'une case, sans créer la case
+	 *
+	 * @param cellule le numéro de la case
+	 * @return la nature de la case
+	 */
+	public NatureTerrain getNature(int cellule) {
+		return NATURES[natures[cellule]];
+	}
+
+	/**
+	 * Retourne la nature du terrain d'une case, sans créer la case
+	 *
+	 * @param lig ligne de la case
+	 * @param col colonne de la case
+	 * @return la nature de la case
+	 */
+	public NatureTerrain getNature(int lig, int col) {
+		return NATURES[natures[lig * nbColonnes + col]];
+	}
+
+	/**
+	 * @param cellule le numéro d'une case
+	 * @return le numéro d'ordre de la nature de la case
+	 */
+	public byte getNumeroNature(int cellule) {
+		return natures[cellule];
+	}
+
 	/**
 	 * Retourne une case du terrain à partir de sa position
-	 * 
+	 *
 	 * @param lig ligne de la case
 	 * @param col colonne de la case
 	 * @return la case correspondante, ou null si la position est en dehors du
 	 *         terrain
 	 */
 	public Case getCase(int lig, int col) {
-		if (lig < 0 || lig >= getNbLignes() || col < 0 || col >= getNbColonnes())
+		if (lig < 0 || lig >= nbLignes || col < 0 || col >= nbColonnes)
 			return null;
 
-		return this.cases[lig][col];
+		return getCase(lig * nbColonnes + col);
 	}
 
 	/**
-	 * Défini la nature de terrain à une position donnée
-	 * 
-	 * @param lig  ligne de la case
-	 * @param col  colonne de la case
-	 * @param type nature de la case
+	 * Retourne une case du terrain à partir de son numéro. La case est créée à sa
+	 * première demande, puis toujours la même est retournée
+	 *
+	 * @param cellule le numéro de la case
+	 * @return la case correspondante
 	 */
-	public void setCase(int lig, int col, NatureTerrain type) {
-		this.cases[lig][col] = new Case(lig, col, type);
+	public Case getCase(int cellule) {
+		Case c = cases.get(cellule);
+		if (c != null)
+			return c;
+		// Si un autre thread l'a creee entre temps, c'est la sienne qui est gardee
+		Case nouvelle = new Case(cellule / nbColonnes, cellule % nbColonnes, NATURES[natures[cellule]]);
+		c = cases.compareAndExchange(cellule, null, nouvelle);
+		return c != null ? c : nouvelle;
 	}
 
 	/**
 	 * Retourne la case voisine d'une case donnée
-	 * 
+	 *
 	 * @param src la case de départ
 	 * @param dir la direction voulue
 	 * @return la case voisine dans la direction voulue, ou null si celle-ci est en
@@ -86,4 +234,126 @@ public class Carte {
 
 		return getCase(ligne, colonne);
 	}
+
+	/**
+	 * Retourne la voisine d'une case dans une direction, lue dans la table des
+	 * voisines
+	 *
+	 * @param cellule   le numéro de la case
+	 * @param direction le numéro d'ordre de la {@link Direction}, entre 0 et
+	 *                  {@link #NB_DIRECTIONS} exclu
+	 * @return le numéro de la voisine, ou {@link #HORS_CARTE} si elle est en
+	 *         dehors du terrain
+	 */
+	public int getVoisine(int cellule, int direction) {
+		return voisines[cellule * NB_DIRECTIONS + direction];
+	}
+
+	/**
+	 * @param cellule le numéro d'une case
+	 * @return le nombre de voisines de la case sur la carte, au plus
+	 *         {@link #NB_DIRECTIONS}
+	 */
+	public int getNbVoisines(int cellule) {
+		int nb = 0;
+		for (int d = cellule * NB_DIRECTIONS; d < (cellule + 1) * NB_DIRECTIONS; d++)
+			if (voisines[d] != HORS_CARTE)
+				nb++;
+		return nb;
+	}
+
+	/**
+	 * Retourne les composantes connexes de la carte pour une classe de
+	 * franchissement. Elles sont calculées à leur première demande, en un
+	 * parcours de la carte, puis toujours les mêmes sont retournées
+	 *
+	 * @param franchissables les natures franchissables, un bit par numéro d'ordre
+	 *                       de nature
+	 * @return les composantes connexes correspondantes
+	 */
+	public Composantes getComposantes(int franchissables) {
+		Composantes c = composantes.get(franchissables);
+		if (c != null)
+			return c;
+		// Comme pour les cases, si un autre thread les a calculees entre temps, ce
+		// sont les siennes qui sont gardees
+		Composantes nouvelles = new Composantes(this, franchissables);
+		c = composantes.compareAndExchange(franchissables, null, nouvelles);
+		return c != null ? c : nouvelles;
+	}
+
+	/**
+	 * Construit une carte case par case. Toutes les cases sont du terrain libre
+	 * tant que leur nature n'a pas été définie, et le constructeur ne sert plus
+	 * une fois la carte construite
+	 */
+	public static class Builder {
+		/**
+		 * Nombre de lignes de la carte (hauteur)
+		 */
+		private final int nbLignes;
+		/**
+		 * Nombre de colonnes de la carte (largeur)
+		 */
+		private final int nbColonnes;
+		/**
+		 * Taille d'une case, en mètres
+		 */
+		private final int tailleCase;
+		/**
+		 * Le numéro d'ordre de la nature de chaque case, null une fois la carte
+		 * construite
+		 */
+		private byte[] natures;
+
+		/**
+		 * Commence la construction d'une carte
+		 *
+		 * @param nbLignes   nombre de lignes de la carte (hauteur)
+		 * @param nbColonnes nombre de colonnes de la carte (largeur)
+		 * @param tailleCase taille d'une case en mètres
+		 * @throws IllegalArgumentException si les dimensions sont incorrectes
+		 */
+		public Builder(int nbLignes, int nbColonnes, int tailleCase) throws IllegalArgumentException {
+			if (nbLignes <= 0 || nbColonnes <= 0 || (long) nbLignes * nbColonnes > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("Les dimensions de la carte sont incorrectes");
+			this.nbLignes = nbLignes;
+			this.nbColonnes = nbColonnes;
+			this.tailleCase = tailleCase;
+			this.natures = new byte[nbLignes * nbColonnes];
+			Arrays.fill(natures, (byte) NatureTerrain.TERRAIN_LIBRE.ordinal());
+		}
+
+		/**
+		 * Défini la nature de terrain à une position donnée
+		 *
+		 * @param lig    ligne de la case
+		 * @param col    colonne de la case
+		 * @param nature nature de la case
+		 * @return le constructeur, pour enchaîner les appels
+		 * @throws IllegalStateException si la carte a déjà été construite
+		 */
+		public Builder setNature(int lig, int col, NatureTerrain nature) throws IllegalStateException {
+			if (natures == null)
+				throw new IllegalStateException("La carte a déjà été construite");
+			if (lig < 0 || lig >= nbLignes || col < 0 || col >= nbColonnes)
+				throw new IndexOutOfBoundsException("La case [" + col + ";" + lig + "] est hors de la carte");
+			natures[lig * nbColonnes + col] = (byte) nature.ordinal();
+			return this;
+		}
+
+		/**
+		 * Construit la carte, qui garde le terrain défini sans le copier
+		 *
+		 * @return la carte construite
+		 * @throws IllegalStateException si la carte a déjà été construite
+		 */
+		public Carte construire() throws IllegalStateException {
+			if (natures == null)
+				throw new IllegalStateException("La carte a déjà été construite");
+			Carte carte = new Carte(nbLignes, nbColonnes, tailleCase, natures);
+			natures = null;
+			return carte;
+		}
+	}
 }
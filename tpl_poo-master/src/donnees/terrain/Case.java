@@ -1,61 +1,39 @@
 package donnees.terrain;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
-
 /**
- * Représente une case du terrain et peut être utilisé en tant que position
+ * Représente une case du terrain et peut être utilisé en tant que position.
+ * Seule la {@link Carte} crée des cases, une seule par position : deux cases
+ * d'une même carte sont donc égales si et seulement si elles sont le même
+ * objet.
  */
 public class Case {
 	/**
 	 * Ligne de la case sur le terrain
 	 */
-	private int ligne;
+	private final int ligne;
 	/**
 	 * Colonne de la case sur le terrain
 	 */
-	private int colonne;
+	private final int colonne;
 	/**
 	 * Nature du terrain de cette case
 	 */
-	private NatureTerrain nature;
+	private final NatureTerrain nature;
 
 	/**
-	 * Construit une case avec une nature de terrain
+	 * Construit une case avec une nature de terrain, à la première demande de
+	 * cette position à la carte
 	 * 
 	 * @param ligne   ligne de la case
 	 * @param colonne colonne de la case
 	 * @param nature  nature de terrain de la case
 	 */
-	public Case(int ligne, int colonne, NatureTerrain nature) {
+	Case(int ligne, int colonne, NatureTerrain nature) {
 		this.ligne = ligne;
 		this.colonne = colonne;
 		this.nature = nature;
 	}
 
-	/**
-	 * Construit une case vide
-	 * 
-	 * @param ligne   ligne de la case
-	 * @param colonne colonne de la case
-	 */
-	public Case(int ligne, int colonne) {
-		this.ligne = ligne;
-		this.colonne = colonne;
-		this.nature = NatureTerrain.TERRAIN_LIBRE;
-	}
-
-	/**
-	 * Construit une case en copiant une case existante
-	 * 
-	 * @param position case à copier
-	 */
-	public Case(Case position) {
-		this(position.ligne, position.colonne, position.nature);
-	}
-
 	/**
 	 * @return la ligne de la case
 	 */
@@ -88,33 +66,15 @@ public class Case {
 	}
 
 	/**
-	 * Retourne toutes les voisines valide de la case
-	 * 
-	 * @param carte terrain de la simulation
-	 * @return une liste des voisines valides
+	 * L'égalité est celle des objets, héritée de {@link Object#equals(Object)}.
+	 * Le code de hachage dépend en revanche de la seule position, et non de
+	 * l'adresse de l'objet, pour que l'ordre des cases dans les ensembles et
+	 * tables de hachage, et donc le déroulement des simulations, soit le même
+	 * d'une exécution à l'autre
 	 */
-	public List<Case> getVoisines(Carte carte) {
-		return Arrays.asList(Direction.values()).stream().map(dir -> carte.getVoisin(this, dir))
-				.filter(Objects::nonNull).collect(Collectors.toList());
-	}
-
 	@Override
-	public boolean equals(Object o) {
-		if (o == null && !(o instanceof Case))
-			return false;
-		Case c = (Case) o;
-		// On fait le check que sur la position
-		return this.ligne == c.ligne && this.colonne == c.colonne;
-	}
-
-		@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		// On fait le check que sur la position
-		result = prime * result + colonne;
-		result = prime * result + ligne;
-		return result;
+		return 31 * (31 + colonne) + ligne;
 	}
 
 	@Override
@@ -0,0 +1,148 @@
+package donnees.terrain;
+
+import java.util.Arrays;
+
+/**
+ * Composantes connexes d'une carte pour une classe de franchissement, c'est à
+ * dire un ensemble de natures de terrain franchissables (celles d'un type de
+ * robot). Deux cases franchissables ont la même étiquette si et seulement si
+ * on peut aller de l'une à l'autre sans quitter ce terrain : un chemin entre
+ * deux composantes différentes n'existe donc pas, ce qui se sait sans le
+ * chercher.
+ * <p>
+ * Chaque composante retient aussi les natures de ses cases et celles des cases
+ * qui la bordent, pour savoir aussitôt si une nature de terrain y est
+ * atteignable, ou longeable. Les composantes sont calculées une fois par carte
+ * et par classe de franchissement, avec {@link Carte#getComposantes(int)}.
+ */
+public class Composantes {
+	/**
+	 * Étiquette d'une case infranchissable, qui n'appartient à aucune composante
+	 */
+	public static final int AUCUNE = -1;
+
+	/**
+	 * Les natures franchissables, un bit par numéro d'ordre de nature
+	 */
+	private final int franchissables;
+	/**
+	 * L'étiquette de chaque case, ou {@link #AUCUNE}
+	 */
+	private final int[] etiquettes;
+	/**
+	 * Les natures des cases de chaque composante, un bit par numéro d'ordre
+	 */
+	private final int[] naturesContenues;
+	/**
+	 * Les natures des cases voisines des cases de chaque composante, un bit par
+	 * numéro d'ordre
+	 */
+	private final int[] naturesBordees;
+
+	/**
+	 * Étiquette les cases d'une carte par un parcours en largeur de chaque
+	 * composante
+	 *
+	 * @param carte          la carte étiquetée
+	 * @param franchissables les natures franchissables, un bit par numéro d'ordre
+	 *                       de nature
+	 */
+	Composantes(Carte carte, int franchissables) {
+		this.franchissables = franchissables;
+		int nbCases = carte.getNbCases();
+		etiquettes = new int[nbCases];
+		int[] contenues = new int[16];
+		int[] bordees = new int[16];
+		int[] file = new int[nbCases];
+		int nbComposantes = 0;
+		for (int i = 0; i < nbCases; i++)
+			etiquettes[i] = estFranchissable(carte, i) ? nbCases : AUCUNE;
+
+		for (int origine = 0; origine < nbCases; origine++) {
+			// Les cases franchissables encore sans composante sont marquees par nbCases
+			if (etiquettes[origine] != nbCases)
+				continue;
+			if (nbComposantes == contenues.length) {
+				contenues = Arrays.copyOf(contenues, nbComposantes * 2);
+				bordees = Arrays.copyOf(bordees, nbComposantes * 2);
+			}
+			int contenue = 0;
+			int bordee = 0;
+			int debut = 0;
+			int fin = 0;
+			file[fin++] = origine;
+			etiquettes[origine] = nbComposantes;
+			while (debut < fin) {
+				int cellule = file[debut++];
+				contenue |= 1 << carte.getNumeroNature(cellule);
+				for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+					int voisine = carte.getVoisine(cellule, d);
+					if (voisine == Carte.HORS_CARTE)
+						continue;
+					bordee |= 1 << carte.getNumeroNature(voisine);
+					if (etiquettes[voisine] == nbCases) {
+						etiquettes[voisine] = nbComposantes;
+						file[fin++] = voisine;
+					}
+				}
+			}
+			contenues[nbComposantes] = contenue;
+			bordees[nbComposantes] = bordee;
+			nbComposantes++;
+		}
+		naturesContenues = Arrays.copyOf(contenues, nbComposantes);
+		naturesBordees = Arrays.copyOf(bordees, nbComposantes);
+	}
+
+	/**
+	 * Méthode interne indiquant si une case est franchissable
+	 *
+	 * @param carte   la carte étiquetée
+	 * @param cellule le numéro de la case
+	 * @return vrai si la nature de la case est franchissable
+	 */
+	private boolean estFranchissable(Carte carte, int cellule) {
+		return (franchissables & (1 << carte.getNumeroNature(cellule))) != 0;
+	}
+
+	/**
+	 * @return les natures franchissables, un bit par numéro d'ordre de nature
+	 */
+	public int getFranchissables() {
+		return franchissables;
+	}
+
+	/**
+	 * @return le nombre de composantes de la carte
+	 */
+	public int getNbComposantes() {
+		return naturesContenues.length;
+	}
+
+	/**
+	 * @param cellule le numéro d'une case
+	 * @return l'étiquette de la composante de la case, ou {@link #AUCUNE} si elle
+	 *         est infranchissable
+	 */
+	public int getEtiquette(int cellule) {
+		return etiquettes[cellule];
+	}
+
+	/**
+	 * @param etiquette l'étiquette d'une composante
+	 * @param nature    une nature de terrain
+	 * @return vrai si une case de la composante est de cette nature
+	 */
+	public boolean contient(int etiquette, NatureTerrain nature) {
+		return (naturesContenues[etiquette] & (1 << nature.ordinal())) != 0;
+	}
+
+	/**
+	 * @param etiquette l'étiquette d'une composante
+	 * @param nature    une nature de terrain
+	 * @return vrai si une case de la composante a une voisine de cette nature
+	 */
+	public boolean borde(int etiquette, NatureTerrain nature) {
+		return (naturesBordees[etiquette] & (1 << nature.ordinal())) != 0;
+	}
+}
@@ -14,6 +14,10 @@ public enum Direction {
 	 * Déplacement en colonne représenté par la direction
 	 */
 	private int colonne;
+	/**
+	 * Toutes les directions, pour les parcourir sans copier {@link #values()}
+	 */
+	private static final Direction[] DIRECTIONS = values();
 
 	/**
 	 * Constructeur interne permettant de décrire une direction
@@ -49,7 +53,7 @@ public enum Direction {
 	 *         correspond
 	 */
 	public static Direction fromOffset(int ligneOffset, int colonneOffset) {
-		for (Direction d : values()) {
+		for (Direction d : DIRECTIONS) {
 			if (d.ligne == ligneOffset && d.colonne == colonneOffset)
 				return d;
 		}
@@ -1,15 +1,21 @@
 package ia.chemins;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import donnees.simulation.Duplicable;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegardable;
+import donnees.simulation.Sauvegarde;
 import donnees.terrain.Case;
 import donnees.terrain.Direction;
 
 /**
  * Chemin réalisable entre deux cases
  */
-public class Chemin {
+public class Chemin implements Duplicable, Sauvegardable {
 	/**
 	 * Liste des cases composant le chemin. La première case est la case de départ
 	 * et le dernière la case d'arrivée.
@@ -31,6 +37,43 @@ public class Chemin {
 		this.cout = cout;
 	}
 
+	/**
+	 * Copie le chemin dans une duplication : les robots et leurs trajets
+	 * partageant le même chemin partageront sa copie
+	 * 
+	 * @param d la duplication en cours
+	 * @return la copie du chemin
+	 */
+	@Override
+	public Chemin dupliquer(Duplication d) {
+		Chemin copie = new Chemin(cases, cout);
+		d.enregistrer(this, copie);
+		return copie;
+	}
+
+	/**
+	 * Relit un chemin dans une reprise
+	 * 
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private Chemin(Reprise r) throws IOException {
+		r.enregistrer(this);
+		int taille = r.lireInt();
+		this.cases = new ArrayList<>(taille);
+		for (int i = 0; i < taille; i++)
+			cases.add(r.lireCase());
+		this.cout = r.lireDouble();
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireInt(cases.size());
+		for (Case c : cases)
+			s.ecrireCase(c);
+		s.ecrireDouble(cout);
+	}
+
 	/**
 	 * Retourne le nombre de case du chemin
 	 */
@@ -1,17 +1,12 @@
 package ia.chemins;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Set;
-import java.util.function.Function;
+import java.util.Arrays;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 
 import donnees.robots.Robot;
 import donnees.terrain.Carte;
 import donnees.terrain.Case;
-import java.util.Comparator;
 
 /**
  * Implémente l'algorithme de recherche de chemin A*. En pratique, lorsqu'on
@@ -22,88 +17,139 @@ import java.util.Comparator;
  * heuristique la fonction h: x-> 0. Dans ce cas A* est équivalent à Dijkstra.
  */
 public class RechercheAStar extends RechercheChemin {
-
 	/**
-	 * Classe interne permettant de comparer deux noeuds suivant leur distance plus
-	 * le résultat de la fonction heuristique
+	 * Tampons de travail de l'algorithme, réutilisés d'une recherche à l'autre
+	 * par un même thread pour ne rien allouer pendant la recherche. Les noeuds du
+	 * graphe sont numérotés dans l'ordre de leur création, et décrits par des
+	 * tableaux indexés par ce numéro.
 	 */
-	private static class HeuristicComparator implements Comparator<Node> {
-
-		@Override
-		public int compare(Node n1, Node n2) {
-			return (int) Math.signum(n1.esperance - n2.esperance);
-		}
-	}
-
-	/**
-	 * Noeud dans le graphe orienté pour la recherche de chemin
-	 */
-	private static class Node {
+	private static class Tampons {
+		/**
+		 * Indice (ligne * nombre de colonnes + colonne) de la case de chaque noeud
+		 */
+		private int[] caseNoeud = new int[0];
 		/**
-		 * Case de la carte représentée par le noeud
+		 * Noeud précédent de chaque noeud dans le chemin, ou -1
 		 */
-		public Case pos;
+		private int[] precedent = new int[0];
 		/**
-		 * Noeud précédent dans le chemin
+		 * Distance au point de départ de chaque noeud, soit la somme des coûts des
+		 * arcs conduisant du noeud de départ à ce noeud
 		 */
-		public Node prev;
+		private double[] distance = new double[0];
 		/**
-		 * Distance au point de départ, soit la somme des coûts des arcs conduisant du
-		 * noeud de départ à ce noeud.
+		 * Distance au point de départ plus le résultat de la fonction heuristique,
+		 * pour chaque noeud
 		 */
-		public double distance;
+		private double[] esperance = new double[0];
 		/**
-		 * Distance au point de départ plus le résultat de la fonction heuristique
+		 * Les noeuds à visiter, en tas binaire ordonné par espérance croissante
 		 */
-		public double esperance;
+		private int[] tas = new int[0];
+		/**
+		 * Marque de la dernière recherche ayant visité chaque case
+		 */
+		private int[] marques = new int[0];
+		/**
+		 * Marque de la recherche en cours
+		 */
+		private int marque = 0;
+		/**
+		 * Nombre de recherches effectuées par le thread
+		 */
+		private long nbRecherches = 0;
 
 		/**
-		 * Construit un noeud dans le graphe
+		 * Prépare les tampons pour une recherche sur une carte
 		 * 
-		 * @param pos  la position de la carte représentée par ce noeud
-		 * @param prev le noeud précédent ou null si ce noeud n'a pas d'antécédent
+		 * @param nbCases le nombre de cases de la carte
 		 */
-		public Node(Case pos, Node prev) {
-			this.pos = pos;
-			this.prev = prev;
-			this.distance = 0;
-			this.esperance = 0;
+		private void preparer(int nbCases) {
+			// Chaque case donne au plus un noeud, sauf la case de depart qui n'est pas
+			// marquee et peut donc en donner deux
+			if (marques.length < nbCases) {
+				caseNoeud = new int[nbCases + 1];
+				precedent = new int[nbCases + 1];
+				distance = new double[nbCases + 1];
+				esperance = new double[nbCases + 1];
+				tas = new int[nbCases + 1];
+				marques = new int[nbCases];
+				marque = 0;
+			}
+			if (++marque == 0) {
+				Arrays.fill(marques, 0);
+				marque = 1;
+			}
 		}
 
 		/**
-		 * Construit un noeud sans antécédent
+		 * Compare deux noeuds suivant leur distance plus le résultat de la fonction
+		 * heuristique
 		 * 
-		 * @param pos position de la carte représentée par ce noeud
+		 * @param n1 le premier noeud
+		 * @param n2 le second noeud
+		 * @return un entier négatif, nul ou positif selon que le premier noeud est
+		 *         plus prometteur, autant ou moins que le second
 		 */
-		public Node(Case pos) {
-			this(pos, null);
+		private int comparer(int n1, int n2) {
+			return (int) Math.signum(esperance[n1] - esperance[n2]);
 		}
 
 		/**
-		 * Méthode récursive privée permettant de reconstruire le chemin, utilisée par
-		 * {@link #toChemin()}
+		 * Ajoute un noeud dans le tas, en le faisant remonter exactement comme le
+		 * ferait une {@link java.util.PriorityQueue}, pour que les noeuds de même
+		 * espérance sortent dans le même ordre
 		 * 
-		 * @param liste la liste de cases permettant de rejoindre la destination depuis
-		 *              ce noeud
-		 * @param cout  le coût global du chemin
-		 * @return le chemin correspondant
+		 * @param taille le nombre de noeuds dans le tas
+		 * @param noeud  le noeud à ajouter
 		 */
-		private Chemin toChemin(List<Case> liste, double cout) {
-			liste.add(0, pos);
-			if (prev == null)
-				return new Chemin(liste, cout);
-			else
-				return prev.toChemin(liste, cout);
+		private void ajouter(int taille, int noeud) {
+			int k = taille;
+			while (k > 0) {
+				int parent = (k - 1) >>> 1;
+				if (comparer(noeud, tas[parent]) >= 0)
+					break;
+				tas[k] = tas[parent];
+				k = parent;
+			}
+			tas[k] = noeud;
 		}
 
 		/**
-		 * @return le chemin représenté par ce noeud et ses antécédents
+		 * Retire le noeud le plus prometteur du tas, comme le ferait une
+		 * {@link java.util.PriorityQueue}
+		 * 
+		 * @param taille le nombre de noeuds dans le tas, non nul
+		 * @return le noeud retiré
 		 */
-		public Chemin toChemin() {
-			return toChemin(new ArrayList<>(), distance);
+		private int retirer(int taille) {
+			int resultat = tas[0];
+			int n = taille - 1;
+			int noeud = tas[n];
+			int k = 0;
+			int moitie = n >>> 1;
+			while (k < moitie) {
+				int fils = 2 * k + 1;
+				int droit = fils + 1;
+				if (droit < n && comparer(tas[fils], tas[droit]) > 0)
+					fils = droit;
+				if (comparer(noeud, tas[fils]) <= 0)
+					break;
+				tas[k] = tas[fils];
+				k = fils;
+			}
+			if (n > 0)
+				tas[k] = noeud;
+			return resultat;
 		}
 	}
 
+	/**
+	 * Les tampons de travail de chaque thread, plusieurs robots pouvant chercher
+	 * leur chemin en même temps
+	 */
+	private static final ThreadLocal<Tampons> tampons = ThreadLocal.withInitial(Tampons::new);
+
 	/**
 	 * Exécution de l'algorithme A* sur la carte.
 	 * 
@@ -115,55 +161,66 @@ public class RechercheAStar extends RechercheChemin {
 	 * 
 	 * @param robot             robot cherchant son chemin
 	 * @param carte             carte de la simulation
+	 * @param depart            case de départ du chemin
 	 * @param pathCompleted     prédicat déterminant si une case est une fin de
 	 *                          chemin valide (c'est-à-dire une solution de la
 	 *                          recherche de chemin)
 	 * @param heuristicFunction fonction heuristique déterminant le coût estimé du
-	 *                          reste du chemin jusqu'à l'objectif
+	 *                          reste du chemin jusqu'à l'objectif depuis une case
 	 * @return le chemin calculé ou null si aucun objectif n'a pu être atteint
 	 */
-	private Chemin calculerChemin(Robot robot, Carte carte, Predicate<Case> pathCompleted,
-			Function<Node, Double> heuristicFunction) {
-		// La taille des cases est constante, du coup n'importe quelle constante fait
-		// l'affaire
-		final double TAILLE_CASE = 1;
-		// L'ensemble des cases visites
-		Set<Case> visites = new HashSet<>();
-		// Les noeuds a visiter, ordonnes par priorite croissante (cout croissant)
-		PriorityQueue<Node> pendingNodes = new PriorityQueue<>(new HeuristicComparator());
-
-		// Initialisation, on ajoute le noeud correspondant a la position du robot dans
-		// la liste
-		pendingNodes.add(new Node(robot.getPosition()));
+	private Chemin calculerChemin(Robot robot, Carte carte, Case depart, Predicate<Case> pathCompleted,
+			ToDoubleFunction<Case> heuristicFunction) {
+		// La taille des cases est constante, on prend donc 1 : le cout d'une case est
+		// l'inverse de la vitesse du robot sur son terrain, lu dans sa table des couts
+		double[] couts = robot.getCoutsTraversee();
+		Tampons t = tampons.get();
+		t.nbRecherches++;
+		t.preparer(carte.getNbCases());
+
+		// Initialisation, on ajoute le noeud correspondant a la case de depart dans le
+		// tas des noeuds a visiter
+		t.caseNoeud[0] = carte.getCellule(depart);
+		t.precedent[0] = -1;
+		t.distance[0] = 0;
+		t.esperance[0] = 0;
+		t.tas[0] = 0;
+		int nbNoeuds = 1;
+		int nbEnAttente = 1;
 		// Tant qu'on a des noeuds a visiter, on a pas fini
-		while (!pendingNodes.isEmpty()) {
+		while (nbEnAttente > 0) {
 			// On selectionne le noeud le plus interessant
-			Node currentNode = pendingNodes.poll();
+			int noeud = t.retirer(nbEnAttente--);
+			int cellule = t.caseNoeud[noeud];
+			Case pos = carte.getCase(cellule);
 
 			// Si on est arrive a la fin alors on retourne le chemin
-			if (pathCompleted.test(currentNode.pos))
-				return currentNode.toChemin();
+			if (pathCompleted.test(pos))
+				return construireChemin(t, carte, noeud);
 
-			// On parcourt les case voisines du noeud courant
-			for (Case posVoisin : currentNode.pos.getVoisines(carte)) {
-				// On prend une case voisine que si elle existe et qu'elle n'a pas ete traitee
-				if (posVoisin == null || visites.contains(posVoisin))
+			// On parcourt les case voisines du noeud courant dans la table des voisines,
+			// pour ne rien allouer
+			for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+				// On prend une case voisine que si elle existe et n'a pas ete traitee
+				int indice = carte.getVoisine(cellule, d);
+				if (indice == Carte.HORS_CARTE || t.marques[indice] == t.marque)
 					continue;
 
-				// On cree le noeud correspondant a la case
-				Node nextNode = new Node(posVoisin, currentNode);
-				double vitesse = robot.getVitesse(nextNode.pos.getNature());
+				double cout = couts[carte.getNumeroNature(indice)];
 				// Si le terrain est accessible
-				if (vitesse != 0) {
-					// On defini la distance du noeud
-					nextNode.distance = currentNode.distance + TAILLE_CASE / vitesse;
-					// On ajoute l'estimation de la fonction heuristique
-					nextNode.esperance = nextNode.distance + heuristicFunction.apply(nextNode);
+				if (cout != Double.POSITIVE_INFINITY) {
+					// On cree le noeud correspondant a la case, avec sa distance et l'estimation
+					// de la fonction heuristique
+					int suivant = nbNoeuds++;
+					t.caseNoeud[suivant] = indice;
+					t.precedent[suivant] = noeud;
+					t.distance[suivant] = t.distance[noeud] + cout;
+					t.esperance[suivant] = t.distance[suivant] + heuristicFunction.applyAsDouble(carte.getCase(indice));
 					// On ajoute le noeud aux noeuds a visiter
-					pendingNodes.add(nextNode);
+					t.ajouter(nbEnAttente++, suivant);
 					// On s'assure que le noeud ne pourra plus etre ajoute dans la liste des noeuds
 					// a visiter
-					visites.add(posVoisin);
+					t.marques[indice] = t.marque;
 				}
 			}
 		}
@@ -173,18 +230,52 @@ public class RechercheAStar extends RechercheChemin {
 		return null;
 	}
 
+	/**
+	 * Méthode interne reconstruisant le chemin menant du départ à un noeud, en
+	 * remontant ses antécédents
+	 * 
+	 * @param t     les tampons de la recherche
+	 * @param carte la carte de la simulation
+	 * @param noeud le noeud d'arrivée
+	 * @return le chemin correspondant
+	 */
+	private static Chemin construireChemin(Tampons t, Carte carte, int noeud) {
+		int taille = 0;
+		for (int n = noeud; n >= 0; n = t.precedent[n])
+			taille++;
+		Case[] cases = new Case[taille];
+		for (int n = noeud; n >= 0; n = t.precedent[n])
+			cases[--taille] = carte.getCase(t.caseNoeud[n]);
+		return new Chemin(Arrays.asList(cases), t.distance[noeud]);
+	}
+
+	/**
+	 * Le compteur est propre à chaque thread, comme les tampons de travail : les
+	 * recherches de simulations menées en parallèle ne se disputent pas un
+	 * compteur partagé, et ne se comptent pas les unes les autres
+	 * 
+	 * @return le nombre de recherches de chemin effectuées par le thread courant
+	 *         depuis son lancement
+	 */
+	public static long getNbRecherches() {
+		return tampons.get().nbRecherches;
+	}
+
 	@Override
-	public Chemin trouverPlusProche(Robot robot, Carte carte, Predicate<Case> estCaseCorrecte) {
+	public Chemin trouverPlusProche(Robot robot, Carte carte, Case depart, Predicate<Case> estCaseCorrecte) {
 
 		// System.out.println("Objective is some random pos : " + robot);
-		return calculerChemin(robot, carte, estCaseCorrecte,
+		return calculerChemin(robot, carte, depart, estCaseCorrecte,
 				n -> (double) carte.getNbColonnes() + carte.getNbLignes() + 1);
 	}
 
 	@Override
 	public Chemin cheminVers(Robot robot, Carte carte, Case objectif) {
+		// Inutile de parcourir toute la composante du robot si l'objectif n'y est pas
+		if (estHorsDAtteinte(robot, carte, objectif))
+			return null;
 
 		// System.out.println("Objective is ["+ligne + ";" + colonne + "]");
-		return calculerChemin(robot, carte, c -> c.equals(objectif), n -> 0.0);
+		return calculerChemin(robot, carte, robot.getPosition(), c -> c.equals(objectif), n -> 0.0);
 	}
 }
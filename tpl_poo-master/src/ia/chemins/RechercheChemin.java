@@ -5,10 +5,14 @@ import java.util.function.Predicate;
 import donnees.robots.Robot;
 import donnees.terrain.Carte;
 import donnees.terrain.Case;
+import donnees.terrain.Composantes;
 import donnees.terrain.NatureTerrain;
 
 /**
  * Classe abstraite proposant des méthodes permettant de trouver des chemins optimaux pour les robots
+ * 
+ * Les objectifs hors de la composante connexe du robot (voir {@link Composantes}) sont refusés
+ * d'emblée, sans parcourir les cases atteignables.
  */
 public abstract class RechercheChemin {
 	
@@ -22,7 +26,33 @@ public abstract class RechercheChemin {
 	 */
 	public Chemin trouverCaseAdjacenteA(Robot robot, Carte carte, NatureTerrain objectif)
 	{
-		return trouverPlusProche(robot, carte, c -> c.getVoisines(carte).stream().anyMatch(vois -> vois.getNature() == objectif));
+		return trouverCaseAdjacenteA(robot, carte, robot.getPosition(), objectif);
+	}
+
+	/**
+	 * Permet de trouver le plus court chemin vers une case voisine à une case du type voulue,
+	 * comme si le robot était sur une case de départ donnée
+	 * @param robot le robot cherchant le chemin
+	 * @param carte la carte de la simulation
+	 * @param depart la case de départ du chemin
+	 * @param objectif la nature de terrain de la case dont la case d'arrivée devra être voisine
+	 * @return un chemin vers une case qui a une case adjacente de nature désirée
+	 */
+	public Chemin trouverCaseAdjacenteA(Robot robot, Carte carte, Case depart, NatureTerrain objectif)
+	{
+		Composantes composantes = carte.getComposantes(robot.getNaturesFranchissables());
+		int etiquette = composantes.getEtiquette(carte.getCellule(depart));
+		if (etiquette != Composantes.AUCUNE && !composantes.borde(etiquette, objectif))
+			return null;
+		return trouverPlusProche(robot, carte, depart, c -> {
+			int cellule = carte.getCellule(c);
+			for (int d = 0; d < Carte.NB_DIRECTIONS; d++) {
+				int voisine = carte.getVoisine(cellule, d);
+				if (voisine != Carte.HORS_CARTE && carte.getNature(voisine) == objectif)
+					return true;
+			}
+			return false;
+		});
 	}
 	
 	/**
@@ -34,7 +64,25 @@ public abstract class RechercheChemin {
 	 */
 	public Chemin trouverPlusProche(Robot robot, Carte carte, NatureTerrain objectif)
 	{
-		return trouverPlusProche(robot, carte, c -> c.getNature() == objectif);
+		return trouverPlusProche(robot, carte, robot.getPosition(), objectif);
+	}
+
+	/**
+	 * Permet de trouver la case de nature désirée la plus proche d'une case de départ donnée
+	 * et le chemin du robot vers celle-ci
+	 * @param robot le robot cherchant le chemin
+	 * @param carte la carte de la simulation
+	 * @param depart la case de départ du chemin
+	 * @param objectif la nature désirée de la case
+	 * @return le chemin s'il existe, null sinon
+	 */
+	public Chemin trouverPlusProche(Robot robot, Carte carte, Case depart, NatureTerrain objectif)
+	{
+		Composantes composantes = carte.getComposantes(robot.getNaturesFranchissables());
+		int etiquette = composantes.getEtiquette(carte.getCellule(depart));
+		if (etiquette != Composantes.AUCUNE && !composantes.contient(etiquette, objectif))
+			return null;
+		return trouverPlusProche(robot, carte, depart, c -> c.getNature() == objectif);
 	}
 	
 	/**
@@ -44,7 +92,21 @@ public abstract class RechercheChemin {
 	 * @param estCaseCorrecte prédicat indiquant si une case est une case de destination souhaitée
 	 * @return le chemin s'il existe, null sinon
 	 */
-	public abstract Chemin trouverPlusProche(Robot r, Carte carte, Predicate<Case> estCaseCorrecte);
+	public Chemin trouverPlusProche(Robot r, Carte carte, Predicate<Case> estCaseCorrecte)
+	{
+		return trouverPlusProche(r, carte, r.getPosition(), estCaseCorrecte);
+	}
+
+	/**
+	 * Permet de trouver la case la plus proche d'une case de départ donnée parmi les cases qui
+	 * satisfassent le prédicat
+	 * @param r le robot cherchant le chemin
+	 * @param carte la carte de la simulation
+	 * @param depart la case de départ du chemin
+	 * @param estCaseCorrecte prédicat indiquant si une case est une case de destination souhaitée
+	 * @return le chemin s'il existe, null sinon
+	 */
+	public abstract Chemin trouverPlusProche(Robot r, Carte carte, Case depart, Predicate<Case> estCaseCorrecte);
 	
 	/**
 	 * Permet de calculer le plus court chemin entre le robot et une position voulue
@@ -55,4 +117,44 @@ public abstract class RechercheChemin {
 	 */
 	public abstract Chemin cheminVers(Robot robot, Carte carte, Case objectif);
 
+	/**
+	 * Permet de savoir si une position est accessible au robot depuis une case de départ. La
+	 * réponse est lue dans les composantes connexes de la carte ; elle n'exige une recherche de
+	 * chemin que si la case de départ est d'un terrain que le robot ne peut pas franchir
+	 * @param robot le robot cherchant le chemin
+	 * @param carte la carte de la simulation
+	 * @param depart la case de départ du chemin
+	 * @param objectif la position de destination souhaitée
+	 * @return vrai si un chemin mène le robot de la case de départ à l'objectif, faux sinon
+	 */
+	public boolean estAccessible(Robot robot, Carte carte, Case depart, Case objectif)
+	{
+		if (depart == objectif)
+			return true;
+		Composantes composantes = carte.getComposantes(robot.getNaturesFranchissables());
+		int etiquette = composantes.getEtiquette(carte.getCellule(depart));
+		if (etiquette != Composantes.AUCUNE)
+			return etiquette == composantes.getEtiquette(carte.getCellule(objectif));
+		return trouverPlusProche(robot, carte, depart, c -> c.equals(objectif)) != null;
+	}
+
+	/**
+	 * Permet de savoir sans recherche qu'une position est hors d'atteinte d'un robot, parce qu'elle
+	 * n'est pas dans la composante connexe de sa position. Un robot posé sur un terrain qu'il ne
+	 * peut pas franchir n'a pas de composante : on ne conclut alors rien
+	 * @param robot le robot cherchant le chemin
+	 * @param carte la carte de la simulation
+	 * @param objectif la position de destination souhaitée
+	 * @return vrai si aucun chemin ne mène le robot à l'objectif, faux si un chemin peut exister
+	 */
+	protected static boolean estHorsDAtteinte(Robot robot, Carte carte, Case objectif)
+	{
+		Case depart = robot.getPosition();
+		if (depart == objectif)
+			return false;
+		Composantes composantes = carte.getComposantes(robot.getNaturesFranchissables());
+		int etiquette = composantes.getEtiquette(carte.getCellule(depart));
+		return etiquette != Composantes.AUCUNE && etiquette != composantes.getEtiquette(carte.getCellule(objectif));
+	}
+
 }
@@ -1,15 +1,64 @@
 package ia.strategie;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import donnees.simulation.Changement;
+import donnees.simulation.Duplicable;
+import donnees.simulation.Duplication;
+import donnees.simulation.Sauvegardable;
+import donnees.simulation.Sauvegarde;
 import donnees.simulation.Simulateur;
 
 /**
  * Le chef pompier donne des ordres et permet de coordonner les actions des robots pompier dans la simulation
  * C'est le chef pompier qui est responsable de la stratégie d'extinction des incendies
  */
-public interface ChefPompier {
+public interface ChefPompier extends Duplicable, Sauvegardable {
+	/**
+	 * L'ensemble de tous les changements, partagé par les chefs pompiers qui s'y
+	 * abonnent
+	 */
+	public static final Set<Changement> TOUS_CHANGEMENTS = Collections.unmodifiableSet(EnumSet.allOf(Changement.class));
+
 	/**
 	 * Permet au chef pompier de donner ses ordres aux robots pompiers
 	 * @param simulateur le simulateur
 	 */
 	public void donnerOrdres(Simulateur simulateur);
+
+	/**
+	 * Donne les changements de la simulation qui peuvent amener le chef pompier à
+	 * donner de nouveaux ordres : il n'est consulté que si l'un d'eux est survenu
+	 * depuis sa dernière consultation. Par défaut, il s'abonne à tous les
+	 * changements
+	 * @return les changements auxquels le chef pompier est abonné
+	 */
+	public default Set<Changement> getAbonnements() {
+		return TOUS_CHANGEMENTS;
+	}
+
+	/**
+	 * Copie le chef pompier pour le simulateur construit par une duplication. Par
+	 * défaut, le chef pompier n'a aucun état propre et est partagé avec la copie
+	 * @param d la duplication en cours
+	 * @return la copie du chef pompier, ou lui-même
+	 */
+	@Override
+	public default ChefPompier dupliquer(Duplication d) {
+		return this;
+	}
+
+	/**
+	 * Écrit l'état du chef pompier dans une sauvegarde. Par défaut, le chef
+	 * pompier n'a aucun état propre et est reconstruit par son constructeur sans
+	 * paramètre
+	 * @param s la sauvegarde en cours
+	 * @throws IOException si l'écriture échoue
+	 */
+	@Override
+	public default void sauvegarder(Sauvegarde s) throws IOException {
+	}
 }
@@ -2,10 +2,14 @@ package ia.strategie;
 
 import donnees.Incendie;
 import donnees.robots.Robot;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegarde;
 import donnees.simulation.Simulateur;
 import ordres.Ordre;
 import ordres.TypeOrdre;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -24,9 +28,41 @@ public class ChefPompierBasique implements ChefPompier {
 		incendieAffect = new HashSet<>();
 	}
 
+	/**
+	 * Copie le chef pompier avec son calepin, qui recense les copies des incendies
+	 */
+	@Override
+	public ChefPompierBasique dupliquer(Duplication d) {
+		ChefPompierBasique copie = new ChefPompierBasique();
+		d.enregistrer(this, copie);
+		for (Incendie incendie : incendieAffect)
+			copie.incendieAffect.add(d.copie(incendie));
+		return copie;
+	}
+
+	/**
+	 * Relit le chef pompier dans une reprise, avec son calepin
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private ChefPompierBasique(Reprise r) throws IOException {
+		this();
+		r.enregistrer(this);
+		int nbIncendies = r.lireInt();
+		for (int i = 0; i < nbIncendies; i++)
+			incendieAffect.add(r.lireReference());
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireInt(incendieAffect.size());
+		for (Incendie incendie : incendieAffect)
+			s.ecrireReference(incendie);
+	}
+
 	@Override
 	public void donnerOrdres(Simulateur simulateur) {
-		List<Incendie> incendies = simulateur.getDonneeSimulation().getIncendies();
+		Collection<Incendie> incendies = simulateur.getDonneeSimulation().getIncendies();
 		List<Robot> robots = simulateur.getDonneeSimulation().getRobots();
 		
 		// S'il n'y a pas d'incendies ou de robot, notre chef pompier peut retourner lire son journal
@@ -40,9 +76,17 @@ public class ChefPompierBasique implements ChefPompier {
 			if (incendieAffect.contains(incendie))
 				continue;
 			
-			// Sinon on cherche on donne l'ordre aux robots de la list de l'eteindre, jusqu'a ce qu'un robot pompier puisse réaliser l'ordre
-			for (Robot robot : robots) {
-				if (robot.recevoirOrdre(simulateur, new Ordre(TypeOrdre.ETEINDRE_INCENDIE, incendie))) {
+			// Sinon on cherche on donne l'ordre aux robots de la list de l'eteindre, jusqu'a ce qu'un robot pompier puisse réaliser l'ordre.
+			// Les robots sont parcourus par indice et l'ordre n'est construit que si un robot est pret a le recevoir,
+			// pour que la consultation n'alloue rien quand tous les robots sont occupes
+			Ordre ordre = null;
+			for (int i = 0; i < robots.size(); i++) {
+				Robot robot = robots.get(i);
+				if (!robot.isReady(TypeOrdre.ETEINDRE_INCENDIE))
+					continue;
+				if (ordre == null)
+					ordre = new Ordre(TypeOrdre.ETEINDRE_INCENDIE, incendie);
+				if (robot.recevoirOrdre(simulateur, ordre)) {
 					// Dans ce cas le chef pompier note dans son calepin que cet incendie est traite
 					this.incendieAffect.add(incendie);
 					break;
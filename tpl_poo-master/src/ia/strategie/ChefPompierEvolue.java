@@ -2,13 +2,18 @@ package ia.strategie;
 
 import donnees.Incendie;
 import donnees.robots.Robot;
+import donnees.simulation.Duplication;
+import donnees.simulation.Reprise;
+import donnees.simulation.Sauvegarde;
 import donnees.simulation.Simulateur;
 import donnees.terrain.Case;
 import ia.chemins.Chemin;
 import ordres.Ordre;
 import ordres.TypeOrdre;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -50,10 +55,47 @@ public class ChefPompierEvolue implements ChefPompier {
 		nbThreadsMax = Runtime.getRuntime().availableProcessors();
 	}
 
+	/**
+	 * Copie le chef pompier avec son calepin, qui recense les copies des
+	 * incendies, pour le simulateur construit
+	 */
+	@Override
+	public ChefPompierEvolue dupliquer(Duplication d) {
+		ChefPompierEvolue copie = new ChefPompierEvolue();
+		d.enregistrer(this, copie);
+		for (Incendie incendie : incendieAffect)
+			copie.incendieAffect.add(d.copie(incendie));
+		copie.simu = simu == null ? null : d.getSimulateur();
+		copie.nbThreadsMax = nbThreadsMax;
+		return copie;
+	}
+
+	/**
+	 * Relit le chef pompier dans une reprise, avec son calepin
+	 * @param r la reprise en cours
+	 * @throws IOException si la lecture échoue
+	 */
+	private ChefPompierEvolue(Reprise r) throws IOException {
+		this();
+		r.enregistrer(this);
+		int nbIncendies = r.lireInt();
+		for (int i = 0; i < nbIncendies; i++)
+			incendieAffect.add(r.lireReference());
+		simu = r.lireBooleen() ? r.getSimulateur() : null;
+	}
+
+	@Override
+	public void sauvegarder(Sauvegarde s) throws IOException {
+		s.ecrireInt(incendieAffect.size());
+		for (Incendie incendie : incendieAffect)
+			s.ecrireReference(incendie);
+		s.ecrireBooleen(simu != null);
+	}
+
 	@Override
 	public void donnerOrdres(Simulateur simulateur) {
 		simu = simulateur;
-		List<Incendie> incendies = simu.getDonneeSimulation().getIncendies();
+		Collection<Incendie> incendies = simu.getDonneeSimulation().getIncendies();
 		List<Robot> robots = simu.getDonneeSimulation().getRobots();
 
 		// S'il n'y a pas d'incendies ou de robots alors le chef pompier peut retourner
@@ -1,5 +1,9 @@
 package ia.strategie;
 
+import java.util.Collections;
+import java.util.Set;
+
+import donnees.simulation.Changement;
 import donnees.simulation.Simulateur;
 
 /**
@@ -13,4 +17,10 @@ public class ChefPompierParesseux implements ChefPompier {
 	public void donnerOrdres(Simulateur simulateur) {
 	}
 
+	@Override
+	public Set<Changement> getAbonnements() {
+		// Rien ne le fera changer d'avis
+		return Collections.emptySet();
+	}
+
 }
@@ -3,7 +3,6 @@ package ia.strategie;
 import donnees.Incendie;
 import donnees.robots.Robot;
 import donnees.terrain.Carte;
-import ordres.Ordre;
 import ordres.TypeOrdre;
 
 import java.util.concurrent.Callable;
@@ -42,7 +41,7 @@ public class RunnableRobot implements Callable<ResultIncendie> {
 	@Override
 	public ResultIncendie call() throws Exception {
 		try {
-			if (robot.isReady(new Ordre(TypeOrdre.ETEINDRE_INCENDIE, incendie))) {
+			if (robot.isReady(TypeOrdre.ETEINDRE_INCENDIE)) {
 				return new ResultIncendie(robot, robot.calculerCheminVers(carte, incendie.getPosition()).getCout());
 			}
 			return new ResultIncendie(robot, Double.MAX_VALUE);
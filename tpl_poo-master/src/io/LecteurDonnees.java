@@ -1,6 +1,5 @@
 package io;
 
-
 import java.io.*;
 import java.util.*;
 
@@ -50,7 +49,12 @@ public class LecteurDonnees {
         List<Incendie> incendies =  lecteur.lireIncendies(carte);
         List<Robot> robots = lecteur.lireRobots(carte);
         scanner.close();
-        
+
+        // Les composantes connexes de chaque type de robot sont calculees des le
+        // chargement, plutot qu'a la premiere recherche de chemin
+        for (Robot robot : robots)
+            carte.getComposantes(robot.getNaturesFranchissables());
+
         return new DonneeSimulation(incendies, carte, robots);
     }
 
@@ -77,19 +81,18 @@ public class LecteurDonnees {
      */
     private Carte lireCarte() throws IllegalArgumentException {
         ignorerCommentaires();
-        Carte carte;
         try {
             int nbLignes = scanner.nextInt();
             int nbColonnes = scanner.nextInt();
             int tailleCases = scanner.nextInt();	// en m
-            carte = new Carte(nbLignes, nbColonnes, tailleCases);
+            Carte.Builder carte = new Carte.Builder(nbLignes, nbColonnes, tailleCases);
 
             for (int lig = 0; lig < nbLignes; lig++) {
                 for (int col = 0; col < nbColonnes; col++) {
-                    carte.setCase(lig, col, lireCase(lig, col));
+                    carte.setNature(lig, col, lireCase(lig, col));
                 }
             }
-            return carte;
+            return carte.construire();
 
         } catch (NoSuchElementException e) {
             throw new IllegalArgumentException("Format invalide. "
@@ -127,9 +130,7 @@ public class LecteurDonnees {
         try {
             int nbIncendies = scanner.nextInt();
             for (int i = 0; i < nbIncendies; i++) {
-                Incendie incendie = lireIncendie(i);
-                incendie.setPosition(carte.getCase(incendie.getPosition().getLigne(),incendie.getPosition().getColonne()));
-                incendies.add(incendie);
+                incendies.add(lireIncendie(i, carte));
             }
             return incendies;
 
@@ -143,8 +144,9 @@ public class LecteurDonnees {
     /**
      * Lit et affiche les donnees du i-eme incendie.
      * @param i
+     * @param carte la carte deja lue, dont est tiree la case de l'incendie
      */
-    private Incendie lireIncendie(int i) throws IllegalArgumentException {
+    private Incendie lireIncendie(int i, Carte carte) throws IllegalArgumentException {
         ignorerCommentaires();
         Incendie incendie;
         try {
@@ -156,7 +158,7 @@ public class LecteurDonnees {
                         + "nb litres pour eteindre doit etre > 0");
             }
             verifieLigneTerminee();
-            incendie = new Incendie(new Case(lig, col), intensite);
+            incendie = new Incendie(lirePosition(carte, lig, col), intensite);
             return incendie;
 
         } catch (NoSuchElementException e) {
@@ -175,8 +177,7 @@ public class LecteurDonnees {
         try {
             int nbRobots = scanner.nextInt();
             for (int i = 0; i < nbRobots; i++) {
-                Robot robot = lireRobot(i);
-                robot.setPosition(carte.getCase(robot.getPosition().getLigne(),robot.getPosition().getColonne()));
+                Robot robot = lireRobot(i, carte);
                 if(robot != null){
                     robots.add(robot);
                 }
@@ -192,8 +193,9 @@ public class LecteurDonnees {
     /**
      * Lit et affiche les donnees du i-eme robot.
      * @param i
+     * @param carte la carte deja lue, dont est tiree la case du robot
      */
-    private Robot lireRobot(int i) throws IllegalArgumentException {
+    private Robot lireRobot(int i, Carte carte) throws IllegalArgumentException {
         ignorerCommentaires();
         Robot robot;
         try {
@@ -205,10 +207,10 @@ public class LecteurDonnees {
             String s = scanner.findInLine("(\\d+)");	// 1 or more digit(s) ?
             // pour lire un flottant:    ("(\\d+(\\.\\d+)?)");
             if (s == null) {
-                robot = this.createRobot(lig,col, rType, null);
+                robot = this.createRobot(lirePosition(carte, lig, col), rType, null);
             } else {
                 int vitesse = Integer.parseInt(s);
-                robot = this.createRobot(lig,col, rType, (double)vitesse);
+                robot = this.createRobot(lirePosition(carte, lig, col), rType, (double)vitesse);
             }
             verifieLigneTerminee();
             return robot;
@@ -218,21 +220,39 @@ public class LecteurDonnees {
         }
     }
 
-    private Robot createRobot(int lig, int col, RobotType type, Double vitesse) throws IllegalArgumentException {
+    private Robot createRobot(Case position, RobotType type, Double vitesse) throws IllegalArgumentException {
         switch (type) {
             case DRONE:
-                return vitesse != null ? new Drone(new Case(lig, col), vitesse) : new Drone(new Case(lig, col));
+                return vitesse != null ? new Drone(position, vitesse) : new Drone(position);
             case ROUES:
-                return vitesse != null ? new RobotRoues(new Case(lig, col), vitesse) : new RobotRoues(new Case(lig, col));
+                return vitesse != null ? new RobotRoues(position, vitesse) : new RobotRoues(position);
             case PATTES:
-                return new RobotPattes(new Case(lig, col));
+                return new RobotPattes(position);
             case CHENILLES:
-                return vitesse != null ? new RobotChenilles(new Case(lig, col), vitesse) : new RobotChenilles(new Case(lig, col));
+                return vitesse != null ? new RobotChenilles(position, vitesse) : new RobotChenilles(position);
             default:
                 return null;
         }
     }
 
+    /**
+     * Retourne la case de la carte lue a une position, pour que les incendies et
+     * les robots partagent les cases de la carte.
+     * @param carte la carte deja lue
+     * @param lig ligne de la position
+     * @param col colonne de la position
+     * @return la case de la carte
+     * @throws IllegalArgumentException si la position est hors de la carte
+     */
+    private Case lirePosition(Carte carte, int lig, int col) throws IllegalArgumentException {
+        Case position = carte.getCase(lig, col);
+        if (position == null) {
+            throw new IllegalArgumentException("position [" + col + ";" + lig
+                    + "] hors de la carte");
+        }
+        return position;
+    }
+
 
 
 
@@ -0,0 +1,119 @@
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import donnees.Incendie;
+import donnees.robots.Robot;
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.Simulateur;
+import donnees.simulation.SimulateurScript;
+import donnees.terrain.Carte;
+import donnees.terrain.Case;
+import ia.strategie.ChefPompierParesseux;
+
+/**
+ * Mesure la mémoire occupée par une grande carte générée, table des voisines
+ * comprise, et échoue si elle dépasse son budget. Vérifie ensuite que des
+ * threads demandant en même temps les cases d'une carte obtiennent les mêmes
+ * objets, puis que des simulations lancées en parallèle sur la même carte
+ * donnent les mêmes résultats que lancées une par une.
+ */
+public class BenchmarkCarte {
+
+	private final static int TAILLE = 2000;
+	private final static int TAILLE_SIMULEE = 200;
+	private final static int NB_INCENDIES = 2000;
+	private final static long DUREE_SIMULEE = 50000;
+	private final static int NB_THREADS = 4;
+	/**
+	 * Octets de la table des voisines par case, un entier par direction
+	 */
+	private final static int OCTETS_VOISINES = Integer.BYTES * Carte.NB_DIRECTIONS;
+	/**
+	 * Budget de mémoire d'une carte en octets par case, avant la création de ses
+	 * cases : l'octet de la nature, la table des voisines et l'emplacement de la
+	 * case dans le cache des cases, une référence d'au plus 8 octets
+	 */
+	private final static double BUDGET_OCTETS_PAR_CASE = 1 + OCTETS_VOISINES + 8;
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+		ExecutorService threads = Executors.newFixedThreadPool(NB_THREADS);
+		try {
+			long avant = memoireUtilisee();
+			Carte carte = GenerateurCarte.generer(TAILLE, 1, TAILLE).getCarte();
+			long apres = memoireUtilisee();
+			double octetsParCase = (apres - avant) / (double) carte.getNbCases();
+			System.out.printf(
+					"Carte generee-%dx%d : %.2f octets par case (terrain 1, voisines %d, cache des cases %.2f), budget %.0f%n",
+					TAILLE, TAILLE, octetsParCase, OCTETS_VOISINES, octetsParCase - 1 - OCTETS_VOISINES,
+					BUDGET_OCTETS_PAR_CASE);
+			if (octetsParCase > BUDGET_OCTETS_PAR_CASE) {
+				System.out.println("\tLa carte depasse son budget de memoire !");
+				System.exit(1);
+			}
+
+			// Les threads parcourent les cases dans des ordres differents
+			List<Future<Case[]>> parcours = new ArrayList<>();
+			for (int t = 0; t < NB_THREADS; t++) {
+				int decalage = t * carte.getNbCases() / NB_THREADS;
+				parcours.add(threads.submit(() -> {
+					Case[] cases = new Case[carte.getNbCases()];
+					for (int i = 0; i < cases.length; i++) {
+						int cellule = (i + decalage) % cases.length;
+						cases[cellule] = carte.getCase(cellule);
+					}
+					return cases;
+				}));
+			}
+			Case[] premieres = parcours.get(0).get();
+			for (Future<Case[]> f : parcours) {
+				Case[] cases = f.get();
+				for (int i = 0; i < cases.length; i++)
+					if (cases[i] != premieres[i] || cases[i].getNature() != carte.getNature(i)) {
+						System.out.println("\tDeux threads ont obtenu des cases differentes pour " + cases[i] + " !");
+						System.exit(1);
+					}
+			}
+			System.out.println("\t" + NB_THREADS + " threads, memes cases");
+
+			DonneeSimulation donnees = GenerateurCarte.generer(TAILLE_SIMULEE, NB_INCENDIES, TAILLE_SIMULEE);
+			long attendue = simuler(donnees);
+			List<Future<Long>> resultats = new ArrayList<>();
+			for (int t = 0; t < NB_THREADS; t++)
+				resultats.add(threads.submit(() -> simuler(donnees)));
+			for (Future<Long> resultat : resultats)
+				if (resultat.get() != attendue) {
+					System.out.println("\tUne simulation parallele differe de la simulation seule !");
+					System.exit(1);
+				}
+			System.out.println("\t" + NB_THREADS + " simulations paralleles sur la meme carte, identiques");
+		} finally {
+			threads.shutdown();
+		}
+	}
+
+	private static long simuler(DonneeSimulation donnees) {
+		Simulateur simulateur = new SimulateurScript(new DonneeSimulation(donnees), new ChefPompierParesseux(),
+				DUREE_SIMULEE);
+		simulateur.next();
+		long empreinte = simulateur.getDate() * 31 + simulateur.getNbEvenementsExecutes();
+		for (Incendie incendie : simulateur.getDonneeSimulation().getIncendies())
+			empreinte = empreinte * 31 + incendie.getIntensite() * 7 + incendie.getPosition().getLigne() * 1000
+					+ incendie.getPosition().getColonne();
+		for (Robot robot : simulateur.getDonneeSimulation().getRobots())
+			empreinte = empreinte * 31 + robot.getPosition().getLigne() * 1000 + robot.getPosition().getColonne();
+		return empreinte;
+	}
+
+	private static long memoireUtilisee() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,81 @@
+package test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+
+import donnees.Incendie;
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.Simulateur;
+import donnees.simulation.SimulateurScript;
+import ia.chemins.RechercheAStar;
+import ia.strategie.ChefPompier;
+import io.LecteurDonnees;
+
+/**
+ * Mesure, sur chaque carte et pour chaque chef pompier, le nombre de
+ * consultations du chef pompier et de recherches de chemin A* quand le chef est
+ * consulté avant chaque évènement et quand il ne l'est qu'après un changement
+ * auquel il est abonné, et vérifie que la simulation se déroule de la même
+ * façon dans les deux cas.
+ */
+public class BenchmarkChefPompier {
+
+	private final static long DUREE_SIMULEE = 500000;
+	private final static String[] DESC_CHEFS = { "basique", "evolue", "efficace", "cool" };
+
+	public static void main(String[] args) {
+		File[] cartes = new File("cartes").listFiles();
+		Arrays.sort(cartes);
+		boolean identiques = true;
+		for (File f : cartes) {
+			if (!f.canRead() || !f.getPath().endsWith(".map"))
+				continue;
+			try {
+				identiques &= mesurer(f.getName(), LecteurDonnees.lire(f.getPath()));
+			} catch (FileNotFoundException | IllegalArgumentException e) {
+				System.err.println("Carte invalide !");
+			}
+		}
+		if (!identiques)
+			System.exit(1);
+	}
+
+	private static boolean mesurer(String nomCarte, DonneeSimulation donnees) {
+		System.out.println("Carte " + nomCarte);
+		boolean identiques = true;
+		for (int i = 0; i < ChefsPompiers.DONNANT_DES_ORDRES.size(); i++) {
+			long recherches = RechercheAStar.getNbRecherches();
+			Simulateur avant = executer(donnees, ChefsPompiers.DONNANT_DES_ORDRES.get(i).get(), true);
+			long recherchesAvant = RechercheAStar.getNbRecherches() - recherches;
+
+			recherches = RechercheAStar.getNbRecherches();
+			Simulateur apres = executer(donnees, ChefsPompiers.DONNANT_DES_ORDRES.get(i).get(), false);
+			long recherchesApres = RechercheAStar.getNbRecherches() - recherches;
+
+			boolean identique = calculerEmpreinte(avant) == calculerEmpreinte(apres)
+					&& avant.getNbEvenementsExecutes() == apres.getNbEvenementsExecutes();
+			identiques &= identique;
+			System.out.printf("\t%-10s consultations %8d -> %6d, recherches A* %9d -> %7d (-%.1f%%) %s%n",
+					DESC_CHEFS[i], avant.getNbConsultations(), apres.getNbConsultations(), recherchesAvant,
+					recherchesApres, 100.0 * (recherchesAvant - recherchesApres) / Math.max(1, recherchesAvant),
+					identique ? "" : "(DEROULEMENT DIFFERENT !)");
+		}
+		return identiques;
+	}
+
+	private static Simulateur executer(DonneeSimulation donnees, ChefPompier chef, boolean systematique) {
+		Simulateur simulateur = new SimulateurScript(donnees, chef, DUREE_SIMULEE);
+		simulateur.setConsultationSystematique(systematique);
+		simulateur.next();
+		return simulateur;
+	}
+
+	private static long calculerEmpreinte(Simulateur simulateur) {
+		long empreinte = simulateur.getDate();
+		for (Incendie incendie : simulateur.getDonneeSimulation().getIncendies())
+			empreinte = empreinte * 31 + incendie.getIntensite() * 7 + incendie.getPosition().getLigne() * 1000
+					+ incendie.getPosition().getColonne();
+		return empreinte;
+	}
+}
@@ -0,0 +1,156 @@
+package test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import donnees.simulation.Chronologie;
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.EventQueueType;
+import donnees.simulation.Simulateur;
+import ia.strategie.ChefPompier;
+import ia.strategie.ChefPompierParesseux;
+
+/**
+ * Vérifie sur une petite carte générée, pour chaque chef pompier, chaque file
+ * d'évènements et chaque {@link ModeSimulation mode de simulation}, qu'une
+ * simulation enregistrée puis replacée dans le désordre à différentes dates s'y
+ * retrouve dans le même état, nombre de consultations du chef pompier compris,
+ * qu'une simulation avancée directement jusqu'à ces dates, toutes les images
+ * clés permises par l'espacement étant prises. Mesure ensuite, sur une grande
+ * carte générée, le surcoût de l'enregistrement, borné par défaut, et le temps
+ * moyen d'un déplacement dans la chronologie.
+ */
+public class BenchmarkChronologie {
+
+	private final static int TAILLE_VERIFIEE = 40;
+	private final static int NB_INCENDIES_VERIFIES = 60;
+	private final static long PAS_VERIFIE = 2000;
+	private final static int NB_PAS_VERIFIES = 10;
+	private final static int NB_DATES_VERIFIEES = 12;
+	private final static long ESPACEMENT_VERIFIE = 1500;
+	private final static int NB_CLES_VERIFIEES = 4;
+	private final static int TAILLE = 1000;
+	private final static int NB_INCENDIES = 50000;
+	private final static long PAS = 2000;
+	private final static int NB_PAS = 10;
+	private final static long ESPACEMENT = 2000;
+	private final static int NB_CLES = 8;
+	private final static int NB_DEPLACEMENTS = 10;
+	private final static int NB_REPETITIONS = 3;
+
+	public static void main(String[] args) {
+		DonneeSimulation donnees = GenerateurCarte.generer(TAILLE_VERIFIEE, NB_INCENDIES_VERIFIES, TAILLE_VERIFIEE);
+		System.out.println("Carte generee-" + TAILLE_VERIFIEE + "x" + TAILLE_VERIFIEE + " (" + NB_PAS_VERIFIES
+				+ " pas de " + PAS_VERIFIE + "s, images cles tous les " + ESPACEMENT_VERIFIE + "s, "
+				+ NB_CLES_VERIFIEES + " au plus)");
+		Random random = new Random(42);
+		int nbVerifiees = 0;
+		for (Supplier<ChefPompier> chef : ChefsPompiers.TOUS)
+			for (EventQueueType type : EventQueueType.values())
+				for (ModeSimulation mode : ModeSimulation.values()) {
+					verifier(donnees, chef, type, mode, random);
+					nbVerifiees++;
+				}
+		System.out.println("\t" + nbVerifiees + " simulations replacees identiques a leur reference");
+
+		donnees = GenerateurCarte.generer(TAILLE, NB_INCENDIES, TAILLE);
+		System.out.println("Carte generee-" + TAILLE + "x" + TAILLE + " (" + NB_INCENDIES + " incendies, "
+				+ NB_PAS + " pas de " + PAS + "s, images cles tous les " + ESPACEMENT + "s, " + NB_CLES
+				+ " au plus)");
+		mesurer(donnees, ModeSimulation.OBJETS, random);
+		mesurer(donnees, ModeSimulation.MAGASIN, random);
+		mesurer(donnees, ModeSimulation.MOTEUR, random);
+	}
+
+	/**
+	 * Simule quelques pas en enregistrant la chronologie, puis replace la
+	 * simulation à des dates tirées au hasard dans le désordre, et compare chaque
+	 * fois à une simulation sans images clés avancée dans l'ordre jusqu'à ces dates
+	 */
+	private static void verifier(DonneeSimulation donnees, Supplier<ChefPompier> chef, EventQueueType type,
+			ModeSimulation mode, Random random) {
+		Simulateur original = mode.creer(donnees, chef.get(), type, PAS_VERIFIE);
+		original.enregistrerChronologie(ESPACEMENT_VERIFIE, NB_CLES_VERIFIEES, Double.POSITIVE_INFINITY);
+		for (int i = 0; i < NB_PAS_VERIFIES; i++)
+			original.next();
+
+		long[] dates = new long[NB_DATES_VERIFIEES];
+		for (int i = 0; i < dates.length; i++)
+			dates[i] = (long) (random.nextDouble() * (original.getDate() + PAS_VERIFIE));
+		long[] triees = dates.clone();
+		Arrays.sort(triees);
+		Simulateur reference = mode.creer(donnees, chef.get(), type, PAS_VERIFIE);
+		reference.enregistrerChronologie(Long.MAX_VALUE, 2);
+		long[] attendues = new long[triees.length];
+		for (int i = 0; i < triees.length; i++) {
+			reference.seek(triees[i]);
+			attendues[i] = ModeSimulation.calculerEmpreinte(reference);
+		}
+
+		for (long date : dates) {
+			original.seek(date);
+			if (ModeSimulation.calculerEmpreinte(original) != attendues[Arrays.binarySearch(triees, date)]) {
+				System.out.println("\t" + chef.get().getClass().getSimpleName() + " " + type + " " + mode
+						+ " : la simulation replacee a " + date + "s differe de la reference !");
+				System.exit(1);
+			}
+		}
+	}
+
+	private static void mesurer(DonneeSimulation donnees, ModeSimulation mode, Random random) {
+		// Une premiere simulation pour laisser le JIT compiler le code
+		Simulateur simulateur = mode.creer(donnees, new ChefPompierParesseux(), EventQueueType.TAS_BINAIRE, PAS);
+		simulateur.enregistrerChronologie(ESPACEMENT, NB_CLES);
+		for (int i = 0; i < NB_PAS; i++)
+			simulateur.next();
+		simulateur.seek(0);
+
+		// Les simulations avec et sans enregistrement sont alternees, et on garde
+		// le meilleur temps de chacune
+		double millisSans = Double.MAX_VALUE;
+		double millisAvec = Double.MAX_VALUE;
+		double millisCaptures = 0;
+		for (int r = 0; r < NB_REPETITIONS; r++) {
+			simulateur = mode.creer(donnees, new ChefPompierParesseux(), EventQueueType.TAS_BINAIRE, PAS);
+			long debut = System.nanoTime();
+			for (int i = 0; i < NB_PAS; i++)
+				simulateur.next();
+			millisSans = Math.min(millisSans, (System.nanoTime() - debut) / 1e6);
+			long attendue = ModeSimulation.calculerEmpreinte(simulateur);
+
+			simulateur = mode.creer(donnees, new ChefPompierParesseux(), EventQueueType.TAS_BINAIRE, PAS);
+			debut = System.nanoTime();
+			simulateur.enregistrerChronologie(ESPACEMENT, NB_CLES);
+			for (int i = 0; i < NB_PAS; i++)
+				simulateur.next();
+			millisAvec = Math.min(millisAvec, (System.nanoTime() - debut) / 1e6);
+			millisCaptures = simulateur.getChronologie().getDureeCaptures() / 1e6;
+			if (ModeSimulation.calculerEmpreinte(simulateur) != attendue) {
+				System.out.println("\tLa simulation enregistree differe de la simulation sans enregistrement !");
+				System.exit(1);
+			}
+		}
+		long dateFin = simulateur.getDate();
+
+		long debut = System.nanoTime();
+		for (int i = 0; i < NB_DEPLACEMENTS; i++)
+			simulateur.seek((long) (random.nextDouble() * dateFin));
+		double millisDeplacement = (System.nanoTime() - debut) / 1e6 / NB_DEPLACEMENTS;
+		// Le retour a la fin doit retrouver la simulation enregistree, sauf les
+		// evenements de meme date restant apres le dernier pas
+		simulateur.seek(dateFin);
+
+		Chronologie chronologie = simulateur.getChronologie();
+		System.out.printf(
+				"\t%-8s sans %8.2f ms, avec %8.2f ms (%+5.1f%%), captures %7.2f ms, %d images cles tous les %ds,"
+						+ " deplacement %8.2f ms%n",
+				mode, millisSans, millisAvec, (millisAvec / millisSans - 1) * 100,
+				millisCaptures, chronologie.getNbCles(), chronologie.getEspacement(),
+				millisDeplacement);
+		if (simulateur.getDate() != dateFin) {
+			System.out.println("\tLa simulation replacee a la fin n'y est pas revenue !");
+			System.exit(1);
+		}
+	}
+}
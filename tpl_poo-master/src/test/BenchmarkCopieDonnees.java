@@ -0,0 +1,166 @@
+package test;
+
+import donnees.Incendie;
+import donnees.robots.Robot;
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.Simulateur;
+import donnees.simulation.SimulateurScript;
+import donnees.terrain.Carte;
+import donnees.terrain.Case;
+import donnees.terrain.NatureTerrain;
+import ia.strategie.ChefPompierBasique;
+import ia.strategie.ChefPompierParesseux;
+
+/**
+ * Mesure, sur une grande carte générée, le temps d'une copie des données de
+ * simulation, celui de la première modification d'une copie, qui fait la copie
+ * profonde, et celui de la construction d'un simulateur sur ces données, avec
+ * un incendie par objet et avec un magasin d'incendies. Vérifie ensuite sur une
+ * petite carte que l'original et ses copies restent indépendants, qu'une
+ * modification vienne de l'original ou d'une copie, et que deux simulations
+ * lancées depuis les mêmes données se déroulent de la même façon. Une copie prise en cours de simulation, avant n'importe quel
+ * évènement, doit enfin rester l'image des données à ce moment-là alors que la
+ * simulation continue : elle est comparée à une copie profonde prise au même
+ * moment, puis une simulation est lancée depuis chacune des deux.
+ */
+public class BenchmarkCopieDonnees {
+
+	private final static int TAILLE = 1000;
+	private final static int NB_INCENDIES = 50000;
+	private final static int NB_COPIES = 100000;
+	private final static int NB_SIMULATEURS = 20;
+	private final static int TAILLE_SIMULEE = 100;
+	private final static int NB_INCENDIES_SIMULES = 500;
+	private final static long DUREE_SIMULEE = 50000;
+	private final static int NB_PAS_COPIES = 2000;
+
+	public static void main(String[] args) {
+		DonneeSimulation donnees = GenerateurCarte.generer(TAILLE, NB_INCENDIES, TAILLE);
+		System.out.println("Carte generee-" + TAILLE + "x" + TAILLE + " (" + NB_INCENDIES + " incendies)");
+
+		DonneeSimulation[] copies = new DonneeSimulation[NB_COPIES];
+		long debut = System.nanoTime();
+		for (int i = 0; i < NB_COPIES; i++)
+			copies[i] = new DonneeSimulation(donnees);
+		double parCopie = (System.nanoTime() - debut) / (double) NB_COPIES;
+		Case libre = trouverCaseLibre(donnees);
+		debut = System.nanoTime();
+		copies[0].ajouterIncendie(new Incendie(libre, 1000));
+		double premiereModification = (System.nanoTime() - debut) / 1e6;
+		System.out.printf("\tcopie %8.1f ns, premiere modification d'une copie %8.2f ms%n", parCopie,
+				premiereModification);
+		copies = null;
+		DonneeSimulation magasin = new DonneeSimulation(donnees.getIncendies(), donnees.getCarte(),
+				donnees.getRobots(), true);
+		System.out.printf("\tconstruction d'un simulateur : objets %8.2f ms, magasin %8.2f ms%n",
+				mesurerConstruction(donnees), mesurerConstruction(magasin));
+		magasin = null;
+
+		// Les verifications sont faites sur une carte plus petite, ou les chefs
+		// pompiers vont vite
+		donnees = GenerateurCarte.generer(TAILLE_SIMULEE, NB_INCENDIES_SIMULES, TAILLE_SIMULEE);
+		// L'original est modifie alors qu'une copie partage encore ses incendies
+		long empreinte = calculerEmpreinte(donnees);
+		DonneeSimulation copie = new DonneeSimulation(donnees);
+		libre = trouverCaseLibre(donnees);
+		donnees.ajouterIncendie(new Incendie(libre, 1000));
+		verifier(calculerEmpreinte(copie) == empreinte && copie.getSingleIncendie(libre) == null,
+				"La copie voit un incendie ajoute a l'original !");
+		verifier(donnees.getSingleIncendie(libre) != null, "L'incendie ajoute a l'original a disparu !");
+
+		// Puis les copies sont modifiees par des simulations
+		empreinte = calculerEmpreinte(donnees);
+		long[] resultats = new long[2];
+		for (int i = 0; i < resultats.length; i++) {
+			Simulateur simulateur = new SimulateurScript(donnees, new ChefPompierBasique(), DUREE_SIMULEE);
+			simulateur.next();
+			resultats[i] = calculerEmpreinte(simulateur.getDonneeSimulation());
+		}
+		verifier(calculerEmpreinte(donnees) == empreinte, "Une simulation a modifie les donnees copiees !");
+		verifier(resultats[0] == resultats[1], "Deux simulations depuis les memes donnees different !");
+		System.out.println("\tcopies independantes");
+
+		verifierCopieEnCours(donnees);
+		System.out.println("\tcopie en cours de simulation fidele");
+	}
+
+	/**
+	 * Copie les données d'une simulation en cours avant chacun de ses premiers pas,
+	 * d'une seconde chacun, et compare chaque copie après le pas à une copie
+	 * profonde prise au même moment. La copie prise à mi-parcours n'est comparée
+	 * qu'à la fin, puis une simulation est lancée depuis elle et depuis sa copie
+	 * profonde
+	 */
+	private static void verifierCopieEnCours(DonneeSimulation donnees) {
+		Simulateur simulateur = new SimulateurScript(donnees, new ChefPompierBasique(), 1);
+		DonneeSimulation copieGardee = null;
+		DonneeSimulation profondeGardee = null;
+		for (int pas = 0; pas < NB_PAS_COPIES; pas++) {
+			DonneeSimulation enCours = simulateur.getDonneeSimulation();
+			DonneeSimulation profonde = new DonneeSimulation(enCours.getIncendies(), enCours.getCarte(),
+					enCours.getRobots());
+			DonneeSimulation copie = new DonneeSimulation(enCours);
+			simulateur.next();
+			if (pas == NB_PAS_COPIES / 2) {
+				copieGardee = copie;
+				profondeGardee = profonde;
+			} else
+				verifier(calculerEmpreinte(copie) == calculerEmpreinte(profonde),
+						"La copie prise avant le pas " + pas + " a suivi la simulation !");
+		}
+		verifier(calculerEmpreinte(copieGardee) == calculerEmpreinte(profondeGardee),
+				"La copie prise a mi-parcours a suivi la simulation !");
+
+		long[] resultats = new long[2];
+		DonneeSimulation[] depart = { copieGardee, profondeGardee };
+		for (int i = 0; i < resultats.length; i++) {
+			Simulateur suite = new SimulateurScript(depart[i], new ChefPompierBasique(), DUREE_SIMULEE);
+			suite.next();
+			resultats[i] = calculerEmpreinte(suite.getDonneeSimulation());
+		}
+		verifier(resultats[0] == resultats[1],
+				"Les simulations depuis une copie prise en cours de simulation different !");
+	}
+
+	/**
+	 * Mesure le temps moyen de construction d'un simulateur sur des données
+	 *
+	 * @param donnees les données de départ
+	 * @return le temps moyen, en millisecondes
+	 */
+	private static double mesurerConstruction(DonneeSimulation donnees) {
+		long debut = System.nanoTime();
+		for (int i = 0; i < NB_SIMULATEURS; i++)
+			new SimulateurScript(donnees, new ChefPompierParesseux(), 1);
+		return (System.nanoTime() - debut) / 1e6 / NB_SIMULATEURS;
+	}
+
+	private static void verifier(boolean condition, String message) {
+		if (!condition) {
+			System.out.println("\t" + message);
+			System.exit(1);
+		}
+	}
+
+	private static Case trouverCaseLibre(DonneeSimulation donnees) {
+		Carte carte = donnees.getCarte();
+		for (int lig = 0; lig < carte.getNbLignes(); lig++)
+			for (int col = 0; col < carte.getNbColonnes(); col++) {
+				Case c = carte.getCase(lig, col);
+				if (c.getNature() != NatureTerrain.EAU && c.getNature() != NatureTerrain.ROCHE
+						&& donnees.getSingleIncendie(c) == null)
+					return c;
+			}
+		return null;
+	}
+
+	private static long calculerEmpreinte(DonneeSimulation donnees) {
+		long empreinte = 0;
+		for (Incendie incendie : donnees.getIncendies())
+			empreinte = empreinte * 31 + incendie.getIntensite() * 7 + incendie.getPosition().getLigne() * 1000
+					+ incendie.getPosition().getColonne();
+		for (Robot robot : donnees.getRobots())
+			empreinte = empreinte * 31 + robot.getPosition().getLigne() * 1000 + robot.getPosition().getColonne();
+		return empreinte;
+	}
+}
@@ -0,0 +1,54 @@
+package test;
+
+import java.io.FileNotFoundException;
+
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.EventQueueType;
+import donnees.simulation.Simulateur;
+import donnees.simulation.SimulateurScript;
+import ia.strategie.ChefPompierParesseux;
+import io.LecteurDonnees;
+
+/**
+ * Mesure le nombre d'évènements exécutés par seconde avec chaque implémentation
+ * de la file d'évènements. Les incendies se propagent librement (chef pompier
+ * paresseux) pour que la file grossisse au fil de la simulation.
+ */
+public class BenchmarkEventQueue {
+
+	private final static String NOM_CARTE = "cartes/spiralOfMadness-50x50.map";
+	private final static int[] TAILLES_GENEREES = { 100, 200 };
+	private final static long DUREE_SIMULEE = 200000;
+
+	public static void main(String[] args) {
+		try {
+			mesurer("spiralOfMadness-50x50", LecteurDonnees.lire(NOM_CARTE));
+		} catch (FileNotFoundException | IllegalArgumentException e) {
+			System.err.println("Carte invalide !");
+		}
+
+		for (int taille : TAILLES_GENEREES)
+			mesurer("generee-" + taille + "x" + taille, GenerateurCarte.generer(taille, taille / 5, taille));
+	}
+
+	private static void mesurer(String nomCarte, DonneeSimulation donnees) {
+		System.out.println("Carte " + nomCarte + " (" + DUREE_SIMULEE + "s simulees)");
+		for (EventQueueType type : EventQueueType.values()) {
+			// Un premier passage pour laisser le JIT compiler le code
+			executer(donnees, type);
+			long debut = System.nanoTime();
+			Simulateur simulateur = executer(donnees, type);
+			double secondes = (System.nanoTime() - debut) / 1e9;
+			long nbEvenements = simulateur.getNbEvenementsExecutes();
+			System.out.printf("\t%-16s %9d evenements %8.3fs %12.0f evenements/s (file finale : %d, annulations : %.1f%%)%n",
+					type, nbEvenements, secondes, nbEvenements / secondes, simulateur.getNbEvenementsEnAttente(),
+					100 * simulateur.getTauxAnnulation());
+		}
+	}
+
+	private static Simulateur executer(DonneeSimulation donnees, EventQueueType type) {
+		Simulateur simulateur = new SimulateurScript(donnees, new ChefPompierParesseux(), DUREE_SIMULEE, type);
+		simulateur.next();
+		return simulateur;
+	}
+}
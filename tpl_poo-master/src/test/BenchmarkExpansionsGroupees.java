@@ -0,0 +1,105 @@
+package test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+
+import donnees.Incendie;
+import donnees.evenements.Evenement;
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.Simulateur;
+import donnees.simulation.SimulateurScript;
+import donnees.terrain.Carte;
+import ia.strategie.ChefPompierBasique;
+import ia.strategie.ChefPompierParesseux;
+import io.LecteurDonnees;
+
+/**
+ * Compare, sur une carte générée qui brûle librement, les expansions
+ * d'incendies planifiées chacune dans son évènement et regroupées par date :
+ * temps de simulation et nombre d'évènements passés par la file. Vérifie que
+ * l'intensité de chaque case est la même dans les deux cas, puis compare les
+ * incendies restants sur les cartes fournies avec le chef pompier basique.
+ */
+public class BenchmarkExpansionsGroupees {
+
+	private final static int TAILLE = 400;
+	private final static int NB_INCENDIES = 1000;
+	private final static long DUREE_SIMULEE = 60000;
+	private final static long DUREE_CARTES = 500000;
+
+	public static void main(String[] args) {
+		DonneeSimulation donnees = GenerateurCarte.generer(TAILLE, NB_INCENDIES, TAILLE);
+		System.out.println("Carte generee-" + TAILLE + "x" + TAILLE + " (" + DUREE_SIMULEE + "s simulees)");
+
+		// Un premier passage pour laisser le JIT compiler le code
+		executer(donnees, false, DUREE_SIMULEE / 4);
+		executer(donnees, true, DUREE_SIMULEE / 4);
+		Simulateur separees = mesurer("separees", donnees, false);
+		Simulateur groupees = mesurer("groupees", donnees, true);
+
+		// Un pas s'arrete apres la premiere expansion separee d'une date, mais apres
+		// toutes les expansions groupees
+		terminerDate(separees);
+		terminerDate(groupees);
+		Carte carte = donnees.getCarte();
+		DonneeSimulation a = separees.getDonneeSimulation(), b = groupees.getDonneeSimulation();
+		for (int lig = 0; lig < carte.getNbLignes(); lig++)
+			for (int col = 0; col < carte.getNbColonnes(); col++)
+				if (!memeIncendie(a, b, carte, lig, col)) {
+					System.out.println("\tLes incendies de la case " + carte.getCase(lig, col) + " different !");
+					System.exit(1);
+				}
+
+		File[] cartes = new File("cartes").listFiles();
+		Arrays.sort(cartes);
+		for (File f : cartes) {
+			if (!f.canRead() || !f.getPath().endsWith(".map"))
+				continue;
+			try {
+				int[] restants = new int[2];
+				for (int i = 0; i < 2; i++) {
+					DonneeSimulation lues = LecteurDonnees.lire(f.getPath());
+					Simulateur simulateur = new SimulateurScript(lues, new ChefPompierBasique(), DUREE_CARTES);
+					simulateur.setRegroupementExpansions(i == 1);
+					simulateur.next();
+					restants[i] = simulateur.getDonneeSimulation().getIncendies().size();
+				}
+				System.out.printf("\t%-30s %5d incendies restants separees, %5d groupees%n", f.getName(), restants[0],
+						restants[1]);
+			} catch (FileNotFoundException | IllegalArgumentException e) {
+				System.err.println("Carte invalide !");
+			}
+		}
+	}
+
+	private static Simulateur mesurer(String nom, DonneeSimulation donnees, boolean groupees) {
+		long debut = System.nanoTime();
+		Simulateur simulateur = executer(donnees, groupees, DUREE_SIMULEE);
+		double secondes = (System.nanoTime() - debut) / 1e9;
+		System.out.printf("\t%-12s %8.3fs %9d evenements %7d incendies%n", nom, secondes,
+				simulateur.getNbEvenementsExecutes(), simulateur.getDonneeSimulation().getIncendies().size());
+		return simulateur;
+	}
+
+	private static Simulateur executer(DonneeSimulation donnees, boolean groupees, long duree) {
+		Simulateur simulateur = new SimulateurScript(new DonneeSimulation(donnees), new ChefPompierParesseux(),
+				duree);
+		simulateur.setRegroupementExpansions(groupees);
+		simulateur.next();
+		return simulateur;
+	}
+
+	private static void terminerDate(Simulateur simulateur) {
+		long date = simulateur.getDate();
+		for (Evenement e = simulateur.pollNextEvent(); e != null && e.getDate() == date; e = simulateur
+				.pollNextEvent())
+			e.executer(simulateur);
+	}
+
+	private static boolean memeIncendie(DonneeSimulation a, DonneeSimulation b, Carte carte, int lig, int col) {
+		Incendie i = a.getSingleIncendie(carte.getCase(lig, col));
+		Incendie j = b.getSingleIncendie(carte.getCase(lig, col));
+		return (i == null) == (j == null) && (i == null || i.getIntensite() == j.getIntensite());
+	}
+}
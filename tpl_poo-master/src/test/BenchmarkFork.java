@@ -0,0 +1,131 @@
+package test;
+
+import java.util.function.Supplier;
+
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.EventQueueType;
+import donnees.simulation.Simulateur;
+import ia.strategie.ChefPompier;
+import ia.strategie.ChefPompierParesseux;
+
+/**
+ * Vérifie sur une petite carte générée, pour chaque chef pompier, chaque file
+ * d'évènements et chaque {@link ModeSimulation mode de simulation} avec un
+ * magasin d'incendies, qu'une simulation dupliquée en cours de route se termine
+ * comme la simulation sans duplication, tout comme l'original et une copie de
+ * la copie, et que la duplication est refusée dans les autres modes. Mesure
+ * ensuite, sur une grande carte générée, le temps d'une duplication en cours de
+ * simulation.
+ */
+public class BenchmarkFork {
+
+	private final static int TAILLE_VERIFIEE = 40;
+	private final static int NB_INCENDIES_VERIFIES = 60;
+	private final static long PAS_VERIFIE = 10000;
+	private final static int TAILLE = 1000;
+	private final static int NB_INCENDIES = 50000;
+	private final static long DUREE_AVANT = 20000;
+	private final static int NB_FORKS = 20;
+
+	public static void main(String[] args) {
+		DonneeSimulation donnees = GenerateurCarte.generer(TAILLE_VERIFIEE, NB_INCENDIES_VERIFIES, TAILLE_VERIFIEE);
+		System.out.println("Carte generee-" + TAILLE_VERIFIEE + "x" + TAILLE_VERIFIEE + " (" + PAS_VERIFIE
+				+ "s par pas)");
+		int nbVerifiees = 0;
+		int nbRefusees = 0;
+		for (Supplier<ChefPompier> chef : ChefsPompiers.TOUS)
+			for (EventQueueType type : EventQueueType.values())
+				for (ModeSimulation mode : ModeSimulation.values())
+					if (mode.utiliseMagasin()) {
+						verifier(donnees, chef, type, mode);
+						nbVerifiees++;
+					} else {
+						verifierRefus(donnees, chef, type, mode);
+						nbRefusees++;
+					}
+		System.out.println("\t" + nbVerifiees + " simulations dupliquees identiques a leur reference, " + nbRefusees
+				+ " duplications refusees sans magasin");
+
+		donnees = GenerateurCarte.generer(TAILLE, NB_INCENDIES, TAILLE);
+		System.out.println("Carte generee-" + TAILLE + "x" + TAILLE + " (" + NB_INCENDIES + " incendies, "
+				+ DUREE_AVANT + "s simulees avant duplication)");
+		mesurer(donnees, ModeSimulation.MAGASIN);
+		mesurer(donnees, ModeSimulation.MOTEUR);
+	}
+
+	/**
+	 * Simule deux pas sans duplication, puis deux pas en dupliquant la simulation
+	 * après le premier, et compare l'original, la copie et une copie de la copie
+	 */
+	private static void verifier(DonneeSimulation donnees, Supplier<ChefPompier> chef, EventQueueType type,
+			ModeSimulation mode) {
+		Simulateur reference = mode.creer(donnees, chef.get(), type, PAS_VERIFIE);
+		reference.next();
+		reference.next();
+		long attendue = ModeSimulation.calculerEmpreinte(reference);
+
+		Simulateur original = mode.creer(donnees, chef.get(), type, PAS_VERIFIE);
+		original.next();
+		Simulateur copie = original.fork();
+		Simulateur copieDeCopie = copie.fork();
+		original.next();
+		copie.next();
+		copieDeCopie.next();
+		String nom = chef.get().getClass().getSimpleName() + " " + type + " " + mode;
+		if (ModeSimulation.calculerEmpreinte(original) != attendue
+				|| ModeSimulation.calculerEmpreinte(copie) != attendue
+				|| ModeSimulation.calculerEmpreinte(copieDeCopie) != attendue) {
+			System.out.println("\t" + nom + " : la simulation dupliquee differe de la reference !");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Vérifie que la duplication d'une simulation sans magasin d'incendies est
+	 * refusée, sans que la simulation n'en soit modifiée
+	 */
+	private static void verifierRefus(DonneeSimulation donnees, Supplier<ChefPompier> chef, EventQueueType type,
+			ModeSimulation mode) {
+		Simulateur reference = mode.creer(donnees, chef.get(), type, PAS_VERIFIE);
+		reference.next();
+		reference.next();
+		long attendue = ModeSimulation.calculerEmpreinte(reference);
+
+		Simulateur original = mode.creer(donnees, chef.get(), type, PAS_VERIFIE);
+		original.next();
+		String nom = chef.get().getClass().getSimpleName() + " " + type + " " + mode;
+		try {
+			original.fork();
+			System.out.println("\t" + nom + " : la simulation a ete dupliquee sans magasin !");
+			System.exit(1);
+		} catch (UnsupportedOperationException e) {
+			// La duplication est refusee, comme attendu
+		}
+		original.next();
+		if (ModeSimulation.calculerEmpreinte(original) != attendue) {
+			System.out.println("\t" + nom + " : la simulation differe de la reference apres le refus !");
+			System.exit(1);
+		}
+	}
+
+	private static void mesurer(DonneeSimulation donnees, ModeSimulation mode) {
+		Simulateur simulateur = mode.creer(donnees, new ChefPompierParesseux(), EventQueueType.TAS_BINAIRE,
+				DUREE_AVANT);
+		simulateur.next();
+		// Une premiere serie pour laisser le JIT compiler le code
+		for (int i = 0; i < NB_FORKS; i++)
+			simulateur.fork();
+		long debut = System.nanoTime();
+		Simulateur copie = null;
+		for (int i = 0; i < NB_FORKS; i++)
+			copie = simulateur.fork();
+		double millis = (System.nanoTime() - debut) / 1e6 / NB_FORKS;
+		int nbIncendies = simulateur.getDonneeSimulation().getIncendies().size();
+		System.out.printf("\t%-8s %7d incendies, %7d evenements en attente : fork %8.2f ms (%5.0f ns par incendie)%n",
+				mode, nbIncendies, simulateur.getNbEvenementsEnAttente(), millis, millis * 1e6 / nbIncendies);
+		if (ModeSimulation.calculerEmpreinte(copie) != ModeSimulation.calculerEmpreinte(simulateur)) {
+			System.out.println("\tLa copie differe de l'original !");
+			System.exit(1);
+		}
+	}
+}
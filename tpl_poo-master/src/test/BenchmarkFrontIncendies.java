@@ -0,0 +1,140 @@
+package test;
+
+import java.util.Random;
+
+import donnees.simulation.FrontIncendies;
+import donnees.terrain.Carte;
+import donnees.terrain.Case;
+import donnees.terrain.Direction;
+import donnees.terrain.NatureTerrain;
+
+/**
+ * Mesure le calcul, sur une grande carte générée dont une partie est en feu, des
+ * cases nouvellement atteintes par la propagation d'un ensemble d'incendies et
+ * des cases du front, par les bitboards de {@link FrontIncendies} et case par
+ * case en regardant les voisines de chaque case. Vérifie que les deux calculs
+ * donnent les mêmes cases, y compris sur des plages de lignes.
+ */
+public class BenchmarkFrontIncendies {
+
+	private final static int TAILLE = 1000;
+	private final static double PROPORTION_EN_FEU = 0.3;
+	private final static double PROPORTION_SOURCES = 0.05;
+	private final static int NB_REPETITIONS = 20;
+	private final static long GRAINE = 42;
+	private final static Direction[] DIRECTIONS = Direction.values();
+
+	public static void main(String[] args) {
+		// Une largeur qui n'est pas multiple de 64, pour tester les bits en trop
+		Carte carte = GenerateurCarte.generer(TAILLE, 1, GRAINE).getCarte();
+		Carte etroite = GenerateurCarte.generer(TAILLE / 10 + 3, 1, GRAINE).getCarte();
+		boolean ok = verifier(etroite, new Random(GRAINE)) && verifier(carte, new Random(GRAINE));
+
+		Random random = new Random(GRAINE);
+		FrontIncendies front = new FrontIncendies(carte);
+		long[] sources = front.creerBitboard();
+		remplir(carte, front, sources, random);
+		long[] resultat = front.creerBitboard();
+		boolean[] enFeu = new boolean[TAILLE * TAILLE], dus = new boolean[TAILLE * TAILLE],
+				nouveaux = new boolean[TAILLE * TAILLE];
+		for (int lig = 0; lig < TAILLE; lig++)
+			for (int col = 0; col < TAILLE; col++) {
+				enFeu[lig * TAILLE + col] = front.estEnFeu(lig, col);
+				dus[lig * TAILLE + col] = contient(front, sources, lig, col);
+			}
+
+		// Un premier passage pour laisser le JIT compiler le code
+		for (int i = 0; i < NB_REPETITIONS; i++) {
+			front.calculerNouveaux(sources, 0, TAILLE, resultat);
+			calculerNouveauxParCase(carte, enFeu, dus, nouveaux);
+		}
+		long debut = System.nanoTime();
+		for (int i = 0; i < NB_REPETITIONS; i++)
+			front.calculerNouveaux(sources, 0, TAILLE, resultat);
+		double tempsBitboards = (System.nanoTime() - debut) / 1e9 / NB_REPETITIONS;
+		debut = System.nanoTime();
+		for (int i = 0; i < NB_REPETITIONS; i++)
+			calculerNouveauxParCase(carte, enFeu, dus, nouveaux);
+		double tempsParCase = (System.nanoTime() - debut) / 1e9 / NB_REPETITIONS;
+		System.out.printf("Carte generee-%dx%d : cases atteintes par case %8.3fms, par bitboards %8.3fms, acceleration x%.1f%n",
+				TAILLE, TAILLE, tempsParCase * 1e3, tempsBitboards * 1e3, tempsParCase / tempsBitboards);
+		if (!ok)
+			System.exit(1);
+	}
+
+	private static boolean verifier(Carte carte, Random random) {
+		FrontIncendies front = new FrontIncendies(carte);
+		long[] sources = front.creerBitboard();
+		remplir(carte, front, sources, random);
+		int nbLignes = carte.getNbLignes(), nbColonnes = carte.getNbColonnes();
+
+		// Sur toute la carte, puis sur une plage de lignes
+		long[] nouveaux = front.creerBitboard(), bord = front.creerBitboard();
+		front.calculerNouveaux(sources, 0, nbLignes, nouveaux);
+		front.calculerFront(0, nbLignes, bord);
+		long[] nouveauxPlage = front.creerBitboard(), bordPlage = front.creerBitboard();
+		int debut = nbLignes / 3, fin = 2 * nbLignes / 3;
+		front.calculerNouveaux(sources, debut, fin, nouveauxPlage);
+		front.calculerFront(debut, fin, bordPlage);
+
+		int nbDifferences = 0, nbNouveaux = 0, nbBord = 0;
+		for (int lig = 0; lig < nbLignes; lig++)
+			for (int col = 0; col < nbColonnes; col++) {
+				Case c = carte.getCase(lig, col);
+				boolean brulable = front.estBrulable(lig, col) && !front.estEnFeu(lig, col);
+				boolean atteinte = false, auBord = false;
+				for (Direction dir : Direction.values()) {
+					Case v = carte.getVoisin(c, dir);
+					if (v == null)
+						continue;
+					atteinte |= contient(front, sources, v.getLigne(), v.getColonne());
+					auBord |= front.estBrulable(v.getLigne(), v.getColonne())
+							&& !front.estEnFeu(v.getLigne(), v.getColonne());
+				}
+				atteinte &= brulable;
+				auBord &= front.estEnFeu(lig, col);
+				boolean dansPlage = lig >= debut && lig < fin;
+				if (atteinte != contient(front, nouveaux, lig, col) || auBord != contient(front, bord, lig, col)
+						|| (atteinte && dansPlage) != contient(front, nouveauxPlage, lig, col)
+						|| (auBord && dansPlage) != contient(front, bordPlage, lig, col))
+					nbDifferences++;
+				nbNouveaux += atteinte ? 1 : 0;
+				nbBord += auBord ? 1 : 0;
+			}
+		System.out.printf("Carte generee-%dx%d : %d cases atteintes, %d cases au front, %d differences%n", nbLignes,
+				nbColonnes, nbNouveaux, nbBord, nbDifferences);
+		return nbDifferences == 0;
+	}
+
+	private static void remplir(Carte carte, FrontIncendies front, long[] sources, Random random) {
+		for (int lig = 0; lig < carte.getNbLignes(); lig++)
+			for (int col = 0; col < carte.getNbColonnes(); col++) {
+				if (!front.estBrulable(lig, col))
+					continue;
+				if (random.nextDouble() < PROPORTION_EN_FEU)
+					front.allumer(lig, col);
+				if (random.nextDouble() < PROPORTION_SOURCES)
+					sources[front.getIndiceMot(lig, col)] |= 1L << col;
+			}
+	}
+
+	private static boolean contient(FrontIncendies front, long[] bitboard, int lig, int col) {
+		return (bitboard[front.getIndiceMot(lig, col)] & (1L << col)) != 0;
+	}
+
+	private static void calculerNouveauxParCase(Carte carte, boolean[] enFeu, boolean[] dus, boolean[] nouveaux) {
+		int nbLignes = carte.getNbLignes(), nbColonnes = carte.getNbColonnes();
+		for (int lig = 0; lig < nbLignes; lig++)
+			for (int col = 0; col < nbColonnes; col++) {
+				int cellule = lig * nbColonnes + col;
+				NatureTerrain nature = carte.getCase(lig, col).getNature();
+				boolean atteinte = false;
+				if (nature != NatureTerrain.EAU && nature != NatureTerrain.ROCHE && !enFeu[cellule])
+					for (Direction d : DIRECTIONS) {
+						int l = lig + d.getLigne(), c = col + d.getColonne();
+						atteinte |= l >= 0 && l < nbLignes && c >= 0 && c < nbColonnes && dus[l * nbColonnes + c];
+					}
+				nouveaux[cellule] = atteinte;
+			}
+	}
+}
@@ -0,0 +1,109 @@
+package test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+
+import donnees.Incendie;
+import donnees.evenements.Evenement;
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.Simulateur;
+import donnees.simulation.SimulateurScript;
+import donnees.terrain.Carte;
+import ia.strategie.ChefPompierBasique;
+import ia.strategie.ChefPompierParesseux;
+import io.LecteurDonnees;
+
+/**
+ * Compare les incendies conservés sous forme d'objets et dans un magasin
+ * d'incendies sur une grande carte générée qui brûle librement : temps de
+ * simulation, nombre d'évènements et mémoire occupée par les données une fois
+ * la simulation terminée. Vérifie que l'intensité de chaque case est la même
+ * dans les deux cas, puis que les robots éteignent les incendies d'un magasin
+ * sur les cartes fournies.
+ */
+public class BenchmarkMagasinIncendies {
+
+	private final static int TAILLE = 1000;
+	private final static int NB_INCENDIES = 5000;
+	private final static long DUREE_SIMULEE = 60000;
+	private final static long DUREE_CARTES = 500000;
+
+	public static void main(String[] args) {
+		DonneeSimulation objets = GenerateurCarte.generer(TAILLE, NB_INCENDIES, TAILLE);
+		DonneeSimulation magasin = new DonneeSimulation(objets.getIncendies(), objets.getCarte(), objets.getRobots(),
+				true);
+		System.out.println("Carte generee-" + TAILLE + "x" + TAILLE + " (" + DUREE_SIMULEE + "s simulees)");
+
+		// Un premier passage pour laisser le JIT compiler le code
+		executer(objets, DUREE_SIMULEE / 4);
+		executer(magasin, DUREE_SIMULEE / 4);
+		Simulateur avecObjets = mesurer("objets", objets);
+		Simulateur avecMagasin = mesurer("magasin", magasin);
+
+		// Le magasin execute ensemble toutes les expansions d'une date, alors que le
+		// pas s'est arrete apres la premiere des expansions d'objets
+		terminerDate(avecObjets);
+		terminerDate(avecMagasin);
+		Carte carte = objets.getCarte();
+		DonneeSimulation a = avecObjets.getDonneeSimulation(), b = avecMagasin.getDonneeSimulation();
+		for (int lig = 0; lig < carte.getNbLignes(); lig++)
+			for (int col = 0; col < carte.getNbColonnes(); col++) {
+				Incendie i = a.getSingleIncendie(carte.getCase(lig, col));
+				Incendie j = b.getSingleIncendie(carte.getCase(lig, col));
+				if ((i == null) != (j == null) || (i != null && i.getIntensite() != j.getIntensite())) {
+					System.out.println("\tLes incendies de la case " + carte.getCase(lig, col) + " different !");
+					System.exit(1);
+				}
+			}
+
+		File[] cartes = new File("cartes").listFiles();
+		Arrays.sort(cartes);
+		for (File f : cartes) {
+			if (!f.canRead() || !f.getPath().endsWith(".map"))
+				continue;
+			try {
+				DonneeSimulation donnees = LecteurDonnees.lire(f.getPath());
+				Simulateur simulateur = new SimulateurScript(new DonneeSimulation(donnees.getIncendies(),
+						donnees.getCarte(), donnees.getRobots(), true), new ChefPompierBasique(), DUREE_CARTES);
+				simulateur.next();
+				System.out.printf("\t%-30s %5d incendies -> %5d avec le chef pompier basique%n", f.getName(),
+						donnees.getIncendies().size(), simulateur.getDonneeSimulation().getIncendies().size());
+			} catch (FileNotFoundException | IllegalArgumentException e) {
+				System.err.println("Carte invalide !");
+			}
+		}
+	}
+
+	private static Simulateur mesurer(String nom, DonneeSimulation donnees) {
+		long memoireAvant = memoireOccupee();
+		long debut = System.nanoTime();
+		Simulateur simulateur = executer(donnees, DUREE_SIMULEE);
+		double secondes = (System.nanoTime() - debut) / 1e9;
+		long memoire = memoireOccupee() - memoireAvant;
+		System.out.printf("\t%-8s %8.3fs %9d evenements %7d incendies, %6.1f Mo occupes%n", nom, secondes,
+				simulateur.getNbEvenementsExecutes(), simulateur.getDonneeSimulation().getIncendies().size(),
+				memoire / 1e6);
+		return simulateur;
+	}
+
+	private static Simulateur executer(DonneeSimulation donnees, long duree) {
+		Simulateur simulateur = new SimulateurScript(donnees, new ChefPompierParesseux(), duree);
+		simulateur.next();
+		return simulateur;
+	}
+
+	private static void terminerDate(Simulateur simulateur) {
+		long date = simulateur.getDate();
+		for (Evenement e = simulateur.pollNextEvent(); e != null && e.getDate() == date; e = simulateur
+				.pollNextEvent())
+			e.executer(simulateur);
+	}
+
+	private static long memoireOccupee() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,95 @@
+package test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.MagasinIncendies;
+import donnees.simulation.Simulateur;
+import donnees.simulation.SimulateurScript;
+import ia.strategie.ChefPompierBasique;
+import ia.strategie.ChefPompierParesseux;
+import io.LecteurDonnees;
+
+/**
+ * Compare, sur une grande carte générée qui brûle librement, les expansions
+ * d'un magasin d'incendies exécutées une par une et par un moteur d'incendies,
+ * séquentiel ou découpant la carte en bandes traitées en parallèle, avec des
+ * tranches d'une seconde ou plus. Vérifie que le moteur donne la même intensité
+ * à chaque case avec et sans parallélisme, puis que les robots éteignent les
+ * incendies d'un magasin utilisant un moteur sur les cartes fournies.
+ */
+public class BenchmarkMoteurIncendies {
+
+	private final static int TAILLE = 1000;
+	private final static int NB_INCENDIES = 5000;
+	private final static long DUREE_SIMULEE = 60000;
+	private final static long DUREE_CARTES = 500000;
+	private final static int LARGE_TRANCHE = 60;
+
+	public static void main(String[] args) {
+		DonneeSimulation donnees = GenerateurCarte.generer(TAILLE, NB_INCENDIES, TAILLE);
+		ForkJoinPool pool = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+		System.out.println("Carte generee-" + TAILLE + "x" + TAILLE + " (" + DUREE_SIMULEE + "s simulees, "
+				+ pool.getParallelism() + " threads)");
+
+		// Un premier passage pour laisser le JIT compiler le code
+		executer(donnees, 0, null, DUREE_SIMULEE / 4);
+		executer(donnees, 1, pool, DUREE_SIMULEE / 4);
+		mesurer("une par une", donnees, 0, null);
+		MagasinIncendies sequentiel = mesurer("moteur", donnees, 1, null);
+		MagasinIncendies parallele = mesurer("moteur //", donnees, 1, pool);
+		mesurer("tranches " + LARGE_TRANCHE + "s", donnees, LARGE_TRANCHE, pool);
+
+		int nbCases = TAILLE * TAILLE;
+		for (int cellule = 0; cellule < nbCases; cellule++)
+			if (sequentiel.getIntensite(cellule) != parallele.getIntensite(cellule)) {
+				System.out.println("\tLes incendies de la case " + sequentiel.getCase(cellule) + " different !");
+				System.exit(1);
+			}
+
+		File[] cartes = new File("cartes").listFiles();
+		Arrays.sort(cartes);
+		for (File f : cartes) {
+			if (!f.canRead() || !f.getPath().endsWith(".map"))
+				continue;
+			try {
+				DonneeSimulation lues = LecteurDonnees.lire(f.getPath());
+				DonneeSimulation avecMoteur = new DonneeSimulation(lues.getIncendies(), lues.getCarte(),
+						lues.getRobots(), true);
+				avecMoteur.getMagasinIncendies().utiliserMoteur(1, pool);
+				Simulateur simulateur = new SimulateurScript(avecMoteur, new ChefPompierBasique(), DUREE_CARTES);
+				simulateur.next();
+				System.out.printf("\t%-30s %5d incendies -> %5d avec le chef pompier basique%n", f.getName(),
+						lues.getIncendies().size(), simulateur.getDonneeSimulation().getIncendies().size());
+			} catch (FileNotFoundException | IllegalArgumentException e) {
+				System.err.println("Carte invalide !");
+			}
+		}
+		pool.shutdown();
+	}
+
+	private static MagasinIncendies mesurer(String nom, DonneeSimulation donnees, int largeurTranche,
+			ForkJoinPool pool) {
+		long debut = System.nanoTime();
+		Simulateur simulateur = executer(donnees, largeurTranche, pool, DUREE_SIMULEE);
+		double secondes = (System.nanoTime() - debut) / 1e9;
+		MagasinIncendies magasin = simulateur.getDonneeSimulation().getMagasinIncendies();
+		System.out.printf("\t%-14s %8.3fs %9d evenements %7d incendies%n", nom, secondes,
+				simulateur.getNbEvenementsExecutes(), magasin.getNbIncendies());
+		return magasin;
+	}
+
+	private static Simulateur executer(DonneeSimulation donnees, int largeurTranche, ForkJoinPool pool,
+			long duree) {
+		DonneeSimulation copie = new DonneeSimulation(donnees.getIncendies(), donnees.getCarte(),
+				donnees.getRobots(), true);
+		if (largeurTranche > 0)
+			copie.getMagasinIncendies().utiliserMoteur(largeurTranche, pool);
+		Simulateur simulateur = new SimulateurScript(copie, new ChefPompierParesseux(), duree);
+		simulateur.next();
+		return simulateur;
+	}
+}
@@ -0,0 +1,133 @@
+package test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.EventQueueType;
+import donnees.simulation.Simulateur;
+import ia.strategie.ChefPompier;
+import ia.strategie.ChefPompierParesseux;
+
+/**
+ * Vérifie sur une petite carte générée, pour chaque chef pompier, chaque file
+ * d'évènements et chaque {@link ModeSimulation mode de simulation}, que
+ * l'exécution en parallèle des expansions de même date laisse la simulation
+ * dans le même état que leur exécution un par un après chaque pas, puis refait
+ * la vérification sur une carte assez chargée en incendies pour que des lots
+ * soient réellement exécutés en parallèle. Mesure ensuite, sur une grande carte
+ * générée qui brûle librement, le temps de simulation sans pool de threads puis
+ * avec des pools de plus en plus grands, expansions séparées et groupées.
+ */
+public class BenchmarkParallele {
+
+	private final static int TAILLE_VERIFIEE = 40;
+	private final static int NB_INCENDIES_VERIFIES = 60;
+	private final static int TAILLE_CHARGEE = 200;
+	private final static int NB_INCENDIES_CHARGES = 3000;
+	private final static long PAS_VERIFIE = 2000;
+	private final static int NB_PAS_VERIFIES = 10;
+	private final static int TAILLE = 500;
+	private final static int NB_INCENDIES = 2000;
+	private final static long DUREE_SIMULEE = 90000;
+	private final static int[] NB_THREADS = { 1, 2, 4 };
+
+	public static void main(String[] args) {
+		DonneeSimulation donnees = GenerateurCarte.generer(TAILLE_VERIFIEE, NB_INCENDIES_VERIFIES, TAILLE_VERIFIEE);
+		System.out.println("Carte generee-" + TAILLE_VERIFIEE + "x" + TAILLE_VERIFIEE + " (" + PAS_VERIFIE
+				+ "s par pas)");
+		ForkJoinPool pool = new ForkJoinPool(NB_THREADS[NB_THREADS.length - 1]);
+		int nbVerifiees = 0;
+		long nbLots = 0;
+		for (Supplier<ChefPompier> chef : ChefsPompiers.TOUS)
+			for (EventQueueType type : EventQueueType.values())
+				for (ModeSimulation mode : ModeSimulation.values()) {
+					nbLots += verifier(donnees, chef, type, mode, pool);
+					nbVerifiees++;
+				}
+		System.out.println("\t" + nbVerifiees + " simulations identiques a l'execution un par un, " + nbLots
+				+ " lots executes en parallele");
+
+		donnees = GenerateurCarte.generer(TAILLE_CHARGEE, NB_INCENDIES_CHARGES, TAILLE_CHARGEE);
+		System.out.println("Carte generee-" + TAILLE_CHARGEE + "x" + TAILLE_CHARGEE + " (" + NB_INCENDIES_CHARGES
+				+ " incendies, " + PAS_VERIFIE + "s par pas)");
+		nbVerifiees = 0;
+		nbLots = 0;
+		for (EventQueueType type : EventQueueType.values())
+			for (ModeSimulation mode : ModeSimulation.values()) {
+				nbLots += verifier(donnees, ChefPompierParesseux::new, type, mode, pool);
+				nbVerifiees++;
+			}
+		pool.shutdown();
+		System.out.println("\t" + nbVerifiees + " simulations identiques a l'execution un par un, " + nbLots
+				+ " lots executes en parallele");
+		if (nbLots == 0) {
+			System.out.println("\tAucun lot n'a ete execute en parallele !");
+			System.exit(1);
+		}
+
+		donnees = GenerateurCarte.generer(TAILLE, NB_INCENDIES, TAILLE);
+		System.out.println("Carte generee-" + TAILLE + "x" + TAILLE + " (" + NB_INCENDIES + " incendies, "
+				+ DUREE_SIMULEE + "s simulees, " + Runtime.getRuntime().availableProcessors()
+				+ " coeur(s) disponible(s))");
+		mesurer(donnees, ModeSimulation.OBJETS);
+		mesurer(donnees, ModeSimulation.GROUPEES);
+	}
+
+	/**
+	 * Simule quelques pas sans pool de threads puis avec, en comparant l'état des
+	 * deux simulations après chaque pas
+	 *
+	 * @return le nombre de suites d'évènements exécutées en parallèle
+	 */
+	private static long verifier(DonneeSimulation donnees, Supplier<ChefPompier> chef, EventQueueType type,
+			ModeSimulation mode, ForkJoinPool pool) {
+		Simulateur reference = mode.creer(donnees, chef.get(), type, PAS_VERIFIE);
+		Simulateur parallele = mode.creer(donnees, chef.get(), type, PAS_VERIFIE);
+		parallele.setPoolParallele(pool);
+		for (int pas = 0; pas < NB_PAS_VERIFIES; pas++) {
+			reference.next();
+			parallele.next();
+			if (ModeSimulation.calculerEmpreinte(parallele) != ModeSimulation.calculerEmpreinte(reference)) {
+				System.out.println("\t" + chef.get().getClass().getSimpleName() + " " + type + " " + mode
+						+ " : la simulation en parallele differe apres le pas " + pas + " !");
+				System.exit(1);
+			}
+		}
+		return parallele.getNbLotsParalleles();
+	}
+
+	private static void mesurer(DonneeSimulation donnees, ModeSimulation mode) {
+		// Un premier passage pour laisser le JIT compiler le code
+		executer(donnees, mode, null);
+		long debut = System.nanoTime();
+		Simulateur reference = executer(donnees, mode, null);
+		double tempsSequentiel = (System.nanoTime() - debut) / 1e9;
+		long empreinte = ModeSimulation.calculerEmpreinte(reference);
+		System.out.printf("\t%-8s %-12s %8.3fs %9d evenements %7d incendies%n", mode, "un par un", tempsSequentiel,
+				reference.getNbEvenementsExecutes(), reference.getDonneeSimulation().getIncendies().size());
+
+		for (int nbThreads : NB_THREADS) {
+			ForkJoinPool pool = new ForkJoinPool(nbThreads);
+			executer(donnees, mode, pool);
+			debut = System.nanoTime();
+			Simulateur simulateur = executer(donnees, mode, pool);
+			double secondes = (System.nanoTime() - debut) / 1e9;
+			pool.shutdown();
+			System.out.printf("\t%-8s %-12s %8.3fs %9d lots      acceleration x%.2f%n", mode,
+					nbThreads + " thread(s)", secondes, simulateur.getNbLotsParalleles(), tempsSequentiel / secondes);
+			if (ModeSimulation.calculerEmpreinte(simulateur) != empreinte) {
+				System.out.println("\tL'etat final differe de l'execution un par un !");
+				System.exit(1);
+			}
+		}
+	}
+
+	private static Simulateur executer(DonneeSimulation donnees, ModeSimulation mode, ForkJoinPool pool) {
+		Simulateur simulateur = mode.creer(donnees, new ChefPompierParesseux(), EventQueueType.TAS_BINAIRE,
+				DUREE_SIMULEE);
+		simulateur.setPoolParallele(pool);
+		simulateur.next();
+		return simulateur;
+	}
+}
@@ -0,0 +1,135 @@
+package test;
+
+import java.util.function.Supplier;
+
+import donnees.Incendie;
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.EventQueueType;
+import donnees.simulation.Simulateur;
+import donnees.simulation.SimulateurPartitionne;
+import donnees.simulation.SimulateurScript;
+import ia.strategie.ChefPompier;
+import ia.strategie.ChefPompierParesseux;
+
+/**
+ * Vérifie sur une petite carte générée, pour chaque chef pompier et chaque file
+ * d'évènements, qu'une simulation partitionnée en une seule région reste dans
+ * le même état que le simulateur séquentiel à la fin de chaque pas, et qu'une
+ * simulation découpée en plusieurs régions donne deux fois exactement le même
+ * état. Mesure ensuite, sur une grande carte générée qui brûle librement, le
+ * temps de simulation pour différents découpages et l'écart de l'état final
+ * avec celui du simulateur séquentiel.
+ */
+public class BenchmarkPartitionne {
+
+	private final static int TAILLE_VERIFIEE = 40;
+	private final static int NB_INCENDIES_VERIFIES = 60;
+	private final static long PAS_VERIFIE = 2000;
+	private final static int NB_PAS_VERIFIES = 10;
+	private final static int DECOUPAGE_VERIFIE = 3;
+	private final static int TAILLE = 500;
+	private final static int NB_INCENDIES = 2000;
+	private final static long DUREE_SIMULEE = 90000;
+	private final static int[] DECOUPAGES = { 1, 2, 4, 8 };
+
+	public static void main(String[] args) {
+		DonneeSimulation donnees = GenerateurCarte.generer(TAILLE_VERIFIEE, NB_INCENDIES_VERIFIES, TAILLE_VERIFIEE);
+		System.out.println("Carte generee-" + TAILLE_VERIFIEE + "x" + TAILLE_VERIFIEE + " (" + NB_PAS_VERIFIES
+				+ " pas de " + PAS_VERIFIE + "s)");
+		int nbVerifiees = 0;
+		for (Supplier<ChefPompier> chef : ChefsPompiers.TOUS)
+			for (EventQueueType type : EventQueueType.values()) {
+				verifier(donnees, chef, type);
+				nbVerifiees++;
+			}
+		System.out.println("\t" + nbVerifiees + " simulations en une region identiques au simulateur sequentiel, "
+				+ nbVerifiees + " en " + DECOUPAGE_VERIFIE + "x" + DECOUPAGE_VERIFIE + " regions deterministes");
+
+		donnees = GenerateurCarte.generer(TAILLE, NB_INCENDIES, TAILLE);
+		System.out.println("Carte generee-" + TAILLE + "x" + TAILLE + " (" + NB_INCENDIES + " incendies, "
+				+ DUREE_SIMULEE + "s simulees, " + Runtime.getRuntime().availableProcessors()
+				+ " coeur(s) disponible(s))");
+
+		// Un premier passage pour laisser le JIT compiler le code
+		new SimulateurScript(donnees, new ChefPompierParesseux(), DUREE_SIMULEE).next();
+		long debut = System.nanoTime();
+		Simulateur reference = new SimulateurScript(donnees, new ChefPompierParesseux(), DUREE_SIMULEE);
+		reference.next();
+		double tempsSequentiel = (System.nanoTime() - debut) / 1e9;
+		long intensiteReference = calculerIntensiteTotale(reference.getDonneeSimulation());
+		System.out.printf("\t%-10s %8.3fs %9d evenements %6d incendies d'intensite totale %d%n", "sequentiel",
+				tempsSequentiel, reference.getNbEvenementsExecutes(),
+				reference.getDonneeSimulation().getIncendies().size(), intensiteReference);
+
+		for (int n : DECOUPAGES) {
+			executer(donnees, n, DUREE_SIMULEE).fermer();
+			debut = System.nanoTime();
+			SimulateurPartitionne simulateur = executer(donnees, n, DUREE_SIMULEE);
+			double secondes = (System.nanoTime() - debut) / 1e9;
+			simulateur.fermer();
+			long intensite = calculerIntensiteTotale(simulateur.getDonneeSimulation());
+			System.out.printf(
+					"\t%-10s %8.3fs %9d evenements %6d incendies d'intensite totale %d (%+.2f%%), %d fenetres de %ds, %d messages, acceleration x%.2f%n",
+					n + "x" + n, secondes, simulateur.getNbEvenementsExecutes(),
+					simulateur.getDonneeSimulation().getIncendies().size(), intensite,
+					100.0 * (intensite - intensiteReference) / intensiteReference, simulateur.getNbFenetres(),
+					simulateur.getDureeFenetre(), simulateur.getNbMessages(), tempsSequentiel / secondes);
+		}
+	}
+
+	/**
+	 * Compare pas à pas une simulation en une seule région au simulateur
+	 * séquentiel avancé jusqu'à la même date, puis exécute deux fois la même
+	 * simulation découpée en plusieurs régions
+	 */
+	private static void verifier(DonneeSimulation donnees, Supplier<ChefPompier> chef, EventQueueType type) {
+		String nom = chef.get().getClass().getSimpleName() + " " + type;
+		SimulateurPartitionne partitionne = new SimulateurPartitionne(donnees, chef, PAS_VERIFIE, 1, 1, type);
+		Simulateur reference = new SimulateurScript(donnees, chef.get(), PAS_VERIFIE, type);
+		for (int pas = 0; pas < NB_PAS_VERIFIES; pas++) {
+			partitionne.next();
+			// La derniere fenetre continue apres l'extinction du dernier incendie
+			if (partitionne.estFini())
+				break;
+			reference.avancerJusqua(partitionne.getDate() - 1);
+			if (ModeSimulation.calculerEmpreinte(partitionne.getDonneeSimulation()) != ModeSimulation
+					.calculerEmpreinte(reference.getDonneeSimulation())
+					|| partitionne.getNbEvenementsExecutes() != reference.getNbEvenementsExecutes()) {
+				System.out.println("\t" + nom + " : la simulation en une region differe apres le pas " + pas + " !");
+				System.exit(1);
+			}
+		}
+		partitionne.fermer();
+
+		SimulateurPartitionne premiere = executer(donnees, chef, type, DECOUPAGE_VERIFIE);
+		SimulateurPartitionne seconde = executer(donnees, chef, type, DECOUPAGE_VERIFIE);
+		if (ModeSimulation.calculerEmpreinte(premiere.getDonneeSimulation()) != ModeSimulation
+				.calculerEmpreinte(seconde.getDonneeSimulation()) || premiere.getDate() != seconde.getDate()) {
+			System.out.println("\t" + nom + " : deux simulations en " + DECOUPAGE_VERIFIE + "x" + DECOUPAGE_VERIFIE
+					+ " regions different !");
+			System.exit(1);
+		}
+	}
+
+	private static SimulateurPartitionne executer(DonneeSimulation donnees, Supplier<ChefPompier> chef,
+			EventQueueType type, int n) {
+		SimulateurPartitionne simulateur = new SimulateurPartitionne(donnees, chef, PAS_VERIFIE, n, n, type);
+		for (int pas = 0; pas < NB_PAS_VERIFIES; pas++)
+			simulateur.next();
+		simulateur.fermer();
+		return simulateur;
+	}
+
+	private static SimulateurPartitionne executer(DonneeSimulation donnees, int n, long duree) {
+		SimulateurPartitionne simulateur = new SimulateurPartitionne(donnees, ChefPompierParesseux::new, duree, n, n);
+		simulateur.next();
+		return simulateur;
+	}
+
+	private static long calculerIntensiteTotale(DonneeSimulation donnees) {
+		long total = 0;
+		for (Incendie incendie : donnees.getIncendies())
+			total += incendie.getIntensite();
+		return total;
+	}
+}
@@ -0,0 +1,92 @@
+package test;
+
+import java.util.Random;
+
+import donnees.Incendie;
+import donnees.robots.Robot;
+import donnees.simulation.DonneeSimulation;
+import donnees.terrain.Carte;
+import donnees.terrain.Case;
+import ia.chemins.Chemin;
+import ia.chemins.RechercheAStar;
+
+/**
+ * Mesure la recherche de l'incendie le plus proche d'un robot sur une grande
+ * carte générée comptant des milliers d'incendies, en regardant si une case est
+ * en feu grâce à l'index des incendies par case puis en parcourant tous les
+ * incendies comme auparavant. Vérifie que l'index donne le même incendie que le
+ * parcours pour chaque case, et que les deux recherches trouvent le même
+ * incendie.
+ */
+public class BenchmarkRechercheIncendie {
+
+	private final static int TAILLE = 300;
+	private final static int NB_INCENDIES = 5000;
+	private final static int NB_RECHERCHES = 400;
+	private final static long GRAINE = 42;
+
+	public static void main(String[] args) {
+		DonneeSimulation donnees = GenerateurCarte.generer(TAILLE, NB_INCENDIES, GRAINE);
+		Carte carte = donnees.getCarte();
+		System.out.println("Carte generee-" + TAILLE + "x" + TAILLE + ", " + donnees.getIncendies().size() + " incendies");
+
+		// L'index doit voir exactement les memes incendies que le parcours
+		for (int lig = 0; lig < carte.getNbLignes(); lig++)
+			for (int col = 0; col < carte.getNbColonnes(); col++) {
+				Case c = carte.getCase(lig, col);
+				if (donnees.getSingleIncendie(c) != chercherIncendie(donnees, c)) {
+					System.out.println("\tL'index ne donne pas l'incendie de la case " + c + " !");
+					System.exit(1);
+				}
+			}
+
+		// Le drone peut partir de n'importe quelle case
+		Robot robot = donnees.getRobots().get(0);
+		Random random = new Random(GRAINE);
+		Case[] departs = new Case[NB_RECHERCHES];
+		for (int i = 0; i < NB_RECHERCHES; i++)
+			departs[i] = carte.getCase(random.nextInt(TAILLE), random.nextInt(TAILLE));
+
+		// Un premier passage pour laisser le JIT compiler le code
+		rechercher(donnees, robot, departs, true);
+		rechercher(donnees, robot, departs, false);
+		long debut = System.nanoTime();
+		Incendie[] avecIndex = rechercher(donnees, robot, departs, true);
+		double tempsIndex = (System.nanoTime() - debut) / 1e9;
+		debut = System.nanoTime();
+		Incendie[] sansIndex = rechercher(donnees, robot, departs, false);
+		double tempsParcours = (System.nanoTime() - debut) / 1e9;
+
+		boolean identiques = true;
+		for (int i = 0; i < NB_RECHERCHES; i++)
+			identiques &= avecIndex[i] == sansIndex[i];
+		System.out.printf("\t%d recherches : parcours des incendies %8.3fs, index par case %8.3fs, acceleration x%.1f %s%n",
+				NB_RECHERCHES, tempsParcours, tempsIndex, tempsParcours / tempsIndex,
+				identiques ? "" : "(RESULTATS DIFFERENTS !)");
+		if (!identiques)
+			System.exit(1);
+	}
+
+	private static Incendie[] rechercher(DonneeSimulation donnees, Robot robot, Case[] departs, boolean index) {
+		RechercheAStar recherche = new RechercheAStar();
+		Incendie[] trouves = new Incendie[departs.length];
+		for (int i = 0; i < departs.length; i++) {
+			robot.setPosition(departs[i]);
+			if (index)
+				trouves[i] = robot.trouverIncendiePlusProche(donnees);
+			else {
+				Chemin chemin = recherche.trouverPlusProche(robot, donnees.getCarte(),
+						pos -> chercherIncendie(donnees, pos) != null);
+				trouves[i] = chemin == null ? null : chercherIncendie(donnees, chemin.getArrivee());
+			}
+		}
+		return trouves;
+	}
+
+	private static Incendie chercherIncendie(DonneeSimulation donnees, Case c) {
+		for (Incendie incendie : donnees.getIncendies())
+			if (c.equals(incendie.getPosition()))
+				return incendie;
+		return null;
+	}
+}
@@ -0,0 +1,150 @@
+package test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import donnees.Incendie;
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.EventQueueType;
+import donnees.simulation.Simulateur;
+import ia.strategie.ChefPompier;
+import ia.strategie.ChefPompierParesseux;
+
+/**
+ * Vérifie sur une petite carte générée, pour chaque chef pompier, chaque file
+ * d'évènements et chaque {@link ModeSimulation mode de simulation}, qu'une
+ * simulation sauvegardée en cours de route puis reprise se termine comme la
+ * simulation sans interruption. Mesure ensuite, sur une grande carte générée,
+ * le temps d'écriture et de relecture d'un point de reprise, comparé à celui de
+ * la simulation rejouée depuis le début.
+ */
+public class BenchmarkSauvegarde {
+
+	private final static int TAILLE_VERIFIEE = 40;
+	private final static int NB_INCENDIES_VERIFIES = 60;
+	private final static long PAS_VERIFIE = 10000;
+	private final static int TAILLE = 1000;
+	private final static int NB_INCENDIES = 50000;
+	private final static long DUREE_AVANT = 20000;
+	private final static int NB_REPETITIONS = 5;
+
+	public static void main(String[] args) throws IOException {
+		Path fichier = Files.createTempFile("reprise", ".bin");
+		try {
+			DonneeSimulation donnees = GenerateurCarte.generer(TAILLE_VERIFIEE, NB_INCENDIES_VERIFIES,
+					TAILLE_VERIFIEE);
+			System.out.println("Carte generee-" + TAILLE_VERIFIEE + "x" + TAILLE_VERIFIEE + " (" + PAS_VERIFIE
+					+ "s par pas)");
+			int nbVerifiees = 0;
+			for (Supplier<ChefPompier> chef : ChefsPompiers.TOUS)
+				for (EventQueueType type : EventQueueType.values())
+					for (ModeSimulation mode : ModeSimulation.values()) {
+						verifier(donnees, chef, type, mode, fichier);
+						nbVerifiees++;
+					}
+			System.out.println("\t" + nbVerifiees + " simulations reprises identiques a leur reference");
+			verifierClasseRefusee(donnees, fichier);
+			System.out.println("\tUne sauvegarde nommant une classe non sauvegardable est refusee");
+
+			donnees = GenerateurCarte.generer(TAILLE, NB_INCENDIES, TAILLE);
+			System.out.println("Carte generee-" + TAILLE + "x" + TAILLE + " (" + NB_INCENDIES + " incendies, "
+					+ DUREE_AVANT + "s simulees avant sauvegarde)");
+			mesurer(donnees, ModeSimulation.OBJETS, fichier);
+			mesurer(donnees, ModeSimulation.ZONES, fichier);
+			mesurer(donnees, ModeSimulation.MAGASIN, fichier);
+			mesurer(donnees, ModeSimulation.MOTEUR, fichier);
+		} finally {
+			Files.deleteIfExists(fichier);
+		}
+	}
+
+	/**
+	 * Simule deux pas sans interruption, puis un pas, une sauvegarde, une reprise
+	 * et un second pas, et compare la simulation reprise à la référence
+	 */
+	private static void verifier(DonneeSimulation donnees, Supplier<ChefPompier> chef, EventQueueType type,
+			ModeSimulation mode, Path fichier) throws IOException {
+		Simulateur reference = mode.creer(donnees, chef.get(), type, PAS_VERIFIE);
+		reference.next();
+		reference.next();
+		long attendue = ModeSimulation.calculerEmpreinte(reference);
+
+		Simulateur original = mode.creer(donnees, chef.get(), type, PAS_VERIFIE);
+		original.next();
+		original.sauvegarder(fichier);
+		Simulateur reprise = Simulateur.reprendre(fichier);
+		reprise.next();
+		if (ModeSimulation.calculerEmpreinte(reprise) != attendue) {
+			System.out.println("\t" + chef.get().getClass().getSimpleName() + " " + type + " " + mode
+					+ " : la simulation reprise differe de la reference !");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Remplace dans une sauvegarde le nom de la classe des incendies par celui
+	 * d'une classe de même longueur qui n'est pas sauvegardable, et vérifie que la
+	 * reprise est refusée au lieu de construire un objet de cette classe
+	 */
+	private static void verifierClasseRefusee(DonneeSimulation donnees, Path fichier) throws IOException {
+		Simulateur simulateur = ModeSimulation.OBJETS.creer(donnees, new ChefPompierParesseux(),
+				EventQueueType.TAS_BINAIRE, PAS_VERIFIE);
+		simulateur.next();
+		simulateur.sauvegarder(fichier);
+		byte[] octets = Files.readAllBytes(fichier);
+		byte[] nom = Incendie.class.getName().getBytes(StandardCharsets.UTF_8);
+		byte[] remplacant = "java.lang.Thread".getBytes(StandardCharsets.UTF_8);
+		int nbRemplacements = 0;
+		for (int i = 0; i + nom.length <= octets.length; i++)
+			if (Arrays.equals(octets, i, i + nom.length, nom, 0, nom.length)) {
+				System.arraycopy(remplacant, 0, octets, i, remplacant.length);
+				nbRemplacements++;
+			}
+		Files.write(fichier, octets);
+		try {
+			Simulateur.reprendre(fichier);
+		} catch (IOException e) {
+			if (nbRemplacements > 0)
+				return;
+		}
+		System.out.println("\tLa sauvegarde modifiee n'a pas ete refusee !");
+		System.exit(1);
+	}
+
+	private static void mesurer(DonneeSimulation donnees, ModeSimulation mode, Path fichier) throws IOException {
+		long debut = System.nanoTime();
+		Simulateur simulateur = mode.creer(donnees, new ChefPompierParesseux(), EventQueueType.TAS_BINAIRE,
+				DUREE_AVANT);
+		simulateur.next();
+		double millisRejeu = (System.nanoTime() - debut) / 1e6;
+
+		// Une premiere serie pour laisser le JIT compiler le code
+		for (int i = 0; i < NB_REPETITIONS; i++) {
+			simulateur.sauvegarder(fichier);
+			Simulateur.reprendre(fichier);
+		}
+		debut = System.nanoTime();
+		for (int i = 0; i < NB_REPETITIONS; i++)
+			simulateur.sauvegarder(fichier);
+		double millisEcriture = (System.nanoTime() - debut) / 1e6 / NB_REPETITIONS;
+		debut = System.nanoTime();
+		Simulateur reprise = null;
+		for (int i = 0; i < NB_REPETITIONS; i++)
+			reprise = Simulateur.reprendre(fichier);
+		double millisLecture = (System.nanoTime() - debut) / 1e6 / NB_REPETITIONS;
+
+		int nbIncendies = simulateur.getDonneeSimulation().getIncendies().size();
+		System.out.printf(
+				"\t%-8s %7d incendies, %6.1f Mo : ecriture %8.2f ms, reprise %8.2f ms, rejeu %8.2f ms (x%.1f)%n",
+				mode, nbIncendies, Files.size(fichier) / 1e6, millisEcriture, millisLecture, millisRejeu,
+				millisRejeu / millisLecture);
+		if (ModeSimulation.calculerEmpreinte(reprise) != ModeSimulation.calculerEmpreinte(simulateur)) {
+			System.out.println("\tLa simulation reprise differe de l'originale !");
+			System.exit(1);
+		}
+	}
+}
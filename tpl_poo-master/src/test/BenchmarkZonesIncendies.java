@@ -0,0 +1,134 @@
+package test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+
+import donnees.Incendie;
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.Simulateur;
+import donnees.simulation.SimulateurScript;
+import donnees.simulation.ZoneIncendie;
+import donnees.terrain.Case;
+import donnees.terrain.Direction;
+import ia.strategie.ChefPompierBasique;
+import ia.strategie.ChefPompierParesseux;
+import io.LecteurDonnees;
+
+/**
+ * Compare, sur une grande carte générée qui brûle librement, les incendies
+ * case par case et regroupés en zones sous différents seuils : temps de
+ * simulation, nombre d'évènements, nombre d'objets incendies et mémoire
+ * occupée, ainsi que l'écart de surface brûlée et d'intensité totale avec les
+ * incendies case par case. Vérifie que chaque case d'une zone est indexée sur
+ * sa zone et touche une autre de ses cases, puis
+ * compare les incendies restants sur les cartes fournies avec le chef pompier
+ * basique.
+ */
+public class BenchmarkZonesIncendies {
+
+	private final static int TAILLE = 1000;
+	private final static int NB_INCENDIES = 5000;
+	private final static long DUREE_SIMULEE = 60000;
+	private final static long DUREE_CARTES = 500000;
+	private final static int[] SEUILS = { 0, 500, 2000, 10000 };
+
+	public static void main(String[] args) {
+		DonneeSimulation donnees = GenerateurCarte.generer(TAILLE, NB_INCENDIES, TAILLE);
+		System.out.println("Carte generee-" + TAILLE + "x" + TAILLE + " (" + DUREE_SIMULEE + "s simulees)");
+
+		// Un premier passage pour laisser le JIT compiler le code
+		executer(donnees, 0, DUREE_SIMULEE / 4);
+		executer(donnees, SEUILS[1], DUREE_SIMULEE / 4);
+		long[] reference = null;
+		for (int seuil : SEUILS) {
+			long[] mesure = mesurer(donnees, seuil);
+			if (reference == null)
+				reference = mesure;
+			else
+				System.out.printf("\t%15s surface %+6.2f%%, intensite %+6.2f%%%n", "",
+						100.0 * (mesure[0] - reference[0]) / reference[0],
+						100.0 * (mesure[1] - reference[1]) / reference[1]);
+		}
+
+		File[] cartes = new File("cartes").listFiles();
+		Arrays.sort(cartes);
+		for (File f : cartes) {
+			if (!f.canRead() || !f.getPath().endsWith(".map"))
+				continue;
+			try {
+				int[] restants = new int[2];
+				for (int i = 0; i < 2; i++) {
+					DonneeSimulation lues = LecteurDonnees.lire(f.getPath());
+					lues.setSeuilZones(i * SEUILS[2]);
+					Simulateur simulateur = new SimulateurScript(lues, new ChefPompierBasique(), DUREE_CARTES);
+					simulateur.next();
+					restants[i] = simulateur.getDonneeSimulation().getIncendies().size();
+				}
+				System.out.printf("\t%-30s %5d incendies restants case par case, %5d en zones%n", f.getName(),
+						restants[0], restants[1]);
+			} catch (FileNotFoundException | IllegalArgumentException e) {
+				System.err.println("Carte invalide !");
+			}
+		}
+	}
+
+	/**
+	 * @return la surface brûlée et l'intensité totale à la fin de la simulation
+	 */
+	private static long[] mesurer(DonneeSimulation donnees, int seuil) {
+		long memoireAvant = memoireOccupee();
+		long debut = System.nanoTime();
+		Simulateur simulateur = executer(donnees, seuil, DUREE_SIMULEE);
+		double secondes = (System.nanoTime() - debut) / 1e9;
+		long memoire = memoireOccupee() - memoireAvant;
+
+		DonneeSimulation resultat = simulateur.getDonneeSimulation();
+		long surface = 0, intensite = 0;
+		int nbZones = 0;
+		for (Incendie incendie : resultat.getIncendies()) {
+			intensite += incendie.getIntensite();
+			if (!(incendie instanceof ZoneIncendie)) {
+				surface++;
+				continue;
+			}
+			ZoneIncendie zone = (ZoneIncendie) incendie;
+			surface += zone.getNbCases();
+			nbZones++;
+			verifier(resultat, zone);
+		}
+		System.out.printf("\tseuil %-8d %8.3fs %9d evenements %7d incendies dont %6d zones, %6.1f Mo occupes%n", seuil,
+				secondes, simulateur.getNbEvenementsExecutes(), resultat.getIncendies().size(), nbZones,
+				memoire / 1e6);
+		return new long[] { surface, intensite };
+	}
+
+	private static void verifier(DonneeSimulation donnees, ZoneIncendie zone) {
+		for (Case c : zone.getCases()) {
+			boolean relie = zone.getNbCases() == 1;
+			for (Direction dir : Direction.values()) {
+				Case voisine = donnees.getCarte().getVoisin(c, dir);
+				relie |= voisine != null && donnees.getSingleIncendie(voisine) == zone;
+			}
+			if (donnees.getSingleIncendie(c) != zone || !relie) {
+				System.out.println("\tLa case " + c + " est mal rattachee a sa zone !");
+				System.exit(1);
+			}
+		}
+	}
+
+	private static Simulateur executer(DonneeSimulation donnees, int seuil, long duree) {
+		DonneeSimulation copie = new DonneeSimulation(donnees);
+		copie.setSeuilZones(seuil);
+		Simulateur simulateur = new SimulateurScript(copie, new ChefPompierParesseux(), duree);
+		simulateur.next();
+		return simulateur;
+	}
+
+	private static long memoireOccupee() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,30 @@
+package test;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import ia.strategie.ChefPompier;
+import ia.strategie.ChefPompierBasique;
+import ia.strategie.ChefPompierCool;
+import ia.strategie.ChefPompierEfficace;
+import ia.strategie.ChefPompierEvolue;
+import ia.strategie.ChefPompierParesseux;
+
+/**
+ * Les chefs pompiers comparés par les tests et les mesures de performances.
+ * Un chef pompier gardant l'état de ses décisions, chaque simulation en crée un
+ * nouveau avec son constructeur.
+ */
+public class ChefsPompiers {
+	/**
+	 * Les chefs pompiers qui donnent des ordres aux robots
+	 */
+	public final static List<Supplier<ChefPompier>> DONNANT_DES_ORDRES = List.of(ChefPompierBasique::new,
+			ChefPompierEvolue::new, ChefPompierEfficace::new, ChefPompierCool::new);
+	/**
+	 * Tous les chefs pompiers, y compris le chef paresseux qui ne donne aucun
+	 * ordre
+	 */
+	public final static List<Supplier<ChefPompier>> TOUS = List.of(ChefPompierBasique::new,
+			ChefPompierEvolue::new, ChefPompierEfficace::new, ChefPompierCool::new, ChefPompierParesseux::new);
+}
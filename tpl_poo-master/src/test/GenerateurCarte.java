@@ -0,0 +1,99 @@
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import donnees.Incendie;
+import donnees.robots.Drone;
+import donnees.robots.Robot;
+import donnees.robots.RobotChenilles;
+import donnees.robots.RobotPattes;
+import donnees.robots.RobotRoues;
+import donnees.simulation.DonneeSimulation;
+import donnees.terrain.Carte;
+import donnees.terrain.Case;
+import donnees.terrain.NatureTerrain;
+
+/**
+ * Génère des données de simulation aléatoires (mais reproductibles) de taille
+ * arbitraire, utilisées pour les mesures de performances sur de grandes cartes
+ */
+public class GenerateurCarte {
+	/**
+	 * Taille d'une case des cartes générées, en mètres
+	 */
+	private static final int TAILLE_CASE = 500;
+
+	/**
+	 * Génère une carte carrée avec des incendies et un robot de chaque type
+	 * 
+	 * @param taille      nombre de lignes et de colonnes de la carte
+	 * @param nbIncendies nombre d'incendies initiaux
+	 * @param graine      graine du générateur aléatoire
+	 * @return les données de simulation générées
+	 */
+	public static DonneeSimulation generer(int taille, int nbIncendies, long graine) {
+		Random random = new Random(graine);
+		Carte.Builder builder = new Carte.Builder(taille, taille, TAILLE_CASE);
+		for (int lig = 0; lig < taille; lig++)
+			for (int col = 0; col < taille; col++)
+				builder.setNature(lig, col, tirerNature(random));
+		Carte carte = builder.construire();
+
+		List<Incendie> incendies = new ArrayList<>(nbIncendies);
+		boolean[] enFeu = new boolean[taille * taille];
+		while (incendies.size() < nbIncendies) {
+			Case position = carte.getCase(random.nextInt(taille), random.nextInt(taille));
+			NatureTerrain nature = position.getNature();
+			if (nature == NatureTerrain.EAU || nature == NatureTerrain.ROCHE
+					|| enFeu[position.getLigne() * taille + position.getColonne()])
+				continue;
+			enFeu[position.getLigne() * taille + position.getColonne()] = true;
+			incendies.add(new Incendie(position, 5000 + random.nextInt(20000)));
+		}
+
+		List<Robot> robots = new ArrayList<>();
+		robots.add(new Drone(tirerCase(carte, random, NatureTerrain.TERRAIN_LIBRE)));
+		robots.add(new RobotRoues(tirerCase(carte, random, NatureTerrain.TERRAIN_LIBRE)));
+		robots.add(new RobotChenilles(tirerCase(carte, random, NatureTerrain.TERRAIN_LIBRE)));
+		robots.add(new RobotPattes(tirerCase(carte, random, NatureTerrain.TERRAIN_LIBRE)));
+
+		return new DonneeSimulation(incendies, carte, robots);
+	}
+
+	/**
+	 * Tire une nature de terrain, avec une majorité de cases pouvant brûler
+	 * 
+	 * @param random le générateur aléatoire
+	 * @return la nature tirée
+	 */
+	private static NatureTerrain tirerNature(Random random) {
+		int tirage = random.nextInt(100);
+		if (tirage < 45)
+			return NatureTerrain.FORET;
+		if (tirage < 75)
+			return NatureTerrain.TERRAIN_LIBRE;
+		if (tirage < 88)
+			return NatureTerrain.HABITAT;
+		if (tirage < 95)
+			return NatureTerrain.EAU;
+		return NatureTerrain.ROCHE;
+	}
+
+	/**
+	 * Tire une case de la nature voulue
+	 * 
+	 * @param carte  la carte générée
+	 * @param random le générateur aléatoire
+	 * @param nature la nature voulue
+	 * @return une case de cette nature
+	 */
+	private static Case tirerCase(Carte carte, Random random, NatureTerrain nature) {
+		Case position;
+		do {
+			position = carte.getCase(random.nextInt(carte.getNbLignes()), random.nextInt(carte.getNbColonnes()));
+		} while (position.getNature() != nature);
+		return position;
+	}
+}
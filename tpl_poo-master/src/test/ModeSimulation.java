@@ -0,0 +1,125 @@
+package test;
+
+import donnees.Incendie;
+import donnees.robots.Robot;
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.EventQueueType;
+import donnees.simulation.Simulateur;
+import donnees.simulation.SimulateurScript;
+import donnees.simulation.ZoneIncendie;
+import ia.strategie.ChefPompier;
+
+/**
+ * Les façons de représenter les incendies et de consulter le chef pompier
+ * comparées par les tests de duplication, de sauvegarde et de chronologie, qui
+ * vérifient chacun que toutes donnent une simulation identique à leur
+ * référence.
+ */
+public enum ModeSimulation {
+	/**
+	 * Un objet par incendie, une expansion par incendie
+	 */
+	OBJETS,
+	/**
+	 * Les incendies faibles regroupés en zones
+	 */
+	ZONES,
+	/**
+	 * Les expansions de même date regroupées en un seul évènement
+	 */
+	GROUPEES,
+	/**
+	 * Les incendies conservés dans un magasin
+	 */
+	MAGASIN,
+	/**
+	 * Les incendies conservés dans un magasin, étendus par le moteur
+	 */
+	MOTEUR,
+	/**
+	 * Un objet par incendie, le chef pompier étant consulté avant chaque
+	 * évènement
+	 */
+	SYSTEMATIQUE;
+
+	/**
+	 * Seuil de regroupement des incendies en zones du mode {@link #ZONES}
+	 */
+	private final static int SEUIL_ZONES = 2000;
+
+	/**
+	 * Crée un simulateur dans ce mode, sur une copie des données
+	 *
+	 * @param donnees les données de départ, qui ne sont pas modifiées
+	 * @param chef    le chef pompier
+	 * @param type    le type de file d'évènements
+	 * @param pas     la durée simulée par pas
+	 * @return le simulateur créé
+	 */
+	public Simulateur creer(DonneeSimulation donnees, ChefPompier chef, EventQueueType type, long pas) {
+		DonneeSimulation copie = utiliseMagasin()
+				? new DonneeSimulation(donnees.getIncendies(), donnees.getCarte(), donnees.getRobots(), true)
+				: new DonneeSimulation(donnees);
+		if (this == ZONES)
+			copie.setSeuilZones(SEUIL_ZONES);
+		if (this == MOTEUR)
+			copie.getMagasinIncendies().utiliserMoteur(1, null);
+		Simulateur simulateur = new SimulateurScript(copie, chef, pas, type);
+		simulateur.setRegroupementExpansions(this == GROUPEES);
+		simulateur.setConsultationSystematique(this == SYSTEMATIQUE);
+		return simulateur;
+	}
+
+	/**
+	 * @return vrai si les incendies sont conservés dans un magasin
+	 */
+	public boolean utiliseMagasin() {
+		return this == MAGASIN || this == MOTEUR;
+	}
+
+	@Override
+	public String toString() {
+		return name().toLowerCase();
+	}
+
+	/**
+	 * Calcule une empreinte de l'état d'une simulation : sa date, ses nombres
+	 * d'évènements et de consultations du chef pompier, ses incendies et ses
+	 * robots. Deux simulations dans le même état ont la même empreinte
+	 *
+	 * @param simulateur le simulateur
+	 * @return l'empreinte de son état
+	 */
+	public static long calculerEmpreinte(Simulateur simulateur) {
+		long empreinte = simulateur.getDate() * 31 + simulateur.getNbEvenementsExecutes();
+		empreinte = empreinte * 31 + simulateur.getNbEvenementsEnAttente();
+		empreinte = empreinte * 31 + simulateur.getNbConsultations();
+		return empreinte * 31 + calculerEmpreinte(simulateur.getDonneeSimulation());
+	}
+
+	/**
+	 * Calcule une empreinte des incendies et des robots de données de simulation.
+	 * Des données dans le même état ont la même empreinte
+	 *
+	 * @param donnees les données
+	 * @return l'empreinte de leur état
+	 */
+	public static long calculerEmpreinte(DonneeSimulation donnees) {
+		long empreinte = 0;
+		for (Incendie incendie : donnees.getIncendies()) {
+			empreinte = empreinte * 31 + incendie.getIntensite() * 7 + incendie.getPosition().getLigne() * 1000
+					+ incendie.getPosition().getColonne();
+			if (incendie instanceof ZoneIncendie)
+				empreinte = empreinte * 31 + ((ZoneIncendie) incendie).getNbCases();
+		}
+		for (Robot robot : donnees.getRobots()) {
+			empreinte = empreinte * 31 + robot.getPosition().getLigne() * 1000 + robot.getPosition().getColonne();
+			empreinte = empreinte * 31 + robot.getReservoir().getVolumeActuel();
+			Incendie objectif = robot.getObjectifCourant();
+			if (objectif != null)
+				empreinte = empreinte * 31 + objectif.getPosition().getLigne() * 1000
+						+ objectif.getPosition().getColonne();
+		}
+		return empreinte;
+	}
+}
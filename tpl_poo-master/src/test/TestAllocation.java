@@ -0,0 +1,91 @@
+package test;
+
+import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import donnees.simulation.DonneeSimulation;
+import donnees.simulation.SimulateurScript;
+import ia.strategie.ChefPompier;
+import ia.strategie.ChefPompierBasique;
+import ia.strategie.ChefPompierParesseux;
+import io.LecteurDonnees;
+
+/**
+ * Vérifie que la boucle d'évènements n'alloue (presque) plus rien une fois la
+ * simulation lancée : la carte est simulée sans interface graphique, et le
+ * nombre d'octets alloués par le thread pendant la simulation, mesuré par
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, est
+ * rapporté au nombre d'évènements exécutés. Le programme échoue si ce nombre
+ * dépasse le budget fixé, pour détecter les régressions.
+ * <p>
+ * La simulation mesurée est toujours la même, et le code qu'elle parcourt ne
+ * doit rien allouer par lui-même : le résultat ne dépend donc pas de ce que le
+ * JIT a eu le temps de compiler ou d'éliminer par analyse d'échappement, et
+ * reste le même en ne gardant que le premier compilateur
+ * (-XX:TieredStopAtLevel=1).
+ */
+public class TestAllocation {
+
+	private final static String CARTE = "cartes/spiralOfMadness-50x50.map";
+	/**
+	 * Durée simulée par pas, en secondes
+	 */
+	private final static long DUREE_PAS = 1000;
+	/**
+	 * Nombre de pas simulés avant la mesure, le temps que les robots et les
+	 * incendies aient construit leurs évènements
+	 */
+	private final static int NB_PAS_DEMARRAGE = 20;
+	private final static int NB_PAS_MESURES = 500;
+	private final static int NB_PASSAGES_CHAUFFE = 5;
+	/**
+	 * Budget d'octets alloués par évènement quand aucun ordre n'est donné : seule
+	 * la création des nouveaux incendies alloue encore
+	 */
+	private final static double BUDGET_SANS_ORDRE = 16;
+	/**
+	 * Budget d'octets alloués par évènement avec le chef pompier basique, qui
+	 * alloue en plus ses ordres et les chemins des robots
+	 */
+	private final static double BUDGET_CHEF_BASIQUE = 64;
+
+	public static void main(String[] args) throws FileNotFoundException {
+		DonneeSimulation donnees = LecteurDonnees.lire(CARTE);
+		boolean ok = verifier("paresseux", donnees, ChefPompierParesseux::new, BUDGET_SANS_ORDRE);
+		ok &= verifier("basique", donnees, ChefPompierBasique::new, BUDGET_CHEF_BASIQUE);
+		if (!ok)
+			System.exit(1);
+	}
+
+	private static boolean verifier(String nomChef, DonneeSimulation donnees, Supplier<ChefPompier> chef,
+			double budget) {
+		// Quelques passages pour laisser le JIT compiler le code, et supprimer les
+		// allocations qu'il sait supprimer
+		for (int i = 0; i < NB_PASSAGES_CHAUFFE; i++)
+			mesurer(donnees, chef.get());
+		double octetsParEvenement = mesurer(donnees, chef.get());
+		boolean ok = octetsParEvenement <= budget;
+		System.out.printf("%-10s %8.1f octets alloues par evenement (budget %.0f) %s%n", nomChef, octetsParEvenement,
+				budget, ok ? "" : "(BUDGET DEPASSE !)");
+		return ok;
+	}
+
+	private static double mesurer(DonneeSimulation donnees, ChefPompier chef) {
+		com.sun.management.ThreadMXBean mxBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		SimulateurScript simulateur = new SimulateurScript(donnees, chef, DUREE_PAS);
+		for (int i = 0; i < NB_PAS_DEMARRAGE; i++)
+			simulateur.next();
+
+		long evenementsAvant = simulateur.getNbEvenementsExecutes();
+		long octetsAvant = mxBean.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < NB_PAS_MESURES; i++)
+			simulateur.next();
+		long octets = mxBean.getThreadAllocatedBytes(thread) - octetsAvant;
+		long evenements = simulateur.getNbEvenementsExecutes() - evenementsAvant;
+		return evenements == 0 ? 0 : octets / (double) evenements;
+	}
+}
@@ -11,7 +11,6 @@ import donnees.simulation.DonneeSimulation;
 import donnees.simulation.Simulateur;
 import donnees.terrain.Case;
 import donnees.terrain.Direction;
-import donnees.terrain.NatureTerrain;
 import ia.strategie.ChefPompierParesseux;
 import io.LecteurDonnees;
 
@@ -42,7 +41,7 @@ public class TestScenarioBasique2 {
 			t = ajouterEvenement(simulateur, 
 					DeplacementRobot.calculer(t, donneeSimulation, r, Direction.NORD));
 //			Le faire intervenir sur la case où il se trouve.
-			Case csi = new Case(5,5, NatureTerrain.HABITAT);
+			Case csi = donneeSimulation.getCarte().getCase(5, 5);
 			Incendie incendie = simulateur.getDonneeSimulation().getSingleIncendie(csi);
 			t = ajouterEvenement(simulateur, 
 					InterventionRobot.calculer(t, r, incendie));